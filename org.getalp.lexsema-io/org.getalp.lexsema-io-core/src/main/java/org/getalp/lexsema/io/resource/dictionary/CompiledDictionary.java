@@ -0,0 +1,756 @@
+package org.getalp.lexsema.io.resource.dictionary;
+
+import org.getalp.lexsema.similarity.DefaultDocumentFactory;
+import org.getalp.lexsema.similarity.DocumentFactory;
+import org.getalp.lexsema.similarity.Sense;
+import org.getalp.lexsema.similarity.signatures.DefaultSemanticSignatureFactory;
+import org.getalp.lexsema.similarity.signatures.IndexedSemanticSignature;
+import org.getalp.lexsema.similarity.signatures.PackedVectorizedSemanticSignature;
+import org.getalp.lexsema.similarity.signatures.SemanticSignature;
+import org.getalp.lexsema.similarity.signatures.SemanticSignatureImpl;
+import org.getalp.lexsema.similarity.signatures.index.ConcurrentSymbolIndex;
+import org.getalp.lexsema.similarity.signatures.index.SymbolIndex;
+import org.getalp.lexsema.util.VectorOperation;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.XMLReaderFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * A dictionary compiled once from the XML format read by {@link DictionaryParser} into a binary file that is
+ * memory-mapped rather than parsed: opening it takes milliseconds and the senses of a word are only created, then
+ * cached, the first time the word is looked up. It is the map of {@code lemma%pos} to senses of
+ * {@link DictionaryLRLoader}, which opens a compiled dictionary wherever it accepts an XML one.
+ * <p>
+ * The file is little-endian and made of:
+ * <ul>
+ * <li>a header of {@value #HEADER_SIZE} bytes: the magic bytes {@code LXDICT01}, the version, the kind of
+ * signatures (symbols, indexed symbols or vectors), the number of words, the number of strings and the position of
+ * the senses;</li>
+ * <li>the words, one {@code lemma%pos} string id and one long offset of their senses per word, sorted by the UTF-8
+ * bytes of the words;</li>
+ * <li>the offsets of the strings in the pool, one int per string plus the end of the pool, then the pool of the
+ * interned strings (words, sense ids and symbols) in UTF-8;</li>
+ * <li>the senses of each word: their count then, per sense, the string id of the sense, the size of its signature
+ * (-1 if it has none) and the signature: string ids of the symbols (for indexed symbols, of their numeric ids,
+ * which are given their index in the global symbol index when read), or the dimension, one byte per symbol telling
+ * whether its vector is empty and the non-empty vectors in float32.</li>
+ * </ul>
+ * The senses of a word never cross a boundary of {@value #CHUNK_SIZE} bytes, so that they are mapped in chunks. The
+ * reads are thread-safe.
+ */
+public final class CompiledDictionary extends AbstractMap<String, List<Sense>> {
+
+    private static final DocumentFactory DOCUMENT_FACTORY = DefaultDocumentFactory.DEFAULT;
+
+    private static final byte[] MAGIC = "LXDICT01".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    private static final int CHUNK_SIZE = 1 << 30;
+
+    private static final int SYMBOLS = 0;
+    private static final int INDEXED = 1;
+    private static final int VECTORIZED = 2;
+    private static final String[] KIND_NAMES = {"symbols", "indexed", "vectorized"};
+
+    private static final int NO_SIGNATURE = -1;
+    private static final double[] EMPTY_VECTOR = new double[0];
+
+    private final int kind;
+    private final int wordCount;
+    private final ByteBuffer words;
+    private final ByteBuffer stringOffsets;
+    private final ByteBuffer pool;
+    private final ByteBuffer[] chunks;
+
+    /**
+     * The strings decoded so far, shared by all the senses that use them
+     */
+    private final String[] strings;
+    /**
+     * The indexes in the global symbol index of the strings used as indexed symbols, {@code -1} until first used
+     */
+    private final int[] symbolIndexes;
+    private final ConcurrentMap<String, List<Sense>> senses;
+    private final SymbolIndex symbolIndex = ConcurrentSymbolIndex.getGlobalIndex();
+
+    private CompiledDictionary(ByteBuffer header, ByteBuffer[] sections, ByteBuffer[] chunks) {
+        kind = header.getInt(MAGIC.length + 4);
+        wordCount = header.getInt(MAGIC.length + 8);
+        strings = new String[header.getInt(MAGIC.length + 12)];
+        symbolIndexes = new int[kind == INDEXED ? strings.length : 0];
+        Arrays.fill(symbolIndexes, -1);
+        words = sections[0];
+        stringOffsets = sections[1];
+        pool = sections[2];
+        this.chunks = chunks;
+        senses = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Maps a compiled dictionary read-only
+     */
+    public static CompiledDictionary open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return open(channel, path.toString());
+        }
+    }
+
+    /**
+     * Opens the compiled dictionary the stream is positioned at the start of: a file stream is mapped, any other
+     * stream is read into memory.
+     *
+     * @param dictionaryFile The stream, read from its start by {@link #isCompiled(InputStream)}
+     * @param input          The stream itself, or the stream wrapping it on which {@code isCompiled} was called
+     */
+    static CompiledDictionary open(InputStream dictionaryFile, InputStream input) throws IOException {
+        if (dictionaryFile instanceof FileInputStream) {
+            return open(((FileInputStream) dictionaryFile).getChannel(), "the dictionary stream");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1 << 16];
+        int read;
+        while ((read = input.read(buffer)) >= 0) {
+            bytes.write(buffer, 0, read);
+        }
+        ByteBuffer file = ByteBuffer.wrap(bytes.toByteArray());
+        return read(file, file.capacity(), position -> file, "the dictionary stream");
+    }
+
+    private static CompiledDictionary open(FileChannel channel, String name) throws IOException {
+        return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), HEADER_SIZE)), channel.size(),
+                position -> channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHUNK_SIZE, channel.size() - position)),
+                name);
+    }
+
+    /**
+     * Reads the layout of a compiled dictionary
+     *
+     * @param file   The start of the file, at least its header
+     * @param size   The size of the file
+     * @param mapper Maps the {@value #CHUNK_SIZE} bytes (or less at the end) of the file at a position
+     */
+    private static CompiledDictionary read(ByteBuffer file, long size, Mapper mapper, String name) throws IOException {
+        ByteBuffer header = file.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (size < HEADER_SIZE || !hasMagic(header)) {
+            throw new IOException(name + " is not a compiled dictionary");
+        }
+        int version = header.getInt(MAGIC.length);
+        if (version != VERSION) {
+            throw new IOException("Unsupported version " + version + " of the compiled dictionary " + name);
+        }
+        int kind = header.getInt(MAGIC.length + 4);
+        if (kind < 0 || kind >= KIND_NAMES.length) {
+            throw new IOException("Unknown kind " + kind + " of the compiled dictionary " + name);
+        }
+        int wordCount = header.getInt(MAGIC.length + 8);
+        int stringCount = header.getInt(MAGIC.length + 12);
+        long dataPosition = header.getLong(MAGIC.length + 16);
+        long stringOffsetsPosition = HEADER_SIZE + 12L * wordCount;
+        long poolPosition = stringOffsetsPosition + 4L * (stringCount + 1);
+        if (dataPosition > CHUNK_SIZE) {
+            throw new IOException("The words and strings of " + name + " exceed " + CHUNK_SIZE + " bytes");
+        }
+        ByteBuffer tables = mapper.map(0);
+        ByteBuffer[] sections = {
+                slice(tables, HEADER_SIZE, stringOffsetsPosition),
+                slice(tables, stringOffsetsPosition, poolPosition),
+                slice(tables, poolPosition, dataPosition)};
+        ByteBuffer[] chunks = new ByteBuffer[(int) ((size - dataPosition + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+        for (int c = 0; c < chunks.length; c++) {
+            long position = dataPosition + (long) c * CHUNK_SIZE;
+            ByteBuffer chunk = mapper.map(position);
+            if (chunk == file) {
+                chunk = slice(file, position, size);
+            }
+            chunks[c] = chunk.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return new CompiledDictionary(header, sections, chunks);
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, long from, long to) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.position((int) from);
+        slice.limit((int) to);
+        return slice.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * @return Whether the stream starts as a compiled dictionary; the stream is reset to where it was
+     */
+    static boolean isCompiled(InputStream input) throws IOException {
+        input.mark(MAGIC.length);
+        byte[] magic = new byte[MAGIC.length];
+        int read = 0;
+        int count;
+        while (read < magic.length && (count = input.read(magic, read, magic.length - read)) >= 0) {
+            read += count;
+        }
+        input.reset();
+        return read == magic.length && Arrays.equals(magic, MAGIC);
+    }
+
+    /**
+     * @return Whether the file starts as a compiled dictionary
+     */
+    public static boolean isCompiled(Path path) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) < HEADER_SIZE) {
+            return false;
+        }
+        try (InputStream is = Files.newInputStream(path)) {
+            byte[] magic = new byte[MAGIC.length];
+            return is.read(magic) == magic.length && Arrays.equals(magic, MAGIC);
+        }
+    }
+
+    private static boolean hasMagic(ByteBuffer header) {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header.get(i) != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isIndexed() {
+        return kind == INDEXED;
+    }
+
+    public boolean isVectorized() {
+        return kind == VECTORIZED;
+    }
+
+    /**
+     * @return The kind of the symbols of the dictionary, as given to {@link #main(String[])}: symbols, indexed or
+     * vectorized
+     */
+    public String getKind() {
+        return KIND_NAMES[kind];
+    }
+
+    /**
+     * @return The kind of the dictionary compiled with these options
+     */
+    public static String kindOf(boolean indexed, boolean vectorized) {
+        return KIND_NAMES[indexed ? INDEXED : vectorized ? VECTORIZED : SYMBOLS];
+    }
+
+    @Override
+    public int size() {
+        return wordCount;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && indexOf((String) key) >= 0;
+    }
+
+    /**
+     * Returns the senses of the word, created the first time they are asked for and then cached, so that the same
+     * {@code Sense} objects are returned every time as with a parsed dictionary.
+     *
+     * @param key The word, as {@code lemma%pos}
+     */
+    @Override
+    public List<Sense> get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        List<Sense> wordSenses = senses.get(key);
+        if (wordSenses == null) {
+            int index = indexOf((String) key);
+            if (index < 0) {
+                return null;
+            }
+            wordSenses = senses.computeIfAbsent((String) key, word -> readSenses(index));
+        }
+        return wordSenses;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new WordIterator<>(CompiledDictionary.this::word);
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public int size() {
+                return wordCount;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<String, List<Sense>>> entrySet() {
+        return new AbstractSet<Entry<String, List<Sense>>>() {
+            @Override
+            public Iterator<Entry<String, List<Sense>>> iterator() {
+                return new WordIterator<>(index -> {
+                    String word = word(index);
+                    return new SimpleImmutableEntry<>(word, get(word));
+                });
+            }
+
+            @Override
+            public int size() {
+                return wordCount;
+            }
+        };
+    }
+
+    private int indexOf(String word) {
+        byte[] key = word.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = wordCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareString(words.getInt(12 * middle), key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int compareString(int id, byte[] key) {
+        int start = stringOffsets.getInt(4 * id);
+        int length = stringOffsets.getInt(4 * id + 4) - start;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int comparison = Integer.compare(pool.get(start + i) & 0xFF, key[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private String word(int index) {
+        return string(words.getInt(12 * index));
+    }
+
+    private String string(int id) {
+        String string = strings[id];
+        if (string == null) {
+            int start = stringOffsets.getInt(4 * id);
+            byte[] bytes = new byte[stringOffsets.getInt(4 * id + 4) - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = pool.get(start + i);
+            }
+            string = new String(bytes, StandardCharsets.UTF_8);
+            strings[id] = string;
+        }
+        return string;
+    }
+
+    /**
+     * The index of a string in the global symbol index; concurrent readers at worst look the string up twice
+     */
+    private int symbolIndex(int id) {
+        int index = symbolIndexes[id];
+        if (index < 0) {
+            index = symbolIndex.getSymbolIndex(string(id));
+            symbolIndexes[id] = index;
+        }
+        return index;
+    }
+
+    private List<Sense> readSenses(int index) {
+        long offset = words.getLong(12 * index + 4);
+        ByteBuffer chunk = chunks[(int) (offset / CHUNK_SIZE)];
+        int position = (int) (offset % CHUNK_SIZE);
+        int senseCount = chunk.getInt(position);
+        position += 4;
+        List<Sense> wordSenses = new ArrayList<>(senseCount);
+        double[] vector = null;
+        for (int s = 0; s < senseCount; s++) {
+            Sense sense = DOCUMENT_FACTORY.createSense(string(chunk.getInt(position)));
+            int signatureSize = chunk.getInt(position + 4);
+            position += 8;
+            if (signatureSize == NO_SIGNATURE) {
+                wordSenses.add(sense);
+                continue;
+            }
+            if (kind == INDEXED) {
+                IndexedSemanticSignature semanticSignature = DefaultSemanticSignatureFactory.DEFAULT.createPrimitiveIndexedSemanticSignature(symbolIndex);
+                for (int i = 0; i < signatureSize; i++, position += 4) {
+                    semanticSignature.addIndexedSymbol(symbolIndex(chunk.getInt(position)));
+                }
+                semanticSignature.sort();
+                sense.setSemanticSignature(semanticSignature);
+            } else if (kind == VECTORIZED) {
+                PackedVectorizedSemanticSignature semanticSignature = DefaultSemanticSignatureFactory.DEFAULT.createPackedVectorizedSemanticSignature();
+                int dimension = chunk.getInt(position);
+                position += 4;
+                int rowPosition = position + signatureSize;
+                if (vector == null || vector.length != dimension) {
+                    vector = new double[dimension];
+                }
+                for (int i = 0; i < signatureSize; i++) {
+                    if (chunk.get(position + i) == 0) {
+                        semanticSignature.addVector(EMPTY_VECTOR);
+                    } else {
+                        for (int k = 0; k < dimension; k++, rowPosition += 4) {
+                            vector[k] = chunk.getFloat(rowPosition);
+                        }
+                        semanticSignature.addVector(vector);
+                    }
+                }
+                position = rowPosition;
+                sense.setSemanticSignature(semanticSignature);
+            } else {
+                SemanticSignature semanticSignature = new SemanticSignatureImpl();
+                for (int i = 0; i < signatureSize; i++, position += 4) {
+                    semanticSignature.addSymbol(string(chunk.getInt(position)));
+                }
+                sense.setSemanticSignature(semanticSignature);
+            }
+            wordSenses.add(sense);
+        }
+        return wordSenses;
+    }
+
+    /**
+     * Compiles an XML dictionary, read in a single pass: only the strings and the table of the words are kept in
+     * memory, the senses are written as soon as their word is parsed.
+     *
+     * @param dictionaryFile The XML dictionary
+     * @param output         The compiled dictionary
+     * @param indexed        Whether the symbols of the dictionary are indexed symbols
+     * @param vectorized     Whether the symbols of the dictionary are vectors, ignored if indexed
+     */
+    public static void compile(InputStream dictionaryFile, Path output, boolean indexed, boolean vectorized) throws IOException {
+        Path senseFile = Files.createTempFile(output.toAbsolutePath().getParent(), "senses", ".tmp");
+        try (FileChannel senseChannel = FileChannel.open(senseFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            Compiler compiler = new Compiler(senseChannel, indexed ? INDEXED : vectorized ? VECTORIZED : SYMBOLS);
+            try {
+                XMLReader saxReader = XMLReaderFactory.createXMLReader();
+                saxReader.setContentHandler(compiler);
+                saxReader.parse(new InputSource(dictionaryFile));
+            } catch (SAXException e) {
+                throw new IOException("Parser error: " + e.getLocalizedMessage(), e);
+            }
+            compiler.write(output, senseChannel);
+        } finally {
+            Files.deleteIfExists(senseFile);
+        }
+    }
+
+    /**
+     * Compiles a dictionary: {@code CompiledDictionary <dictionary.xml> <output> [symbols|indexed|vectorized]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CompiledDictionary <dictionary.xml> <output> [symbols|indexed|vectorized]");
+            System.exit(1);
+        }
+        String kind = args.length > 2 ? args[2] : "indexed";
+        try (InputStream dictionaryFile = Files.newInputStream(Paths.get(args[0]))) {
+            compile(dictionaryFile, Paths.get(args[1]), kind.equals("indexed"), kind.equals("vectorized"));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Mapper {
+        ByteBuffer map(long position) throws IOException;
+    }
+
+    private final class WordIterator<T> implements Iterator<T> {
+
+        private final IntFunction<T> element;
+        private int index;
+
+        private WordIterator(IntFunction<T> element) {
+            this.element = element;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < wordCount;
+        }
+
+        @Override
+        public T next() {
+            if (index >= wordCount) {
+                throw new NoSuchElementException();
+            }
+            return element.apply(index++);
+        }
+    }
+
+    /**
+     * Parses the XML dictionary as {@link DictionaryParser} does, writing the senses of each word to the sense file
+     */
+    private static final class Compiler extends DefaultHandler {
+
+        private final FileChannel senseChannel;
+        private final int kind;
+
+        private final Map<String, Integer> stringIds = new HashMap<>();
+        private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        private int[] stringOffsets = new int[1024];
+
+        private final List<byte[]> wordKeys = new ArrayList<>();
+        private final List<Integer> wordIds = new ArrayList<>();
+        private long[] wordOffsets = new long[1024];
+
+        private ByteBuffer record = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private long senseFileSize;
+
+        private String word;
+        private int senseCount;
+        private int senseCountPosition;
+        private final StringBuilder text = new StringBuilder();
+        private boolean ids;
+        private boolean def;
+        private String currentId;
+        private String currentSignature;
+
+        private Compiler(FileChannel senseChannel, int kind) {
+            this.senseChannel = senseChannel;
+            this.kind = kind;
+        }
+
+        private int intern(String string) {
+            Integer id = stringIds.get(string);
+            if (id == null) {
+                id = stringIds.size();
+                stringIds.put(string, id);
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                pool.write(bytes, 0, bytes.length);
+                if (id + 1 >= stringOffsets.length) {
+                    stringOffsets = Arrays.copyOf(stringOffsets, stringOffsets.length * 2);
+                }
+                stringOffsets[id + 1] = pool.size();
+            }
+            return id;
+        }
+
+        private void ensureRecord(int bytes) {
+            if (record.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(record.capacity() * 2, record.position() + bytes)).order(ByteOrder.LITTLE_ENDIAN);
+                record.flip();
+                larger.put(record);
+                record = larger;
+            }
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) {
+            switch (localName) {
+                case "word":
+                    word = atts.getValue("tag").toLowerCase();
+                    record.clear();
+                    senseCount = 0;
+                    senseCountPosition = record.position();
+                    record.putInt(0);
+                    break;
+                case "sense":
+                    currentId = "";
+                    currentSignature = null;
+                    break;
+                case "ids":
+                    ids = true;
+                    text.setLength(0);
+                    break;
+                case "def":
+                    def = true;
+                    text.setLength(0);
+                    break;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "word":
+                    record.putInt(senseCountPosition, senseCount);
+                    try {
+                        writeWord();
+                    } catch (IOException e) {
+                        throw new SAXException(e);
+                    }
+                    break;
+                case "sense":
+                    writeSense();
+                    break;
+                case "ids":
+                    ids = false;
+                    currentId = text.toString().trim().toLowerCase();
+                    break;
+                case "def":
+                    def = false;
+                    currentSignature = text.toString();
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (ids || def) {
+                text.append(ch, start, length);
+            }
+        }
+
+        private void writeSense() throws SAXException {
+            ensureRecord(8);
+            record.putInt(intern(currentId));
+            senseCount++;
+            if (currentSignature == null) {
+                record.putInt(NO_SIGNATURE);
+                return;
+            }
+            List<String> symbols = new ArrayList<>();
+            StringTokenizer st = new StringTokenizer(currentSignature);
+            while (st.hasMoreTokens()) {
+                symbols.add(st.nextToken());
+            }
+            record.putInt(symbols.size());
+            if (kind == VECTORIZED) {
+                List<double[]> vectors = symbols.stream().map(VectorOperation::to_vector).collect(Collectors.toList());
+                int dimension = 0;
+                int vectorCount = 0;
+                for (double[] vector : vectors) {
+                    if (vector.length > 0) {
+                        if (dimension != 0 && vector.length != dimension) {
+                            throw new SAXException("Vector of dimension " + vector.length + " in a signature of dimension " + dimension + " for " + currentId);
+                        }
+                        dimension = vector.length;
+                        vectorCount++;
+                    }
+                }
+                ensureRecord(4 + vectors.size() + 4 * vectorCount * dimension);
+                record.putInt(dimension);
+                for (double[] vector : vectors) {
+                    record.put((byte) (vector.length > 0 ? 1 : 0));
+                }
+                for (double[] vector : vectors) {
+                    for (double component : vector) {
+                        record.putFloat((float) component);
+                    }
+                }
+            } else {
+                ensureRecord(4 * symbols.size());
+                for (String symbol : symbols) {
+                    try {
+                        if (kind == INDEXED) {
+                            Integer.parseInt(symbol);
+                        }
+                        record.putInt(intern(symbol));
+                    } catch (NumberFormatException e) {
+                        throw new SAXException("Symbol " + symbol + " of " + currentId + " is not an indexed symbol", e);
+                    }
+                }
+            }
+        }
+
+        private void writeWord() throws IOException {
+            record.flip();
+            if (record.remaining() > CHUNK_SIZE) {
+                throw new IOException("The senses of " + word + " exceed " + CHUNK_SIZE + " bytes");
+            }
+            long chunkEnd = (senseFileSize / CHUNK_SIZE + 1) * CHUNK_SIZE;
+            if (senseFileSize + record.remaining() > chunkEnd) {
+                senseFileSize = chunkEnd;
+            }
+            int index = wordIds.size();
+            if (index == wordOffsets.length) {
+                wordOffsets = Arrays.copyOf(wordOffsets, index * 2);
+            }
+            wordOffsets[index] = senseFileSize;
+            wordIds.add(intern(word));
+            wordKeys.add(word.getBytes(StandardCharsets.UTF_8));
+            while (record.hasRemaining()) {
+                senseFileSize += senseChannel.write(record, senseFileSize);
+            }
+        }
+
+        /**
+         * Writes the header, the sorted words and the strings to the output, followed by the sense file
+         */
+        private void write(Path output, FileChannel senseChannel) throws IOException {
+            Integer[] order = new Integer[wordIds.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> {
+                int comparison = compareBytes(wordKeys.get(a), wordKeys.get(b));
+                // A word defined twice keeps its last senses, as in a parsed dictionary
+                return comparison != 0 ? comparison : Integer.compare(b, a);
+            });
+            List<Integer> sorted = new ArrayList<>(order.length);
+            for (int i = 0; i < order.length; i++) {
+                if (i == 0 || compareBytes(wordKeys.get(order[i]), wordKeys.get(order[i - 1])) != 0) {
+                    sorted.add(order[i]);
+                }
+            }
+            int stringCount = stringIds.size();
+            long dataPosition = HEADER_SIZE + 12L * sorted.size() + 4L * (stringCount + 1) + pool.size();
+            if (dataPosition > CHUNK_SIZE) {
+                throw new IOException("The words and strings of the dictionary exceed " + CHUNK_SIZE + " bytes");
+            }
+            ByteBuffer tables = ByteBuffer.allocate((int) dataPosition).order(ByteOrder.LITTLE_ENDIAN);
+            tables.put(MAGIC).putInt(VERSION).putInt(kind).putInt(sorted.size()).putInt(stringCount).putLong(dataPosition);
+            for (int index : sorted) {
+                tables.putInt(wordIds.get(index)).putLong(wordOffsets[index]);
+            }
+            for (int i = 0; i <= stringCount; i++) {
+                tables.putInt(stringOffsets[i]);
+            }
+            tables.put(pool.toByteArray());
+            tables.flip();
+            try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (tables.hasRemaining()) {
+                    out.write(tables);
+                }
+                long position = 0;
+                while (position < senseFileSize) {
+                    position += senseChannel.transferTo(position, senseFileSize - position, out);
+                }
+            }
+        }
+
+        private static int compareBytes(byte[] a, byte[] b) {
+            int common = Math.min(a.length, b.length);
+            for (int i = 0; i < common; i++) {
+                int comparison = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return Integer.compare(a.length, b.length);
+        }
+    }
+}
@@ -10,7 +10,7 @@ import org.getalp.lexsema.similarity.signatures.IndexedSemanticSignature;
 import org.getalp.lexsema.similarity.signatures.SemanticSignature;
 import org.getalp.lexsema.similarity.signatures.enrichment.SignatureEnrichment;
 import org.getalp.lexsema.similarity.signatures.index.SymbolIndex;
-import org.getalp.lexsema.similarity.signatures.index.SymbolIndexImpl;
+import org.getalp.lexsema.similarity.signatures.index.ConcurrentSymbolIndex;
 import org.getalp.lexsema.similarity.signatures.symbols.SemanticSymbol;
 import org.getalp.lexsema.util.StopList;
 import org.getalp.lexsema.util.distribution.SparkSingleton;
@@ -22,6 +22,7 @@ import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.XMLReaderFactory;
 
+import java.io.BufferedInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -65,16 +66,36 @@ public class DictionaryLRLoader implements LRLoader {
     }
     
     public DictionaryLRLoader(InputStream dictionaryFile, boolean indexed, boolean vectorized, SignatureEnrichment signatureEnrichment) {
-        wordSenses = new HashMap<>();
         this.indexed = indexed;
         this.signatureEnrichment = signatureEnrichment;
         usesStopWords = false;
         usesStemming = false;
-        symbolIndex = new SymbolIndexImpl();
+        symbolIndex = ConcurrentSymbolIndex.getGlobalIndex();
+        wordSenses = loadDictionary(dictionaryFile, indexed, vectorized);
+        saveSymbolIndex();
+    }
+
+    /**
+     * Opens a dictionary compiled by {@link CompiledDictionary}, whose senses are created lazily, or parses an XML
+     * dictionary
+     *
+     * @throws IllegalArgumentException If the dictionary is compiled with other symbols than the ones of the loader
+     */
+    private static Map<String, List<Sense>> loadDictionary(InputStream dictionaryFile, boolean indexed, boolean vectorized) {
+        Map<String, List<Sense>> wordSenses = new HashMap<>();
         try {
+            InputStream input = dictionaryFile.markSupported() ? dictionaryFile : new BufferedInputStream(dictionaryFile);
+            if (CompiledDictionary.isCompiled(input)) {
+                CompiledDictionary compiledDictionary = CompiledDictionary.open(dictionaryFile, input);
+                String expectedKind = CompiledDictionary.kindOf(indexed, vectorized);
+                if (!compiledDictionary.getKind().equals(expectedKind)) {
+                    throw new IllegalArgumentException(MessageFormat.format("The compiled dictionary is a {0} dictionary, the loader expects a {1} dictionary", compiledDictionary.getKind(), expectedKind));
+                }
+                return compiledDictionary;
+            }
             XMLReader saxReader = XMLReaderFactory.createXMLReader();
             saxReader.setContentHandler(new DictionaryParser(wordSenses, indexed, vectorized));
-            saxReader.parse(new InputSource(dictionaryFile));
+            saxReader.parse(new InputSource(input));
         } catch (SAXException e) {
             logger.error(MessageFormat.format("Parser error :{0}", e.getLocalizedMessage()));
         } catch (FileNotFoundException e) {
@@ -82,6 +103,7 @@ public class DictionaryLRLoader implements LRLoader {
         } catch (IOException e) {
             logger.error(MessageFormat.format("Read|Write error :{0}", e.getLocalizedMessage()));
         }
+        return wordSenses;
     }
 
 
@@ -98,22 +120,27 @@ public class DictionaryLRLoader implements LRLoader {
             }
             senses = wordSenses.get(tag);
             if (senses != null) {
-                for (Sense sense : senses) {
-                    if (!indexed) {
+                if (!indexed) {
+                    List<SemanticSignature> semanticSignatures = new ArrayList<>(senses.size());
+                    for (Sense sense : senses) {
                         SemanticSignature semanticSignature = sense.getSemanticSignature();
                         if (usesStopWords) {
                             semanticSignature = removeStopWords(semanticSignature);
                         }
-                        if (signatureEnrichment != null) {
-                            semanticSignature = signatureEnrichment.enrichSemanticSignature(semanticSignature);
-                        }
+                        semanticSignatures.add(semanticSignature);
+                    }
+                    if (signatureEnrichment != null) {
+                        semanticSignatures = signatureEnrichment.enrichSemanticSignatures(semanticSignatures);
+                    }
+                    for (int i = 0; i < senses.size(); i++) {
+                        SemanticSignature semanticSignature = semanticSignatures.get(i);
                         if (usesStemming) {
                             semanticSignature = stemSignatureWords(semanticSignature);
                         }
                         if (useIndex) {
                             semanticSignature = indexSignature(semanticSignature);
                         }
-                        sense.setSemanticSignature(semanticSignature);
+                        senses.get(i).setSemanticSignature(semanticSignature);
                     }
                 }
             }
@@ -126,7 +153,7 @@ public class DictionaryLRLoader implements LRLoader {
 
     private SemanticSignature indexSignature(Iterable<SemanticSymbol> signature) {
         IndexedSemanticSignature indexedSignature = DefaultSemanticSignatureFactory.DEFAULT.
-                createIndexedSemanticSignature(symbolIndex);
+                createPrimitiveIndexedSemanticSignature(symbolIndex);
         for (SemanticSymbol symbol : signature) {
             indexedSignature.addSymbol(symbol);
         }
@@ -187,6 +214,19 @@ public class DictionaryLRLoader implements LRLoader {
             }
         }
         senses.forEach(document::addWordSenses);
+        saveSymbolIndex();
+    }
+
+    /**
+     * Persists the symbols that loading the dictionary or the senses added to the global symbol index, so that the
+     * next runs give them the same indexes
+     */
+    private static void saveSymbolIndex() {
+        try {
+            ConcurrentSymbolIndex.saveGlobalIndex();
+        } catch (IOException e) {
+            logger.warn(MessageFormat.format("Cannot save the symbol index :{0}", e.getLocalizedMessage()));
+        }
     }
 
     @SuppressWarnings({"LocalVariableOfConcreteClass", "LawOfDemeter", "resource"})
@@ -6,7 +6,7 @@ import org.getalp.lexsema.similarity.DocumentFactory;
 import org.getalp.lexsema.similarity.Sense;
 import org.getalp.lexsema.similarity.signatures.*;
 import org.getalp.lexsema.similarity.signatures.index.SymbolIndex;
-import org.getalp.lexsema.similarity.signatures.index.SymbolIndexImpl;
+import org.getalp.lexsema.similarity.signatures.index.ConcurrentSymbolIndex;
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.Locator;
@@ -35,7 +35,7 @@ public class DictionaryParser implements ContentHandler {
     @SuppressWarnings("unused")
     private Locator locator;
     private String currentSemanticSignature = "";
-    private final SymbolIndex symbolIndex = new SymbolIndexImpl();
+    private final SymbolIndex symbolIndex = ConcurrentSymbolIndex.getGlobalIndex();
     private String currentId = "";
 
     public DictionaryParser(Map<String, List<Sense>> senseMap, boolean indexed, boolean vectorized) throws FileNotFoundException {
@@ -114,14 +114,17 @@ public class DictionaryParser implements ContentHandler {
             case "def":
                 def = false;
                 if (indexed) {
-                    IndexedSemanticSignature semanticSignature = DefaultSemanticSignatureFactory.DEFAULT.createIndexedSemanticSignature(symbolIndex);
+                    // The numeric ids of the file are given their own index in the global symbol index, so that the
+                    // signatures can be compared with the ones of the other loaders
+                    IndexedSemanticSignature semanticSignature = DefaultSemanticSignatureFactory.DEFAULT.createPrimitiveIndexedSemanticSignature(symbolIndex);
                     StringTokenizer st = new StringTokenizer(currentSemanticSignature);
                     while (st.hasMoreTokens()) {
-                        semanticSignature.addIndexedSymbol(Integer.valueOf(st.nextToken()));
+                        semanticSignature.addSymbol(st.nextToken());
                     }
+                    semanticSignature.sort();
                     mw.setSemanticSignature(semanticSignature);
                 } else if (vectorized) {
-                    VectorizedSemanticSignature semanticSignature = DefaultSemanticSignatureFactory.DEFAULT.createVectorizedSemanticSignature();
+                    PackedVectorizedSemanticSignature semanticSignature = DefaultSemanticSignatureFactory.DEFAULT.createPackedVectorizedSemanticSignature();
                     StringTokenizer st = new StringTokenizer(currentSemanticSignature);
                     while (st.hasMoreTokens()) {
                         semanticSignature.addSymbol(st.nextToken());
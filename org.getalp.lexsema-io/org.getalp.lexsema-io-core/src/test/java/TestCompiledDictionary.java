@@ -0,0 +1,145 @@
+import org.getalp.lexsema.io.resource.dictionary.CompiledDictionary;
+import org.getalp.lexsema.io.resource.dictionary.DictionaryLRLoader;
+import org.getalp.lexsema.io.resource.dictionary.DictionaryParser;
+import org.getalp.lexsema.similarity.Sense;
+import org.getalp.lexsema.similarity.signatures.PrimitiveIndexedSemanticSignature;
+import org.getalp.lexsema.similarity.signatures.index.ConcurrentSymbolIndex;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLReaderFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that a compiled dictionary has the same senses as the XML dictionary it was compiled from
+ */
+public class TestCompiledDictionary {
+
+    private static final int SYMBOLS = 0;
+    private static final int INDEXED = 1;
+    private static final int VECTORIZED = 2;
+
+    @Test
+    public void testSymbolsDictionary() throws Exception {
+        testSameSensesAsParser(SYMBOLS);
+    }
+
+    @Test
+    public void testIndexedDictionary() throws Exception {
+        testSameSensesAsParser(INDEXED);
+    }
+
+    @Test
+    public void testVectorizedDictionary() throws Exception {
+        testSameSensesAsParser(VECTORIZED);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoaderRejectsAnotherKind() throws Exception {
+        Path compiled = compile(generateDictionary(INDEXED), INDEXED);
+        try (InputStream input = new FileInputStream(compiled.toFile())) {
+            new DictionaryLRLoader(input, false, true);
+        } finally {
+            Files.deleteIfExists(compiled);
+        }
+    }
+
+    private void testSameSensesAsParser(int kind) throws Exception {
+        byte[] xml = generateDictionary(kind);
+        Map<String, List<Sense>> parsed = new HashMap<>();
+        XMLReader saxReader = XMLReaderFactory.createXMLReader();
+        saxReader.setContentHandler(new DictionaryParser(parsed, kind == INDEXED, kind == VECTORIZED));
+        saxReader.parse(new InputSource(new ByteArrayInputStream(xml)));
+
+        Path compiledFile = compile(xml, kind);
+        try {
+            CompiledDictionary compiled = CompiledDictionary.open(compiledFile);
+            assertEquals(CompiledDictionary.kindOf(kind == INDEXED, kind == VECTORIZED), compiled.getKind());
+            assertEquals(parsed.size(), compiled.size());
+            assertEquals(parsed.keySet(), new HashSet<>(compiled.keySet()));
+            assertEquals(parsed.size(), compiled.entrySet().size());
+            for (Map.Entry<String, List<Sense>> entry : parsed.entrySet()) {
+                List<Sense> expected = entry.getValue();
+                List<Sense> actual = compiled.get(entry.getKey());
+                assertEquals(entry.getKey(), expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i).getId(), actual.get(i).getId());
+                    assertEquals(expected.get(i).getSemanticSignature().getClass(), actual.get(i).getSemanticSignature().getClass());
+                    assertEquals(expected.get(i).getSemanticSignature().toString(), actual.get(i).getSemanticSignature().toString());
+                    if (kind == INDEXED && actual.get(i).getSemanticSignature() != null) {
+                        // The numeric ids of the file are symbols of the global index
+                        for (int id : ((PrimitiveIndexedSemanticSignature) actual.get(i).getSemanticSignature()).getSymbolIds()) {
+                            assertTrue(ConcurrentSymbolIndex.getGlobalIndex().getSymbol(id).matches("\\d+"));
+                        }
+                    }
+                }
+                assertSame(actual, compiled.get(entry.getKey()));
+            }
+            assertNull(compiled.get("missing%n"));
+            assertFalse(compiled.containsKey("missing%n"));
+        } finally {
+            Files.deleteIfExists(compiledFile);
+        }
+    }
+
+    private static Path compile(byte[] xml, int kind) throws Exception {
+        Path compiled = Files.createTempFile("dictionary", ".bin");
+        CompiledDictionary.compile(new ByteArrayInputStream(xml), compiled, kind == INDEXED, kind == VECTORIZED);
+        return compiled;
+    }
+
+    /**
+     * Generates a dictionary with words that occur twice, words without senses, senses without definition and, for
+     * vectors, empty vectors
+     */
+    private static byte[] generateDictionary(int kind) {
+        Random random = new Random(1);
+        StringBuilder xml = new StringBuilder("<dict>");
+        for (int w = 0; w < 1000; w++) {
+            xml.append("<word tag=\"Lemmé").append(w % 950).append('%').append("nvar".charAt(w % 4)).append("\">");
+            int senses = random.nextInt(4);
+            for (int s = 0; s < senses; s++) {
+                xml.append("<sense><ids>ID").append(w).append('_').append(s).append("</ids>");
+                if (random.nextInt(10) > 0) {
+                    xml.append("<def>");
+                    int symbols = random.nextInt(6);
+                    for (int k = 0; k < symbols; k++) {
+                        if (kind == INDEXED) {
+                            xml.append(random.nextInt(1000)).append(' ');
+                        } else if (kind == VECTORIZED) {
+                            if (random.nextInt(4) == 0) {
+                                xml.append("[] ");
+                            } else {
+                                xml.append('[').append(random.nextFloat()).append(',').append(random.nextFloat()).append(',').append(random.nextFloat()).append("] ");
+                            }
+                        } else {
+                            xml.append("sym").append(random.nextInt(300)).append(' ');
+                        }
+                    }
+                    xml.append("</def>");
+                }
+                xml.append("</sense>");
+            }
+            xml.append("</word>");
+        }
+        xml.append("</dict>");
+        return xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,33 @@
+package org.getalp.lexsema.similarity.signatures;
+
+/**
+ * A vectorized semantic signature whose vectors are packed in a single row-major float matrix, so that similarity
+ * measures can compare two signatures with one matrix product instead of walking lists of symbols and boxed vectors.
+ * The symbols whose vector is empty (words that could not be vectorized) are kept as symbols but have no row.
+ */
+public interface PackedVectorizedSemanticSignature extends VectorizedSemanticSignature {
+
+    /**
+     * Returns the non-empty vectors of the signature, one row of {@link #getDimension()} floats after the other, in
+     * the order of their symbols. Only the first {@link #getVectorCount()} rows are used. The returned array is the
+     * backing array of the signature and must not be modified.
+     */
+    float[] getVectorMatrix();
+
+    /**
+     * @return The number of rows of the matrix, i.e. the number of symbols whose vector is not empty
+     */
+    int getVectorCount();
+
+    /**
+     * @return The dimension of the vectors, 0 while the signature has no vector
+     */
+    int getDimension();
+
+    void addVector(double[] vector, double weight);
+
+    void addVector(double[] vector);
+
+    @Override
+    PackedVectorizedSemanticSignature copy();
+}
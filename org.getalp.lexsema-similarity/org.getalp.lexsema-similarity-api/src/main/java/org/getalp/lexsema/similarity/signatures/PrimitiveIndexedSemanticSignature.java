@@ -0,0 +1,21 @@
+package org.getalp.lexsema.similarity.signatures;
+
+/**
+ * An indexed semantic signature backed by primitive arrays, whose symbol ids and weights can be read directly by
+ * similarity measures without boxing or copying.
+ */
+public interface PrimitiveIndexedSemanticSignature extends IndexedSemanticSignature {
+
+    /**
+     * Returns the symbol ids of the signature sorted in increasing order. The returned array is the backing array of
+     * the signature, its length is {@link #size()} and it must not be modified.
+     */
+    int[] getSymbolIds();
+
+    /**
+     * Returns the weights of the symbols, parallel to {@link #getSymbolIds()}, or {@code null} when all the symbols
+     * have the default weight of 1. The returned array is the backing array of the signature and must not be
+     * modified.
+     */
+    float[] getSymbolWeights();
+}
@@ -20,7 +20,12 @@ public interface SemanticSignatureFactory {
     IndexedSemanticSignature createIndexedSemanticSignature(SymbolIndex symbolIndex);
     IndexedSemanticSignature createIndexedSemanticSignature(List<IndexedSemanticSymbol> symbols, SymbolIndex symbolIndex);
 
+    PrimitiveIndexedSemanticSignature createPrimitiveIndexedSemanticSignature();
+    PrimitiveIndexedSemanticSignature createPrimitiveIndexedSemanticSignature(SymbolIndex symbolIndex);
+
     VectorizedSemanticSignature createVectorizedSemanticSignature();
     VectorizedSemanticSignature createVectorizedSemanticSignature(List<VectorizedSemanticSymbol> symbols);
 
+    PackedVectorizedSemanticSignature createPackedVectorizedSemanticSignature();
+
 }
@@ -4,6 +4,8 @@ import org.getalp.lexsema.similarity.signatures.SemanticSignature;
 import org.getalp.lexsema.util.Language;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 public interface SignatureEnrichment extends Serializable {
     SemanticSignature enrichSemanticSignature(SemanticSignature semanticSignature);
@@ -11,5 +13,20 @@ public interface SignatureEnrichment extends Serializable {
     SemanticSignature enrichSemanticSignature(SemanticSignature semanticSignature, Language language);
 
     SemanticSignature enrichSemanticSignature(SemanticSignature semanticSignature, String id);
+
+    /**
+     * Enriches several signatures at once, e.g. all the senses of a word, which lets cached enrichments batch their
+     * lookups. By default the signatures are enriched one by one.
+     *
+     * @return The enriched signatures, in the same order
+     */
+    default List<SemanticSignature> enrichSemanticSignatures(List<SemanticSignature> semanticSignatures) {
+        List<SemanticSignature> signatures = new ArrayList<>(semanticSignatures.size());
+        for (SemanticSignature semanticSignature : semanticSignatures) {
+            signatures.add(enrichSemanticSignature(semanticSignature));
+        }
+        return signatures;
+    }
+
     void close();
 }
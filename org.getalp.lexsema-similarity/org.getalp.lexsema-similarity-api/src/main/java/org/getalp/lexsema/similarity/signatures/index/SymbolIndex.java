@@ -14,4 +14,16 @@ public interface SymbolIndex extends Serializable{
      * @return The index of the symbol
      */
     public Integer getSymbolIndex(String symbol);
+
+    /**
+     * Return the symbol associated to the specified index.
+     * @param index The index of the symbol
+     * @return The symbol, or null if no symbol has this index
+     */
+    public String getSymbol(int index);
+
+    /**
+     * @return The number of symbols in the index, which is also the next index to be assigned
+     */
+    public int size();
 }
@@ -1,5 +1,6 @@
 package org.getalp.lexsema.similarity.measures.lesk;
 
+import org.getalp.lexsema.similarity.signatures.PrimitiveIndexedSemanticSignature;
 import org.getalp.lexsema.similarity.signatures.SemanticSignature;
 import java.util.Map;
 
@@ -7,6 +8,11 @@ public class IndexedDiceLeskSimilarity extends IndexedLeskSimilarity
 {
     public double compute(SemanticSignature sigA, SemanticSignature sigB)
     {
+        if (sigA instanceof PrimitiveIndexedSemanticSignature && sigB instanceof PrimitiveIndexedSemanticSignature)
+        {
+            return SortedOverlapKernels.dice(((PrimitiveIndexedSemanticSignature) sigA).getSymbolIds(),
+                                             ((PrimitiveIndexedSemanticSignature) sigB).getSymbolIds());
+        }
         double score = super.compute(sigA, sigB);
         score = (2.0 * score) / (((double) sigA.size()) + ((double) sigB.size()));
         return score;
@@ -2,6 +2,7 @@ package org.getalp.lexsema.similarity.measures.lesk;
 
 import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
 import org.getalp.lexsema.similarity.signatures.IndexedSemanticSignature;
+import org.getalp.lexsema.similarity.signatures.PrimitiveIndexedSemanticSignature;
 import org.getalp.lexsema.similarity.signatures.SemanticSignature;
 
 import java.util.List;
@@ -11,6 +12,11 @@ public class IndexedLeskSimilarity implements SimilarityMeasure
 {
     public double compute(SemanticSignature sigA, SemanticSignature sigB)
     {
+        if (sigA instanceof PrimitiveIndexedSemanticSignature && sigB instanceof PrimitiveIndexedSemanticSignature)
+        {
+            return SortedOverlapKernels.overlap(((PrimitiveIndexedSemanticSignature) sigA).getSymbolIds(),
+                                                ((PrimitiveIndexedSemanticSignature) sigB).getSymbolIds());
+        }
         List<Integer> la = ((IndexedSemanticSignature) sigA).getIndexedSymbols();
         List<Integer> lb = ((IndexedSemanticSignature) sigB).getIndexedSymbols(); 
         int aSize = la.size();
@@ -2,6 +2,7 @@ package org.getalp.lexsema.similarity.measures.lesk;
 
 import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
 import org.getalp.lexsema.similarity.signatures.IndexedSemanticSignature;
+import org.getalp.lexsema.similarity.signatures.PrimitiveIndexedSemanticSignature;
 import org.getalp.lexsema.similarity.signatures.symbols.SemanticSymbol;
 import org.getalp.lexsema.similarity.signatures.SemanticSignature;
 
@@ -11,6 +12,13 @@ import java.util.Map;
 /**
  * An overlap measure based on sorted and indexed definition bags of words. This is the lesk implementation from the formica
  * project.
+ * <p>
+ * When both signatures are {@link PrimitiveIndexedSemanticSignature}s, the overlap is the number of ids the two sorted
+ * id arrays have in common, repeated ids being matched one to one, as computed by {@link IndexedLeskSimilarity}. The
+ * walk over the string symbols, kept for the other signatures, compares the symbols as strings and only moves past
+ * the smaller one of A when they differ by exactly one character code, so it misses some of the common symbols
+ * (e.g. none is found between {"1", "5"} and {"5"}) and can give a lower overlap than the primitive path on the same
+ * symbols.
  */
 public class IndexedOverlapSimilarity implements SimilarityMeasure {
 
@@ -26,6 +34,16 @@ public class IndexedOverlapSimilarity implements SimilarityMeasure {
     @Override
     public double compute(SemanticSignature sigA, SemanticSignature sigB, Map<String, SemanticSignature> relatedSignaturesA, Map<String, SemanticSignature> relatedSignaturesB) {
 
+        if (sigA instanceof PrimitiveIndexedSemanticSignature && sigB instanceof PrimitiveIndexedSemanticSignature) {
+            int[] idsA = ((PrimitiveIndexedSemanticSignature) sigA).getSymbolIds();
+            int[] idsB = ((PrimitiveIndexedSemanticSignature) sigB).getSymbolIds();
+            int count = SortedOverlapKernels.overlap(idsA, idsB);
+            if (normalize) {
+                return (double) count / Math.min(idsA.length, idsB.length);
+            }
+            return count;
+        }
+
         List<String> la = sigA.getStringSymbols();
         List<String> lb = sigB.getStringSymbols();
 
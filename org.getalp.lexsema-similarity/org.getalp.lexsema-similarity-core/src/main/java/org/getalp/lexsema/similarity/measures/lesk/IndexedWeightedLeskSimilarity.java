@@ -0,0 +1,57 @@
+package org.getalp.lexsema.similarity.measures.lesk;
+
+import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
+import org.getalp.lexsema.similarity.signatures.IndexedSemanticSignature;
+import org.getalp.lexsema.similarity.signatures.PrimitiveIndexedSemanticSignature;
+import org.getalp.lexsema.similarity.signatures.SemanticSignature;
+
+import java.util.Map;
+
+/**
+ * Lesk overlap over sorted indexed signatures where each matching symbol contributes the product of its weights in
+ * both signatures instead of 1.
+ */
+public class IndexedWeightedLeskSimilarity implements SimilarityMeasure
+{
+    public double compute(SemanticSignature sigA, SemanticSignature sigB)
+    {
+        if (sigA instanceof PrimitiveIndexedSemanticSignature && sigB instanceof PrimitiveIndexedSemanticSignature)
+        {
+            PrimitiveIndexedSemanticSignature a = (PrimitiveIndexedSemanticSignature) sigA;
+            PrimitiveIndexedSemanticSignature b = (PrimitiveIndexedSemanticSignature) sigB;
+            return SortedOverlapKernels.weightedOverlap(a.getSymbolIds(), a.getSymbolWeights(),
+                                                        b.getSymbolIds(), b.getSymbolWeights());
+        }
+        IndexedSemanticSignature a = (IndexedSemanticSignature) sigA;
+        IndexedSemanticSignature b = (IndexedSemanticSignature) sigB;
+        int aSize = a.size();
+        int bSize = b.size();
+        double score = 0;
+        int i = 0;
+        int j = 0;
+        while (i < aSize && j < bSize)
+        {
+            int cmp = a.getIndexedSymbol(i).getIndexedSymbol().compareTo(b.getIndexedSymbol(j).getIndexedSymbol());
+            if (cmp == 0)
+            {
+                score += a.getIndexedSymbol(i).getWeight() * b.getIndexedSymbol(j).getWeight();
+                i++;
+                j++;
+            }
+            else if (cmp < 0)
+            {
+                i++;
+            }
+            else
+            {
+                j++;
+            }
+        }
+        return score;
+    }
+
+    public double compute(SemanticSignature sigA, SemanticSignature sigB, Map<String, SemanticSignature> relatedSignaturesA, Map<String, SemanticSignature> relatedSignaturesB)
+    {
+        return compute(sigA, sigB);
+    }
+}
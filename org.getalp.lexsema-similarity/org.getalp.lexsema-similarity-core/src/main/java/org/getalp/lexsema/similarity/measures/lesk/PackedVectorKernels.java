@@ -0,0 +1,101 @@
+package org.getalp.lexsema.similarity.measures.lesk;
+
+/**
+ * Allocation-free kernels over row-major float matrices of vectors, such as the matrices of a
+ * {@link org.getalp.lexsema.similarity.signatures.PackedVectorizedSemanticSignature}.
+ */
+public final class PackedVectorKernels {
+
+    private PackedVectorKernels() {
+    }
+
+    /**
+     * Computes the product of the matrix a and the transpose of the matrix b, i.e. the dot products of all the pairs
+     * of rows, and sums the dot products that are at least the threshold.
+     * <p>
+     * The product is computed by tiles of 4 rows of a by 4 rows of b: the 16 dot products of a tile are accumulated
+     * together, so that each component read from memory is used four times and the 16 sums, which do not depend on
+     * each other, keep the floating point units busy, where a single dot product waits for each of its additions.
+     *
+     * @param a         The rows of the first matrix, one after the other
+     * @param rowsA     The number of rows of a
+     * @param b         The rows of the second matrix
+     * @param rowsB     The number of rows of b
+     * @param dimension The length of the rows of both matrices
+     * @param threshold The dot products lower than the threshold are not summed
+     */
+    public static double thresholdedDotProductSum(float[] a, int rowsA, float[] b, int rowsB, int dimension, double threshold) {
+        double sum = 0;
+        int i = 0;
+        for (; i + 3 < rowsA; i += 4) {
+            int a0 = i * dimension;
+            int a1 = a0 + dimension;
+            int a2 = a1 + dimension;
+            int a3 = a2 + dimension;
+            int j = 0;
+            for (; j + 3 < rowsB; j += 4) {
+                int b0 = j * dimension;
+                int b1 = b0 + dimension;
+                int b2 = b1 + dimension;
+                int b3 = b2 + dimension;
+                float s00 = 0, s01 = 0, s02 = 0, s03 = 0;
+                float s10 = 0, s11 = 0, s12 = 0, s13 = 0;
+                float s20 = 0, s21 = 0, s22 = 0, s23 = 0;
+                float s30 = 0, s31 = 0, s32 = 0, s33 = 0;
+                for (int k = 0; k < dimension; k++) {
+                    float x0 = a[a0 + k];
+                    float x1 = a[a1 + k];
+                    float x2 = a[a2 + k];
+                    float x3 = a[a3 + k];
+                    float y0 = b[b0 + k];
+                    float y1 = b[b1 + k];
+                    float y2 = b[b2 + k];
+                    float y3 = b[b3 + k];
+                    s00 += x0 * y0;
+                    s01 += x0 * y1;
+                    s02 += x0 * y2;
+                    s03 += x0 * y3;
+                    s10 += x1 * y0;
+                    s11 += x1 * y1;
+                    s12 += x1 * y2;
+                    s13 += x1 * y3;
+                    s20 += x2 * y0;
+                    s21 += x2 * y1;
+                    s22 += x2 * y2;
+                    s23 += x2 * y3;
+                    s30 += x3 * y0;
+                    s31 += x3 * y1;
+                    s32 += x3 * y2;
+                    s33 += x3 * y3;
+                }
+                sum += thresholded(s00, threshold) + thresholded(s01, threshold) + thresholded(s02, threshold) + thresholded(s03, threshold)
+                     + thresholded(s10, threshold) + thresholded(s11, threshold) + thresholded(s12, threshold) + thresholded(s13, threshold)
+                     + thresholded(s20, threshold) + thresholded(s21, threshold) + thresholded(s22, threshold) + thresholded(s23, threshold)
+                     + thresholded(s30, threshold) + thresholded(s31, threshold) + thresholded(s32, threshold) + thresholded(s33, threshold);
+            }
+            for (; j < rowsB; j++) {
+                for (int row = i; row < i + 4; row++) {
+                    sum += thresholded(dotProduct(a, row * dimension, b, j * dimension, dimension), threshold);
+                }
+            }
+        }
+        for (; i < rowsA; i++) {
+            for (int j = 0; j < rowsB; j++) {
+                sum += thresholded(dotProduct(a, i * dimension, b, j * dimension, dimension), threshold);
+            }
+        }
+        return sum;
+    }
+
+    private static float dotProduct(float[] a, int offsetA, float[] b, int offsetB, int dimension) {
+        float dotProduct = 0;
+        for (int k = 0; k < dimension; k++) {
+            dotProduct += a[offsetA + k] * b[offsetB + k];
+        }
+        return dotProduct;
+    }
+
+    private static double thresholded(float dotProduct, double threshold) {
+        return dotProduct < threshold ? 0 : dotProduct;
+    }
+}
@@ -0,0 +1,104 @@
+package org.getalp.lexsema.similarity.measures.lesk;
+
+/**
+ * Allocation-free overlap kernels over symbol ids sorted in increasing order, such as the arrays of a
+ * {@link org.getalp.lexsema.similarity.signatures.PrimitiveIndexedSemanticSignature}. Repeated ids are matched
+ * one to one, as in a sorted merge of two bags of words.
+ */
+public final class SortedOverlapKernels {
+
+    private SortedOverlapKernels() {
+    }
+
+    /**
+     * @return The number of matching ids of the two sorted arrays
+     */
+    public static int overlap(int[] a, int[] b) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            int x = a[i];
+            int y = b[j];
+            if (x == y) {
+                count++;
+                i++;
+                j++;
+            } else if (x < y) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the pairs of positions (i, j) such that a[i] == b[j], i.e. the sum over the common ids of the product
+     * of their numbers of occurrences in both arrays, as opposed to {@link #overlap(int[], int[])} that matches
+     * repeated ids one to one.
+     */
+    public static long matchingPairs(int[] a, int[] b) {
+        long count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            int x = a[i];
+            int y = b[j];
+            if (x == y) {
+                int runA = 0;
+                while (i < a.length && a[i] == x) {
+                    runA++;
+                    i++;
+                }
+                int runB = 0;
+                while (j < b.length && b[j] == x) {
+                    runB++;
+                    j++;
+                }
+                count += (long) runA * runB;
+            } else if (x < y) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return The Dice coefficient 2|a &#8745; b| / (|a| + |b|), 0 when both arrays are empty
+     */
+    public static double dice(int[] a, int[] b) {
+        int total = a.length + b.length;
+        if (total == 0) {
+            return 0;
+        }
+        return 2.0 * overlap(a, b) / total;
+    }
+
+    /**
+     * Sums the products of the weights of the matching ids. A {@code null} weight array stands for weights of 1.
+     */
+    public static double weightedOverlap(int[] a, float[] weightsA, int[] b, float[] weightsB) {
+        double score = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            int x = a[i];
+            int y = b[j];
+            if (x == y) {
+                float weightA = weightsA == null ? 1f : weightsA[i];
+                float weightB = weightsB == null ? 1f : weightsB[j];
+                score += weightA * weightB;
+                i++;
+                j++;
+            } else if (x < y) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return score;
+    }
+}
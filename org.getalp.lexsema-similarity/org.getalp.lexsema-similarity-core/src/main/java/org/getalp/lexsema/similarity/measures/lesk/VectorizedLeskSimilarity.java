@@ -1,6 +1,7 @@
 package org.getalp.lexsema.similarity.measures.lesk;
 
 import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
+import org.getalp.lexsema.similarity.signatures.PackedVectorizedSemanticSignature;
 import org.getalp.lexsema.similarity.signatures.SemanticSignature;
 import org.getalp.lexsema.similarity.signatures.VectorizedSemanticSignature;
 import org.getalp.lexsema.similarity.signatures.symbols.VectorizedSemanticSymbol;
@@ -25,6 +26,20 @@ public class VectorizedLeskSimilarity implements SimilarityMeasure
 	
     public double compute(SemanticSignature sigA, SemanticSignature sigB)
     {
+        if (sigA instanceof PackedVectorizedSemanticSignature && sigB instanceof PackedVectorizedSemanticSignature)
+        {
+            PackedVectorizedSemanticSignature pa = (PackedVectorizedSemanticSignature) sigA;
+            PackedVectorizedSemanticSignature pb = (PackedVectorizedSemanticSignature) sigB;
+            if (pa.getVectorCount() == 0 || pb.getVectorCount() == 0) return 0;
+            if (pa.getDimension() != pb.getDimension())
+            {
+                throw new IllegalArgumentException("Cannot compare signatures of vectors of dimensions "
+                                                   + pa.getDimension() + " and " + pb.getDimension());
+            }
+            return PackedVectorKernels.thresholdedDotProductSum(pa.getVectorMatrix(), pa.getVectorCount(),
+                                                                pb.getVectorMatrix(), pb.getVectorCount(),
+                                                                pa.getDimension(), threshold);
+        }
         List<VectorizedSemanticSymbol> la = ((VectorizedSemanticSignature) sigA).getVectorizedSymbols();
         List<VectorizedSemanticSymbol> lb = ((VectorizedSemanticSignature) sigB).getVectorizedSymbols();
         double count = 0;
@@ -0,0 +1,146 @@
+package org.getalp.lexsema.similarity.measures.tverski;
+
+import org.getalp.lexsema.similarity.measures.lesk.SortedOverlapKernels;
+import org.getalp.lexsema.similarity.signatures.PrimitiveIndexedSemanticSignature;
+import org.getalp.lexsema.similarity.signatures.SemanticSignature;
+import org.getalp.lexsema.similarity.signatures.VectorizedSemanticSignature;
+import org.getalp.lexsema.similarity.signatures.symbols.SemanticSymbol;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Computes the same overlap as summing an exact-match {@code OverlapInputSet}, i.e. the number of pairs of positions
+ * holding equal symbols, without materializing the |a|.|b| pair matrices. Primitive indexed signatures are
+ * intersected with an allocation-free sorted merge. The symbols of other signatures are read in place rather than
+ * copied with {@link SemanticSignature#getStringSymbols()} and counted in a hash table reused by the thread, or
+ * compared pair by pair when the signatures are small.
+ */
+final class ExactOverlapEngine {
+
+    private static final int NESTED_LOOP_PAIRS = 256;
+    private static final ThreadLocal<SymbolCounts> COUNTS = ThreadLocal.withInitial(SymbolCounts::new);
+
+    private ExactOverlapEngine() {
+    }
+
+    static double matchingPairs(SemanticSignature sigA, SemanticSignature sigB) {
+        if (sigA instanceof PrimitiveIndexedSemanticSignature && sigB instanceof PrimitiveIndexedSemanticSignature) {
+            return SortedOverlapKernels.matchingPairs(((PrimitiveIndexedSemanticSignature) sigA).getSymbolIds(),
+                    ((PrimitiveIndexedSemanticSignature) sigB).getSymbolIds());
+        }
+        if (sigA instanceof VectorizedSemanticSignature || sigB instanceof VectorizedSemanticSignature) {
+            // The string symbols of vectors are formatted from their components, not stored
+            return matchingPairs(sigA.getStringSymbols(), sigB.getStringSymbols());
+        }
+        SemanticSignature smaller = sigA.size() <= sigB.size() ? sigA : sigB;
+        SemanticSignature larger = smaller == sigA ? sigB : sigA;
+        if (smaller.size() == 0) {
+            return 0;
+        }
+        long count = 0;
+        if ((long) smaller.size() * larger.size() <= NESTED_LOOP_PAIRS) {
+            for (SemanticSymbol a : smaller) {
+                String symbol = a.getSymbol();
+                for (SemanticSymbol b : larger) {
+                    if (symbol.equals(b.getSymbol())) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+        SymbolCounts counts = COUNTS.get();
+        try {
+            for (SemanticSymbol symbol : smaller) {
+                counts.add(symbol.getSymbol());
+            }
+            for (SemanticSymbol symbol : larger) {
+                count += counts.get(symbol.getSymbol());
+            }
+        } finally {
+            counts.clear();
+        }
+        return count;
+    }
+
+    static double matchingPairs(List<String> la, List<String> lb) {
+        List<String> smaller = la.size() <= lb.size() ? la : lb;
+        List<String> larger = smaller == la ? lb : la;
+        if (smaller.isEmpty()) {
+            return 0;
+        }
+        long count = 0;
+        SymbolCounts counts = COUNTS.get();
+        try {
+            for (String symbol : smaller) {
+                counts.add(symbol);
+            }
+            for (String symbol : larger) {
+                count += counts.get(symbol);
+            }
+        } finally {
+            counts.clear();
+        }
+        return count;
+    }
+
+    /**
+     * Open-addressing multiset of strings, cleared by resetting only the slots that were used
+     */
+    private static final class SymbolCounts {
+        private String[] keys = new String[64];
+        private int[] counts = new int[64];
+        private int[] usedSlots = new int[32];
+        private int size;
+
+        void add(String symbol) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+            }
+            int slot = slot(keys, symbol);
+            if (keys[slot] == null) {
+                keys[slot] = symbol;
+                usedSlots[size++] = slot;
+            }
+            counts[slot]++;
+        }
+
+        int get(String symbol) {
+            int slot = slot(keys, symbol);
+            return keys[slot] == null ? 0 : counts[slot];
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                keys[usedSlots[i]] = null;
+                counts[usedSlots[i]] = 0;
+            }
+            size = 0;
+        }
+
+        private static int slot(String[] keys, String symbol) {
+            int mask = keys.length - 1;
+            int hash = symbol.hashCode() * 0x9E3779B9;
+            int slot = (hash ^ hash >>> 16) & mask;
+            while (keys[slot] != null && !keys[slot].equals(symbol)) {
+                slot = slot + 1 & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            String[] newKeys = new String[keys.length * 2];
+            int[] newCounts = new int[counts.length * 2];
+            for (int i = 0; i < size; i++) {
+                int slot = slot(newKeys, keys[usedSlots[i]]);
+                newKeys[slot] = keys[usedSlots[i]];
+                newCounts[slot] = counts[usedSlots[i]];
+                usedSlots[i] = slot;
+            }
+            keys = newKeys;
+            counts = newCounts;
+            usedSlots = Arrays.copyOf(usedSlots, newKeys.length / 2);
+        }
+    }
+}
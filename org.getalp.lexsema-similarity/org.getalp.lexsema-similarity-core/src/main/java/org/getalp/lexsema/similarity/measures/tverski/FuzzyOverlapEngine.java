@@ -0,0 +1,121 @@
+package org.getalp.lexsema.similarity.measures.tverski;
+
+import com.wcohen.ss.AbstractStringDistance;
+import com.wcohen.ss.ScaledLevenstein;
+import com.wcohen.ss.api.StringWrapper;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Computes the same overlap as summing a fuzzy {@code OverlapInputSet}, i.e. the sum over all the pairs of symbols of
+ * their string similarity when it exceeds {@value #THRESHOLD}, without the |a|.|b| pair matrices.
+ * <p>
+ * Symbols are prepared once by the distance and cached with their sorted lower-case characters. When the distance is
+ * a {@link ScaledLevenstein}, whose score is 1 - d / max(|a|, |b|) for the edit distance d, pairs that cannot exceed
+ * the threshold are skipped before scoring: d is at least the bag distance between the characters of the symbols,
+ * which is itself at least their length difference, so a pair is pruned when twice that bound reaches the length of
+ * the longer symbol. Symbols that are equal but for case score 1 without calling the distance. Both checks fold each
+ * character with {@link Character#toLowerCase(char)}, as the Levenstein distance compares characters that way.
+ */
+final class FuzzyOverlapEngine {
+
+    private static final double THRESHOLD = .5;
+    private static final int MAX_CACHED_SYMBOLS = 1 << 20;
+
+    private final AbstractStringDistance distance;
+    private final boolean scaledLevenstein;
+    private final ConcurrentMap<String, PreparedSymbol> preparedSymbols;
+
+    FuzzyOverlapEngine(AbstractStringDistance distance) {
+        this.distance = distance;
+        scaledLevenstein = distance.getClass() == ScaledLevenstein.class;
+        preparedSymbols = new ConcurrentHashMap<>();
+    }
+
+    double overlap(List<String> la, List<String> lb) {
+        if (la.isEmpty() || lb.isEmpty()) {
+            return 0;
+        }
+        PreparedSymbol[] preparedB = new PreparedSymbol[lb.size()];
+        for (int j = 0; j < preparedB.length; j++) {
+            preparedB[j] = prepare(lb.get(j));
+        }
+        double sum = 0;
+        for (String symbolA : la) {
+            PreparedSymbol a = prepare(symbolA);
+            for (PreparedSymbol b : preparedB) {
+                double value = score(a, b);
+                if (value > THRESHOLD) {
+                    sum += value;
+                }
+            }
+        }
+        return sum;
+    }
+
+    private double score(PreparedSymbol a, PreparedSymbol b) {
+        if (scaledLevenstein) {
+            if (a.folded.equals(b.folded)) {
+                return 1;
+            }
+            int longest = Math.max(a.characters.length, b.characters.length);
+            if (2 * Math.abs(a.characters.length - b.characters.length) >= longest
+                    || 2 * bagDistance(a.characters, b.characters) >= longest) {
+                return 0;
+            }
+        }
+        return distance.score(a.wrapper, b.wrapper);
+    }
+
+    /**
+     * @return The bag distance between two sorted character arrays, a lower bound of their edit distance
+     */
+    private static int bagDistance(char[] a, char[] b) {
+        int common = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Math.max(a.length, b.length) - common;
+    }
+
+    private PreparedSymbol prepare(String symbol) {
+        PreparedSymbol prepared = preparedSymbols.get(symbol);
+        if (prepared == null) {
+            if (preparedSymbols.size() >= MAX_CACHED_SYMBOLS) {
+                preparedSymbols.clear();
+            }
+            prepared = new PreparedSymbol(symbol, distance.prepare(symbol));
+            preparedSymbols.putIfAbsent(symbol, prepared);
+        }
+        return prepared;
+    }
+
+    private static final class PreparedSymbol {
+        private final String folded;
+        private final StringWrapper wrapper;
+        private final char[] characters;
+
+        private PreparedSymbol(String symbol, StringWrapper wrapper) {
+            this.wrapper = wrapper;
+            characters = symbol.toCharArray();
+            for (int i = 0; i < characters.length; i++) {
+                characters[i] = Character.toLowerCase(characters[i]);
+            }
+            folded = new String(characters);
+            Arrays.sort(characters);
+        }
+    }
+}
@@ -23,6 +23,7 @@ public class TverskiIndexSimilarityMeasureImpl implements TverskiIndexSimilarity
 
 
     private AbstractStringDistance distance;
+    private FuzzyOverlapEngine fuzzyOverlapEngine;
     private double alpha = DEFAULT_ALPHA;
     private double beta = DEFAULT_BETA_GAMMA;
     private double gamma = DEFAULT_BETA_GAMMA;
@@ -42,7 +43,7 @@ public class TverskiIndexSimilarityMeasureImpl implements TverskiIndexSimilarity
 
 
     public TverskiIndexSimilarityMeasureImpl() {
-        distance = new ScaledLevenstein();
+        setDistance(new ScaledLevenstein());
     }
 
 
@@ -56,23 +57,18 @@ public class TverskiIndexSimilarityMeasureImpl implements TverskiIndexSimilarity
                           Map<String, SemanticSignature> relatedSignaturesA,
                           Map<String, SemanticSignature> relatedSignaturesB) {
 
-        List<String> a = sigA.getStringSymbols();
-        List<String> b = sigB.getStringSymbols();
-
- /*Computing overlap between the semantic signatures*/
-        double overlap = computeOverlap(a, b);
-
-
+        /*Computing overlap between the semantic signatures*/
+        double overlap = computeOverlap(sigA, sigB);
 
         /*If extendedLesk is enabled, creating the similarity values for relation pairs*/
         if (extendedLesk) {
-            overlap += computeExtension(a, b, relatedSignaturesA, relatedSignaturesB);
+            overlap += computeExtension(sigA, sigB, relatedSignaturesA, relatedSignaturesB);
         }
-        return computeTverski(overlap, a.size(), b.size());
+        return computeTverski(overlap, sigA.size(), sigB.size());
     }
 
     @SuppressWarnings("FeatureEnvy")
-    private double computeExtension(List<String> a, List<String> b,
+    private double computeExtension(SemanticSignature a, SemanticSignature b,
                                     Map<String, SemanticSignature> relatedSignaturesA,
                                     Map<String, SemanticSignature> relatedSignaturesB) {
         List<Double> values = new ArrayList<>();
@@ -80,14 +76,14 @@ public class TverskiIndexSimilarityMeasureImpl implements TverskiIndexSimilarity
         if (relatedSignaturesA != null && relatedSignaturesB != null) {
             for (String rA : relatedSignaturesB.keySet()) {
                 for (String rB : relatedSignaturesB.keySet()) {
-                    values.add(computeOverlap(relatedSignaturesA.get(rA).getStringSymbols(), relatedSignaturesB.get(rB).getStringSymbols()));
+                    values.add(computeOverlap(relatedSignaturesA.get(rA), relatedSignaturesB.get(rB)));
                 }
             }
             /*This case corresponds to the overlap between a sense' related synsets' glosses
              *and an arbitrary string of text */
         } else if (relatedSignaturesA == null ^ relatedSignaturesB == null) {
             Map<String, SemanticSignature> nonNullRelated;
-            List<String> other;
+            SemanticSignature other;
             if (relatedSignaturesA == null) {
                 nonNullRelated = relatedSignaturesB;
                 other = a;
@@ -96,7 +92,7 @@ public class TverskiIndexSimilarityMeasureImpl implements TverskiIndexSimilarity
                 other = b;
             }
             for (String r : nonNullRelated.keySet()) {
-                values.add(computeOverlap(nonNullRelated.get(r).getStringSymbols(), other));
+                values.add(computeOverlap(nonNullRelated.get(r), other));
             }
         }
 
@@ -165,6 +161,30 @@ public class TverskiIndexSimilarityMeasureImpl implements TverskiIndexSimilarity
         return count;
     }
 
+    /**
+     * Without quadratic matching, Lovasz regularization or random initialisation, the overlap input set sum is
+     * computed directly by the {@link ExactOverlapEngine} or, with fuzzy matching, the {@link FuzzyOverlapEngine}.
+     */
+    private boolean usesOverlapEngine() {
+        return !quadraticMatching && !regularizeOverlapInput && !randomInit;
+    }
+
+    private double computeOverlap(SemanticSignature sigA, SemanticSignature sigB) {
+        if (usesOverlapEngine()) {
+            double returnVal;
+            if (fuzzyMatching) {
+                returnVal = fuzzyOverlapEngine.overlap(sigA.getStringSymbols(), sigB.getStringSymbols());
+            } else {
+                returnVal = ExactOverlapEngine.matchingPairs(sigA, sigB);
+            }
+            if (normalize) {
+                returnVal /= Math.max(sigA.size(), sigB.size());
+            }
+            return returnVal;
+        }
+        return computeOverlap(sigA.getStringSymbols(), sigB.getStringSymbols());
+    }
+
     private double computeOverlap(List<String> la, List<String> lb) {
 
         SetFunctionInput input;
@@ -212,6 +232,7 @@ public class TverskiIndexSimilarityMeasureImpl implements TverskiIndexSimilarity
 
     public void setDistance(AbstractStringDistance distance) {
         this.distance = distance;
+        fuzzyOverlapEngine = new FuzzyOverlapEngine(distance);
     }
 
     @Override
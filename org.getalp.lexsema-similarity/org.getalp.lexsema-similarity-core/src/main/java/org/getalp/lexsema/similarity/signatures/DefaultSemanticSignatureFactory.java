@@ -46,6 +46,16 @@ public class DefaultSemanticSignatureFactory implements SemanticSignatureFactory
         return new IndexedSemanticSignatureImpl(symbols,symbolIndex);
     }
 
+    @Override
+    public PrimitiveIndexedSemanticSignature createPrimitiveIndexedSemanticSignature() {
+        return new PrimitiveIndexedSemanticSignatureImpl();
+    }
+
+    @Override
+    public PrimitiveIndexedSemanticSignature createPrimitiveIndexedSemanticSignature(SymbolIndex symbolIndex) {
+        return new PrimitiveIndexedSemanticSignatureImpl(symbolIndex);
+    }
+
     @Override
     public VectorizedSemanticSignature createVectorizedSemanticSignature() {
         return new VectorizedSemanticSignatureImpl();
@@ -55,4 +65,9 @@ public class DefaultSemanticSignatureFactory implements SemanticSignatureFactory
     public VectorizedSemanticSignature createVectorizedSemanticSignature(List<VectorizedSemanticSymbol> symbols) {
         return new VectorizedSemanticSignatureImpl(symbols);
     }
+
+    @Override
+    public PackedVectorizedSemanticSignature createPackedVectorizedSemanticSignature() {
+        return new PackedVectorizedSemanticSignatureImpl();
+    }
 }
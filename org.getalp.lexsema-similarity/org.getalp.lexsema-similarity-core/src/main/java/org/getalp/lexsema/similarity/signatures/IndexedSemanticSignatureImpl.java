@@ -1,8 +1,8 @@
 package org.getalp.lexsema.similarity.signatures;
 
 import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
+import org.getalp.lexsema.similarity.signatures.index.ConcurrentSymbolIndex;
 import org.getalp.lexsema.similarity.signatures.index.SymbolIndex;
-import org.getalp.lexsema.similarity.signatures.index.SymbolIndexImpl;
 import org.getalp.lexsema.similarity.signatures.symbols.*;
 import org.getalp.lexsema.util.Language;
 
@@ -30,7 +30,7 @@ class IndexedSemanticSignatureImpl implements IndexedSemanticSignature {
 
     IndexedSemanticSignatureImpl() {
 
-        this(new SymbolIndexImpl());
+        this(ConcurrentSymbolIndex.getGlobalIndex());
     }
 
     IndexedSemanticSignatureImpl(SymbolIndex symbolIndex) {
@@ -0,0 +1,277 @@
+package org.getalp.lexsema.similarity.signatures;
+
+import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
+import org.getalp.lexsema.similarity.signatures.symbols.DefaultSemanticSymbolFactory;
+import org.getalp.lexsema.similarity.signatures.symbols.SemanticSymbol;
+import org.getalp.lexsema.similarity.signatures.symbols.VectorizedSemanticSymbol;
+import org.getalp.lexsema.util.Language;
+import org.getalp.lexsema.util.VectorOperation;
+
+import java.util.*;
+
+/**
+ * Vectorized semantic signature storing its vectors as the rows of a single {@code float[]} and, for each symbol, the
+ * row of its vector or -1 if the vector is empty. Weights are only stored, in a parallel {@code float[]}, once a
+ * symbol with a weight other than 1 is added.
+ * <p>
+ * The symbols are written in the format of the dictionaries, {@code [x,y,z]} without spaces, and parsed back from it.
+ * A signature is built by a single thread, after which reading its matrix allocates nothing and can be done
+ * concurrently.
+ */
+class PackedVectorizedSemanticSignatureImpl implements PackedVectorizedSemanticSignature {
+
+    private static final double DEFAULT_WEIGHT = 1d;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private float[] matrix;
+    private int dimension;
+    private int vectorCount;
+    private int[] rows;
+    private float[] weights;
+    private int size;
+
+    private Language language;
+
+    PackedVectorizedSemanticSignatureImpl() {
+        matrix = new float[0];
+        rows = new int[0];
+    }
+
+    private PackedVectorizedSemanticSignatureImpl(PackedVectorizedSemanticSignatureImpl other) {
+        language = other.language;
+        dimension = other.dimension;
+        vectorCount = other.vectorCount;
+        size = other.size;
+        matrix = Arrays.copyOf(other.matrix, other.vectorCount * other.dimension);
+        rows = Arrays.copyOf(other.rows, other.size);
+        if (other.weights != null) {
+            weights = Arrays.copyOf(other.weights, other.size);
+        }
+    }
+
+    @Override
+    public Language getLanguage() {
+        return language;
+    }
+
+    @Override
+    public void setLanguage(Language language) {
+        this.language = language;
+    }
+
+    @Override
+    public float[] getVectorMatrix() {
+        return matrix;
+    }
+
+    @Override
+    public int getVectorCount() {
+        return vectorCount;
+    }
+
+    @Override
+    public int getDimension() {
+        return dimension;
+    }
+
+    @Override
+    public void addVector(double[] vector, double weight) {
+        if (size == rows.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, size + (size >> 1));
+            rows = Arrays.copyOf(rows, capacity);
+            if (weights != null) {
+                weights = Arrays.copyOf(weights, capacity);
+            }
+        }
+        if (weights == null && weight != DEFAULT_WEIGHT) {
+            weights = new float[rows.length];
+            Arrays.fill(weights, 0, size, (float) DEFAULT_WEIGHT);
+        }
+        if (vector.length == 0) {
+            rows[size] = -1;
+        } else {
+            if (dimension == 0) {
+                dimension = vector.length;
+            } else if (vector.length != dimension) {
+                throw new IllegalArgumentException("Vector of dimension " + vector.length + " in a signature of dimension " + dimension);
+            }
+            if ((vectorCount + 1) * dimension > matrix.length) {
+                matrix = Arrays.copyOf(matrix, Math.max(INITIAL_CAPACITY, vectorCount + (vectorCount >> 1) + 1) * dimension);
+            }
+            int offset = vectorCount * dimension;
+            for (int i = 0; i < dimension; i++) {
+                matrix[offset + i] = (float) vector[i];
+            }
+            rows[size] = vectorCount++;
+        }
+        if (weights != null) {
+            weights[size] = (float) weight;
+        }
+        size++;
+    }
+
+    @Override
+    public void addVector(double[] vector) {
+        addVector(vector, DEFAULT_WEIGHT);
+    }
+
+    private double[] vectorAt(int index) {
+        int row = rows[index];
+        if (row < 0) {
+            return new double[0];
+        }
+        double[] vector = new double[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = matrix[row * dimension + i];
+        }
+        return vector;
+    }
+
+    private double weightAt(int index) {
+        return weights == null ? DEFAULT_WEIGHT : weights[index];
+    }
+
+    private String symbolAt(int index) {
+        int row = rows[index];
+        if (row < 0) {
+            return "[]";
+        }
+        StringBuilder symbol = new StringBuilder("[");
+        for (int i = 0; i < dimension; i++) {
+            if (i > 0) {
+                symbol.append(',');
+            }
+            symbol.append(matrix[row * dimension + i]);
+        }
+        return symbol.append(']').toString();
+    }
+
+    @Override
+    public double computeSimilarityWith(SimilarityMeasure measure, SemanticSignature other,
+                                        Map<String, SemanticSignature> relatedA,
+                                        Map<String, SemanticSignature> relatedB) {
+        if (other != null) {
+            return measure.compute(this, other, relatedA, relatedB);
+        } else {
+            return 0;
+        }
+    }
+
+    @Override
+    public PackedVectorizedSemanticSignature copy() {
+        return new PackedVectorizedSemanticSignatureImpl(this);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void addSymbol(String symbol, double weight) {
+        addVector(VectorOperation.to_vector(symbol), weight);
+    }
+
+    @Override
+    public void addSymbol(String symbol) {
+        addSymbol(symbol, DEFAULT_WEIGHT);
+    }
+
+    @Override
+    public void addSymbol(SemanticSymbol symbol) {
+        if (symbol instanceof VectorizedSemanticSymbol) {
+            addVector(((VectorizedSemanticSymbol) symbol).getVector(), symbol.getWeight());
+        } else {
+            addSymbol(symbol.getSymbol(), symbol.getWeight());
+        }
+    }
+
+    @Override
+    public void addSymbols(List<SemanticSymbol> symbols) {
+        for (SemanticSymbol ss : symbols) {
+            addSymbol(ss);
+        }
+    }
+
+    @Override
+    public void addSymbolString(List<String> symbolString, List<Double> weights) {
+        for (int i = 0; i < Math.min(symbolString.size(), weights.size()); i++) {
+            addSymbol(symbolString.get(i), weights.get(i));
+        }
+    }
+
+    @Override
+    public void addSymbolString(List<String> symbolString) {
+        for (String aString : symbolString) {
+            addSymbol(aString, DEFAULT_WEIGHT);
+        }
+    }
+
+    @Override
+    public List<Double> getWeights() {
+        List<Double> weightList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            weightList.add(weightAt(i));
+        }
+        return weightList;
+    }
+
+    @Override
+    public List<String> getStringSymbols() {
+        List<String> stringSymbols = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            stringSymbols.add(symbolAt(i));
+        }
+        return stringSymbols;
+    }
+
+    @Override
+    public List<VectorizedSemanticSymbol> getVectorizedSymbols() {
+        List<VectorizedSemanticSymbol> symbols = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            symbols.add(DefaultSemanticSymbolFactory.DEFAULT_FACTORY.createVectorizedSemanticSymbol(vectorAt(i), weightAt(i)));
+        }
+        return Collections.unmodifiableList(symbols);
+    }
+
+    @Override
+    public List<SemanticSymbol> getSymbols() {
+        return new ArrayList<>(getVectorizedSymbols());
+    }
+
+    @Override
+    public Iterator<SemanticSymbol> iterator() {
+        return getSymbols().iterator();
+    }
+
+    @Override
+    public SemanticSymbol getSymbol(int index) {
+        return DefaultSemanticSymbolFactory.DEFAULT_FACTORY.createVectorizedSemanticSymbol(vectorAt(index), weightAt(index));
+    }
+
+    @Override
+    public SemanticSignature appendSignature(SemanticSignature other) {
+        for (SemanticSymbol ss : other) {
+            addSymbol(ss);
+        }
+        return this;
+    }
+
+    @Override
+    public SemanticSignature mergeSignatures(SemanticSignature other) {
+        return copy().appendSignature(other);
+    }
+
+    @Override
+    public boolean isNull() {
+        return false;
+    }
+
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            stringBuilder.append(' ').append(symbolAt(i));
+        }
+        return stringBuilder.toString();
+    }
+}
@@ -0,0 +1,290 @@
+package org.getalp.lexsema.similarity.signatures;
+
+import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
+import org.getalp.lexsema.similarity.signatures.index.ConcurrentSymbolIndex;
+import org.getalp.lexsema.similarity.signatures.index.SymbolIndex;
+import org.getalp.lexsema.similarity.signatures.symbols.DefaultSemanticSymbolFactory;
+import org.getalp.lexsema.similarity.signatures.symbols.IndexedSemanticSymbol;
+import org.getalp.lexsema.similarity.signatures.symbols.SemanticSymbol;
+import org.getalp.lexsema.util.Language;
+
+import java.util.*;
+
+/**
+ * Indexed semantic signature storing its symbol ids in an {@code int[]} and, only once a symbol with a weight other
+ * than 1 is added, their weights in a parallel {@code float[]}.
+ * <p>
+ * Symbols are appended unsorted; the arrays are sorted by symbol id and trimmed on {@link #sort()} or, lazily, on the
+ * first call to {@link #getSymbolIds()} or {@link #getSymbolWeights()} after a modification. Once sorted, reading the
+ * arrays allocates nothing, so a fully built signature can be shared by concurrent similarity computations.
+ */
+class PrimitiveIndexedSemanticSignatureImpl implements PrimitiveIndexedSemanticSignature {
+
+    private static final double DEFAULT_WEIGHT = 1d;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] symbolIds;
+    private float[] weights;
+    private int size;
+    private volatile boolean sorted = true;
+
+    private Language language = null;
+    private final SymbolIndex symbolIndex;
+
+    PrimitiveIndexedSemanticSignatureImpl() {
+        this(ConcurrentSymbolIndex.getGlobalIndex());
+    }
+
+    PrimitiveIndexedSemanticSignatureImpl(SymbolIndex symbolIndex) {
+        this.symbolIndex = symbolIndex;
+        symbolIds = new int[0];
+    }
+
+    private PrimitiveIndexedSemanticSignatureImpl(PrimitiveIndexedSemanticSignatureImpl other) {
+        symbolIndex = other.symbolIndex;
+        language = other.language;
+        size = other.size;
+        symbolIds = Arrays.copyOf(other.symbolIds, other.size);
+        if (other.weights != null) {
+            weights = Arrays.copyOf(other.weights, other.size);
+        }
+        sorted = other.sorted;
+    }
+
+    @Override
+    public Language getLanguage() {
+        return language;
+    }
+
+    @Override
+    public void setLanguage(Language language) {
+        this.language = language;
+    }
+
+    @Override
+    public int[] getSymbolIds() {
+        ensureSorted();
+        return symbolIds;
+    }
+
+    @Override
+    public float[] getSymbolWeights() {
+        ensureSorted();
+        return weights;
+    }
+
+    private void ensureSorted() {
+        if (!sorted) {
+            sortSymbols();
+        }
+    }
+
+    private synchronized void sortSymbols() {
+        if (sorted) {
+            return;
+        }
+        if (weights == null) {
+            symbolIds = Arrays.copyOf(symbolIds, size);
+            Arrays.sort(symbolIds);
+        } else {
+            // Sorting (id, weight bits) pairs packed in longs keeps the weights aligned without boxing
+            long[] pairs = new long[size];
+            for (int i = 0; i < size; i++) {
+                pairs[i] = ((long) symbolIds[i] << 32) | (Float.floatToIntBits(weights[i]) & 0xFFFFFFFFL);
+            }
+            Arrays.sort(pairs);
+            symbolIds = new int[size];
+            weights = new float[size];
+            for (int i = 0; i < size; i++) {
+                symbolIds[i] = (int) (pairs[i] >> 32);
+                weights[i] = Float.intBitsToFloat((int) pairs[i]);
+            }
+        }
+        sorted = true;
+    }
+
+    private synchronized void append(int symbolId, double weight) {
+        if (size == symbolIds.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, size + (size >> 1));
+            symbolIds = Arrays.copyOf(symbolIds, capacity);
+            if (weights != null) {
+                weights = Arrays.copyOf(weights, capacity);
+            }
+        }
+        if (weights == null && weight != DEFAULT_WEIGHT) {
+            weights = new float[symbolIds.length];
+            Arrays.fill(weights, 0, size, (float) DEFAULT_WEIGHT);
+        }
+        symbolIds[size] = symbolId;
+        if (weights != null) {
+            weights[size] = (float) weight;
+        }
+        size++;
+        sorted = false;
+    }
+
+    private double weightAt(int index) {
+        return weights == null ? DEFAULT_WEIGHT : weights[index];
+    }
+
+    @Override
+    public List<Integer> getIndexedSymbols() {
+        int[] ids = getSymbolIds();
+        List<Integer> integerSymbols = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            integerSymbols.add(id);
+        }
+        return integerSymbols;
+    }
+
+    @Override
+    public IndexedSemanticSymbol getIndexedSymbol(int index) {
+        ensureSorted();
+        return DefaultSemanticSymbolFactory.DEFAULT_FACTORY.createIndexedSemanticSymbol(symbolIds[index], weightAt(index));
+    }
+
+    @Override
+    public double computeSimilarityWith(SimilarityMeasure measure, SemanticSignature other,
+                                        Map<String, SemanticSignature> relatedA,
+                                        Map<String, SemanticSignature> relatedB) {
+        if (other != null) {
+            return measure.compute(this, other, relatedA, relatedB);
+        } else {
+            return 0;
+        }
+    }
+
+    @Override
+    public PrimitiveIndexedSemanticSignature copy() {
+        return new PrimitiveIndexedSemanticSignatureImpl(this);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void sort() {
+        ensureSorted();
+    }
+
+    @Override
+    public void addSymbol(String symbol, double weight) {
+        append(symbolIndex.getSymbolIndex(symbol), weight);
+    }
+
+    @Override
+    public void addSymbol(String symbol) {
+        addSymbol(symbol, DEFAULT_WEIGHT);
+    }
+
+    @Override
+    public void addIndexedSymbol(Integer symbol) {
+        append(symbol, DEFAULT_WEIGHT);
+    }
+
+    @Override
+    public void addIndexedSymbols(List<Integer> symbols) {
+        for (Integer i : symbols) {
+            addIndexedSymbol(i);
+        }
+    }
+
+    @Override
+    public void addSymbols(List<SemanticSymbol> symbols) {
+        for (SemanticSymbol ss : symbols) {
+            addSymbol(ss);
+        }
+    }
+
+    @Override
+    public void addSymbol(SemanticSymbol symbol) {
+        if (symbol instanceof IndexedSemanticSymbol) {
+            append(((IndexedSemanticSymbol) symbol).getIndexedSymbol(), symbol.getWeight());
+        } else {
+            addSymbol(symbol.getSymbol(), symbol.getWeight());
+        }
+    }
+
+    @Override
+    public void addSymbolString(List<String> symbolString, List<Double> weights) {
+        for (int i = 0; i < Math.min(symbolString.size(), weights.size()); i++) {
+            addSymbol(symbolString.get(i), weights.get(i));
+        }
+    }
+
+    @Override
+    public void addSymbolString(List<String> symbolString) {
+        for (String aString : symbolString) {
+            addSymbol(aString, DEFAULT_WEIGHT);
+        }
+    }
+
+    @Override
+    public List<Double> getWeights() {
+        ensureSorted();
+        List<Double> weightList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            weightList.add(weightAt(i));
+        }
+        return weightList;
+    }
+
+    @Override
+    public List<String> getStringSymbols() {
+        int[] ids = getSymbolIds();
+        List<String> stringSymbols = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            stringSymbols.add(String.valueOf(id));
+        }
+        return stringSymbols;
+    }
+
+    @Override
+    public List<SemanticSymbol> getSymbols() {
+        ensureSorted();
+        List<SemanticSymbol> symbols = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            symbols.add(getIndexedSymbol(i));
+        }
+        return symbols;
+    }
+
+    @Override
+    public Iterator<SemanticSymbol> iterator() {
+        return getSymbols().iterator();
+    }
+
+    @Override
+    public SemanticSymbol getSymbol(int index) {
+        return getIndexedSymbol(index);
+    }
+
+    @Override
+    public SemanticSignature appendSignature(SemanticSignature other) {
+        for (SemanticSymbol ss : other) {
+            addSymbol(ss);
+        }
+        return this;
+    }
+
+    @Override
+    public SemanticSignature mergeSignatures(SemanticSignature other) {
+        return copy().appendSignature(other);
+    }
+
+    @Override
+    public boolean isNull() {
+        return false;
+    }
+
+    public String toString() {
+        int[] ids = getSymbolIds();
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int id : ids) {
+            stringBuilder.append(String.format(" %d", id));
+        }
+        return stringBuilder.toString();
+    }
+}
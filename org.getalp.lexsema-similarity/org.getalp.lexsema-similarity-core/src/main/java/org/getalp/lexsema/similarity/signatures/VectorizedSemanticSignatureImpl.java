@@ -28,7 +28,7 @@ class VectorizedSemanticSignatureImpl implements VectorizedSemanticSignature {
     }
 
     VectorizedSemanticSignatureImpl(List<VectorizedSemanticSymbol> symbols) {
-        this.symbols = Collections.unmodifiableList(symbols);
+        this.symbols = new ArrayList<>(symbols);
     }
 
     @Override
@@ -8,6 +8,9 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 
 public class CachedSignatureEnrichment extends SignatureEnrichmentAbstract {
@@ -50,9 +53,10 @@ public class CachedSignatureEnrichment extends SignatureEnrichmentAbstract {
     @Override
     public SemanticSignature enrichSemanticSignature(SemanticSignature semanticSignature) {
         String key = produceKey(semanticSignature.toString());
+        String cachedString = cache.get(key);
         SemanticSignature signature;
-        if (cache.exists(key)) {
-            signature = signatureFromCachedString(cache.get(key));
+        if (cachedString != null) {
+            signature = signatureFromCachedString(cachedString);
         } else {
             if (signatureEnrichmentEngine != null) {
                 signatureEnrichmentEngine.enrichSemanticSignature(semanticSignature);
@@ -61,8 +65,42 @@ public class CachedSignatureEnrichment extends SignatureEnrichmentAbstract {
             signature = semanticSignature;
 
         }
-        logger.info(semanticSignature.toString());
+        logger.debug(semanticSignature.toString());
         return signature;
     }
 
+    /**
+     * Enriches several signatures, looking all of them up in the cache with a single batch request and storing the
+     * newly enriched ones with another.
+     *
+     * @return The enriched signatures, in the same order
+     */
+    @Override
+    public List<SemanticSignature> enrichSemanticSignatures(List<SemanticSignature> semanticSignatures) {
+        List<String> keys = new ArrayList<>(semanticSignatures.size());
+        for (SemanticSignature semanticSignature : semanticSignatures) {
+            keys.add(produceKey(semanticSignature.toString()));
+        }
+        List<String> cachedStrings = cache.mget(keys);
+        List<SemanticSignature> signatures = new ArrayList<>(semanticSignatures.size());
+        Map<String, String> enriched = new HashMap<>();
+        for (int i = 0; i < semanticSignatures.size(); i++) {
+            SemanticSignature semanticSignature = semanticSignatures.get(i);
+            String cachedString = cachedStrings.get(i);
+            if (cachedString != null) {
+                signatures.add(signatureFromCachedString(cachedString));
+            } else {
+                if (signatureEnrichmentEngine != null) {
+                    signatureEnrichmentEngine.enrichSemanticSignature(semanticSignature);
+                    enriched.put(keys.get(i), semanticSignature.toString());
+                }
+                signatures.add(semanticSignature);
+            }
+        }
+        if (!enriched.isEmpty()) {
+            cache.mset(enriched);
+        }
+        return signatures;
+    }
+
 }
@@ -4,16 +4,24 @@ import org.getalp.lexsema.similarity.signatures.DefaultSemanticSignatureFactory;
 import org.getalp.lexsema.similarity.signatures.IndexedSemanticSignature;
 import org.getalp.lexsema.similarity.signatures.SemanticSignature;
 import org.getalp.lexsema.similarity.signatures.index.SymbolIndex;
-import org.getalp.lexsema.similarity.signatures.index.SymbolIndexImpl;
+import org.getalp.lexsema.similarity.signatures.index.ConcurrentSymbolIndex;
 import org.getalp.lexsema.similarity.signatures.symbols.SemanticSymbol;
 
 public class IndexingSignatureEnrichment extends SignatureEnrichmentAbstract {
 
-    private final SymbolIndex symbolIndex = new SymbolIndexImpl();
+    private final SymbolIndex symbolIndex;
+
+    public IndexingSignatureEnrichment() {
+        this(ConcurrentSymbolIndex.getGlobalIndex());
+    }
+
+    public IndexingSignatureEnrichment(SymbolIndex symbolIndex) {
+        this.symbolIndex = symbolIndex;
+    }
 
     @Override
     public SemanticSignature enrichSemanticSignature(SemanticSignature semanticSignature) {
-        IndexedSemanticSignature indexedSignature = DefaultSemanticSignatureFactory.DEFAULT.createIndexedSemanticSignature(symbolIndex);
+        IndexedSemanticSignature indexedSignature = DefaultSemanticSignatureFactory.DEFAULT.createPrimitiveIndexedSemanticSignature(symbolIndex);
         for (SemanticSymbol symbol : semanticSignature) {
             indexedSignature.addSymbol(symbol);
         }
@@ -1,13 +1,16 @@
 package org.getalp.lexsema.similarity.signatures.enrichment;
 
 import org.getalp.lexsema.similarity.signatures.DefaultSemanticSignatureFactory;
+import org.getalp.lexsema.similarity.signatures.PackedVectorizedSemanticSignature;
 import org.getalp.lexsema.similarity.signatures.SemanticSignature;
 import org.getalp.lexsema.similarity.signatures.symbols.SemanticSymbol;
 import org.getalp.lexsema.util.word2vec.Word2VecClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 public class VectorizationSignatureEnrichment extends SignatureEnrichmentAbstract {
 
@@ -15,14 +18,18 @@ public class VectorizationSignatureEnrichment extends SignatureEnrichmentAbstrac
 
     @Override
     public SemanticSignature enrichSemanticSignature(SemanticSignature semanticSignature) {
-        SemanticSignature newSignature = DefaultSemanticSignatureFactory.DEFAULT.createSemanticSignature();
+        PackedVectorizedSemanticSignature newSignature = DefaultSemanticSignatureFactory.DEFAULT.createPackedVectorizedSemanticSignature();
+        List<String> symbolStrs = new ArrayList<>();
         for (SemanticSymbol symbol : semanticSignature) {
-        	String symbolStr = symbol.getSymbol().toLowerCase().trim();
-            double[] vector = Word2VecClient.getWordVector(symbolStr);
+            symbolStrs.add(symbol.getSymbol().toLowerCase().trim());
+        }
+        Map<String, double[]> vectors = Word2VecClient.getWordVectors(symbolStrs);
+        for (String symbolStr : symbolStrs) {
+            double[] vector = vectors.get(symbolStr);
             if (vector.length == 0) {
                 logger.warn("Warning : cannot vectorize word \"{}\"", symbolStr);
             } else {
-                newSignature.addSymbol(Arrays.toString(vector).replace(" ", ""));
+                newSignature.addVector(vector);
             }
         }
         return newSignature;
@@ -1,21 +1,29 @@
 package org.getalp.lexsema.similarity.signatures.enrichment;
 
 import org.getalp.lexsema.similarity.signatures.DefaultSemanticSignatureFactory;
+import org.getalp.lexsema.similarity.signatures.PackedVectorizedSemanticSignature;
 import org.getalp.lexsema.similarity.signatures.SemanticSignature;
 import org.getalp.lexsema.similarity.signatures.symbols.SemanticSymbol;
 import org.getalp.lexsema.util.VectorOperation;
 import org.getalp.lexsema.util.word2vec.Word2VecClient;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 public class VectorizationSignatureEnrichment2 extends SignatureEnrichmentAbstract {
 
     @Override
     public SemanticSignature enrichSemanticSignature(SemanticSignature signature, String id) {
-        SemanticSignature newSignature = DefaultSemanticSignatureFactory.DEFAULT.createSemanticSignature();
+        PackedVectorizedSemanticSignature newSignature = DefaultSemanticSignatureFactory.DEFAULT.createPackedVectorizedSemanticSignature();
         double[] vectorSum = null;
+        List<String> words = new ArrayList<>();
         for (SemanticSymbol symbol : signature) {
-            double[] vector = Word2VecClient.getWordVector(symbol.getSymbol().toLowerCase());
+            words.add(symbol.getSymbol().toLowerCase());
+        }
+        Map<String, double[]> vectors = Word2VecClient.getWordVectors(words);
+        for (String word : words) {
+            double[] vector = vectors.get(word);
             if (vector.length == 0) continue;
             if (vectorSum == null) vectorSum = vector;
             else vectorSum = VectorOperation.add(vectorSum, vector);
@@ -28,7 +36,7 @@ public class VectorizationSignatureEnrichment2 extends SignatureEnrichmentAbstra
         else
         {
         	vectorSum = VectorOperation.normalize(vectorSum);
-        	newSignature.addSymbol(Arrays.toString(vectorSum).replace(" ", ""));
+        	newSignature.addVector(vectorSum);
         	return newSignature;
         }
     }
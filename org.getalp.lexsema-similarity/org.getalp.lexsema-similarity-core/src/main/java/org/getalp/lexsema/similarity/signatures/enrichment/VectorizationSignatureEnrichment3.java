@@ -1,12 +1,15 @@
 package org.getalp.lexsema.similarity.signatures.enrichment;
 
 import org.getalp.lexsema.similarity.signatures.DefaultSemanticSignatureFactory;
+import org.getalp.lexsema.similarity.signatures.PackedVectorizedSemanticSignature;
 import org.getalp.lexsema.similarity.signatures.SemanticSignature;
 import org.getalp.lexsema.similarity.signatures.symbols.SemanticSymbol;
 import org.getalp.lexsema.util.VectorOperation;
 import org.getalp.lexsema.util.word2vec.Word2VecClient;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 public class VectorizationSignatureEnrichment3 extends SignatureEnrichmentAbstract {
@@ -25,18 +28,24 @@ public class VectorizationSignatureEnrichment3 extends SignatureEnrichmentAbstra
 	
     @Override
     public SemanticSignature enrichSemanticSignature(SemanticSignature signature, String id) {
-        SemanticSignature newSignature = DefaultSemanticSignatureFactory.DEFAULT.createSemanticSignature();
+        PackedVectorizedSemanticSignature newSignature = DefaultSemanticSignatureFactory.DEFAULT.createPackedVectorizedSemanticSignature();
         double[] vectorSum = null;
         id = id.substring(0, id.indexOf('%'));
         id = non_letters_pattern.matcher(id).replaceAll("").toLowerCase();
-        double[] vectorId = Word2VecClient.getWordVector(id);
+        List<String> words = new ArrayList<>();
+        words.add(id);
+        for (SemanticSymbol symbol : signature) {
+            words.add(symbol.getSymbol().toLowerCase());
+        }
+        Map<String, double[]> vectors = Word2VecClient.getWordVectors(words);
+        double[] vectorId = vectors.get(id);
         if (vectorId.length == 0)
         {
         	System.err.println("Warning : cannot vectorize " + id);
         	return newSignature;
         }
-        for (SemanticSymbol symbol : signature) {
-            double[] vector = Word2VecClient.getWordVector(symbol.getSymbol().toLowerCase());
+        for (String word : words.subList(1, words.size())) {
+            double[] vector = vectors.get(word);
             if (vector.length == 0) continue;
             if (VectorOperation.dot_product(vector, vectorId) < threshold) continue;
             if (vectorSum == null) vectorSum = vector;
@@ -44,7 +53,7 @@ public class VectorizationSignatureEnrichment3 extends SignatureEnrichmentAbstra
         }
         if (vectorSum == null) return newSignature;
         vectorSum = VectorOperation.normalize(vectorSum);
-        newSignature.addSymbol(Arrays.toString(vectorSum).replace(" ", ""));
+        newSignature.addVector(vectorSum);
         return newSignature;
     }
 
@@ -0,0 +1,197 @@
+package org.getalp.lexsema.similarity.signatures.index;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread-safe, append-only symbol index: once a symbol has been given an index, the index never changes, so that the
+ * indexed signatures built by different loaders and enrichments sharing the same instance can be compared.
+ * <p>
+ * Lookups of known symbols are a single lock-free map read; new symbols are numbered sequentially under a lock.
+ * The index can be saved with {@link #save(File)} and restored with {@link #load(File)}, which memory-maps the file.
+ * The {@link #getGlobalIndex() global index} shared by the loaders is restored at startup from the file named by the
+ * {@value #INDEX_FILE_PROPERTY} system property, when set, and written back there by {@link #saveGlobalIndex()}.
+ */
+public final class ConcurrentSymbolIndex implements SymbolIndex {
+
+    public static final String INDEX_FILE_PROPERTY = "lexsema.symbolindex.file";
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrentSymbolIndex.class);
+    private static final int MAGIC = 0x4C585358;
+    private static final int VERSION = 1;
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static volatile ConcurrentSymbolIndex globalIndex;
+
+    private final ConcurrentMap<String, Integer> indexMap;
+    private volatile AtomicReferenceArray<String>[] symbolPages;
+    private volatile int size;
+    private volatile int savedSize;
+
+    public ConcurrentSymbolIndex() {
+        this(PAGE_SIZE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ConcurrentSymbolIndex(int expectedSize) {
+        indexMap = new ConcurrentHashMap<>(expectedSize);
+        symbolPages = new AtomicReferenceArray[]{new AtomicReferenceArray<String>(PAGE_SIZE)};
+    }
+
+    /**
+     * Returns the index shared by all the loaders of the process, restored from the file named by the
+     * {@value #INDEX_FILE_PROPERTY} system property the first time it is requested if that file exists.
+     */
+    public static ConcurrentSymbolIndex getGlobalIndex() {
+        ConcurrentSymbolIndex index = globalIndex;
+        if (index == null) {
+            synchronized (ConcurrentSymbolIndex.class) {
+                index = globalIndex;
+                if (index == null) {
+                    index = loadGlobalIndex();
+                    globalIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private static ConcurrentSymbolIndex loadGlobalIndex() {
+        String path = System.getProperty(INDEX_FILE_PROPERTY);
+        if (path != null && new File(path).exists()) {
+            try {
+                ConcurrentSymbolIndex index = load(new File(path));
+                logger.info("Loaded {} symbols from {}", index.size(), path);
+                return index;
+            } catch (IOException e) {
+                logger.warn("Cannot load the symbol index {}: {}", path, e.getLocalizedMessage());
+            }
+        }
+        return new ConcurrentSymbolIndex();
+    }
+
+    /**
+     * Writes the global index to the file named by the {@value #INDEX_FILE_PROPERTY} system property, when set and
+     * when symbols were added since the index was loaded or last saved.
+     *
+     * @throws IOException When the file cannot be written
+     */
+    public static synchronized void saveGlobalIndex() throws IOException {
+        String path = System.getProperty(INDEX_FILE_PROPERTY);
+        ConcurrentSymbolIndex index = globalIndex;
+        if (path != null && index != null && index.size() > index.savedSize) {
+            index.save(new File(path));
+            logger.info("Saved {} symbols to {}", index.savedSize, path);
+        }
+    }
+
+    @Override
+    public Integer getSymbolIndex(String symbol) {
+        Integer index = indexMap.get(symbol);
+        if (index == null) {
+            index = indexMap.computeIfAbsent(symbol, this::append);
+        }
+        return index;
+    }
+
+    @Override
+    public String getSymbol(int index) {
+        if (index < 0 || index >= size) {
+            return null;
+        }
+        return symbolPages[index >>> PAGE_BITS].get(index & PAGE_MASK);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private synchronized Integer append(String symbol) {
+        int index = size;
+        int page = index >>> PAGE_BITS;
+        AtomicReferenceArray<String>[] pages = symbolPages;
+        if (page == pages.length) {
+            pages = Arrays.copyOf(pages, pages.length * 2);
+            for (int p = page; p < pages.length; p++) {
+                pages[p] = new AtomicReferenceArray<>(PAGE_SIZE);
+            }
+            symbolPages = pages;
+        }
+        pages[page].set(index & PAGE_MASK, symbol);
+        size = index + 1;
+        return index;
+    }
+
+    /**
+     * Writes the symbols in index order. Symbols added concurrently with the call may not be written.
+     */
+    public void save(File file) throws IOException {
+        int count = size;
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                byte[] bytes = getSymbol(i).getBytes(StandardCharsets.UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            }
+        }
+        savedSize = count;
+    }
+
+    /**
+     * Memory-maps an index previously written with {@link #save(File)}; every symbol keeps its saved index.
+     *
+     * @throws IOException When the file cannot be read or is not a symbol index
+     */
+    public static ConcurrentSymbolIndex load(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 12 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a symbol index: " + file);
+            }
+            int count = buffer.getInt();
+            ConcurrentSymbolIndex index = new ConcurrentSymbolIndex(Math.max(count, PAGE_SIZE));
+            byte[] bytes = new byte[64];
+            for (int i = 0; i < count; i++) {
+                int length = readLength(buffer, file);
+                if (length > bytes.length) {
+                    bytes = new byte[Math.max(length, bytes.length * 2)];
+                }
+                buffer.get(bytes, 0, length);
+                String symbol = new String(bytes, 0, length, StandardCharsets.UTF_8);
+                if (index.indexMap.putIfAbsent(symbol, index.append(symbol)) != null) {
+                    throw new IOException("Duplicate symbol " + symbol + " in " + file);
+                }
+            }
+            index.savedSize = count;
+            return index;
+        }
+    }
+
+    private static int readLength(ByteBuffer buffer, File file) throws IOException {
+        if (buffer.remaining() < 4) {
+            throw new IOException("Truncated symbol index: " + file);
+        }
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Truncated symbol index: " + file);
+        }
+        return length;
+    }
+}
@@ -1,20 +1,30 @@
 package org.getalp.lexsema.similarity.signatures.index;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class SymbolIndexImpl implements SymbolIndex {
     
     private final Map<String, Integer> indexMap = new HashMap<>();
-    
-    private int currentSymbol = 0;
-    
+    private final List<String> symbols = new ArrayList<>();
+
     @Override
     public Integer getSymbolIndex(String symbol) {
-        if(!indexMap.containsKey(symbol)){
-            indexMap.put(symbol, currentSymbol);
-            currentSymbol++;
-        }
-        return indexMap.get(symbol);
+        return indexMap.computeIfAbsent(symbol, key -> {
+            symbols.add(key);
+            return symbols.size() - 1;
+        });
+    }
+
+    @Override
+    public String getSymbol(int index) {
+        return index >= 0 && index < symbols.size() ? symbols.get(index) : null;
+    }
+
+    @Override
+    public int size() {
+        return symbols.size();
     }
 }
@@ -0,0 +1,81 @@
+package org.getalp.lexsema.similarity.measures.lesk;
+
+import org.getalp.lexsema.similarity.signatures.DefaultSemanticSignatureFactory;
+import org.getalp.lexsema.similarity.signatures.PackedVectorizedSemanticSignature;
+import org.getalp.lexsema.similarity.signatures.VectorizedSemanticSignature;
+import org.getalp.lexsema.similarity.signatures.symbols.DefaultSemanticSymbolFactory;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the tiled dot products of packed signatures against the list-based Lesk over the same vectors, with numbers of
+ * vectors and dimensions that are not multiples of the tiles, and empty vectors
+ */
+public class PackedVectorKernelsTest {
+
+    private static final int PAIRS = 200;
+
+    @Test
+    public void testSameAsListSignatures() {
+        Random random = new Random(1);
+        VectorizedLeskSimilarity similarity = new VectorizedLeskSimilarity(Double.NEGATIVE_INFINITY);
+        for (int p = 0; p < PAIRS; p++) {
+            int dimension = 1 + random.nextInt(13);
+            double[][] vectorsA = generateVectors(random, 1 + random.nextInt(11), dimension, false);
+            double[][] vectorsB = generateVectors(random, 1 + random.nextInt(11), dimension, false);
+            double expected = similarity.compute(listSignature(vectorsA), listSignature(vectorsB));
+            // The packed vectors are floats
+            double tolerance = 1e-5 * (1 + Math.abs(expected)) * vectorsA.length * vectorsB.length;
+            assertEquals("pair " + p, expected, similarity.compute(packedSignature(vectorsA), packedSignature(vectorsB)), tolerance);
+            assertEquals("pair " + p, expected, similarity.compute(packedSignature(vectorsA), listSignature(vectorsB)), tolerance);
+        }
+    }
+
+    @Test
+    public void testThreshold() {
+        Random random = new Random(2);
+        for (int p = 0; p < PAIRS; p++) {
+            // Components in quarters, whose dot products are exact in floats, so that none falls on the other side of
+            // the threshold
+            VectorizedLeskSimilarity similarity = new VectorizedLeskSimilarity(random.nextInt(9) / 4. - 1);
+            int dimension = 1 + random.nextInt(13);
+            double[][] vectorsA = generateVectors(random, 1 + random.nextInt(11), dimension, true);
+            double[][] vectorsB = generateVectors(random, 1 + random.nextInt(11), dimension, true);
+            assertEquals("pair " + p, similarity.compute(listSignature(vectorsA), listSignature(vectorsB)),
+                    similarity.compute(packedSignature(vectorsA), packedSignature(vectorsB)), 0);
+        }
+    }
+
+    private static VectorizedSemanticSignature listSignature(double[][] vectors) {
+        VectorizedSemanticSignature signature = DefaultSemanticSignatureFactory.DEFAULT.createVectorizedSemanticSignature();
+        for (double[] vector : vectors) {
+            signature.addSymbol(DefaultSemanticSymbolFactory.DEFAULT_FACTORY.createVectorizedSemanticSymbol(vector));
+        }
+        return signature;
+    }
+
+    private static PackedVectorizedSemanticSignature packedSignature(double[][] vectors) {
+        PackedVectorizedSemanticSignature signature = DefaultSemanticSignatureFactory.DEFAULT.createPackedVectorizedSemanticSignature();
+        for (double[] vector : vectors) {
+            signature.addVector(vector);
+        }
+        return signature;
+    }
+
+    /**
+     * @return Vectors of which about one in six is empty
+     */
+    private static double[][] generateVectors(Random random, int count, int dimension, boolean quarters) {
+        double[][] vectors = new double[count][];
+        for (int v = 0; v < count; v++) {
+            vectors[v] = new double[random.nextInt(6) == 0 ? 0 : dimension];
+            for (int i = 0; i < vectors[v].length; i++) {
+                vectors[v][i] = quarters ? random.nextInt(9) / 4. - 1 : 2 * random.nextDouble() - 1;
+            }
+        }
+        return vectors;
+    }
+}
@@ -0,0 +1,150 @@
+package org.getalp.lexsema.similarity.measures.lesk;
+
+import org.getalp.lexsema.ml.optimization.functions.setfunctions.input.OverlapInputSet;
+import org.getalp.lexsema.similarity.signatures.DefaultSemanticSignatureFactory;
+import org.getalp.lexsema.similarity.signatures.IndexedSemanticSignature;
+import org.getalp.lexsema.similarity.signatures.PrimitiveIndexedSemanticSignature;
+import org.getalp.lexsema.similarity.signatures.symbols.DefaultSemanticSymbolFactory;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the sorted overlap kernels on primitive signatures against the list-based measures and the string symbols of
+ * the same signatures
+ */
+public class SortedOverlapKernelsTest {
+
+    private static final int PAIRS = 200;
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void testOverlap() {
+        Random random = new Random(1);
+        for (int p = 0; p < PAIRS; p++) {
+            int[][] ids = generatePair(random);
+            PrimitiveIndexedSemanticSignature a = primitiveSignature(ids[0], false);
+            PrimitiveIndexedSemanticSignature b = primitiveSignature(ids[1], false);
+            double expected = commonSymbols(a.getStringSymbols(), b.getStringSymbols());
+            assertEquals("pair " + p, expected, SortedOverlapKernels.overlap(a.getSymbolIds(), b.getSymbolIds()), DELTA);
+            assertEquals("pair " + p, expected, new IndexedLeskSimilarity().compute(listSignature(ids[0], false), listSignature(ids[1], false)), DELTA);
+            assertEquals("pair " + p, expected, new IndexedLeskSimilarity().compute(a, b), DELTA);
+            assertEquals("pair " + p, expected, new IndexedOverlapSimilarity().compute(a, b), DELTA);
+        }
+    }
+
+    @Test
+    public void testDice() {
+        Random random = new Random(2);
+        for (int p = 0; p < PAIRS; p++) {
+            int[][] ids = generatePair(random);
+            PrimitiveIndexedSemanticSignature a = primitiveSignature(ids[0], false);
+            PrimitiveIndexedSemanticSignature b = primitiveSignature(ids[1], false);
+            double expected = new IndexedDiceLeskSimilarity().compute(listSignature(ids[0], false), listSignature(ids[1], false));
+            assertEquals("pair " + p, expected, SortedOverlapKernels.dice(a.getSymbolIds(), b.getSymbolIds()), DELTA);
+            assertEquals("pair " + p, expected, new IndexedDiceLeskSimilarity().compute(a, b), DELTA);
+        }
+        assertEquals(0, SortedOverlapKernels.dice(new int[0], new int[0]), DELTA);
+    }
+
+    @Test
+    public void testWeightedOverlap() {
+        Random random = new Random(3);
+        for (int p = 0; p < PAIRS; p++) {
+            int[][] ids = generatePair(random);
+            PrimitiveIndexedSemanticSignature a = primitiveSignature(ids[0], true);
+            PrimitiveIndexedSemanticSignature b = primitiveSignature(ids[1], p % 2 == 0);
+            double expected = new IndexedWeightedLeskSimilarity().compute(listSignature(ids[0], true), listSignature(ids[1], p % 2 == 0));
+            assertEquals("pair " + p, expected, SortedOverlapKernels.weightedOverlap(a.getSymbolIds(), a.getSymbolWeights(), b.getSymbolIds(), b.getSymbolWeights()), DELTA);
+        }
+    }
+
+    @Test
+    public void testMatchingPairs() {
+        Random random = new Random(4);
+        for (int p = 0; p < PAIRS; p++) {
+            int[][] ids = generatePair(random);
+            PrimitiveIndexedSemanticSignature a = primitiveSignature(ids[0], false);
+            PrimitiveIndexedSemanticSignature b = primitiveSignature(ids[1], false);
+            double expected = new OverlapInputSet(a.getStringSymbols(), b.getStringSymbols(), null, null, null).getValues().zSum();
+            assertEquals("pair " + p, expected, SortedOverlapKernels.matchingPairs(a.getSymbolIds(), b.getSymbolIds()), DELTA);
+        }
+    }
+
+    /**
+     * The string walk of IndexedOverlapSimilarity, used for the other signatures, misses symbols the primitive path
+     * counts
+     */
+    @Test
+    public void testOverlapOfStringWalk() {
+        int[] idsA = {1, 5};
+        int[] idsB = {5};
+        assertEquals(0, new IndexedOverlapSimilarity().compute(listSignature(idsA, false), listSignature(idsB, false)), DELTA);
+        assertEquals(1, new IndexedOverlapSimilarity().compute(primitiveSignature(idsA, false), primitiveSignature(idsB, false)), DELTA);
+    }
+
+    private static int[][] generatePair(Random random) {
+        return new int[][]{generateIds(random), generateIds(random)};
+    }
+
+    /**
+     * Unsorted ids with repetitions, at least one as the list-based Dice is not defined on empty signatures
+     */
+    private static int[] generateIds(Random random) {
+        int[] ids = new int[1 + random.nextInt(30)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = random.nextInt(40);
+        }
+        return ids;
+    }
+
+    /**
+     * A weight that depends on the id and the position, exact in float
+     */
+    private static double weight(int id, int position) {
+        return 0.25 * (1 + (id + position) % 7);
+    }
+
+    private static PrimitiveIndexedSemanticSignature primitiveSignature(int[] ids, boolean weighted) {
+        PrimitiveIndexedSemanticSignature signature = DefaultSemanticSignatureFactory.DEFAULT.createPrimitiveIndexedSemanticSignature();
+        fill(signature, ids, weighted);
+        return signature;
+    }
+
+    private static IndexedSemanticSignature listSignature(int[] ids, boolean weighted) {
+        IndexedSemanticSignature signature = DefaultSemanticSignatureFactory.DEFAULT.createIndexedSemanticSignature();
+        fill(signature, ids, weighted);
+        return signature;
+    }
+
+    private static void fill(IndexedSemanticSignature signature, int[] ids, boolean weighted) {
+        for (int i = 0; i < ids.length; i++) {
+            signature.addSymbol(DefaultSemanticSymbolFactory.DEFAULT_FACTORY.createIndexedSemanticSymbol(ids[i], weighted ? weight(ids[i], i) : 1d));
+        }
+        signature.sort();
+    }
+
+    /**
+     * The size of the intersection of two bags of string symbols
+     */
+    private static int commonSymbols(List<String> a, List<String> b) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String symbol : a) {
+            counts.merge(symbol, 1, Integer::sum);
+        }
+        int common = 0;
+        for (String symbol : b) {
+            Integer count = counts.get(symbol);
+            if (count != null && count > 0) {
+                counts.put(symbol, count - 1);
+                common++;
+            }
+        }
+        return common;
+    }
+}
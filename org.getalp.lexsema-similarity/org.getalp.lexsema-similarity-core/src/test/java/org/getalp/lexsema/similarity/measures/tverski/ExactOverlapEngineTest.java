@@ -0,0 +1,92 @@
+package org.getalp.lexsema.similarity.measures.tverski;
+
+import org.getalp.lexsema.ml.optimization.functions.setfunctions.input.OverlapInputSet;
+import org.getalp.lexsema.similarity.signatures.DefaultSemanticSignatureFactory;
+import org.getalp.lexsema.similarity.signatures.PrimitiveIndexedSemanticSignature;
+import org.getalp.lexsema.similarity.signatures.SemanticSignature;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the exact overlap against the sum of an exact-match OverlapInputSet, on small signatures compared pair by pair
+ * and larger ones counted in the hash table, with repeated symbols
+ */
+public class ExactOverlapEngineTest {
+
+    private static final int PAIRS = 200;
+
+    @Test
+    public void testRepeatedSymbols() {
+        List<String> la = Arrays.asList("bank", "river", "bank");
+        List<String> lb = Arrays.asList("bank", "bank", "Bank", "water");
+        assertEquals(4, ExactOverlapEngine.matchingPairs(la, lb), 1e-9);
+        assertEquals(overlapInputSetSum(la, lb), ExactOverlapEngine.matchingPairs(signature(la), signature(lb)), 1e-9);
+    }
+
+    @Test
+    public void testEmptySignature() {
+        List<String> la = Arrays.asList("bank", "river");
+        assertEquals(0, ExactOverlapEngine.matchingPairs(signature(la), signature(new ArrayList<>())), 1e-9);
+        assertEquals(0, ExactOverlapEngine.matchingPairs(new ArrayList<>(), la), 1e-9);
+    }
+
+    @Test
+    public void testSameAsOverlapInputSet() {
+        Random random = new Random(1);
+        for (int p = 0; p < PAIRS; p++) {
+            // Up to 120 symbols, so that both the pairwise comparison and the growth of the hash table are covered
+            List<String> la = generateSymbols(random, 1 + random.nextInt(p % 2 == 0 ? 12 : 120));
+            List<String> lb = generateSymbols(random, 1 + random.nextInt(p % 2 == 0 ? 12 : 120));
+            double expected = overlapInputSetSum(la, lb);
+            assertEquals("pair " + p, expected, ExactOverlapEngine.matchingPairs(la, lb), 1e-9);
+            assertEquals("pair " + p, expected, ExactOverlapEngine.matchingPairs(signature(la), signature(lb)), 1e-9);
+        }
+    }
+
+    @Test
+    public void testPrimitiveIndexedSignatures() {
+        Random random = new Random(2);
+        for (int p = 0; p < PAIRS; p++) {
+            PrimitiveIndexedSemanticSignature sigA = primitiveSignature(random);
+            PrimitiveIndexedSemanticSignature sigB = primitiveSignature(random);
+            assertEquals("pair " + p, overlapInputSetSum(sigA.getStringSymbols(), sigB.getStringSymbols()),
+                    ExactOverlapEngine.matchingPairs(sigA, sigB), 1e-9);
+        }
+    }
+
+    private static double overlapInputSetSum(List<String> la, List<String> lb) {
+        return new OverlapInputSet(la, lb, null, null, null).getValues().zSum();
+    }
+
+    private static SemanticSignature signature(List<String> symbols) {
+        SemanticSignature signature = DefaultSemanticSignatureFactory.DEFAULT.createSemanticSignature();
+        for (String symbol : symbols) {
+            signature.addSymbol(symbol);
+        }
+        return signature;
+    }
+
+    private static PrimitiveIndexedSemanticSignature primitiveSignature(Random random) {
+        PrimitiveIndexedSemanticSignature signature = DefaultSemanticSignatureFactory.DEFAULT.createPrimitiveIndexedSemanticSignature();
+        int size = 1 + random.nextInt(40);
+        for (int i = 0; i < size; i++) {
+            signature.addIndexedSymbol(random.nextInt(60));
+        }
+        signature.sort();
+        return signature;
+    }
+
+    private static List<String> generateSymbols(Random random, int size) {
+        List<String> symbols = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            symbols.add("sym" + random.nextInt(80));
+        }
+        return symbols;
+    }
+}
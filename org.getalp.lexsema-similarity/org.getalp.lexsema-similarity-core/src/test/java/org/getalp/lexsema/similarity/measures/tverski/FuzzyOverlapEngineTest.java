@@ -0,0 +1,56 @@
+package org.getalp.lexsema.similarity.measures.tverski;
+
+import com.wcohen.ss.ScaledLevenstein;
+import org.getalp.lexsema.ml.optimization.functions.setfunctions.input.OverlapInputSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the pruned fuzzy overlap against the sum of a fuzzy OverlapInputSet, on mixed-case symbols
+ */
+public class FuzzyOverlapEngineTest {
+
+    private static final int PAIRS = 200;
+    private static final String ALPHABET = "aAbBcCdDeE";
+
+    @Test
+    public void testCaseInsensitiveMatch() {
+        List<String> la = Arrays.asList("Bank", "RIVER");
+        List<String> lb = Arrays.asList("bank", "river", "Rivers");
+        assertEquals(overlapInputSetSum(la, lb), new FuzzyOverlapEngine(new ScaledLevenstein()).overlap(la, lb), 1e-9);
+    }
+
+    @Test
+    public void testSameAsOverlapInputSet() {
+        Random random = new Random(1);
+        FuzzyOverlapEngine engine = new FuzzyOverlapEngine(new ScaledLevenstein());
+        for (int p = 0; p < PAIRS; p++) {
+            List<String> la = generateSymbols(random);
+            List<String> lb = generateSymbols(random);
+            assertEquals("pair " + p, overlapInputSetSum(la, lb), engine.overlap(la, lb), 1e-9);
+        }
+    }
+
+    private static double overlapInputSetSum(List<String> la, List<String> lb) {
+        return new OverlapInputSet(la, lb, null, null, new ScaledLevenstein()).getValues().zSum();
+    }
+
+    private static List<String> generateSymbols(Random random) {
+        int size = 1 + random.nextInt(15);
+        List<String> symbols = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            char[] symbol = new char[1 + random.nextInt(8)];
+            for (int c = 0; c < symbol.length; c++) {
+                symbol[c] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            }
+            symbols.add(new String(symbol));
+        }
+        return symbols;
+    }
+}
@@ -0,0 +1,57 @@
+package org.getalp.lexsema.similarity.signatures.index;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests that a saved symbol index is loaded back with the same indexes and keeps numbering the new symbols after them
+ */
+public class ConcurrentSymbolIndexTest {
+
+    private static final int SYMBOLS = 70000;
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        ConcurrentSymbolIndex index = new ConcurrentSymbolIndex();
+        for (int i = 0; i < SYMBOLS; i++) {
+            assertEquals(i, (int) index.getSymbolIndex("symbolé" + i));
+        }
+        assertEquals(7, (int) index.getSymbolIndex("symbolé7"));
+
+        File file = File.createTempFile("symbols", ".idx");
+        try {
+            index.save(file);
+            ConcurrentSymbolIndex loaded = ConcurrentSymbolIndex.load(file);
+            assertEquals(SYMBOLS, loaded.size());
+            for (int i = 0; i < SYMBOLS; i++) {
+                assertEquals("symbolé" + i, loaded.getSymbol(i));
+                assertEquals(i, (int) loaded.getSymbolIndex("symbolé" + i));
+            }
+            assertNull(loaded.getSymbol(SYMBOLS));
+            assertEquals(SYMBOLS, (int) loaded.getSymbolIndex("new"));
+            assertEquals("new", loaded.getSymbol(SYMBOLS));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadRejectsAnotherFile() throws IOException {
+        File file = File.createTempFile("symbols", ".idx");
+        try {
+            try (OutputStream output = new FileOutputStream(file)) {
+                output.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+            }
+            ConcurrentSymbolIndex.load(file);
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -27,13 +27,11 @@ public class CachedTranslator implements Translator {
 
     @Override
     public String translate(String source, Language sourceLanguage, Language targetLanguage) {
-        String translation = "";
         String key = produceKey(source, sourceLanguage, targetLanguage);
-        if (!jedis.exists(key)) {
+        String translation = jedis.get(key);
+        if (translation == null) {
             translation = translator.translate(source, sourceLanguage, targetLanguage);
             jedis.set(key, translation);
-        } else {
-            translation = jedis.get(key);
         }
         return translation;
     }
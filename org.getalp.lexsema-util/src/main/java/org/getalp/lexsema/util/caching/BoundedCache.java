@@ -0,0 +1,185 @@
+package org.getalp.lexsema.util.caching;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared, size-bounded in-process cache.
+ * <p>
+ * Keys are spread over independently locked shards, each one a {@link LinkedHashMap} in access order that evicts its
+ * least recently used entry once it holds more than its share of the maximum size. {@link #expire(String, int)} sets
+ * a time to live on an entry; expired entries are removed when they are next accessed, or evicted as any other
+ * entry. Return values follow the Redis conventions used by {@link JedisCache}.
+ * <p>
+ * The instance is meant to be shared by all the threads, so {@link #close()} does not clear it.
+ */
+public final class BoundedCache implements Cache {
+
+    private static final String OK = "OK";
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    private final Shard[] shards;
+    private final int shardMask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedCache(int maximumSize, int concurrencyLevel) {
+        int numberOfShards = Integer.highestOneBit(Math.max(1, Math.min(concurrencyLevel, maximumSize)));
+        shards = new Shard[numberOfShards];
+        int shardCapacity = Math.max(1, maximumSize / numberOfShards);
+        for (int i = 0; i < numberOfShards; i++) {
+            shards[i] = new Shard(shardCapacity);
+        }
+        shardMask = numberOfShards - 1;
+    }
+
+    private Shard shardFor(String key) {
+        int hash = key.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & shardMask];
+    }
+
+    @Override
+    public String get(String key) {
+        Shard shard = shardFor(key);
+        synchronized (shard) {
+            Entry entry = shard.getLive(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    @Override
+    public Boolean exists(String key) {
+        Shard shard = shardFor(key);
+        synchronized (shard) {
+            return shard.getLive(key) != null;
+        }
+    }
+
+    @Override
+    public Long del(String key) {
+        Shard shard = shardFor(key);
+        synchronized (shard) {
+            Entry entry = shard.remove(key);
+            return entry != null && !entry.isExpired(System.nanoTime()) ? 1L : 0L;
+        }
+    }
+
+    @Override
+    public String set(String key, String value) {
+        if (key == null || value == null) {
+            return "";
+        }
+        Shard shard = shardFor(key);
+        synchronized (shard) {
+            shard.put(key, new Entry(value));
+        }
+        return OK;
+    }
+
+    @Override
+    public Long expire(String key, int seconds) {
+        Shard shard = shardFor(key);
+        synchronized (shard) {
+            Entry entry = shard.getLive(key);
+            if (entry == null) {
+                return 0L;
+            }
+            if (seconds <= 0) {
+                shard.remove(key);
+            } else {
+                entry.expiresAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            }
+            return 1L;
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = getHitCount();
+        long requests = hitCount + getMissCount();
+        return requests == 0 ? 1d : (double) hitCount / requests;
+    }
+
+    /**
+     * @return The number of entries, including the expired ones that were not accessed since they expired
+     */
+    public long size() {
+        long size = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                size += shard.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BoundedCache[size=%d, hits=%d, misses=%d, evictions=%d]",
+                size(), getHitCount(), getMissCount(), getEvictionCount());
+    }
+
+    private static final class Entry {
+        private final String value;
+        private long expiresAt = NO_EXPIRY;
+
+        private Entry(String value) {
+            this.value = value;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt != NO_EXPIRY && now - expiresAt >= 0;
+        }
+    }
+
+    private final class Shard extends LinkedHashMap<String, Entry> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        private Shard(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        private Entry getLive(String key) {
+            Entry entry = get(key);
+            if (entry != null && entry.isExpired(System.nanoTime())) {
+                remove(key);
+                return null;
+            }
+            return entry;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.getalp.lexsema.util.caching;
+
+/**
+ * Provides the same {@link BoundedCache} to every caller
+ */
+final class BoundedCachePoolProvider implements CachePooledResourceProvider {
+
+    private final Cache cache;
+
+    public BoundedCachePoolProvider(int maximumSize, int concurrencyLevel) {
+        cache = new BoundedCache(maximumSize, concurrencyLevel);
+    }
+
+    @Override
+    public Cache getResource() {
+        return cache;
+    }
+}
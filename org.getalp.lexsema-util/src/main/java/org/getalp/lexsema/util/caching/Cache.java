@@ -1,6 +1,10 @@
 package org.getalp.lexsema.util.caching;
 
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 public interface Cache {
     public String get(final String key);
 
@@ -13,4 +17,38 @@ public interface Cache {
     public Long expire(final String key, final int seconds);
 
     public void close();
+
+    /**
+     * Returns the values of several keys at once, in the same order, with null for the missing keys. Remote caches
+     * fetch them in a single round trip.
+     */
+    default List<String> mget(final List<String> keys) {
+        List<String> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            values.add(get(key));
+        }
+        return values;
+    }
+
+    /**
+     * Sets several keys at once. Remote caches send them in a single round trip.
+     */
+    default String mset(final Map<String, String> keyValues) {
+        String ret = "";
+        for (Map.Entry<String, String> keyValue : keyValues.entrySet()) {
+            ret = set(keyValue.getKey(), keyValue.getValue());
+        }
+        return ret;
+    }
+
+    /**
+     * Tests the existence of several keys at once, in the same order. Remote caches test them in a single round trip.
+     */
+    default List<Boolean> existsMany(final List<String> keys) {
+        List<Boolean> exist = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            exist.add(exists(key));
+        }
+        return exist;
+    }
 }
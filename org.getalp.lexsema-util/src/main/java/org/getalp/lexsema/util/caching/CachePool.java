@@ -2,6 +2,7 @@ package org.getalp.lexsema.util.caching;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Protocol;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -18,16 +19,28 @@ public final class CachePool {
     private static CacheProvider provider = DEFAULT_CACHE_PROVIDER;
     private static Logger logger = LoggerFactory.getLogger(CachePool.class);
     public final static String DEFAULT_HOST = "localhost";
-    private final static CachePooledResourceProvider CACHE_POOLED_RESOURCE_PROVIDER = buildProvider();
+    public final static int DEFAULT_MAXIMUM_SIZE = 100000;
+    public final static int DEFAULT_CONCURRENCY_LEVEL = 16;
+    public final static int DEFAULT_NEAR_CACHE_SIZE = 0;
 
 
     private static String host = DEFAULT_HOST;
     private static Integer port;
+    private static int maximumSize = DEFAULT_MAXIMUM_SIZE;
+    private static int concurrencyLevel = DEFAULT_CONCURRENCY_LEVEL;
+    private static int nearCacheSize = DEFAULT_NEAR_CACHE_SIZE;
 
 
     private CachePool() {
     }
 
+    /**
+     * Builds the provider on first use, once all the static fields of the pool have their defaults
+     */
+    private static final class ProviderHolder {
+        private static final CachePooledResourceProvider CACHE_POOLED_RESOURCE_PROVIDER = buildProvider();
+    }
+
     private static void loadProperties() {
         final Properties properties = new Properties();
         try (InputStream props = CachePool.class.getResourceAsStream(separator + "lexsema_cache.properties")) {
@@ -45,6 +58,18 @@ public final class CachePool {
                     port = Integer.valueOf(properties.getProperty("lexsema.cache.port"));
                     logger.info(String.format("[CONFIG] Loaded lexsema.cache.port=%d", port));
                 }
+                if (properties.containsKey("lexsema.cache.maximumSize")) {
+                    maximumSize = Integer.valueOf(properties.getProperty("lexsema.cache.maximumSize"));
+                    logger.info(String.format("[CONFIG] Loaded lexsema.cache.maximumSize=%d", maximumSize));
+                }
+                if (properties.containsKey("lexsema.cache.concurrencyLevel")) {
+                    concurrencyLevel = Integer.valueOf(properties.getProperty("lexsema.cache.concurrencyLevel"));
+                    logger.info(String.format("[CONFIG] Loaded lexsema.cache.concurrencyLevel=%d", concurrencyLevel));
+                }
+                if (properties.containsKey("lexsema.cache.nearCacheSize")) {
+                    nearCacheSize = Integer.valueOf(properties.getProperty("lexsema.cache.nearCacheSize"));
+                    logger.info(String.format("[CONFIG] Loaded lexsema.cache.nearCacheSize=%d", nearCacheSize));
+                }
             } else {
                 logger.info("No lexsema_cache.properties in the classpath, using default configuration.");
             }
@@ -58,15 +83,16 @@ public final class CachePool {
         CachePooledResourceProvider resourceProvider;
         switch (provider) {
             case JEDIS:
-                if (port != null) {
-                    resourceProvider = new JedisCachePoolProvider(host, port);
-                } else {
-                    resourceProvider = new JedisCachePoolProvider(host);
-                }
+                resourceProvider = new JedisCachePoolProvider(host, port != null ? port : Protocol.DEFAULT_PORT, nearCacheSize);
+                logger.info(String.format("[CONFIG] Redis near cache size=%d%s", nearCacheSize, nearCacheSize > 0 ? "" : " (disabled)"));
                 break;
             case MAP:
                 resourceProvider = new GenericPooledResourceProvider();
                 break;
+            case BOUNDED:
+                resourceProvider = new BoundedCachePoolProvider(maximumSize, concurrencyLevel);
+                logger.info(String.format("[CONFIG] Bounded cache maximumSize=%d concurrencyLevel=%d", maximumSize, concurrencyLevel));
+                break;
             case DUMMY:
             default:
                 resourceProvider = new DummyCachePoolProvider();
@@ -76,7 +102,7 @@ public final class CachePool {
     }
 
     public synchronized static Cache getResource() {
-        return CACHE_POOLED_RESOURCE_PROVIDER.getResource();
+        return ProviderHolder.CACHE_POOLED_RESOURCE_PROVIDER.getResource();
     }
 
 }
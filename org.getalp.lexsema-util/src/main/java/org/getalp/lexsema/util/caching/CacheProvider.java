@@ -2,5 +2,5 @@ package org.getalp.lexsema.util.caching;
 
 
 public enum CacheProvider {
-    JEDIS, ETH, DUMMY, MAP
+    JEDIS, ETH, DUMMY, MAP, BOUNDED
 }
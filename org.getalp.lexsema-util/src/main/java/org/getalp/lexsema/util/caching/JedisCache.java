@@ -3,8 +3,13 @@ package org.getalp.lexsema.util.caching;
 
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -47,6 +52,44 @@ class JedisCache implements Cache {
         return cache.expire(key, seconds);
     }
 
+    @Override
+    public List<String> mget(List<String> keys) {
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return cache.mget(keys.toArray(new String[keys.size()]));
+    }
+
+    @Override
+    public String mset(Map<String, String> keyValues) {
+        List<String> keysValues = new ArrayList<>(2 * keyValues.size());
+        for (Map.Entry<String, String> keyValue : keyValues.entrySet()) {
+            if (keyValue.getKey() != null && keyValue.getValue() != null) {
+                keysValues.add(keyValue.getKey());
+                keysValues.add(keyValue.getValue());
+            }
+        }
+        if (keysValues.isEmpty()) {
+            return "";
+        }
+        return cache.mset(keysValues.toArray(new String[keysValues.size()]));
+    }
+
+    @Override
+    public List<Boolean> existsMany(List<String> keys) {
+        Pipeline pipeline = cache.pipelined();
+        List<Response<Boolean>> responses = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            responses.add(pipeline.exists(key));
+        }
+        pipeline.sync();
+        List<Boolean> exist = new ArrayList<>(keys.size());
+        for (Response<Boolean> response : responses) {
+            exist.add(response.get());
+        }
+        return exist;
+    }
+
     @Override
     public void close() {
         if (parentPool.get() != null) {
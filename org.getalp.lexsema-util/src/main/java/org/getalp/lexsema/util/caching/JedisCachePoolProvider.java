@@ -5,19 +5,39 @@ import redis.clients.jedis.JedisPoolConfig;
 
 final class JedisCachePoolProvider implements CachePooledResourceProvider {
 
+    private static final int NEAR_CACHE_CONCURRENCY_LEVEL = 16;
+
     private JedisPool jedisPool = null;
+    private final Cache nearCache;
 
     public JedisCachePoolProvider(String host) {
         jedisPool = new JedisPool(new JedisPoolConfig(), host);
+        nearCache = null;
     }
 
     public JedisCachePoolProvider(String host, int port) {
+        this(host, port, 0);
+    }
+
+    /**
+     * @param nearCacheSize The size of the local tier shared by the resources, or 0 to disable it
+     */
+    public JedisCachePoolProvider(String host, int port, int nearCacheSize) {
         jedisPool = new JedisPool(new JedisPoolConfig(), host, port);
+        nearCache = createNearCache(nearCacheSize);
+    }
+
+    private static Cache createNearCache(int nearCacheSize) {
+        return nearCacheSize > 0 ? new BoundedCache(nearCacheSize, NEAR_CACHE_CONCURRENCY_LEVEL) : null;
     }
 
     @Override
     public Cache getResource() {
-        return new JedisCache(jedisPool.getResource(), jedisPool);
+        Cache cache = new JedisCache(jedisPool.getResource(), jedisPool);
+        if (nearCache != null) {
+            return new NearCache(cache, nearCache);
+        }
+        return cache;
     }
 
 }
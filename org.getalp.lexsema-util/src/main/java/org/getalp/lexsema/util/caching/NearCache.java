@@ -0,0 +1,118 @@
+package org.getalp.lexsema.util.caching;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Two-tier cache: reads are served from a bounded local tier when possible and go to the remote cache otherwise, the
+ * values found remotely being kept locally. Writes go through to both tiers.
+ * <p>
+ * The local tier is not invalidated by writes from other processes, so a value changed remotely by someone else may
+ * be served stale until it is evicted. This suits the caches of lexsema, whose values are deterministic functions of
+ * their keys, but not a Redis shared with writers of other values, so the JEDIS provider only uses a near cache when
+ * lexsema.cache.nearCacheSize is set above 0.
+ */
+final class NearCache implements Cache {
+
+    private final Cache remote;
+    private final Cache local;
+
+    NearCache(Cache remote, Cache local) {
+        this.remote = remote;
+        this.local = local;
+    }
+
+    @Override
+    public String get(String key) {
+        String value = local.get(key);
+        if (value == null) {
+            value = remote.get(key);
+            if (value != null) {
+                local.set(key, value);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public Boolean exists(String key) {
+        return local.exists(key) || Boolean.TRUE.equals(remote.exists(key));
+    }
+
+    @Override
+    public Long del(String key) {
+        local.del(key);
+        return remote.del(key);
+    }
+
+    @Override
+    public String set(String key, String value) {
+        local.set(key, value);
+        return remote.set(key, value);
+    }
+
+    @Override
+    public Long expire(String key, int seconds) {
+        local.expire(key, seconds);
+        return remote.expire(key, seconds);
+    }
+
+    @Override
+    public List<String> mget(List<String> keys) {
+        List<String> values = local.mget(keys);
+        List<String> missingKeys = new ArrayList<>();
+        List<Integer> missingPositions = new ArrayList<>();
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) == null) {
+                missingKeys.add(keys.get(i));
+                missingPositions.add(i);
+            }
+        }
+        if (!missingKeys.isEmpty()) {
+            List<String> remoteValues = remote.mget(missingKeys);
+            for (int i = 0; i < missingKeys.size(); i++) {
+                String value = remoteValues.get(i);
+                if (value != null) {
+                    local.set(missingKeys.get(i), value);
+                    values.set(missingPositions.get(i), value);
+                }
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public String mset(Map<String, String> keyValues) {
+        local.mset(keyValues);
+        return remote.mset(keyValues);
+    }
+
+    @Override
+    public List<Boolean> existsMany(List<String> keys) {
+        List<Boolean> exist = local.existsMany(keys);
+        List<String> missingKeys = new ArrayList<>();
+        List<Integer> missingPositions = new ArrayList<>();
+        for (int i = 0; i < exist.size(); i++) {
+            if (!Boolean.TRUE.equals(exist.get(i))) {
+                missingKeys.add(keys.get(i));
+                missingPositions.add(i);
+            }
+        }
+        if (!missingKeys.isEmpty()) {
+            List<Boolean> remoteExist = remote.existsMany(missingKeys);
+            for (int i = 0; i < missingKeys.size(); i++) {
+                exist.set(missingPositions.get(i), remoteExist.get(i));
+            }
+        }
+        return exist;
+    }
+
+    /**
+     * Closes the remote cache only, the local tier being shared by all the resources of the pool
+     */
+    @Override
+    public void close() {
+        remote.close();
+    }
+}
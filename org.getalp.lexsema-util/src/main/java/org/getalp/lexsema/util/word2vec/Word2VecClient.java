@@ -1,46 +1,180 @@
 package org.getalp.lexsema.util.word2vec;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
-import java.net.URLConnection;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.io.IOUtils;
 
+/**
+ * Client of the word2vec web service.
+ * <p>
+ * Vectors are fetched in batches from the binary "get_word_vectors" action and the most recently fetched ones, as well
+ * as the unknown words, are kept in an LRU cache whose size is given by the system property
+ * "lexsema.w2v.client.cache". The responses are always read to their end and closed, so that the connections are kept
+ * alive and reused by {@link HttpURLConnection} for the next requests.
+ */
 public class Word2VecClient
 {
     private static final String serviceURL = "http://localhost:8080/org.getalp.lexsema-ws/w2vservice";
 
+    /**
+     * Words per request of a batch, so that a response is a few megabytes at most
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    private static final int CACHE_SIZE = Integer.getInteger("lexsema.w2v.client.cache", 50000);
+
+    private static final float[] UNKNOWN = new float[0];
+
+    private static final Map<String, float[]> cache = new LinkedHashMap<String, float[]>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private static HttpURLConnection post(byte[] query) throws IOException {
+        HttpURLConnection con = (HttpURLConnection) new URL(serviceURL).openConnection();
+        con.setDoOutput(true);
+        con.setFixedLengthStreamingMode(query.length);
+        con.setRequestProperty("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8");
+        try (OutputStream out = con.getOutputStream()) {
+            out.write(query);
+        }
+        return con;
+    }
+
+    /**
+     * @return The body of a successful response; the body of an error is read to its end and closed before the
+     * exception is thrown, so that the connection is still reused
+     */
+    private static InputStream responseOf(HttpURLConnection con) throws IOException {
+        int code = con.getResponseCode();
+        if (code < HttpURLConnection.HTTP_BAD_REQUEST) {
+            return con.getInputStream();
+        }
+        String message = "";
+        InputStream error = con.getErrorStream();
+        if (error != null) {
+            try (InputStream body = error) {
+                message = IOUtils.toString(body, "UTF-8");
+            }
+        }
+        throw new IOException("HTTP " + code + " " + con.getResponseMessage() + (message.isEmpty() ? "" : ": " + message));
+    }
+
     private static String send(String what, Map<String, String> args) {
         try {
             String query = "what=" + what;
             for (String arg : args.keySet()) query += "&" + URLEncoder.encode(arg, "UTF-8") + "=" + URLEncoder.encode(args.get(arg), "UTF-8");
-            URL url = new URL(serviceURL);
-            URLConnection con = url.openConnection();
-            con.setDoOutput(true);
-            OutputStreamWriter writer = new OutputStreamWriter(con.getOutputStream(), "UTF-8");
-            writer.write(query); writer.flush();
-            InputStream response = con.getInputStream();
-            return IOUtils.toString(response, "UTF-8");
+            HttpURLConnection con = post(query.getBytes(StandardCharsets.UTF_8));
+            try (InputStream response = responseOf(con)) {
+                return IOUtils.toString(response, "UTF-8");
+            }
         } catch (Exception e) {
             throw new Error(e);
         }
     }
-    
-    public static double[] getWordVector(String word) {   
-        Map<String, String> args = new HashMap<>(); 
-        args.put("word", word);
-        String responseStr = send("get_word_vector", args);
-        if (responseStr.trim().equals("[]")) return new double[0];
-        String[] strValues = responseStr.replace("[", "").replace("]", "").split(", ");
-        double[] vectord = new double[strValues.length];
-        for (int i = 0 ; i < vectord.length ; i++) vectord[i] = Double.parseDouble(strValues[i]);
-        return vectord;
+
+    /**
+     * @return The vector of the word, empty if the word is unknown
+     */
+    public static double[] getWordVector(String word) {
+        return getWordVectors(Collections.singletonList(word)).get(word);
+    }
+
+    /**
+     * Vectors of many words at once: the words that are not in the cache are fetched with a request per
+     * {@value #BATCH_SIZE} words
+     *
+     * @return The vector of each word, empty if the word is unknown
+     */
+    public static Map<String, double[]> getWordVectors(Collection<String> words) {
+        Map<String, double[]> vectors = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        synchronized (cache) {
+            for (String word : words) {
+                float[] vector = cache.get(word);
+                if (vector != null) vectors.put(word, toDoubles(vector));
+                else if (word.indexOf('\n') >= 0) vectors.put(word, new double[0]);
+                else missing.add(word);
+            }
+        }
+        List<String> batch = new ArrayList<>(Math.min(BATCH_SIZE, missing.size()));
+        Iterator<String> iterator = missing.iterator();
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            if (batch.size() == BATCH_SIZE || !iterator.hasNext()) {
+                float[][] fetched = fetchWordVectors(batch);
+                synchronized (cache) {
+                    for (int i = 0; i < fetched.length; i++) {
+                        cache.put(batch.get(i), fetched[i].length == 0 ? UNKNOWN : fetched[i]);
+                    }
+                }
+                for (int i = 0; i < fetched.length; i++) {
+                    vectors.put(batch.get(i), toDoubles(fetched[i]));
+                }
+                batch.clear();
+            }
+        }
+        return vectors;
+    }
+
+    private static float[][] fetchWordVectors(List<String> words) {
+        try {
+            String query = "what=get_word_vectors&words=" + URLEncoder.encode(String.join("\n", words), "UTF-8");
+            HttpURLConnection con = post(query.getBytes(StandardCharsets.UTF_8));
+            try (InputStream response = responseOf(con)) {
+                String contentType = con.getContentType();
+                if (contentType == null || !contentType.startsWith("application/octet-stream")) {
+                    throw new IOException(IOUtils.toString(response, "UTF-8"));
+                }
+                DataInputStream in = new DataInputStream(new BufferedInputStream(response, 1 << 16));
+                int count = in.readInt();
+                int dimension = in.readInt();
+                if (count != words.size()) {
+                    throw new IOException("Received " + count + " vectors for " + words.size() + " words");
+                }
+                float[][] vectors = new float[count][];
+                for (int i = 0; i < count; i++) {
+                    if (in.readByte() == 0) {
+                        vectors[i] = UNKNOWN;
+                    } else {
+                        vectors[i] = new float[dimension];
+                        for (int j = 0; j < dimension; j++) vectors[i][j] = in.readFloat();
+                    }
+                }
+                return vectors;
+            }
+        } catch (IOException e) {
+            throw new Error(e);
+        }
+    }
+
+    private static double[] toDoubles(float[] vector) {
+        double[] ret = new double[vector.length];
+        for (int i = 0; i < ret.length; i++) ret[i] = vector[i];
+        return ret;
     }
 
     public static Collection<String> getMostSimilarWords(String word, int topN) {
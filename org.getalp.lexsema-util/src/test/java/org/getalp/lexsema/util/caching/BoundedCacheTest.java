@@ -0,0 +1,62 @@
+package org.getalp.lexsema.util.caching;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the capacity and the least recently used eviction of a single-shard BoundedCache
+ */
+public class BoundedCacheTest {
+
+    @Test
+    public void testCapacity() {
+        BoundedCache cache = new BoundedCache(3, 1);
+        for (int i = 0; i < 10; i++) {
+            cache.set("k" + i, "v" + i);
+        }
+        assertEquals(3, cache.size());
+        assertEquals(7, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        BoundedCache cache = new BoundedCache(3, 1);
+        cache.set("a", "1");
+        cache.set("b", "2");
+        cache.set("c", "3");
+        cache.set("d", "4");
+        assertFalse(cache.exists("a"));
+        assertTrue(cache.exists("b"));
+        assertTrue(cache.exists("c"));
+        assertTrue(cache.exists("d"));
+    }
+
+    @Test
+    public void testGetRefreshesAnEntry() {
+        BoundedCache cache = new BoundedCache(3, 1);
+        cache.set("a", "1");
+        cache.set("b", "2");
+        cache.set("c", "3");
+        assertEquals("1", cache.get("a"));
+        cache.set("d", "4");
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testSetReplacesWithoutEviction() {
+        BoundedCache cache = new BoundedCache(2, 1);
+        cache.set("a", "1");
+        cache.set("b", "2");
+        cache.set("a", "3");
+        assertEquals(0, cache.getEvictionCount());
+        assertEquals("3", cache.get("a"));
+        assertEquals("2", cache.get("b"));
+    }
+}
@@ -0,0 +1,68 @@
+package org.getalp.lexsema.util.caching;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the near cache over a BoundedCache standing in for Redis
+ */
+public class NearCacheTest {
+
+    private final BoundedCache remote = new BoundedCache(100, 1);
+    private final BoundedCache local = new BoundedCache(100, 1);
+    private final NearCache cache = new NearCache(remote, local);
+
+    @Test
+    public void testHitFillsTheLocalTier() {
+        remote.set("a", "1");
+        assertEquals("1", cache.get("a"));
+        assertEquals(1, remote.getHitCount());
+        assertEquals("1", local.get("a"));
+
+        assertEquals("1", cache.get("a"));
+        assertEquals("The second read is served locally", 1, remote.getHitCount());
+    }
+
+    @Test
+    public void testMiss() {
+        assertNull(cache.get("a"));
+        assertEquals(1, remote.getMissCount());
+        assertFalse(local.exists("a"));
+        assertFalse(cache.exists("a"));
+    }
+
+    @Test
+    public void testWriteThrough() {
+        cache.set("a", "1");
+        assertEquals("1", remote.get("a"));
+        assertEquals("1", local.get("a"));
+
+        cache.del("a");
+        assertFalse(remote.exists("a"));
+        assertFalse(local.exists("a"));
+    }
+
+    @Test
+    public void testBatchOperations() {
+        Map<String, String> keyValues = new HashMap<>();
+        keyValues.put("a", "1");
+        keyValues.put("b", "2");
+        cache.mset(keyValues);
+        assertEquals("2", remote.get("b"));
+        assertEquals("2", local.get("b"));
+
+        remote.set("c", "3");
+        assertEquals(Arrays.asList("1", "3", null), cache.mget(Arrays.asList("a", "c", "d")));
+        assertEquals("3", local.get("c"));
+        assertEquals(Arrays.asList(true, true, false), cache.existsMany(Arrays.asList("a", "c", "d")));
+        assertTrue(cache.exists("c"));
+    }
+}
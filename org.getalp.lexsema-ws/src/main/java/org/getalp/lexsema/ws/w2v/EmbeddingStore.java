@@ -0,0 +1,534 @@
+package org.getalp.lexsema.ws.w2v;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Word embeddings stored in a file that is memory-mapped rather than loaded: opening a store takes milliseconds
+ * whatever its size, the vectors are only paged in when read, and the JVMs that map the same store share its pages.
+ * <p>
+ * The file is little-endian and made of:
+ * <ul>
+ * <li>a header of {@value #HEADER_SIZE} bytes: the magic bytes {@code LXW2VF32}, the version, the number of words
+ * and the dimension of the vectors;</li>
+ * <li>the matrix of the vectors, one normalized row of float32 per word, the rows sorted by the UTF-8 bytes of
+ * their words;</li>
+ * <li>the offsets of the words in the pool, one int per word plus the end of the pool;</li>
+ * <li>the pool of the words, in UTF-8.</li>
+ * </ul>
+ * A word is looked up by binary search on the pool. Stores are built once from word2vec binary models by
+ * {@link #convert(Path, Path)}. The reads are thread-safe.
+ */
+public final class EmbeddingStore
+{
+    public static final String EXTENSION = ".store";
+
+    private static final byte[] MAGIC = "LXW2VF32".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+
+    /**
+     * Rows scanned at once by the exact search: 64 rows of 300 floats fit in the L2 cache
+     */
+    private static final int BLOCK_ROWS = 64;
+
+    private static final Pattern NON_LETTERS = Pattern.compile("[^\\p{IsAlphabetic}]");
+
+    private final int size;
+
+    private final int dimension;
+
+    private final int rowsPerChunk;
+
+    /**
+     * The matrix, mapped in chunks of whole rows since a mapping cannot exceed 2GB
+     */
+    private final FloatBuffer[] chunks;
+
+    private final IntBuffer offsets;
+
+    private final ByteBuffer pool;
+
+    private EmbeddingStore(int size, int dimension, FloatBuffer[] chunks, int rowsPerChunk, IntBuffer offsets, ByteBuffer pool)
+    {
+        this.size = size;
+        this.dimension = dimension;
+        this.chunks = chunks;
+        this.rowsPerChunk = rowsPerChunk;
+        this.offsets = offsets;
+        this.pool = pool;
+    }
+
+    /**
+     * Maps a store read-only
+     */
+    public static EmbeddingStore open(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0);
+            header.flip();
+            if (!hasMagic(header) || header.remaining() < HEADER_SIZE)
+            {
+                throw new IOException(path + " is not an embedding store");
+            }
+            header.position(MAGIC.length);
+            int version = header.getInt();
+            if (version != VERSION)
+            {
+                throw new IOException("Unsupported version " + version + " of the embedding store " + path);
+            }
+            int size = header.getInt();
+            int dimension = header.getInt();
+            long rowBytes = 4L * dimension;
+            int rowsPerChunk = (int) Math.max(1, Integer.MAX_VALUE / Math.max(1, rowBytes));
+            int chunkCount = (int) ((size + (long) rowsPerChunk - 1) / rowsPerChunk);
+            FloatBuffer[] chunks = new FloatBuffer[chunkCount];
+            for (int c = 0 ; c < chunkCount ; c++)
+            {
+                long firstRow = (long) c * rowsPerChunk;
+                long rows = Math.min(rowsPerChunk, size - firstRow);
+                chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + firstRow * rowBytes, rows * rowBytes)
+                                   .order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            }
+            long offsetsPosition = HEADER_SIZE + size * rowBytes;
+            IntBuffer offsets = channel.map(FileChannel.MapMode.READ_ONLY, offsetsPosition, 4L * (size + 1))
+                                       .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            long poolPosition = offsetsPosition + 4L * (size + 1);
+            ByteBuffer pool = channel.map(FileChannel.MapMode.READ_ONLY, poolPosition, channel.size() - poolPosition);
+            return new EmbeddingStore(size, dimension, chunks, rowsPerChunk, offsets, pool);
+        }
+    }
+
+    /**
+     * @return Whether the file starts as an embedding store
+     */
+    public static boolean isStore(Path path) throws IOException
+    {
+        if (!Files.isRegularFile(path) || Files.size(path) < HEADER_SIZE) return false;
+        try (InputStream is = Files.newInputStream(path))
+        {
+            byte[] magic = new byte[MAGIC.length];
+            return is.read(magic) == magic.length && Arrays.equals(magic, MAGIC);
+        }
+    }
+
+    private static boolean hasMagic(ByteBuffer header)
+    {
+        if (header.remaining() < MAGIC.length) return false;
+        for (int i = 0 ; i < MAGIC.length ; i++)
+        {
+            if (header.get(i) != MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public int dimension()
+    {
+        return dimension;
+    }
+
+    /**
+     * @return The row of the word, or -1 if it is not in the store
+     */
+    public int indexOf(String word)
+    {
+        byte[] key = word.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            int comparison = compareWord(middle, key);
+            if (comparison < 0) low = middle + 1;
+            else if (comparison > 0) high = middle - 1;
+            else return middle;
+        }
+        return -1;
+    }
+
+    public boolean contains(String word)
+    {
+        return indexOf(word) >= 0;
+    }
+
+    public String word(int index)
+    {
+        int start = offsets.get(index);
+        byte[] bytes = new byte[offsets.get(index + 1) - start];
+        for (int i = 0 ; i < bytes.length ; i++)
+        {
+            bytes[i] = pool.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return A copy of the vector of the row, in double precision
+     */
+    public double[] vector(int index)
+    {
+        return vector(index, new double[dimension]);
+    }
+
+    /**
+     * Copies the vector of the row into the given array, e.g. to reuse it over many rows
+     * @return The given array
+     */
+    public double[] vector(int index, double[] destination)
+    {
+        FloatBuffer chunk = chunks[index / rowsPerChunk];
+        int base = (index % rowsPerChunk) * dimension;
+        for (int i = 0 ; i < dimension ; i++)
+        {
+            destination[i] = chunk.get(base + i);
+        }
+        return destination;
+    }
+
+    /**
+     * @return The dot product of the vector of the row with the given one, read in place
+     */
+    public double dot(int index, double[] vector)
+    {
+        FloatBuffer chunk = chunks[index / rowsPerChunk];
+        int base = (index % rowsPerChunk) * dimension;
+        double ret = 0;
+        for (int i = 0 ; i < dimension ; i++)
+        {
+            ret += chunk.get(base + i) * vector[i];
+        }
+        return ret;
+    }
+
+    /**
+     * @return The dot product of the vector of the row with the given one, read in place
+     */
+    public double dot(int index, float[] vector)
+    {
+        FloatBuffer chunk = chunks[index / rowsPerChunk];
+        int base = (index % rowsPerChunk) * dimension;
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for ( ; i + 3 < dimension ; i += 4)
+        {
+            s0 += chunk.get(base + i) * vector[i];
+            s1 += chunk.get(base + i + 1) * vector[i + 1];
+            s2 += chunk.get(base + i + 2) * vector[i + 2];
+            s3 += chunk.get(base + i + 3) * vector[i + 3];
+        }
+        for ( ; i < dimension ; i++)
+        {
+            s0 += chunk.get(base + i) * vector[i];
+        }
+        return (double) s0 + s1 + s2 + s3;
+    }
+
+    /**
+     * Copies the vectors of consecutive rows into the given array, one after the other
+     */
+    public void rows(int first, int count, float[] destination)
+    {
+        int copied = 0;
+        while (copied < count)
+        {
+            int row = first + copied;
+            // The buffer is duplicated, since bulk reads move its position and the store is shared between threads
+            FloatBuffer chunk = chunks[row / rowsPerChunk].duplicate();
+            int inChunk = Math.min(count - copied, rowsPerChunk - row % rowsPerChunk);
+            chunk.position((row % rowsPerChunk) * dimension);
+            chunk.get(destination, copied * dimension, inChunk * dimension);
+            copied += inChunk;
+        }
+    }
+
+    /**
+     * Exact search of the rows whose vectors have the greatest dot products with the query, i.e. the nearest ones
+     * in cosine since the vectors are normalized. The matrix is scanned by blocks of rows copied in a float array,
+     * whose dot products are simple loops over arrays that the JIT compiles to vector instructions, and the best
+     * rows are kept in a heap of k rows. Rows whose dot product is not positive are not similar to the query and are
+     * never returned, so there may be fewer than k rows.
+     *
+     * @return The rows, nearest first
+     */
+    public int[] nearest(double[] query, int k)
+    {
+        float[] q = toFloats(query);
+        ScoredHeap best = new ScoredHeap(k);
+        float[] block = new float[BLOCK_ROWS * dimension];
+        for (int first = 0 ; first < size ; first += BLOCK_ROWS)
+        {
+            int count = Math.min(BLOCK_ROWS, size - first);
+            rows(first, count, block);
+            for (int r = 0 ; r < count ; r++)
+            {
+                double score = dot(block, r * dimension, q);
+                if (score > 0) best.offer(first + r, score, k);
+            }
+        }
+        return best.drainDescending();
+    }
+
+    /**
+     * Dot product of a vector of a block with a query, on four accumulators so that the additions do not wait for
+     * each other
+     */
+    static double dot(float[] block, int offset, float[] query)
+    {
+        int length = query.length;
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for ( ; i + 3 < length ; i += 4)
+        {
+            s0 += block[offset + i] * query[i];
+            s1 += block[offset + i + 1] * query[i + 1];
+            s2 += block[offset + i + 2] * query[i + 2];
+            s3 += block[offset + i + 3] * query[i + 3];
+        }
+        for ( ; i < length ; i++)
+        {
+            s0 += block[offset + i] * query[i];
+        }
+        return (double) s0 + s1 + s2 + s3;
+    }
+
+    static float[] toFloats(double[] vector)
+    {
+        float[] ret = new float[vector.length];
+        for (int i = 0 ; i < ret.length ; i++)
+        {
+            ret[i] = (float) vector[i];
+        }
+        return ret;
+    }
+
+    /**
+     * Compares the word of a row with the UTF-8 bytes of a word, as unsigned bytes
+     */
+    private int compareWord(int index, byte[] key)
+    {
+        int start = offsets.get(index);
+        int length = offsets.get(index + 1) - start;
+        int common = Math.min(length, key.length);
+        for (int i = 0 ; i < common ; i++)
+        {
+            int comparison = Integer.compare(pool.get(start + i) & 0xff, key[i] & 0xff);
+            if (comparison != 0) return comparison;
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    /**
+     * Builds a store from a word2vec binary model, as {@link Word2VecWebService} used to load it: the characters that
+     * are not letters are removed from the words, the words left empty are dropped, a word that occurs several times
+     * keeps its last vector, and the vectors are normalized.
+     * <p>
+     * The model is read twice, once for its vocabulary and once for the vectors in the order of the store, so that the
+     * vectors are never all in memory. The store is written next to its destination and then moved to it, so that it is
+     * never seen half-written.
+     *
+     * @param model The binary model: a header line "words dimension", then for each word the word, a space and the
+     *              little-endian float32 components, possibly followed by a new line
+     * @param store The store to write
+     */
+    public static void convert(Path model, Path store) throws IOException
+    {
+        List<Entry> entries = new ArrayList<>();
+        int dimension;
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(Files.newInputStream(model), 1 << 20)))
+        {
+            CountingReader reader = new CountingReader(dis);
+            int nbWords = Integer.parseInt(reader.readToken());
+            dimension = Integer.parseInt(reader.readToken());
+            for (int i = 0 ; i < nbWords ; i++)
+            {
+                String word = NON_LETTERS.matcher(reader.readToken()).replaceAll("");
+                if (!word.isEmpty())
+                {
+                    entries.add(new Entry(word.getBytes(StandardCharsets.UTF_8), i, reader.position));
+                }
+                reader.skip(4L * dimension);
+            }
+        }
+        entries.sort(null);
+        List<Entry> unique = new ArrayList<>(entries.size());
+        for (int i = 0 ; i < entries.size() ; i++)
+        {
+            // Entries of the same word are sorted by occurrence, the last one is kept
+            if (i + 1 == entries.size() || entries.get(i).compareWord(entries.get(i + 1)) != 0)
+            {
+                unique.add(entries.get(i));
+            }
+        }
+
+        Path temporary = store.resolveSibling(store.getFileName() + ".tmp");
+        try (FileChannel in = FileChannel.open(model, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(MAGIC).putInt(VERSION).putInt(unique.size()).putInt(dimension);
+            while (buffer.position() < HEADER_SIZE) buffer.put((byte) 0);
+
+            ByteBuffer row = ByteBuffer.allocate(4 * dimension).order(ByteOrder.LITTLE_ENDIAN);
+            double[] vector = new double[dimension];
+            for (Entry entry : unique)
+            {
+                row.clear();
+                while (row.hasRemaining())
+                {
+                    if (in.read(row, entry.vectorPosition + row.position()) < 0) throw new EOFException("Truncated model " + model);
+                }
+                double norm = 0;
+                for (int j = 0 ; j < dimension ; j++)
+                {
+                    vector[j] = row.getFloat(4 * j);
+                    norm += vector[j] * vector[j];
+                }
+                norm = Math.sqrt(norm);
+                for (int j = 0 ; j < dimension ; j++)
+                {
+                    if (buffer.remaining() < 4) flush(buffer, out);
+                    buffer.putFloat(norm > 0 ? (float) (vector[j] / norm) : 0f);
+                }
+            }
+            long offset = 0;
+            for (int i = 0 ; i <= unique.size() ; i++)
+            {
+                if (offset > Integer.MAX_VALUE) throw new IOException("The vocabulary of " + model + " exceeds 2GB");
+                if (buffer.remaining() < 4) flush(buffer, out);
+                buffer.putInt((int) offset);
+                if (i < unique.size()) offset += unique.get(i).word.length;
+            }
+            for (Entry entry : unique)
+            {
+                for (byte b : entry.word)
+                {
+                    if (!buffer.hasRemaining()) flush(buffer, out);
+                    buffer.put(b);
+                }
+            }
+            flush(buffer, out);
+            out.force(true);
+        }
+        Files.move(temporary, store, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel out) throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining()) out.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * A word of the model and the position of its vector in the model
+     */
+    private static final class Entry implements Comparable<Entry>
+    {
+        private final byte[] word;
+
+        private final int occurrence;
+
+        private final long vectorPosition;
+
+        private Entry(byte[] word, int occurrence, long vectorPosition)
+        {
+            this.word = word;
+            this.occurrence = occurrence;
+            this.vectorPosition = vectorPosition;
+        }
+
+        private int compareWord(Entry other)
+        {
+            int common = Math.min(word.length, other.word.length);
+            for (int i = 0 ; i < common ; i++)
+            {
+                int comparison = Integer.compare(word[i] & 0xff, other.word[i] & 0xff);
+                if (comparison != 0) return comparison;
+            }
+            return Integer.compare(word.length, other.word.length);
+        }
+
+        public int compareTo(Entry other)
+        {
+            int comparison = compareWord(other);
+            return comparison != 0 ? comparison : Integer.compare(occurrence, other.occurrence);
+        }
+    }
+
+    /**
+     * Reads the tokens of a model and keeps track of the position in it
+     */
+    private static final class CountingReader
+    {
+        private final DataInputStream dis;
+
+        private long position;
+
+        private CountingReader(DataInputStream dis)
+        {
+            this.dis = dis;
+        }
+
+        /**
+         * @return The bytes up to the next space or new line, after the new lines that may follow a vector
+         */
+        private String readToken() throws IOException
+        {
+            byte b = readByte();
+            while (b == '\n' || b == '\r') b = readByte();
+            byte[] bytes = new byte[64];
+            int length = 0;
+            while (b != ' ' && b != '\n')
+            {
+                if (length == bytes.length) bytes = Arrays.copyOf(bytes, 2 * length);
+                bytes[length++] = b;
+                b = readByte();
+            }
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private byte readByte() throws IOException
+        {
+            position++;
+            return dis.readByte();
+        }
+
+        private void skip(long count) throws IOException
+        {
+            long left = count;
+            while (left > 0)
+            {
+                int skipped = dis.skipBytes((int) Math.min(left, Integer.MAX_VALUE));
+                if (skipped <= 0) throw new EOFException("Truncated model");
+                left -= skipped;
+            }
+            position += count;
+        }
+    }
+}
@@ -0,0 +1,537 @@
+package org.getalp.lexsema.ws.w2v;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+/**
+ * Approximate nearest neighbour index over the rows of an {@link EmbeddingStore}, in cosine: a hierarchical navigable
+ * small world graph (Malkov and Yashunin, 2016). Every row is linked to its nearest rows on the bottom layer, and
+ * rows drawn with an exponentially decreasing probability are also linked on sparser upper layers; a search descends
+ * greedily from the top layer, then explores the bottom layer with a beam of ef rows. The greater ef, the better the
+ * recall and the slower the search, so it is given with each search.
+ * <p>
+ * The index is built offline, with {@link #main(String[])}, since building it for millions of words takes hours, and
+ * saved next to the store with the extension {@value #EXTENSION}. Its file is little-endian and made of a header of
+ * {@value #HEADER_SIZE} bytes (the magic bytes {@code LXHNSW01}, the version, the number of rows, the dimension, M,
+ * the entry point and the top layer), the layer of each row, the bottom layer (for each row the number of links
+ * then 2M links) and the upper layers of the rows that have some (for each layer the number of links then M links).
+ * The bottom layer is memory-mapped when the index is opened. Searches are thread-safe.
+ */
+public final class HnswIndex
+{
+    public static final String EXTENSION = ".hnsw";
+
+    public static final int DEFAULT_M = 16;
+
+    public static final int DEFAULT_EF_CONSTRUCTION = 200;
+
+    public static final int DEFAULT_EF = 128;
+
+    public static final int PROGRESS_ROWS = 100000;
+
+    private static final byte[] MAGIC = "LXHNSW01".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+
+    /**
+     * The largest layer table that can be mapped at once when the index is opened
+     */
+    private static final long MAX_MAPPED_BYTES = Integer.MAX_VALUE;
+
+    private final EmbeddingStore store;
+
+    /**
+     * The number of links of a row on the upper layers, twice as many on the bottom layer
+     */
+    private final int m;
+
+    private final int[] levels;
+
+    private final IntBuffer bottomLayer;
+
+    /**
+     * For each row, its links on the layers above the bottom one, null for most rows
+     */
+    private final int[][] upperLayers;
+
+    private int entryPoint;
+
+    private int maxLevel;
+
+    private HnswIndex(EmbeddingStore store, int m, int[] levels, IntBuffer bottomLayer, int[][] upperLayers, int entryPoint, int maxLevel)
+    {
+        this.store = store;
+        this.m = m;
+        this.levels = levels;
+        this.bottomLayer = bottomLayer;
+        this.upperLayers = upperLayers;
+        this.entryPoint = entryPoint;
+        this.maxLevel = maxLevel;
+    }
+
+    /**
+     * Builds the index of a store
+     *
+     * @param m              The number of links of a row per layer, 12 to 48: more links improve the recall on
+     *                       vectors of high dimension but take more memory and time
+     * @param efConstruction The beam of the searches that find the links of a row: the greater, the better the graph
+     * @param seed           The seed of the draw of the layers of the rows
+     */
+    public static HnswIndex build(EmbeddingStore store, int m, int efConstruction, long seed)
+    {
+        return build(store, m, efConstruction, seed, rows -> {});
+    }
+
+    /**
+     * Builds the index of a store, reporting the progress
+     *
+     * @param progress Given the number of rows indexed so far, every {@value #PROGRESS_ROWS} rows
+     * @see #build(EmbeddingStore, int, int, long)
+     */
+    public static HnswIndex build(EmbeddingStore store, int m, int efConstruction, long seed, IntConsumer progress)
+    {
+        int size = store.size();
+        // Checked up front with the bounds of open, so that an index that could not be opened is never built
+        if (bottomLayerBytes(size, m) > MAX_MAPPED_BYTES)
+        {
+            throw new IllegalArgumentException("The bottom layer of " + size + " rows with M=" + m + " exceeds 2GB");
+        }
+        Random random = new Random(seed);
+        double levelFactor = 1 / Math.log(m);
+        int[] levels = new int[size];
+        long upperBytes = 0;
+        for (int row = 0 ; row < size ; row++)
+        {
+            levels[row] = (int) (-Math.log(1 - random.nextDouble()) * levelFactor);
+            upperBytes += 4L * levels[row] * (m + 1);
+        }
+        if (upperBytes > MAX_MAPPED_BYTES)
+        {
+            throw new IllegalArgumentException("The upper layers of " + size + " rows with M=" + m + " exceed 2GB");
+        }
+        int[][] upperLayers = new int[size][];
+        for (int row = 0 ; row < size ; row++)
+        {
+            if (levels[row] > 0) upperLayers[row] = new int[levels[row] * (m + 1)];
+        }
+        HnswIndex index = new HnswIndex(store, m, levels, IntBuffer.wrap(new int[size * (2 * m + 1)]), upperLayers, -1, -1);
+        float[] vector = new float[store.dimension()];
+        for (int row = 0 ; row < size ; row++)
+        {
+            store.rows(row, 1, vector);
+            index.insert(row, vector, efConstruction);
+            if ((row + 1) % PROGRESS_ROWS == 0)
+            {
+                progress.accept(row + 1);
+            }
+        }
+        return index;
+    }
+
+    public EmbeddingStore store()
+    {
+        return store;
+    }
+
+    /**
+     * Approximate search of the rows nearest to the query
+     *
+     * @param ef The beam of the search, at least k: the greater, the better the recall
+     * @return The rows, nearest first
+     */
+    public int[] nearest(double[] query, int k, int ef)
+    {
+        if (entryPoint < 0 || k <= 0) return new int[0];
+        float[] q = EmbeddingStore.toFloats(query);
+        int entry = descend(q, entryPoint, maxLevel, 0);
+        ScoredHeap results = searchLayer(q, entry, Math.max(ef, k), 0);
+        while (results.size() > k) results.pop();
+        return results.drainDescending();
+    }
+
+    private void insert(int row, float[] vector, int efConstruction)
+    {
+        int level = levels[row];
+        if (entryPoint < 0)
+        {
+            entryPoint = row;
+            maxLevel = level;
+            return;
+        }
+        int entry = descend(vector, entryPoint, maxLevel, level);
+        double[] scores = new double[efConstruction];
+        for (int l = Math.min(level, maxLevel) ; l >= 0 ; l--)
+        {
+            int[] candidates = searchLayer(vector, entry, efConstruction, l).drainDescending(scores);
+            int[] neighbours = selectNeighbours(candidates, scores, candidates.length, capacity(l));
+            setLinks(row, l, neighbours, neighbours.length);
+            for (int neighbour : neighbours)
+            {
+                addLink(neighbour, row, l);
+            }
+            entry = candidates[0];
+        }
+        if (level > maxLevel)
+        {
+            maxLevel = level;
+            entryPoint = row;
+        }
+    }
+
+    /**
+     * Greedy search of the row nearest to the query on the layers from the top one down to the one above the bottom one
+     */
+    private int descend(float[] query, int entry, int top, int bottom)
+    {
+        int current = entry;
+        double currentScore = store.dot(current, query);
+        for (int l = top ; l > bottom ; l--)
+        {
+            boolean moved = true;
+            while (moved)
+            {
+                moved = false;
+                int from = current;
+                int count = linkCount(from, l);
+                for (int i = 0 ; i < count ; i++)
+                {
+                    int neighbour = link(from, l, i);
+                    double score = store.dot(neighbour, query);
+                    if (score > currentScore)
+                    {
+                        currentScore = score;
+                        current = neighbour;
+                        moved = true;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Beam search on a layer
+     * @return The ef rows nearest to the query found, in a heap whose top is the farthest
+     */
+    private ScoredHeap searchLayer(float[] query, int entry, int ef, int level)
+    {
+        Visited seen = new Visited(ef * capacity(level));
+        seen.add(entry);
+        ScoredHeap candidates = new ScoredHeap(ef);
+        ScoredHeap results = new ScoredHeap(ef);
+        double entryScore = store.dot(entry, query);
+        candidates.push(entry, -entryScore);
+        results.push(entry, entryScore);
+        while (!candidates.isEmpty())
+        {
+            int current = candidates.topRow();
+            double currentScore = -candidates.topScore();
+            candidates.pop();
+            if (results.size() >= ef && currentScore < results.topScore()) break;
+            int count = linkCount(current, level);
+            for (int i = 0 ; i < count ; i++)
+            {
+                int neighbour = link(current, level, i);
+                if (!seen.add(neighbour)) continue;
+                double score = store.dot(neighbour, query);
+                if (results.offer(neighbour, score, ef))
+                {
+                    candidates.push(neighbour, -score);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Keeps the candidates, nearest first, that are nearer to the row than to the neighbours already kept, so that
+     * the links go in different directions rather than all into the same cluster
+     */
+    private int[] selectNeighbours(int[] candidates, double[] scores, int count, int max)
+    {
+        int[] selected = new int[Math.min(count, max)];
+        int selectedCount = 0;
+        float[] candidateVector = new float[store.dimension()];
+        for (int c = 0 ; c < count && selectedCount < selected.length ; c++)
+        {
+            store.rows(candidates[c], 1, candidateVector);
+            boolean diverse = true;
+            for (int s = 0 ; s < selectedCount && diverse ; s++)
+            {
+                diverse = store.dot(selected[s], candidateVector) <= scores[c];
+            }
+            if (diverse) selected[selectedCount++] = candidates[c];
+        }
+        return Arrays.copyOf(selected, selectedCount);
+    }
+
+    /**
+     * Links a row to a new neighbour, pruning its links when they are full
+     */
+    private void addLink(int row, int neighbour, int level)
+    {
+        int count = linkCount(row, level);
+        int capacity = capacity(level);
+        if (count < capacity)
+        {
+            setLink(row, level, count, neighbour);
+            setLinkCount(row, level, count + 1);
+            return;
+        }
+        float[] vector = new float[store.dimension()];
+        store.rows(row, 1, vector);
+        ScoredHeap linked = new ScoredHeap(count + 1);
+        for (int i = 0 ; i < count ; i++)
+        {
+            int current = link(row, level, i);
+            linked.push(current, store.dot(current, vector));
+        }
+        linked.push(neighbour, store.dot(neighbour, vector));
+        double[] scores = new double[count + 1];
+        int[] candidates = linked.drainDescending(scores);
+        int[] neighbours = selectNeighbours(candidates, scores, candidates.length, capacity);
+        setLinks(row, level, neighbours, neighbours.length);
+    }
+
+    private int capacity(int level)
+    {
+        return level == 0 ? 2 * m : m;
+    }
+
+    private int linkCount(int row, int level)
+    {
+        if (level == 0) return bottomLayer.get(row * (2 * m + 1));
+        return upperLayers[row][(level - 1) * (m + 1)];
+    }
+
+    private int link(int row, int level, int i)
+    {
+        if (level == 0) return bottomLayer.get(row * (2 * m + 1) + 1 + i);
+        return upperLayers[row][(level - 1) * (m + 1) + 1 + i];
+    }
+
+    private void setLinkCount(int row, int level, int count)
+    {
+        if (level == 0) bottomLayer.put(row * (2 * m + 1), count);
+        else upperLayers[row][(level - 1) * (m + 1)] = count;
+    }
+
+    private void setLink(int row, int level, int i, int neighbour)
+    {
+        if (level == 0) bottomLayer.put(row * (2 * m + 1) + 1 + i, neighbour);
+        else upperLayers[row][(level - 1) * (m + 1) + 1 + i] = neighbour;
+    }
+
+    private void setLinks(int row, int level, int[] neighbours, int count)
+    {
+        for (int i = 0 ; i < count ; i++)
+        {
+            setLink(row, level, i, neighbours[i]);
+        }
+        setLinkCount(row, level, count);
+    }
+
+    /**
+     * Writes the index next to its destination and then moves it there
+     */
+    public void save(Path path) throws IOException
+    {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(MAGIC).putInt(VERSION).putInt(store.size()).putInt(store.dimension()).putInt(m).putInt(entryPoint).putInt(maxLevel);
+            for (int level : levels)
+            {
+                putInt(buffer, out, level);
+            }
+            int bottomLength = store.size() * (2 * m + 1);
+            for (int i = 0 ; i < bottomLength ; i++)
+            {
+                putInt(buffer, out, bottomLayer.get(i));
+            }
+            for (int[] links : upperLayers)
+            {
+                if (links == null) continue;
+                for (int link : links)
+                {
+                    putInt(buffer, out, link);
+                }
+            }
+            flush(buffer, out);
+            out.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long bottomLayerBytes(int size, int m)
+    {
+        return 4L * size * (2 * m + 1);
+    }
+
+    private static void putInt(ByteBuffer buffer, FileChannel out, int value) throws IOException
+    {
+        if (buffer.remaining() < 4) flush(buffer, out);
+        buffer.putInt(value);
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel out) throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining()) out.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Opens the index of a store, mapping its bottom layer
+     */
+    public static HnswIndex open(Path path, EmbeddingStore store) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(HEADER_SIZE, channel.size())).order(ByteOrder.LITTLE_ENDIAN);
+            byte[] magic = new byte[MAGIC.length];
+            if (header.remaining() < HEADER_SIZE || !Arrays.equals(readBytes(header, magic), MAGIC))
+            {
+                throw new IOException(path + " is not a nearest neighbour index");
+            }
+            int version = header.getInt();
+            if (version != VERSION)
+            {
+                throw new IOException("Unsupported version " + version + " of the nearest neighbour index " + path);
+            }
+            int size = header.getInt();
+            int dimension = header.getInt();
+            if (size != store.size() || dimension != store.dimension())
+            {
+                throw new IOException(path + " indexes " + size + " vectors of dimension " + dimension + ", not the " + store.size() + " vectors of dimension " + store.dimension() + " of the store");
+            }
+            int m = header.getInt();
+            int entryPoint = header.getInt();
+            int maxLevel = header.getInt();
+
+            int[] levels = new int[size];
+            channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, 4L * size).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(levels);
+            long bottomPosition = HEADER_SIZE + 4L * size;
+            long bottomBytes = bottomLayerBytes(size, m);
+            if (bottomBytes > MAX_MAPPED_BYTES) throw new IOException("The bottom layer of " + path + " exceeds 2GB");
+            IntBuffer bottomLayer = channel.map(FileChannel.MapMode.READ_ONLY, bottomPosition, bottomBytes).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            long upperPosition = bottomPosition + bottomBytes;
+            if (channel.size() - upperPosition > MAX_MAPPED_BYTES) throw new IOException("The upper layers of " + path + " exceed 2GB");
+            IntBuffer upper = channel.map(FileChannel.MapMode.READ_ONLY, upperPosition, channel.size() - upperPosition).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            int[][] upperLayers = new int[size][];
+            for (int row = 0 ; row < size ; row++)
+            {
+                if (levels[row] == 0) continue;
+                upperLayers[row] = new int[levels[row] * (m + 1)];
+                upper.get(upperLayers[row]);
+            }
+            return new HnswIndex(store, m, levels, bottomLayer, upperLayers, entryPoint, maxLevel);
+        }
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer, byte[] destination)
+    {
+        buffer.get(destination);
+        return destination;
+    }
+
+    /**
+     * Builds the index of a word2vec model or of its store, and saves it next to the store
+     * <p>
+     * Arguments: the model or store, then optionally M and efConstruction
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 1)
+        {
+            System.err.println("Usage: HnswIndex <model or store> [M=" + DEFAULT_M + "] [efConstruction=" + DEFAULT_EF_CONSTRUCTION + "]");
+            System.exit(1);
+        }
+        Path storePath = Paths.get(args[0]);
+        if (!EmbeddingStore.isStore(storePath))
+        {
+            Path model = storePath;
+            storePath = Paths.get(args[0] + EmbeddingStore.EXTENSION);
+            System.out.println("Converting " + model + " to " + storePath + "...");
+            EmbeddingStore.convert(model, storePath);
+        }
+        int m = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_M;
+        int efConstruction = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_EF_CONSTRUCTION;
+        EmbeddingStore store = EmbeddingStore.open(storePath);
+        long start = System.currentTimeMillis();
+        HnswIndex index = build(store, m, efConstruction, 42, rows ->
+                System.out.println("Indexed " + rows + "/" + store.size() + " rows in " + (System.currentTimeMillis() - start) / 1000 + "s"));
+        Path indexPath = Paths.get(storePath + EXTENSION);
+        index.save(indexPath);
+        System.out.println("Saved " + indexPath);
+    }
+
+    /**
+     * The rows seen by a search, in an open-addressed hash set sized by the beam of the search rather than by the
+     * number of rows, so that a search costs no memory proportional to the vocabulary. The rows are stored plus one, so
+     * that the empty cells are the zeros of a new array.
+     */
+    private static final class Visited
+    {
+        private int[] cells;
+
+        private int size;
+
+        private Visited(int expected)
+        {
+            cells = new int[Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1];
+        }
+
+        /**
+         * @return Whether the row had not been seen yet
+         */
+        private boolean add(int row)
+        {
+            int mask = cells.length - 1;
+            int slot = mix(row) & mask;
+            while (cells[slot] != 0)
+            {
+                if (cells[slot] == row + 1) return false;
+                slot = (slot + 1) & mask;
+            }
+            cells[slot] = row + 1;
+            if (++size * 2 > cells.length) grow();
+            return true;
+        }
+
+        private void grow()
+        {
+            int[] previous = cells;
+            cells = new int[previous.length * 2];
+            int mask = cells.length - 1;
+            for (int cell : previous)
+            {
+                if (cell == 0) continue;
+                int slot = mix(cell - 1) & mask;
+                while (cells[slot] != 0) slot = (slot + 1) & mask;
+                cells[slot] = cell;
+            }
+        }
+
+        private static int mix(int row)
+        {
+            int hash = row * 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
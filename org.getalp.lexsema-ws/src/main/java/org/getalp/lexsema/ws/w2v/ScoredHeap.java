@@ -0,0 +1,132 @@
+package org.getalp.lexsema.ws.w2v;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of rows by score, on primitive arrays. Bounded with {@link #offer(int, double, int)}, it keeps the k
+ * best rows of a scan, the worst of them on top; a max-heap is obtained by pushing negated scores.
+ */
+final class ScoredHeap
+{
+    private int[] rows;
+
+    private double[] scores;
+
+    private int size;
+
+    ScoredHeap(int capacity)
+    {
+        rows = new int[Math.max(1, capacity)];
+        scores = new double[rows.length];
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    void clear()
+    {
+        size = 0;
+    }
+
+    int topRow()
+    {
+        return rows[0];
+    }
+
+    double topScore()
+    {
+        return scores[0];
+    }
+
+    void push(int row, double score)
+    {
+        if (size == rows.length)
+        {
+            rows = Arrays.copyOf(rows, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        int i = size++;
+        while (i > 0)
+        {
+            int parent = (i - 1) >>> 1;
+            if (scores[parent] <= score) break;
+            rows[i] = rows[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        rows[i] = row;
+        scores[i] = score;
+    }
+
+    /**
+     * Pushes the row if there are fewer than limit rows, or replaces the top if the row scores better
+     * @return Whether the row was kept
+     */
+    boolean offer(int row, double score, int limit)
+    {
+        if (size < limit)
+        {
+            push(row, score);
+            return true;
+        }
+        if (score <= scores[0]) return false;
+        siftDown(row, score);
+        return true;
+    }
+
+    void pop()
+    {
+        size--;
+        if (size > 0) siftDown(rows[size], scores[size]);
+    }
+
+    private void siftDown(int row, double score)
+    {
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half)
+        {
+            int child = 2 * i + 1;
+            if (child + 1 < size && scores[child + 1] < scores[child]) child++;
+            if (score <= scores[child]) break;
+            rows[i] = rows[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        rows[i] = row;
+        scores[i] = score;
+    }
+
+    /**
+     * Empties the heap
+     * @return Its rows, best score first
+     */
+    int[] drainDescending()
+    {
+        return drainDescending(null);
+    }
+
+    /**
+     * Empties the heap
+     * @param scoresOut Receives the scores of the rows if not null, at least as long as the heap
+     * @return Its rows, best score first
+     */
+    int[] drainDescending(double[] scoresOut)
+    {
+        int[] ret = new int[size];
+        for (int i = ret.length - 1 ; i >= 0 ; i--)
+        {
+            ret[i] = rows[0];
+            if (scoresOut != null) scoresOut[i] = scores[0];
+            pop();
+        }
+        return ret;
+    }
+}
@@ -1,17 +1,16 @@
 package org.getalp.lexsema.ws.w2v;
 
-import java.io.BufferedInputStream;
-import java.io.DataInputStream;
-import java.io.FileInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.regex.Pattern;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -23,13 +22,14 @@ public class Word2VecWebService extends WebServiceServlet
 {
     private static final String default_path = "/home/viall/current/data/word2vec/default_model.bin";
     
-    private static double[][] vectors = null;
+    private static volatile EmbeddingStore store = null;
     
-    private static String[] words = null;
+    private static volatile HnswIndex index = null;
     
-    private static HashMap<String, Integer> wordsIndexes = null;
-    
-    private static boolean loaded = false;
+    /**
+     * The beam of the approximate searches when the request does not give one, 0 for exact searches
+     */
+    private static final int default_ef = Integer.getInteger("lexsema.w2v.ef", HnswIndex.DEFAULT_EF);
     
     protected void handle(HttpServletRequest request, HttpServletResponse response) throws Exception
     {
@@ -43,6 +43,12 @@ public class Word2VecWebService extends WebServiceServlet
         {
             handleGetWordVector(request, response);
         }
+        else if (what.equals("get_word_vectors"))
+        {
+            // The vectors are written in binary to the output stream, which the handler closes
+            handleGetWordVectors(request, response);
+            return;
+        }
         else if (what.equals("get_most_similar_words"))
         {
             handleGetMostSimilarWords(request, response);
@@ -84,57 +90,103 @@ public class Word2VecWebService extends WebServiceServlet
     
     private void handleGetWordVector(HttpServletRequest request, HttpServletResponse response) throws IOException
     {
-        if (!loadWord2vec(default_path, false)) writeErrorWord2vecNotLoaded(response);
+        if (!loadWord2vec(default_path, false)) { writeErrorWord2vecNotLoaded(response); return; }
         String word = request.getParameter("word");
         if (word == null) { writeErrorParameterNull(response, "word"); return; }
-        if (!wordsIndexes.containsKey(word))
+        EmbeddingStore vectors = store;
+        int index = vectors.indexOf(word);
+        if (index < 0)
         {
             response.getWriter().print("[]");
         }
         else
         {
-            double[] vector = vectors[wordsIndexes.get(word)];
+            double[] vector = vectors.vector(index);
             response.getWriter().print(Arrays.toString(vector));
         }
     }
     
+    /**
+     * Vectors of a batch of words, given by the parameter "words" one per line. The response is binary and big-endian:
+     * the number of words and the dimension as ints, then for each word in order a byte that is 1 if the word is
+     * known, followed by its vector as floats, or 0 if it is not
+     */
+    private void handleGetWordVectors(HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        String words = request.getParameter("words");
+        if (!loadWord2vec(default_path, false) || words == null)
+        {
+            if (words == null) writeErrorParameterNull(response, "words");
+            else writeErrorWord2vecNotLoaded(response);
+            response.getWriter().close();
+            return;
+        }
+        EmbeddingStore vectors = store;
+        String[] batch = words.split("\n", -1);
+        int[] indexes = new int[batch.length];
+        int found = 0;
+        for (int i = 0 ; i < batch.length ; i++)
+        {
+            indexes[i] = vectors.indexOf(batch[i]);
+            if (indexes[i] >= 0) found++;
+        }
+        int dimension = vectors.dimension();
+        response.setContentType("application/octet-stream");
+        response.setContentLength(8 + batch.length + 4 * dimension * found);
+        float[] vector = new float[dimension];
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(response.getOutputStream(), 1 << 16)))
+        {
+            out.writeInt(batch.length);
+            out.writeInt(dimension);
+            for (int index : indexes)
+            {
+                out.writeByte(index >= 0 ? 1 : 0);
+                if (index < 0) continue;
+                vectors.rows(index, 1, vector);
+                for (float value : vector) out.writeFloat(value);
+            }
+        }
+    }
+    
     private void handleGetMostSimilarWords(HttpServletRequest request, HttpServletResponse response) throws IOException
     {
-        if (!loadWord2vec(default_path, false)) writeErrorWord2vecNotLoaded(response);
+        if (!loadWord2vec(default_path, false)) { writeErrorWord2vecNotLoaded(response); return; }
         String word = request.getParameter("word");
         String vector = request.getParameter("vector");
         if (word == null && vector == null) { writeErrorParameterNull(response, "word / vector"); return; }
         String nAsStr = request.getParameter("n");
         if (nAsStr == null) nAsStr = "1";
         int n = Integer.parseInt(nAsStr);
+        int ef = getEf(request);
         String context_vector = request.getParameter("context_vector");
         double[] context_vectord = VectorOperation.to_vector(context_vector);
         if (word != null)
         {
-            Collection<String> most_similar_words = getMostSimilarWords(word, n + 1, context_vectord);
+            Collection<String> most_similar_words = getMostSimilarWords(word, n + 1, context_vectord, ef);
             most_similar_words.remove(word);
             response.getWriter().print(most_similar_words.toString());
         }
         else if (vector != null)
         {
             double[] vectord = VectorOperation.to_vector(vector);
-            Collection<String> most_similar_words = getMostSimilarWords(vectord, n, context_vectord);
+            Collection<String> most_similar_words = getMostSimilarWords(vectord, n, context_vectord, ef);
             response.getWriter().print(most_similar_words.toString());
         }
     }
     
     private void handleGetMostSynonymWords(HttpServletRequest request, HttpServletResponse response) throws IOException
     {
-        if (!loadWord2vec(default_path, false)) writeErrorWord2vecNotLoaded(response);
+        if (!loadWord2vec(default_path, false)) { writeErrorWord2vecNotLoaded(response); return; }
         String word = request.getParameter("word");
         String vector = request.getParameter("vector");
         if (word == null && vector == null) { writeErrorParameterNull(response, "word / vector"); return; }
         String nAsStr = request.getParameter("n");
         if (nAsStr == null) nAsStr = "1";
         int n = Integer.parseInt(nAsStr);
+        int ef = getEf(request);
         if (word != null)
         {
-            Collection<String> most_similar_words = getMostSynonymWords(word, n);
+            Collection<String> most_similar_words = getMostSynonymWords(word, n, ef);
             response.getWriter().print(most_similar_words.toString());
         }
         else if (vector != null)
@@ -142,11 +194,20 @@ public class Word2VecWebService extends WebServiceServlet
             String[] strValues = vector.replace("[", "").replace("]", "").split(", ");
             double[] vectord = new double[strValues.length];
             for (int i = 0 ; i < vectord.length ; i++) vectord[i] = Double.parseDouble(strValues[i]);
-            Collection<String> most_similar_words = getMostSynonymWords(vectord, n);
+            Collection<String> most_similar_words = getMostSynonymWords(vectord, n, ef);
             response.getWriter().print(most_similar_words.toString());
         }
     }
     
+    /**
+     * The beam of the approximate search, from the parameter "ef", 0 for an exact search
+     */
+    private int getEf(HttpServletRequest request)
+    {
+        String efAsStr = request.getParameter("ef");
+        return efAsStr == null ? default_ef : Integer.parseInt(efAsStr);
+    }
+    
     private void handleLoadModel(HttpServletRequest request, HttpServletResponse response) throws IOException
     {
         String path = request.getParameter("path");
@@ -176,171 +237,140 @@ public class Word2VecWebService extends WebServiceServlet
         response.getWriter().print("Error: parameter \"" + parameterName + "\" missing.");
     }
 
-    private Collection<String> getMostSimilarWords(String zeWord, int topN, double[] context) 
+    private Collection<String> getMostSimilarWords(String zeWord, int topN, double[] context, int ef) 
     {
-        if (!wordsIndexes.containsKey(zeWord)) return new ArrayList<>();
-        return getMostSimilarWords(vectors[wordsIndexes.get(zeWord)], topN, context);
+        EmbeddingStore vectors = store;
+        int index = vectors.indexOf(zeWord);
+        if (index < 0) return new ArrayList<>();
+        return getMostSimilarWords(vectors.vector(index), topN, context, ef);
     }
 
-    private Collection<String> getMostSynonymWords(String zeWord, int topN) 
+    private Collection<String> getMostSynonymWords(String zeWord, int topN, int ef) 
     {
-        if (!wordsIndexes.containsKey(zeWord)) return new ArrayList<>();
-        return getMostSynonymWords(vectors[wordsIndexes.get(zeWord)], topN);
+        EmbeddingStore vectors = store;
+        int index = vectors.indexOf(zeWord);
+        if (index < 0) return new ArrayList<>();
+        return getMostSynonymWords(vectors.vector(index), topN, ef);
     }
     
-    private Collection<String> getMostSimilarWords(double[] zeWord, int topN, double[] context) 
+    private Collection<String> getMostSimilarWords(double[] zeWord, int topN, double[] context, int ef) 
     {
-        Stuff[] zenearests = new Stuff[topN];
-        for (int i = 0 ; i < topN ; i++) zenearests[i] = new Stuff(0.0, 0);
-        int nbOfVectors = vectors.length;
-        for (int j = 0 ; j < nbOfVectors ; j++) 
+        EmbeddingStore vectors = store;
+        double[] query = zeWord;
+        if (context != null)
         {
-            double[] v = vectors[j];
-            double sim = VectorOperation.dot_product(zeWord, v);
-            if (context != null)
-            {
-                sim += VectorOperation.dot_product(context, v);
-            }
-            if (sim > zenearests[0].sim) 
-            {
-                zenearests[0].sim = sim; 
-                zenearests[0].index = j;
-                Arrays.sort(zenearests);
-            }
+            // The sum of the similarities to the word and to the context is the similarity to their sum
+            query = zeWord.clone();
+            for (int i = 0 ; i < query.length ; i++) query[i] += context[i];
         }
-        List<String> zenearestsstr = new ArrayList<>();
-        for (int i = topN - 1 ; i >= 0 ; i--) 
+        HnswIndex ann = index;
+        if (ef > 0 && ann != null && ann.store() == vectors)
         {
-            zenearestsstr.add(words[zenearests[i].index]);
+            // Like the exact search, only the words with a positive similarity are returned
+            List<String> words = new ArrayList<>();
+            double[] v = new double[vectors.dimension()];
+            for (int row : ann.nearest(query, topN, ef))
+            {
+                if (VectorOperation.dot_product(query, vectors.vector(row, v)) > 0) words.add(vectors.word(row));
+            }
+            return words;
         }
-        return zenearestsstr;
+        return words(vectors, vectors.nearest(query, topN));
     }
     
-    private Collection<String> getMostSynonymWords(double[] zeWord, int topN) 
+    private Collection<String> getMostSynonymWords(double[] zeWord, int topN, int ef) 
     {
-        Stuff[] zenearests = new Stuff[topN];
-        for (int i = 0 ; i < topN ; i++) zenearests[i] = new Stuff(0.0, 0);
-        int nbOfVectors = vectors.length;
-        for (int j = 0 ; j < nbOfVectors ; j++) 
+        EmbeddingStore vectors = store;
+        HnswIndex ann = index;
+        ScoredHeap best = new ScoredHeap(topN);
+        double[] v = new double[vectors.dimension()];
+        if (ef > 0 && ann != null && ann.store() == vectors)
         {
-            double[] v = vectors[j];
-            double sim = VectorOperation.absolute_synonymy(zeWord, v);
-            if (sim > zenearests[0].sim) 
+            // The synonymy is no metric the index can search, but the synonyms of a word are among its nearest
+            // words in cosine: the ef nearest ones are ranked by synonymy
+            for (int j : ann.nearest(zeWord, Math.max(ef, topN), ef))
             {
-                zenearests[0].sim = sim; 
-                zenearests[0].index = j;
-                Arrays.sort(zenearests);
+                double sim = VectorOperation.absolute_synonymy(zeWord, vectors.vector(j, v));
+                if (sim > 0) best.offer(j, sim, topN);
             }
         }
-        List<String> zenearestsstr = new ArrayList<>();
-        for (int i = topN - 1 ; i >= 0 ; i--) 
+        else
         {
-            zenearestsstr.add(words[zenearests[i].index]);
+            int nbOfVectors = vectors.size();
+            for (int j = 0 ; j < nbOfVectors ; j++) 
+            {
+                // As the original scan, which only kept the words more similar than 0
+                double sim = VectorOperation.absolute_synonymy(zeWord, vectors.vector(j, v));
+                if (sim > 0) best.offer(j, sim, topN);
+            }
         }
-        return zenearestsstr;
+        return words(vectors, best.drainDescending());
     }
     
-    private static class Stuff implements Comparable<Stuff> 
+    private static List<String> words(EmbeddingStore vectors, int[] rows)
     {
-        public Double sim;
-        public Integer index;
-        public Stuff(double sim, int index) 
-        {
-            this.sim = sim;
-            this.index = index;
-        }
-        public int compareTo(Stuff o) 
+        List<String> words = new ArrayList<>();
+        for (int row : rows) 
         {
-            return sim.compareTo(o.sim);
+            words.add(vectors.word(row));
         }
+        return words;
     }
     
-    public static String readString(DataInputStream dis) throws IOException
+    /**
+     * Maps the embedding store of the model. A word2vec binary model is converted once to a store next to it, which
+     * is reused as long as it is newer than the model; a store can also be given directly.
+     */
+    private static synchronized boolean loadWord2vec(String path, boolean reload)
     {
-        final int MAX_SIZE = 50;
-        byte[] bytes = new byte[MAX_SIZE];
-        byte b = dis.readByte();
-        int i = -1;
-        StringBuilder sb = new StringBuilder();
-        while (b != ' ' && b != '\n') 
+        if (store != null && !reload) return true;
+        try
         {
-            i++;
-            bytes[i] = b;
-            b = dis.readByte();
-            if (i == MAX_SIZE - 1) 
+            Path model = Paths.get(path);
+            Path storePath = model;
+            if (!EmbeddingStore.isStore(model))
             {
-                sb.append(new String(bytes));
-                i = -1;
-                bytes = new byte[MAX_SIZE];
+                storePath = Paths.get(path + EmbeddingStore.EXTENSION);
+                if (!Files.exists(storePath) || Files.getLastModifiedTime(storePath).compareTo(Files.getLastModifiedTime(model)) < 0)
+                {
+                    System.out.println("Converting " + model + " to " + storePath + "...");
+                    EmbeddingStore.convert(model, storePath);
+                }
             }
+            EmbeddingStore opened = EmbeddingStore.open(storePath);
+            index = openIndex(opened, storePath);
+            store = opened;
         }
-        sb.append(new String(bytes, 0, i + 1));
-        return sb.toString();
-    }
-    
-    public static float readFloat(InputStream is) throws IOException
-    {
-        byte[] bytes = new byte[4];
-        is.read(bytes);
-        return getFloat(bytes);
-    }
-    
-    public static float getFloat(byte[] b)
-    {
-        int accum = 0;
-        accum = accum | (b[0] & 0xff) << 0;
-        accum = accum | (b[1] & 0xff) << 8;
-        accum = accum | (b[2] & 0xff) << 16;
-        accum = accum | (b[3] & 0xff) << 24;
-        return Float.intBitsToFloat(accum);
+        catch (IOException e)
+        {
+            e.printStackTrace();
+            store = null;
+            index = null;
+        }
+        return store != null;
     }
     
-    private static synchronized boolean loadWord2vec(String path, boolean reload)
+    /**
+     * Opens the nearest neighbour index built offline for the store by {@link HnswIndex#main(String[])}, if it is
+     * there and up to date; without it the searches are exact
+     */
+    private static HnswIndex openIndex(EmbeddingStore store, Path storePath)
     {
-        if (loaded && !reload) return true;
+        Path indexPath = Paths.get(storePath + HnswIndex.EXTENSION);
         try
         {
-            FileInputStream fis = new FileInputStream(path);
-            BufferedInputStream bis = new BufferedInputStream(fis);
-            DataInputStream dis = new DataInputStream(bis);
-            int nbWords = Integer.parseInt(readString(dis));
-            int vectorDimension = Integer.parseInt(readString(dis));
-            Pattern non_letters_pattern = Pattern.compile("[^\\p{IsAlphabetic}]");
-            words = new String[nbWords];
-            wordsIndexes = new HashMap<>();
-            vectors = new double[nbWords][vectorDimension];
-            int last_percentage = 0;
-            for (int i = 0 ; i < nbWords ; i++) {
-                int current_percentage = ((int) ((((double) (i + 1)) / ((double) (nbWords))) * 100.0));
-                if (current_percentage > last_percentage) System.out.println("Adding words... (" + current_percentage + "%)\r");
-                last_percentage = current_percentage;
-                words[i] = readString(dis);
-                words[i] = non_letters_pattern.matcher(words[i]).replaceAll("");
-                if (words[i].isEmpty())
-                {
-                    for (int j = 0 ; j < vectorDimension ; j++)
-                    {
-                        vectors[i][j] = readFloat(dis);
-                        vectors[i][j] = 0;
-                    }
-                }
-                else
-                {
-                	wordsIndexes.put(words[i], i);
-                    for (int j = 0 ; j < vectorDimension ; j++)
-                    {
-                        vectors[i][j] = readFloat(dis);
-                    }
-                    vectors[i] = VectorOperation.normalize(vectors[i]);
-                }
+            if (!Files.exists(indexPath)) return null;
+            if (Files.getLastModifiedTime(indexPath).compareTo(Files.getLastModifiedTime(storePath)) < 0)
+            {
+                System.out.println("Ignoring " + indexPath + ", older than its store");
+                return null;
             }
-            loaded = true;
-        } 
+            return HnswIndex.open(indexPath, store);
+        }
         catch (IOException e)
         {
             e.printStackTrace();
-            loaded = false;
+            return null;
         }
-        return loaded;
     }
 }
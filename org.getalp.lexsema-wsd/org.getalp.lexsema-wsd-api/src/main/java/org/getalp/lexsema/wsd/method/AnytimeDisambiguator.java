@@ -0,0 +1,17 @@
+package org.getalp.lexsema.wsd.method;
+
+import org.getalp.lexsema.wsd.configuration.Configuration;
+
+/**
+ * A disambiguator that improves a configuration over time and can give the best one found so far at any moment,
+ * e.g. to answer within a deadline with what a search has reached.
+ */
+public interface AnytimeDisambiguator extends Disambiguator {
+    /**
+     * May be called from another thread than the one disambiguating.
+     *
+     * @return A copy of the best configuration found so far for the document being disambiguated, or for the last
+     * document once done; null if no configuration has been found yet
+     */
+    public Configuration getBestConfiguration();
+}
@@ -0,0 +1,23 @@
+package org.getalp.lexsema.wsd.score;
+
+import org.getalp.lexsema.similarity.Document;
+import org.getalp.lexsema.wsd.configuration.Configuration;
+
+/**
+ * A configuration scorer able to update a known score after a local move, by re-scoring only the word pairs
+ * that involve one of the changed indices instead of the whole configuration.
+ */
+public interface IncrementalConfigurationScorer extends ConfigurationScorer {
+    /**
+     * Computes the score of {@code configuration} from the score of the configuration it was derived from.
+     *
+     * @param document              The document being disambiguated
+     * @param previousScore         The score of {@code previousConfiguration}, as returned by this scorer
+     * @param previousConfiguration The configuration before the move
+     * @param configuration         The configuration after the move
+     * @param changedIndices        The indices of the words whose assignment may differ (duplicates are allowed)
+     * @return The score of {@code configuration}
+     */
+    double scoreDelta(Document document, double previousScore, Configuration previousConfiguration,
+                      Configuration configuration, int[] changedIndices);
+}
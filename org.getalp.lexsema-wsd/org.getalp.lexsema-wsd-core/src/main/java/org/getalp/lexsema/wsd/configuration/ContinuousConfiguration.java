@@ -48,29 +48,69 @@ public class ContinuousConfiguration implements Configuration
     }
 
     public void setRandomSenses()
+    {
+        setRandomSenses(random);
+    }
+
+    public void setRandomSenses(Random random)
     {
         for (int i = 0 ; i < documentSize ; i++)
         {
-            setSenseRandom(i);
+            setSenseRandom(i, random);
         }
     }
     
-    public void makeRandomChanges(int numberOfChanges)
+    /**
+     * Randomly reassigns up to numberOfChanges words.
+     * @return The indices of the words that were reassigned, possibly with duplicates
+     */
+    public int[] makeRandomChanges(int numberOfChanges)
+    {
+        return makeRandomChanges(numberOfChanges, random);
+    }
+
+    /**
+     * Randomly reassigns up to numberOfChanges words, drawing from the given generator rather than the one shared by
+     * all the configurations, e.g. to avoid contending on it from several threads.
+     * @return The indices of the words that were reassigned, possibly with duplicates
+     */
+    public int[] makeRandomChanges(int numberOfChanges, Random random)
     {
-        numberOfChanges = Math.min(numberOfChanges, documentSize);
+        numberOfChanges = Math.max(0, Math.min(numberOfChanges, documentSize));
+        int[] changedIndices = new int[numberOfChanges];
         for (int i = 0 ; i < numberOfChanges ; i++)
         {
-            makeRandomChange();
+            changedIndices[i] = makeRandomChange(random);
         }
+        return changedIndices;
     }
     
-    public void makeRandomChange()
+    /**
+     * Randomly reassigns a random word.
+     * @return The index of the word that was reassigned
+     */
+    public int makeRandomChange()
+    {
+        return makeRandomChange(random);
+    }
+
+    /**
+     * Randomly reassigns a random word, drawing from the given generator.
+     * @return The index of the word that was reassigned
+     */
+    public int makeRandomChange(Random random)
     {
         int randomIndex = random.nextInt(documentSize);
-        setSenseRandom(randomIndex);
+        setSenseRandom(randomIndex, random);
+        return randomIndex;
     }
     
     public void setSenseRandom(int wordIndex)
+    {
+        setSenseRandom(wordIndex, random);
+    }
+
+    public void setSenseRandom(int wordIndex, Random random)
     {
         if (document.getSenses(wordIndex).isEmpty())
         {
@@ -0,0 +1,131 @@
+package org.getalp.lexsema.wsd.experiments;
+
+import cern.jet.random.engine.MersenneTwister;
+import org.getalp.lexsema.similarity.DefaultDocumentFactory;
+import org.getalp.lexsema.similarity.Document;
+import org.getalp.lexsema.similarity.DocumentFactory;
+import org.getalp.lexsema.similarity.Sense;
+import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
+import org.getalp.lexsema.similarity.measures.lesk.SimpleLeskSimilarity;
+import org.getalp.lexsema.similarity.signatures.DefaultSemanticSignatureFactory;
+import org.getalp.lexsema.similarity.signatures.SemanticSignature;
+import org.getalp.lexsema.wsd.method.aca.agents.Ant;
+import org.getalp.lexsema.wsd.method.aca.agents.factories.AntFactory;
+import org.getalp.lexsema.wsd.method.aca.agents.factories.SchwabEtAl2012AntFactory;
+import org.getalp.lexsema.wsd.method.aca.agents.updates.AntUpdater;
+import org.getalp.lexsema.wsd.method.aca.agents.updates.SchwabEtAl2012AntUpdater;
+import org.getalp.lexsema.wsd.method.aca.environment.Environment;
+import org.getalp.lexsema.wsd.method.aca.environment.factories.DocumentEnvironmentFactory;
+import org.getalp.lexsema.wsd.method.aca.environment.graph.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the number of ant steps per second of {@link SchwabEtAl2012AntUpdater} on the environments of synthetic
+ * documents, with one ant released from every nest. Ants that run out of life are replaced, so that the measure
+ * covers roaming and returning ants alike. Running it before and after a change of the updater gives its speedup.
+ * <p>
+ * Arguments: [number of steps per ant] [document sizes...], by default 200 steps on 50 and 3000 words.
+ */
+public class AntStepBenchmark
+{
+    private static final int VOCABULARY_SIZE = 2000;
+    private static final int SIGNATURE_LENGTH = 10;
+    private static final int MAX_SENSES = 4;
+    private static final double ANT_LIFE = 30;
+    private static final double MAXIMUM_ENERGY = 5;
+
+    public static void main(String[] args)
+    {
+        int steps = 200;
+        List<Integer> sizes = new ArrayList<>();
+        if (args.length >= 1) steps = Integer.valueOf(args[0]);
+        for (int a = 1 ; a < args.length ; a++) sizes.add(Integer.valueOf(args[a]));
+        if (sizes.isEmpty())
+        {
+            sizes.add(50);
+            sizes.add(3000);
+        }
+
+        SimilarityMeasure similarityMeasure = new SimpleLeskSimilarity();
+        for (int size : sizes)
+        {
+            Document document = generateDocument(size, new Random(size));
+            System.out.println("Document of " + size + " words");
+            // The first, shorter run warms the JIT up
+            benchmark(new SchwabEtAl2012AntUpdater(similarityMeasure, 1, 1, .5), document, steps / 4);
+            benchmark(new SchwabEtAl2012AntUpdater(similarityMeasure, 1, 1, .5), document, steps);
+        }
+    }
+
+    private static void benchmark(AntUpdater antUpdater, Document document, int steps)
+    {
+        Environment environment = new DocumentEnvironmentFactory(document, 10, 1, 100).build();
+        AntFactory antFactory = new SchwabEtAl2012AntFactory();
+        MersenneTwister seeds = new MersenneTwister(42);
+        List<Node> nests = new ArrayList<>();
+        for (Node node : environment.nodes())
+        {
+            if (node.isNest()) nests.add(node);
+        }
+        Ant[] ants = new Ant[nests.size()];
+        for (int a = 0 ; a < ants.length ; a++)
+        {
+            ants[a] = buildAnt(antFactory, nests.get(a), seeds);
+        }
+
+        long start = System.nanoTime();
+        for (int s = 0 ; s < steps ; s++)
+        {
+            for (int a = 0 ; a < ants.length ; a++)
+            {
+                if (ants[a].getLife() <= 0)
+                {
+                    ants[a] = buildAnt(antFactory, nests.get(a), seeds);
+                }
+                antUpdater.update(ants[a], environment);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long totalSteps = (long) steps * ants.length;
+
+        System.out.println(String.format("\t%d ants, %d steps: %10.3f ms  %12.0f steps/s",
+                                         ants.length, totalSteps, elapsed / 1e6, totalSteps / (elapsed / 1e9)));
+    }
+
+    private static Ant buildAnt(AntFactory antFactory, Node nest, MersenneTwister seeds)
+    {
+        return antFactory.buildAnt(ANT_LIFE, MAXIMUM_ENERGY, 1, nest.getPosition(), nest.getSemanticSignature(),
+                                   new MersenneTwister(seeds.nextInt()));
+    }
+
+    private static Document generateDocument(int size, Random random)
+    {
+        DocumentFactory documentFactory = DefaultDocumentFactory.DEFAULT;
+        Document document = documentFactory.createDocument();
+        for (int i = 0 ; i < size ; i++)
+        {
+            document.addWord(documentFactory.createWord("w" + i, "lemma" + i, "lemma" + i, "n"));
+        }
+        for (int i = 0 ; i < size ; i++)
+        {
+            List<Sense> senses = new ArrayList<>();
+            int numberOfSenses = 1 + random.nextInt(MAX_SENSES);
+            for (int k = 0 ; k < numberOfSenses ; k++)
+            {
+                Sense sense = documentFactory.createSense("w" + i + "%" + k);
+                SemanticSignature signature = DefaultSemanticSignatureFactory.DEFAULT.createSemanticSignature();
+                for (int s = 0 ; s < SIGNATURE_LENGTH ; s++)
+                {
+                    signature.addSymbol("s" + random.nextInt(VOCABULARY_SIZE));
+                }
+                sense.setSemanticSignature(signature);
+                senses.add(sense);
+            }
+            document.addWordSenses(senses);
+        }
+        return document;
+    }
+}
@@ -0,0 +1,132 @@
+package org.getalp.lexsema.wsd.experiments;
+
+import org.getalp.lexsema.similarity.DefaultDocumentFactory;
+import org.getalp.lexsema.similarity.Document;
+import org.getalp.lexsema.similarity.DocumentFactory;
+import org.getalp.lexsema.similarity.Sense;
+import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
+import org.getalp.lexsema.similarity.measures.lesk.SimpleLeskSimilarity;
+import org.getalp.lexsema.similarity.signatures.DefaultSemanticSignatureFactory;
+import org.getalp.lexsema.similarity.signatures.SemanticSignature;
+import org.getalp.lexsema.wsd.configuration.ContinuousConfiguration;
+import org.getalp.lexsema.wsd.score.ConfigurationScorer;
+import org.getalp.lexsema.wsd.score.ConfigurationScorerWithCache;
+import org.getalp.lexsema.wsd.score.ForkJoinConfigurationScorer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares the single threaded {@link ConfigurationScorerWithCache} with the {@link ForkJoinConfigurationScorer} on
+ * synthetic documents. For each document size, reports the time of the first scoring call (cache fill) and the
+ * average time of the following calls on random configurations, the fork/join scorer running on pools of 1, 2, 4...
+ * up to the number of available processors, with its speedup over the single threaded scorer.
+ * <p>
+ * Arguments: [number of scoring rounds] [document sizes...], by default 20 rounds on 50 and 5000 words.
+ */
+public class ConfigurationScorerBenchmark
+{
+    private static final int VOCABULARY_SIZE = 2000;
+    private static final int SIGNATURE_LENGTH = 10;
+    private static final int MAX_SENSES = 4;
+
+    public static void main(String[] args)
+    {
+        int rounds = 20;
+        List<Integer> sizes = new ArrayList<>();
+        if (args.length >= 1) rounds = Integer.valueOf(args[0]);
+        for (int a = 1 ; a < args.length ; a++) sizes.add(Integer.valueOf(args[a]));
+        if (sizes.isEmpty())
+        {
+            sizes.add(50);
+            sizes.add(5000);
+        }
+
+        SimilarityMeasure similarityMeasure = new SimpleLeskSimilarity();
+        for (int size : sizes)
+        {
+            Document document = generateDocument(size, new Random(size));
+            System.out.println("Document of " + size + " words");
+            long[] sequential = benchmark("ConfigurationScorerWithCache", new ConfigurationScorerWithCache(similarityMeasure), document, rounds, null);
+            for (int parallelism : parallelisms())
+            {
+                benchmark("ForkJoinConfigurationScorer x" + parallelism,
+                          new ForkJoinConfigurationScorer(similarityMeasure, new ForkJoinPool(parallelism)), document, rounds, sequential);
+            }
+        }
+    }
+
+    private static List<Integer> parallelisms()
+    {
+        int processors = Runtime.getRuntime().availableProcessors();
+        List<Integer> parallelisms = new ArrayList<>();
+        for (int parallelism = 1 ; parallelism < processors ; parallelism *= 2)
+        {
+            parallelisms.add(parallelism);
+        }
+        parallelisms.add(processors);
+        return parallelisms;
+    }
+
+    /**
+     * @param reference The times of the reference scorer, to report the speedup over it, or null
+     * @return The time of the first call and the average time of the next calls, in nanoseconds
+     */
+    private static long[] benchmark(String name, ConfigurationScorer scorer, Document document, int rounds, long[] reference)
+    {
+        long start = System.nanoTime();
+        double score = scorer.computeScore(document, new ContinuousConfiguration(document, 0));
+        long fill = System.nanoTime() - start;
+
+        ContinuousConfiguration configuration = new ContinuousConfiguration(document, 0);
+        for (int r = 0 ; r < rounds ; r++)
+        {
+            configuration.makeRandomChanges(document.size() / 10);
+            scorer.computeScore(document, configuration);
+        }
+        start = System.nanoTime();
+        for (int r = 0 ; r < rounds ; r++)
+        {
+            configuration.makeRandomChanges(document.size() / 10);
+            scorer.computeScore(document, configuration);
+        }
+        long warm = (System.nanoTime() - start) / Math.max(rounds, 1);
+        scorer.release();
+
+        String speedup = reference == null ? "" : String.format("  speedup: %5.2f / %5.2f",
+                                                                 (double) reference[0] / fill, (double) reference[1] / Math.max(warm, 1));
+        System.out.println(String.format("\t%-32s first call: %10.3f ms  next calls: %10.3f ms  (score %.1f)%s",
+                                         name, fill / 1e6, warm / 1e6, score, speedup));
+        return new long[]{fill, warm};
+    }
+
+    private static Document generateDocument(int size, Random random)
+    {
+        DocumentFactory documentFactory = DefaultDocumentFactory.DEFAULT;
+        Document document = documentFactory.createDocument();
+        for (int i = 0 ; i < size ; i++)
+        {
+            document.addWord(documentFactory.createWord("w" + i, "lemma" + i, "lemma" + i, "n"));
+        }
+        for (int i = 0 ; i < size ; i++)
+        {
+            List<Sense> senses = new ArrayList<>();
+            int numberOfSenses = 1 + random.nextInt(MAX_SENSES);
+            for (int k = 0 ; k < numberOfSenses ; k++)
+            {
+                Sense sense = documentFactory.createSense("w" + i + "%" + k);
+                SemanticSignature signature = DefaultSemanticSignatureFactory.DEFAULT.createSemanticSignature();
+                for (int s = 0 ; s < SIGNATURE_LENGTH ; s++)
+                {
+                    signature.addSymbol("s" + random.nextInt(VOCABULARY_SIZE));
+                }
+                sense.setSemanticSignature(signature);
+                senses.add(sense);
+            }
+            document.addWordSenses(senses);
+        }
+        return document;
+    }
+}
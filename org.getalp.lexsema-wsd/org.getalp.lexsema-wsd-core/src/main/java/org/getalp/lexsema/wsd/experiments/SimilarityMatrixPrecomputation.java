@@ -0,0 +1,51 @@
+package org.getalp.lexsema.wsd.experiments;
+
+import org.getalp.lexsema.io.document.loader.CorpusLoader;
+import org.getalp.lexsema.io.document.loader.Semeval2007CorpusLoader;
+import org.getalp.lexsema.io.resource.LRLoader;
+import org.getalp.lexsema.io.resource.dictionary.DictionaryLRLoader;
+import org.getalp.lexsema.similarity.Document;
+import org.getalp.lexsema.similarity.measures.lesk.AnotherLeskSimilarity;
+import org.getalp.lexsema.wsd.score.PrecomputedConfigurationScorer;
+
+import java.io.File;
+import java.io.FileInputStream;
+
+/**
+ * Precomputes the sense pair similarity matrices of a corpus once, so that later runs using a
+ * {@link PrecomputedConfigurationScorer} on the same directory memory-map them instead of recomputing them.
+ * <p>
+ * Arguments: [corpus] [dictionary] [output directory]
+ */
+public class SimilarityMatrixPrecomputation
+{
+    public static void main(String[] args) throws Exception
+    {
+        String corpus = "../data/senseval2007_task7/test/eng-coarse-all-words.xml";
+        String dictionary = "../data/dictionnaires-lesk/dict-adapted-all-relations.xml";
+        String directory = "../data/similarity_matrices/another_lesk";
+
+        if (args.length >= 1) corpus = args[0];
+        if (args.length >= 2) dictionary = args[1];
+        if (args.length >= 3) directory = args[2];
+
+        long startTime = System.currentTimeMillis();
+
+        CorpusLoader dl = new Semeval2007CorpusLoader(new FileInputStream(corpus));
+        LRLoader lrloader = new DictionaryLRLoader(new FileInputStream(dictionary));
+
+        System.out.println("Loading texts...");
+        dl.load();
+        for (Document d : dl) lrloader.loadSenses(d);
+
+        System.out.println("Precomputing similarities...");
+        PrecomputedConfigurationScorer scorer = new PrecomputedConfigurationScorer(new AnotherLeskSimilarity(), new File(directory));
+        scorer.prepare(dl);
+        scorer.release();
+
+        long endTime = System.currentTimeMillis();
+        System.out.println("Total time elapsed in precomputation is : ");
+        System.out.println((endTime - startTime) + " ms.");
+        System.out.println(((endTime - startTime) / 1000l) + " s.");
+    }
+}
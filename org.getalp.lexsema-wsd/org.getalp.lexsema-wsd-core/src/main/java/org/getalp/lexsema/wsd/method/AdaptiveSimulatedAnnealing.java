@@ -13,11 +13,16 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
-public class AdaptiveSimulatedAnnealing implements Disambiguator {
+/**
+ * Adaptive simulated annealing that runs until the configuration has not changed for a number of cycles, or until its
+ * {@link StopCondition} is met. Each cycle of annealing steps is an iteration of the stop condition, and each step a
+ * scorer call.
+ */
+public class AdaptiveSimulatedAnnealing implements AnytimeDisambiguator {
     /**
      * Constant parameters
      */
-    public static final double T0_THRESHOLD = 0.01;
+    public static final double T0_THRESHOLD = AnnealingTemperatures.T0_THRESHOLD;
     public static final double ITERATIONS = 100;
     public static final int NUMBER_OF_CHANGES = 20;
     private static Logger logger = LoggerFactory.getLogger(AdaptiveSimulatedAnnealing.class);
@@ -39,6 +44,7 @@ public class AdaptiveSimulatedAnnealing implements Disambiguator {
      * Configuration state
      */
     private Configuration configuration;
+    private volatile Configuration bestConfiguration;
     private Configuration previousConfiguration;
     private ConfigurationScorer configurationScorer;
     /**
@@ -51,8 +57,17 @@ public class AdaptiveSimulatedAnnealing implements Disambiguator {
     private double currentCycle;
     private int convergenceCycles;
     private int numberOfAcceptanceEvents = 0;
+    private final StopCondition stopCondition;
 
     public AdaptiveSimulatedAnnealing(double p0, double m, double n, int convergenceThreshold, int numberThreads, SimilarityMeasure similarityMeasure) {
+        this(new StopCondition(StopCondition.Condition.ITERATIONS, Long.MAX_VALUE), p0, m, n, convergenceThreshold, numberThreads, similarityMeasure);
+    }
+
+    /**
+     * @param stopCondition Bounds a run besides the convergence, e.g. with a deadline or a plateau
+     */
+    public AdaptiveSimulatedAnnealing(StopCondition stopCondition, double p0, double m, double n, int convergenceThreshold, int numberThreads, SimilarityMeasure similarityMeasure) {
+        this.stopCondition = stopCondition;
         this.convergenceThreshold = convergenceThreshold;
         this.m = m;
         this.n = n;
@@ -69,22 +84,7 @@ public class AdaptiveSimulatedAnnealing implements Disambiguator {
      * @return Initial temperature
      */
     private double findT0(double avgDelta, double targetProbability) {
-        logger.info("Searching for T0...");
-        int i = 2;
-        double formula;
-        double probability;
-        double currentThreshold = T0_THRESHOLD;
-        do {
-            formula = avgDelta / Math.exp(1 - 1.0 / (i + (double) 2)) * Math.log(i + 2);
-            probability = Math.exp(-avgDelta / formula);
-            if (probability > currentThreshold) {
-                //logger.debug("[" + i + "][Avg Delta=" + avgDelta + "][T=" + formula + "][P0=" + Math.exp(-avgDelta / formula) + "]");
-                currentThreshold += T0_THRESHOLD;
-            }
-            i++;
-        } while (probability <= targetProbability);
-        logger.info(String.format("[Avg Delta=%.4f][T=%.4f][P0=%.2f]", avgDelta, formula, Math.exp(-avgDelta / formula)));
-        return formula;
+        return AnnealingTemperatures.findT0(avgDelta, targetProbability);
     }
 
     private void initialize(Document document) {
@@ -94,7 +94,7 @@ public class AdaptiveSimulatedAnnealing implements Disambiguator {
         T = T0;
         currentCycle = 0;
         convergenceCycles = 0;
-        Configuration bestConfiguration = configuration;
+        bestConfiguration = configuration;
     }
 
     /**
@@ -123,10 +123,11 @@ public class AdaptiveSimulatedAnnealing implements Disambiguator {
         configuration = new ConfidenceConfiguration(document, ConfidenceConfiguration.InitializationType.RANDOM);
 
         //Execution of the algorithm nbEvaluation times
-        for (int i = 0; i < ITERATIONS; i++) {
+        for (int i = 0; i < ITERATIONS && (i < 2 || !stopCondition.stop()); i++) {
             //First set of scores for the initial execution is also the set of best scores
             double score =
                     configurationScorer.computeScore(document, makeInitialRandomChange(configuration, document, NUMBER_OF_CHANGES, uniformGenerator));
+            stopCondition.incrementScorerCalls();
             scores.add(score);
         }
 
@@ -198,12 +199,15 @@ public class AdaptiveSimulatedAnnealing implements Disambiguator {
     @Override
     public Configuration disambiguate(Document document, Configuration c) {
 
+        stopCondition.reset();
+        // Until the first configuration is drawn, the best configuration must not be the previous document's
+        bestConfiguration = null;
         initialize(document);
 
         while (evaluate()) {
             logger.info(String.format("[Cycle %.2f] [T=%.2f] [Convergence: %d/%d]", currentCycle, T, convergenceCycles, convergenceThreshold));
             changedSinceLast = false;
-            for (int j = 0; j < ITERATIONS; j++) {
+            for (int j = 0; j < ITERATIONS && !stopCondition.stop(); j++) {
                 anneal(document);
             }
         }
@@ -211,6 +215,12 @@ public class AdaptiveSimulatedAnnealing implements Disambiguator {
         return configuration;
     }
 
+    @Override
+    public Configuration getBestConfiguration() {
+        Configuration best = bestConfiguration;
+        return best == null ? null : new ConfidenceConfiguration((ConfidenceConfiguration) best);
+    }
+
     protected void anneal(Document document) {
         double score;
         score = 0;
@@ -219,6 +229,7 @@ public class AdaptiveSimulatedAnnealing implements Disambiguator {
         Configuration cp = makeRandomChange(configuration, document, uniformGenerator);
 
         score = configurationScorer.computeScore(document, makeRandomChange(configuration, document, NUMBER_OF_CHANGES, uniformGenerator));
+        stopCondition.incrementScorerCalls();
 
         //Checking if the change is accepted (non-significant treated as inferior)
         if (score > prevScore) {
@@ -227,6 +238,7 @@ public class AdaptiveSimulatedAnnealing implements Disambiguator {
             prevScore = score;
             if (score > bestScore) {
                 bestScore = score;
+                bestConfiguration = cp;
             }
             changedSinceLast = true;
             numberOfAcceptanceEvents++;
@@ -260,6 +272,12 @@ public class AdaptiveSimulatedAnnealing implements Disambiguator {
 
     private boolean evaluate() {
         T = calculateT(T0, currentCycle);
+        stopCondition.updateBestScore(bestScore);
+        stopCondition.incrementIterations();
+        stopCondition.updateMilliseconds();
+        if (stopCondition.stop()) {
+            return false;
+        }
 
         if (convergenceCycles >= convergenceThreshold
                 && configuration.equals(previousConfiguration)) {
@@ -0,0 +1,73 @@
+package org.getalp.lexsema.wsd.method;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Temperatures shared by the simulated annealing disambiguators
+ */
+public final class AnnealingTemperatures {
+
+    public static final double T0_THRESHOLD = 0.01;
+
+    /**
+     * The lowest initial temperature, used when the sampled scores do not differ and T0 would be 0
+     */
+    public static final double MINIMUM_T0 = 1e-6;
+
+    private static final Logger logger = LoggerFactory.getLogger(AnnealingTemperatures.class);
+
+    private AnnealingTemperatures() {
+    }
+
+    /**
+     * Iteratively determines the initial Temperature, T0 that corresponds to the targetProbability for a given average
+     * difference between successive scores
+     *
+     * @param avgDelta          Average score difference between executions
+     * @param targetProbability Initial acceptance probability
+     * @return Initial temperature
+     */
+    public static double findT0(double avgDelta, double targetProbability) {
+        logger.info("Searching for T0...");
+        int i = 2;
+        double formula;
+        double probability;
+        double currentThreshold = T0_THRESHOLD;
+        do {
+            formula = avgDelta / Math.exp(1 - 1.0 / (i + (double) 2)) * Math.log(i + 2);
+            probability = Math.exp(-avgDelta / formula);
+            if (probability > currentThreshold) {
+                currentThreshold += T0_THRESHOLD;
+            }
+            i++;
+        } while (probability <= targetProbability);
+        logger.info(String.format("[Avg Delta=%.4f][T=%.4f][P0=%.2f]", avgDelta, formula, Math.exp(-avgDelta / formula)));
+        return formula;
+    }
+
+    /**
+     * @return The initial temperature, or {@link #MINIMUM_T0} if it is lower or undefined
+     */
+    public static double atLeastMinimumT0(double t0) {
+        return t0 > MINIMUM_T0 ? t0 : MINIMUM_T0;
+    }
+
+    /**
+     * Geometric ladder of temperatures, from the hottest to the coldest; a ladder of a single rung is at the coldest
+     *
+     * @param hottest The temperature of the first rung, positive and finite
+     * @param coldest The temperature of the last rung, positive and at most the hottest
+     * @param rungs   The number of temperatures, at least 1
+     */
+    public static double[] geometricLadder(double hottest, double coldest, int rungs) {
+        if (!(hottest > 0) || Double.isInfinite(hottest) || !(coldest > 0) || coldest > hottest || rungs < 1) {
+            throw new IllegalArgumentException(String.format("Invalid ladder of %d temperatures from %s down to %s", rungs, hottest, coldest));
+        }
+        double[] ladder = new double[rungs];
+        for (int k = 0; k < rungs; k++) {
+            ladder[k] = rungs == 1 ? coldest : hottest * Math.pow(coldest / hottest, (double) k / (rungs - 1));
+        }
+        return ladder;
+    }
+}
@@ -4,11 +4,12 @@ import org.getalp.lexsema.similarity.Document;
 import org.getalp.lexsema.wsd.configuration.Configuration;
 import org.getalp.lexsema.wsd.configuration.ContinuousConfiguration;
 import org.getalp.lexsema.wsd.score.ConfigurationScorer;
+import org.getalp.lexsema.wsd.score.IncrementalConfigurationScorer;
 
 import java.io.PrintWriter;
 import java.util.Random;
 
-public class BatAlgorithmDisambiguator implements Disambiguator
+public class BatAlgorithmDisambiguator implements AnytimeDisambiguator
 {
     public PrintWriter plotWriter = null;
     
@@ -45,6 +46,8 @@ public class BatAlgorithmDisambiguator implements Disambiguator
     private Bat[] bats;
 
     private Bat bestBat;
+
+    private volatile ContinuousConfiguration bestConfiguration;
     
     private boolean verbose;
     
@@ -79,6 +82,21 @@ public class BatAlgorithmDisambiguator implements Disambiguator
             }
             return score;
         }
+
+        public double recomputeScore(ContinuousConfiguration baseline, double baselineScore, int[] changedIndices)
+        {
+            if (!(configurationScorer instanceof IncrementalConfigurationScorer))
+            {
+                return recomputeScore();
+            }
+            score = ((IncrementalConfigurationScorer) configurationScorer).scoreDelta(currentDocument, baselineScore, baseline, position, changedIndices);
+            stopCondition.incrementScorerCalls();
+            if (plotWriter != null)
+            {
+            	plotWriter.println(stopCondition.getCurrent() + " " + (bestBat != null ? bestBat.score : 0));
+            }
+            return score;
+        }
     }
     
     public BatAlgorithmDisambiguator(int iterationsNumber, int batsNumber, double minFrequency, double maxFrequency, 
@@ -110,6 +128,7 @@ public class BatAlgorithmDisambiguator implements Disambiguator
     public Configuration disambiguate(Document document)
     {
         stopCondition.reset();
+        bestConfiguration = null;
         currentDocument = document;
         dimension = document.size();
         currentIteration = 0;
@@ -132,11 +151,16 @@ public class BatAlgorithmDisambiguator implements Disambiguator
                 ContinuousConfiguration previousPosition = currentBat.position.clone();
                 int previousVelocity = currentBat.velocity;
                 double previousScore = currentBat.score;
+                ContinuousConfiguration baseline;
+                double baselineScore;
+                int[] changedIndices;
 
                 if (currentBat.rate < randomDoubleInRange(minRate, maxRate))
                 {
+                    baseline = bestBat.position;
+                    baselineScore = bestBat.score;
                     currentBat.position = bestBat.position.clone();
-                    currentBat.position.makeRandomChanges((int) getAverageLoudness());
+                    changedIndices = currentBat.position.makeRandomChanges((int) getAverageLoudness());
                 }
                 else
                 {
@@ -150,16 +174,19 @@ public class BatAlgorithmDisambiguator implements Disambiguator
                         }
                     }
                     currentBat.velocity *= currentBat.frequency;
-                    currentBat.position.makeRandomChanges(currentBat.velocity);
+                    baseline = previousPosition;
+                    baselineScore = previousScore;
+                    changedIndices = currentBat.position.makeRandomChanges(currentBat.velocity);
                 }
 
                 if (currentBat.loudness >= randomDoubleInRange(minLoudness, maxLoudness) &&
-                    currentBat.recomputeScore() > bestBat.score)
+                    currentBat.recomputeScore(baseline, baselineScore, changedIndices) > bestBat.score)
                 {
                     currentBat.loudness *= alpha;
                     if (currentBat.loudness < minLoudness) nbBatsFinished++;
                     currentBat.rate = currentBat.initialRate * (1 - Math.exp(-gamma * currentIteration));
                     bestBat = currentBat;
+                    bestConfiguration = bestBat.position.clone();
                 }
                 else
                 {
@@ -169,6 +196,7 @@ public class BatAlgorithmDisambiguator implements Disambiguator
                 }
             }
             
+            stopCondition.updateBestScore(bestBat.score);
             stopCondition.incrementIterations();
             stopCondition.updateMilliseconds();
             currentIteration++;
@@ -185,6 +213,12 @@ public class BatAlgorithmDisambiguator implements Disambiguator
         return disambiguate(document);
     }
 
+    public Configuration getBestConfiguration()
+    {
+        ContinuousConfiguration best = bestConfiguration;
+        return best == null ? null : best.clone();
+    }
+
     public void release()
     {
         configurationScorer.release();
@@ -197,7 +231,9 @@ public class BatAlgorithmDisambiguator implements Disambiguator
 
     private void updateBestBat()
     {
-        double bestScore = Double.MIN_VALUE;
+        // The first bat by default, so that the best bat is never one of the previous document
+        bestBat = bats[0];
+        double bestScore = bestBat.score;
         for (Bat currentBat : bats)
         {
             double currentScore = currentBat.score;
@@ -207,6 +243,7 @@ public class BatAlgorithmDisambiguator implements Disambiguator
                 bestBat = currentBat;
             }
         }
+        bestConfiguration = bestBat.position.clone();
     }
 
     private double getAverageLoudness()
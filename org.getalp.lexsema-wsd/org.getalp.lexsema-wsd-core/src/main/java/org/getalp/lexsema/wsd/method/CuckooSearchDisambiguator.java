@@ -5,12 +5,13 @@ import org.getalp.lexsema.similarity.Document;
 import org.getalp.lexsema.wsd.configuration.Configuration;
 import org.getalp.lexsema.wsd.configuration.ContinuousConfiguration;
 import org.getalp.lexsema.wsd.score.ConfigurationScorer;
+import org.getalp.lexsema.wsd.score.IncrementalConfigurationScorer;
 
 import java.io.PrintWriter;
 import java.util.Arrays;
 import java.util.Random;
 
-public class CuckooSearchDisambiguator implements Disambiguator
+public class CuckooSearchDisambiguator implements AnytimeDisambiguator
 {
     public PrintWriter scorePlotWriter = null;
 
@@ -26,6 +27,12 @@ public class CuckooSearchDisambiguator implements Disambiguator
         
         private boolean needRecomputeScore;
         
+        private ContinuousConfiguration previousConfiguration;
+        
+        private double previousScore;
+        
+        private int[] changedIndices;
+        
         public Nest()
         {
             this.configuration = new ContinuousConfiguration(currentDocument);
@@ -53,7 +60,16 @@ public class CuckooSearchDisambiguator implements Disambiguator
         public double randomFly()
         {
             double distance = levyDistribution.sample();
-            configuration.makeRandomChanges((int) distance);
+            if (!needRecomputeScore && configurationScorer instanceof IncrementalConfigurationScorer)
+            {
+                previousConfiguration = configuration.clone();
+                previousScore = score;
+            }
+            else
+            {
+                previousConfiguration = null;
+            }
+            changedIndices = configuration.makeRandomChanges((int) distance);
             needRecomputeScore = true;
             return distance;
         }
@@ -62,7 +78,15 @@ public class CuckooSearchDisambiguator implements Disambiguator
         {
             if (needRecomputeScore)
             {
-                score = configurationScorer.computeScore(currentDocument, configuration);
+                if (previousConfiguration != null)
+                {
+                    score = ((IncrementalConfigurationScorer) configurationScorer).scoreDelta(currentDocument, previousScore, previousConfiguration, configuration, changedIndices);
+                    previousConfiguration = null;
+                }
+                else
+                {
+                    score = configurationScorer.computeScore(currentDocument, configuration);
+                }
                 needRecomputeScore = false;
                 stopCondition.incrementScorerCalls();
                 if (scorePlotWriter != null) scorePlotWriter.println(stopCondition.getCurrent() + " " + (nests[0] != null ? nests[0].getScore() : 0));
@@ -90,6 +114,10 @@ public class CuckooSearchDisambiguator implements Disambiguator
     
     private Document currentDocument;
 
+    private volatile ContinuousConfiguration bestConfiguration;
+
+    private double bestScore;
+
     public CuckooSearchDisambiguator(int iterations, double levyLocation, double levyScale, int nestsNumber, int destroyedNests, ConfigurationScorer configurationScorer, boolean verbose)
     {
         this(new StopCondition(StopCondition.Condition.ITERATIONS, iterations), levyLocation, levyScale, nestsNumber, destroyedNests, configurationScorer, verbose);
@@ -109,6 +137,8 @@ public class CuckooSearchDisambiguator implements Disambiguator
     public Configuration disambiguate(Document document)
     {
         this.currentDocument = document;
+        bestConfiguration = null;
+        bestScore = Double.NEGATIVE_INFINITY;
         Configuration ret = null;
         if (nestsNumber == 1) ret = runWithSingleNest(document);
         else ret = runWithManyNests(document);
@@ -132,6 +162,7 @@ public class CuckooSearchDisambiguator implements Disambiguator
             {
                 nests[0] = newNest;
             }
+            publishBest(nests[0]);
             if (verbose)
             {
                 System.out.println("Cuckoo Progress : " + progressPercent + "% - " +
@@ -171,6 +202,7 @@ public class CuckooSearchDisambiguator implements Disambiguator
             }
             
             sortNests();
+            publishBest(nests[nestsNumber - 1]);
             abandonWorthlessNests();
 
             if (verbose)
@@ -188,6 +220,25 @@ public class CuckooSearchDisambiguator implements Disambiguator
         return nests[nestsNumber - 1].configuration;
     }
 
+    /**
+     * Keeps a copy of the nest if it is the best so far, and reports the best score to the stop condition
+     */
+    private void publishBest(Nest nest)
+    {
+        if (nest.getScore() > bestScore)
+        {
+            bestScore = nest.getScore();
+            bestConfiguration = nest.configuration.clone();
+        }
+        stopCondition.updateBestScore(bestScore);
+    }
+
+    public Configuration getBestConfiguration()
+    {
+        ContinuousConfiguration best = bestConfiguration;
+        return best == null ? null : best.clone();
+    }
+
     private void sortNests()
     {
         Arrays.sort(nests);
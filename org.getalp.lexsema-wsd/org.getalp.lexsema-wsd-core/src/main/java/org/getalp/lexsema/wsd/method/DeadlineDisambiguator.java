@@ -0,0 +1,124 @@
+package org.getalp.lexsema.wsd.method;
+
+import org.getalp.lexsema.similarity.Document;
+import org.getalp.lexsema.wsd.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.*;
+
+/**
+ * Bounds the time a disambiguator takes per document. The disambiguation runs on a thread of its own; when it has
+ * not returned by the deadline, it is interrupted, which the {@link StopCondition} of the metaheuristics honours, and
+ * the answer is the best configuration found so far if the disambiguator is an {@link AnytimeDisambiguator} that has
+ * one, or else the configuration of the fallback disambiguator, the first senses by default.
+ * <p>
+ * The deadline is a hard limit: metaheuristics should also be given a slightly shorter one with
+ * {@link StopCondition#setDeadline(long)}, so that they usually stop by themselves with a complete result. A
+ * disambiguator that ignores interruptions may still be running when the next document comes; that document is then
+ * answered by the fallback, as disambiguators are not safe to run concurrently.
+ */
+public class DeadlineDisambiguator implements Disambiguator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineDisambiguator.class);
+
+    private final Disambiguator disambiguator;
+
+    private final Disambiguator fallback;
+
+    private final long deadline;
+
+    private final ExecutorService executor;
+
+    private Future<Configuration> running;
+
+    private long timeouts;
+
+    /**
+     * @param disambiguator The disambiguator whose time is bounded
+     * @param deadline      The time given to each document, in milliseconds
+     * @param fallback      Answers when the disambiguator has nothing to give by the deadline; it should be fast
+     */
+    public DeadlineDisambiguator(Disambiguator disambiguator, long deadline, Disambiguator fallback) {
+        this.disambiguator = disambiguator;
+        this.deadline = deadline;
+        this.fallback = fallback;
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "deadline-disambiguator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public DeadlineDisambiguator(Disambiguator disambiguator, long deadline) {
+        this(disambiguator, deadline, new FirstSenseDisambiguator());
+    }
+
+    @Override
+    public synchronized Configuration disambiguate(Document document) {
+        return disambiguate(document, () -> disambiguator.disambiguate(document), () -> fallback.disambiguate(document));
+    }
+
+    @Override
+    public synchronized Configuration disambiguate(Document document, Configuration c) {
+        return disambiguate(document, () -> disambiguator.disambiguate(document, c), () -> fallback.disambiguate(document, c));
+    }
+
+    private Configuration disambiguate(Document document, Callable<Configuration> task, Callable<Configuration> fallbackTask) {
+        if (running != null && !running.isDone()) {
+            logger.warn("The disambiguation of a previous document is still running, {} is answered by the fallback", document.getId());
+            timeouts++;
+            return call(fallbackTask);
+        }
+        running = executor.submit(task);
+        try {
+            return running.get(deadline, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            running.cancel(true);
+            timeouts++;
+            Configuration best = disambiguator instanceof AnytimeDisambiguator ? ((AnytimeDisambiguator) disambiguator).getBestConfiguration() : null;
+            if (best != null && !belongsTo(best, document)) {
+                best = null;
+            }
+            logger.debug("Deadline of {} ms reached on {}, answering with the {}", deadline, document.getId(), best != null ? "best configuration so far" : "fallback");
+            return best != null ? best : call(fallbackTask);
+        } catch (InterruptedException e) {
+            running.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while disambiguating " + document.getId(), e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to disambiguate " + document.getId(), e.getCause());
+        }
+    }
+
+    /**
+     * Guards against a best configuration left over from the previous document, when the disambiguator did not get
+     * to score a configuration of this one before the deadline
+     */
+    private static boolean belongsTo(Configuration configuration, Document document) {
+        Document configurationDocument = configuration.getDocument();
+        return configuration.size() == document.size() && (configurationDocument == null || configurationDocument == document);
+    }
+
+    private static Configuration call(Callable<Configuration> task) {
+        try {
+            return task.call();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to disambiguate with the fallback", e);
+        }
+    }
+
+    /**
+     * @return The number of documents that were not answered by the disambiguator in time
+     */
+    public synchronized long getTimeouts() {
+        return timeouts;
+    }
+
+    @Override
+    public void release() {
+        executor.shutdownNow();
+        disambiguator.release();
+        fallback.release();
+    }
+}
@@ -0,0 +1,318 @@
+package org.getalp.lexsema.wsd.method;
+
+import org.apache.commons.math3.distribution.LevyDistribution;
+import org.apache.commons.math3.random.Well19937c;
+import org.getalp.lexsema.similarity.Document;
+import org.getalp.lexsema.wsd.configuration.Configuration;
+import org.getalp.lexsema.wsd.configuration.ContinuousConfiguration;
+import org.getalp.lexsema.wsd.score.ConfigurationScorer;
+import org.getalp.lexsema.wsd.score.IncrementalConfigurationScorer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Island model of the cuckoo search: each thread evolves a population of nests of its own, as
+ * {@link CuckooSearchDisambiguator} does, with its own scorer, random generators and stop condition, so that the
+ * islands share no lock.
+ * <p>
+ * Every migrationInterval iterations, an island sends its best nest to the next island of a ring and takes
+ * in the last nest sent to it, which replaces its worst nest if it is better. The mailboxes are atomic references:
+ * a newer migrant overwrites one that was not taken yet. The best nest over all the islands is published atomically,
+ * as an immutable score/configuration pair, whenever an island improves on it.
+ */
+public class IslandCuckooSearch implements AnytimeDisambiguator {
+
+    private static final Logger logger = LoggerFactory.getLogger(IslandCuckooSearch.class);
+
+    private final StopCondition.Condition stopCondition;
+
+    private final long stopValue;
+
+    private final long deadline;
+
+    private final long plateau;
+
+    private final double minLevyLocation;
+
+    private final double maxLevyLocation;
+
+    private final double minLevyScale;
+
+    private final double maxLevyScale;
+
+    private final int nestsPerIsland;
+
+    private final int destroyedNestsPerIsland;
+
+    private final int migrationInterval;
+
+    private final int numberOfIslands;
+
+    private final Supplier<ConfigurationScorer> scorerSupplier;
+
+    private final long seed;
+
+    private final boolean verbose;
+
+    /**
+     * Best nest over all the islands, as an immutable pair
+     */
+    private static final class Best {
+        private final double score;
+        private final ContinuousConfiguration configuration;
+
+        private Best(double score, ContinuousConfiguration configuration) {
+            this.score = score;
+            this.configuration = configuration;
+        }
+    }
+
+    /**
+     * A nest is never modified once scored (a flight starts from a copy), so that nests can be shared between islands
+     */
+    private static final class Nest implements Comparable<Nest> {
+        private final ContinuousConfiguration configuration;
+        private final double score;
+
+        private Nest(ContinuousConfiguration configuration, double score) {
+            this.configuration = configuration;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Nest other) {
+            return Double.compare(score, other.score);
+        }
+    }
+
+    private volatile AtomicReference<Best> best;
+
+    private AtomicReferenceArray<Nest> mailboxes;
+
+    /**
+     * @param stopCondition           The stop condition of each island. Iterations and scorer calls are divided among
+     *                                the islands; a duration, a deadline or a plateau applies to each island as is.
+     * @param nestsPerIsland          The size of the population of each island, at least 2
+     * @param destroyedNestsPerIsland The number of worst nests of an island abandoned at each iteration
+     * @param migrationInterval       The number of iterations of an island between two exchanges with its neighbour
+     * @param numberOfIslands         The number of islands, each on its own thread
+     * @param scorerSupplier          Builds the scorer of each island, e.g. {@code () -> new ConfigurationScorerWithCache(measure)}
+     * @param seed                    The seed from which the random generators of the islands are derived
+     */
+    public IslandCuckooSearch(StopCondition stopCondition, double minLevyLocation, double maxLevyLocation,
+                              double minLevyScale, double maxLevyScale, int nestsPerIsland, int destroyedNestsPerIsland,
+                              int migrationInterval, int numberOfIslands, Supplier<ConfigurationScorer> scorerSupplier,
+                              long seed, boolean verbose) {
+        if (nestsPerIsland < 2 || destroyedNestsPerIsland >= nestsPerIsland || numberOfIslands < 1 || migrationInterval < 1) {
+            throw new IllegalArgumentException(String.format("Invalid island model: %d islands of %d nests, %d destroyed, migration every %d iterations",
+                    numberOfIslands, nestsPerIsland, destroyedNestsPerIsland, migrationInterval));
+        }
+        this.stopCondition = stopCondition.getCondition();
+        this.stopValue = stopCondition.getValue();
+        this.deadline = stopCondition.getDeadline();
+        this.plateau = stopCondition.getPlateau();
+        this.minLevyLocation = minLevyLocation;
+        this.maxLevyLocation = maxLevyLocation;
+        this.minLevyScale = minLevyScale;
+        this.maxLevyScale = maxLevyScale;
+        this.nestsPerIsland = nestsPerIsland;
+        this.destroyedNestsPerIsland = destroyedNestsPerIsland;
+        this.migrationInterval = migrationInterval;
+        this.numberOfIslands = numberOfIslands;
+        this.scorerSupplier = scorerSupplier;
+        this.seed = seed;
+        this.verbose = verbose;
+    }
+
+    public IslandCuckooSearch(int iterations, double minLevyLocation, double maxLevyLocation, double minLevyScale,
+                              double maxLevyScale, int nestsPerIsland, int destroyedNestsPerIsland,
+                              Supplier<ConfigurationScorer> scorerSupplier, boolean verbose) {
+        this(new StopCondition(StopCondition.Condition.ITERATIONS, iterations), minLevyLocation, maxLevyLocation,
+                minLevyScale, maxLevyScale, nestsPerIsland, destroyedNestsPerIsland, 100,
+                Runtime.getRuntime().availableProcessors(), scorerSupplier, System.nanoTime(), verbose);
+    }
+
+    @Override
+    public Configuration disambiguate(Document document) {
+        best = new AtomicReference<>();
+        mailboxes = new AtomicReferenceArray<>(numberOfIslands);
+        Random seeds = new Random(seed);
+        Island[] islands = new Island[numberOfIslands];
+        for (int i = 0; i < numberOfIslands; i++) {
+            islands[i] = new Island(i, document, seeds.nextLong());
+        }
+        Thread[] threads = new Thread[numberOfIslands - 1];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(islands[i + 1], "cuckoo-island-" + (i + 1));
+            threads[i].start();
+        }
+        islands[0].run();
+        if (Thread.currentThread().isInterrupted()) {
+            // The first island stopped because the disambiguation was cancelled, the others are stopped as well
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while waiting for the islands");
+        }
+        Best result = best.get();
+        if (verbose) {
+            logger.info(String.format("Island cuckoo search: best score %.2f over %d islands", result.score, numberOfIslands));
+        }
+        return result.configuration.clone();
+    }
+
+    @Override
+    public Configuration getBestConfiguration() {
+        Best result = best == null ? null : best.get();
+        return result == null ? null : result.configuration.clone();
+    }
+
+    private void publish(Nest nest) {
+        Best current = best.get();
+        while (current == null || nest.score > current.score) {
+            Best candidate = new Best(nest.score, nest.configuration);
+            if (best.compareAndSet(current, candidate)) {
+                return;
+            }
+            current = best.get();
+        }
+    }
+
+    private final class Island implements Runnable {
+
+        private final int index;
+        private final Document document;
+        private final Random random;
+        private final LevyDistribution levyDistribution;
+        private final ConfigurationScorer scorer;
+        private final StopCondition islandStopCondition;
+        private final Nest[] nests;
+
+        private Island(int index, Document document, long islandSeed) {
+            this.index = index;
+            this.document = document;
+            random = new Random(islandSeed);
+            double levyLocation = minLevyLocation + random.nextDouble() * (maxLevyLocation - minLevyLocation);
+            double levyScale = minLevyScale + random.nextDouble() * (maxLevyScale - minLevyScale);
+            levyDistribution = new LevyDistribution(new Well19937c(random.nextLong()), levyLocation, levyScale);
+            scorer = scorerSupplier.get();
+            long islandValue = stopCondition == StopCondition.Condition.MILLISECONDS ? stopValue
+                    : (stopValue + numberOfIslands - 1 - index) / numberOfIslands;
+            islandStopCondition = new StopCondition(stopCondition, islandValue);
+            islandStopCondition.setDeadline(deadline);
+            islandStopCondition.setPlateau(plateau);
+            nests = new Nest[nestsPerIsland];
+        }
+
+        @Override
+        public void run() {
+            try {
+                islandStopCondition.reset();
+                for (int i = 0; i < nests.length; i++) {
+                    nests[i] = randomNest();
+                }
+                Arrays.sort(nests);
+                publish(nests[nests.length - 1]);
+                int iteration = 0;
+                while (!islandStopCondition.stop()) {
+                    int i = random.nextInt(nests.length);
+                    Nest cuckoo = fly(nests[i]);
+                    int j = random.nextInt(nests.length - 1);
+                    if (j >= i) {
+                        j++;
+                    }
+                    if (cuckoo.score > nests[j].score) {
+                        nests[j] = cuckoo;
+                    }
+                    Arrays.sort(nests);
+                    Nest islandBest = nests[nests.length - 1];
+                    for (int d = 0; d < destroyedNestsPerIsland; d++) {
+                        nests[d] = randomNest();
+                    }
+                    if (islandBest == cuckoo) {
+                        publish(islandBest);
+                    }
+                    islandStopCondition.updateBestScore(islandBest.score);
+                    if (++iteration % migrationInterval == 0) {
+                        migrate(islandBest);
+                    }
+                    if (verbose && index == 0 && iteration % 1000 == 0) {
+                        logger.info(String.format("Cuckoo Progress : %2.2f%% - Current best : %.2f", islandStopCondition.getProgressPercentage(), best.get().score));
+                    }
+                    islandStopCondition.incrementIterations();
+                    islandStopCondition.updateMilliseconds();
+                }
+                Arrays.sort(nests);
+                publish(nests[nests.length - 1]);
+            } finally {
+                scorer.release();
+            }
+        }
+
+        /**
+         * Sends the best nest of the island to the next one and takes in the migrant sent to this one, in place of the
+         * worst nest. The nests are not sorted here, since the worst ones have just been replaced by random nests.
+         */
+        private void migrate(Nest islandBest) {
+            mailboxes.set((index + 1) % numberOfIslands, islandBest);
+            Nest migrant = mailboxes.getAndSet(index, null);
+            if (migrant != null) {
+                int worst = 0;
+                for (int i = 1; i < nests.length; i++) {
+                    if (nests[i].score < nests[worst].score) {
+                        worst = i;
+                    }
+                }
+                if (migrant.score > nests[worst].score) {
+                    nests[worst] = migrant;
+                }
+            }
+        }
+
+        private Nest randomNest() {
+            ContinuousConfiguration configuration = new ContinuousConfiguration(document, 0);
+            configuration.setRandomSenses(random);
+            return new Nest(configuration, score(configuration));
+        }
+
+        private Nest fly(Nest nest) {
+            ContinuousConfiguration configuration = nest.configuration.clone();
+            int[] changedIndices = configuration.makeRandomChanges((int) levyDistribution.sample(), random);
+            double score;
+            if (scorer instanceof IncrementalConfigurationScorer) {
+                islandStopCondition.incrementScorerCalls();
+                score = ((IncrementalConfigurationScorer) scorer).scoreDelta(document, nest.score, nest.configuration, configuration, changedIndices);
+            } else {
+                score = score(configuration);
+            }
+            return new Nest(configuration, score);
+        }
+
+        private double score(Configuration configuration) {
+            islandStopCondition.incrementScorerCalls();
+            return scorer.computeScore(document, configuration);
+        }
+    }
+
+    @Override
+    public Configuration disambiguate(Document document, Configuration c) {
+        return disambiguate(document);
+    }
+
+    @Override
+    public void release() {
+    }
+}
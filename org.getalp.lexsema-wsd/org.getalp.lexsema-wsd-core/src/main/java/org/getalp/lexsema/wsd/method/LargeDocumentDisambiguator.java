@@ -60,34 +60,27 @@ public class LargeDocumentDisambiguator implements Disambiguator
     private List<Document> splitDocument(Document document)
     {
         List<Document> ret = new ArrayList<>();
-        int documentsNb = document.size() / maxWords;
-        int remainingWords = document.size() - (documentsNb * maxWords);
-        for (int i = 0 ; i < documentsNb ; i++)
+        for (int start = 0 ; start < document.size() ; start += maxWords)
         {
-            Document newDocument = createSubDocument(document, 0, maxWords);
-            ret.add(newDocument);
-        }
-        if (remainingWords > 0)
-        {
-            Document newDocument = createSubDocument(document,0, remainingWords);
-            ret.add(newDocument);
+            ret.add(createSubDocument(document, start, Math.min(start + maxWords, document.size())));
         }
         return ret;
     }
 
-    private Document createSubDocument(Document document, int start, int end){
-        int documentsNb = document.size() / maxWords;
+    /**
+     * @return A new document made of the words [start, end) of the document and their senses
+     */
+    static Document createSubDocument(Document document, int start, int end)
+    {
         Document newDocument = DOCUMENT_FACTORY.createDocument();
-        for (int j = 0 ; j < end ; j++)
+        for (int j = start ; j < end ; j++)
         {
-            Word word = document.getWord((documentsNb * maxWords) + j);
-            List<Sense> senses = document.getSenses((documentsNb * maxWords) + j);
-            addWordToDocument(newDocument, word, senses);
+            addWordToDocument(newDocument, document.getWord(j), document.getSenses(j));
         }
         return newDocument;
     }
 
-    private void addWordToDocument(Document document, Word word, Iterable<Sense> senses){
+    private static void addWordToDocument(Document document, Word word, Iterable<Sense> senses){
         document.addWord(word);
         document.addWordSenses(senses);
     }
@@ -11,7 +11,11 @@ import org.slf4j.LoggerFactory;
 import java.io.PrintWriter;
 import java.util.Random;
 
-public class MultiThreadCuckooSearch implements Disambiguator {
+/**
+ * A single cuckoo improved concurrently by several threads, which share the {@link StopCondition}. When the thread
+ * that disambiguates is interrupted, the other threads are interrupted as well and the search stops.
+ */
+public class MultiThreadCuckooSearch implements AnytimeDisambiguator {
 
     private static final Logger logger = LoggerFactory.getLogger(MultiThreadCuckooSearch.class);
 
@@ -35,17 +39,19 @@ public class MultiThreadCuckooSearch implements Disambiguator {
         public void run() {
             while (!stopCondition.stop()) {
                 ContinuousConfiguration newConfig = null;
-                synchronized (configuration) {
+                synchronized (lock) {
                     newConfig = configuration.clone();
                 }
                 double distance = levyDistribution.sample();
                 newConfig.makeRandomChanges((int) distance);
                 double newScore = getScore(newConfig);
-                if (newScore > score) {
-                    synchronized (configuration) {
+                // The configuration and its score are replaced together, so that no improvement is lost
+                synchronized (lock) {
+                    if (newScore > score) {
                         configuration = newConfig;
+                        score = newScore;
                     }
-                    score = newScore;
+                    stopCondition.updateBestScore(score);
                 }
                 printState();
                 stopCondition.updateMilliseconds();
@@ -71,6 +77,8 @@ public class MultiThreadCuckooSearch implements Disambiguator {
 
     private final boolean verbose;
 
+    private final Object lock = new Object();
+
     private ContinuousConfiguration configuration;
 
     private double score = 0.0;
@@ -106,21 +114,39 @@ public class MultiThreadCuckooSearch implements Disambiguator {
 
     public Configuration disambiguate(Document document) {
 
+        synchronized (lock) {
+            configuration = null;
+        }
         currentDocument = document;
         stopCondition.reset();
-        configuration = new ContinuousConfiguration(currentDocument);
-        score = getScore(configuration);
+        ContinuousConfiguration initialConfiguration = new ContinuousConfiguration(currentDocument);
+        double initialScore = getScore(initialConfiguration);
+        synchronized (lock) {
+            configuration = initialConfiguration;
+            score = initialScore;
+        }
         for (int i = 0; i < cuckooThreads.length; i++) {
             cuckooThreads[i] = new Thread(new Cuckoo());
             cuckooThreads[i].start();
         }
         new Cuckoo().run();
-        try {
-            for (Thread cuckoo : cuckooThreads) {
-                cuckoo.join();
+        boolean interrupted = Thread.currentThread().isInterrupted();
+        if (interrupted) {
+            // The disambiguation was cancelled, the other cuckoos are stopped as well
+            interruptCuckoos();
+        }
+        for (Thread cuckoo : cuckooThreads) {
+            while (cuckoo.isAlive()) {
+                try {
+                    cuckoo.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    interruptCuckoos();
+                }
             }
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
         }
 
         if (scorePlotWriter != null) {
@@ -132,6 +158,19 @@ public class MultiThreadCuckooSearch implements Disambiguator {
         return configuration;
     }
 
+    private void interruptCuckoos() {
+        for (Thread cuckoo : cuckooThreads) {
+            cuckoo.interrupt();
+        }
+    }
+
+    @Override
+    public Configuration getBestConfiguration() {
+        synchronized (lock) {
+            return configuration == null ? null : configuration.clone();
+        }
+    }
+
     private int exProgress = 10000;
 
     private synchronized void printState() {
@@ -148,7 +187,7 @@ public class MultiThreadCuckooSearch implements Disambiguator {
         }
 
         if (perfectScorePlotWriter != null && perfectScorer != null) {
-            synchronized (configuration) {
+            synchronized (lock) {
                 perfectScorePlotWriter.println(stopCondition.getCurrent() + " " + perfectScorer.computeScore(currentDocument, configuration));
             }
         }
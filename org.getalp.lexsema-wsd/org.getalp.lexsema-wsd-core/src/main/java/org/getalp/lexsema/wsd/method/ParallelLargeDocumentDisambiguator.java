@@ -0,0 +1,232 @@
+package org.getalp.lexsema.wsd.method;
+
+import org.getalp.lexsema.similarity.Document;
+import org.getalp.lexsema.wsd.configuration.Configuration;
+import org.getalp.lexsema.wsd.configuration.ContinuousConfiguration;
+import org.getalp.lexsema.wsd.score.ConfigurationScorer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Disambiguates large documents by chunks, like {@link LargeDocumentDisambiguator}, but with chunks that overlap and
+ * that are disambiguated concurrently.
+ * <p>
+ * Consecutive chunks of maxWords words share overlap words. Both chunks assign these words, each with the context of
+ * its own side, and the merge keeps the assignments of the left chunk up to some cut in the overlap and those of the
+ * right chunk after it. The cut is the one for which the scorer gives the best score to the words around the overlap
+ * (the overlap and overlap words of context on each side); without a scorer, it is the middle of the overlap, where
+ * both chunks have the most context.
+ * <p>
+ * Disambiguators are not thread-safe, so each chunk is disambiguated by an instance that no other chunk uses at the
+ * same time: the instances built by the given supplier are kept idle between chunks, at most one per thread of the
+ * pool, and {@link #release()} releases them and drops every reference to them.
+ */
+public class ParallelLargeDocumentDisambiguator implements Disambiguator
+{
+    private static final Logger logger = LoggerFactory.getLogger(ParallelLargeDocumentDisambiguator.class);
+
+    private final Supplier<Disambiguator> disambiguatorSupplier;
+
+    private final List<Disambiguator> disambiguators = Collections.synchronizedList(new ArrayList<>());
+
+    private final Queue<Disambiguator> idleDisambiguators = new ConcurrentLinkedQueue<>();
+
+    private final ConfigurationScorer scorer;
+
+    private final int maxWords;
+
+    private final int overlap;
+
+    private final ExecutorService threadPool;
+
+    private final boolean ownsThreadPool;
+
+    /**
+     * @param disambiguatorSupplier Builds the disambiguators of the chunks, one per thread
+     * @param maxWords              The number of words of a chunk
+     * @param overlap               The number of words shared by consecutive chunks, at most half of maxWords so that no word
+     *                              belongs to more than two chunks
+     * @param scorer                The scorer used to reconcile the overlaps, or null to cut them in the middle
+     * @param threadPool            The pool on which the chunks are disambiguated, which remains the caller's
+     */
+    public ParallelLargeDocumentDisambiguator(Supplier<Disambiguator> disambiguatorSupplier, int maxWords, int overlap,
+                                              ConfigurationScorer scorer, ExecutorService threadPool)
+    {
+        this(disambiguatorSupplier, maxWords, overlap, scorer, threadPool, false);
+    }
+
+    public ParallelLargeDocumentDisambiguator(Supplier<Disambiguator> disambiguatorSupplier, int maxWords, int overlap,
+                                              ConfigurationScorer scorer, int numThreads)
+    {
+        this(disambiguatorSupplier, maxWords, overlap, scorer, Executors.newFixedThreadPool(numThreads), true);
+    }
+
+    public ParallelLargeDocumentDisambiguator(Supplier<Disambiguator> disambiguatorSupplier, int maxWords, int overlap,
+                                              ConfigurationScorer scorer)
+    {
+        this(disambiguatorSupplier, maxWords, overlap, scorer, Runtime.getRuntime().availableProcessors());
+    }
+
+    private ParallelLargeDocumentDisambiguator(Supplier<Disambiguator> disambiguatorSupplier, int maxWords, int overlap,
+                                               ConfigurationScorer scorer, ExecutorService threadPool, boolean ownsThreadPool)
+    {
+        if (maxWords <= 0 || overlap < 0 || 2 * overlap > maxWords)
+        {
+            throw new IllegalArgumentException(String.format("Invalid chunks of %d words overlapping by %d words", maxWords, overlap));
+        }
+        this.disambiguatorSupplier = disambiguatorSupplier;
+        this.maxWords = maxWords;
+        this.overlap = overlap;
+        this.scorer = scorer;
+        this.threadPool = threadPool;
+        this.ownsThreadPool = ownsThreadPool;
+    }
+
+    @Override
+    public Configuration disambiguate(Document document)
+    {
+        List<int[]> chunks = splitDocument(document.size());
+        logger.debug("Document split in {} chunks", chunks.size());
+        List<Callable<Configuration>> tasks = new ArrayList<>(chunks.size());
+        for (int[] chunk : chunks)
+        {
+            Document subDocument = LargeDocumentDisambiguator.createSubDocument(document, chunk[0], chunk[1]);
+            tasks.add(() -> disambiguateChunk(subDocument));
+        }
+        List<Configuration> configurations = new ArrayList<>(chunks.size());
+        try
+        {
+            for (Future<Configuration> future : threadPool.invokeAll(tasks))
+            {
+                configurations.add(future.get());
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while disambiguating the chunks of " + document.getId(), e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("Failed to disambiguate a chunk of " + document.getId(), e.getCause());
+        }
+        return mergeConfigurations(chunks, configurations, document);
+    }
+
+    private Configuration disambiguateChunk(Document subDocument)
+    {
+        Disambiguator disambiguator = idleDisambiguators.poll();
+        if (disambiguator == null)
+        {
+            disambiguator = disambiguatorSupplier.get();
+            disambiguators.add(disambiguator);
+        }
+        try
+        {
+            return disambiguator.disambiguate(subDocument);
+        }
+        finally
+        {
+            idleDisambiguators.offer(disambiguator);
+        }
+    }
+
+    /**
+     * @return The [start, end) bounds of the chunks, each chunk starting overlap words before the end of the previous one
+     */
+    private List<int[]> splitDocument(int documentSize)
+    {
+        List<int[]> chunks = new ArrayList<>();
+        int start = 0;
+        int end = 0;
+        while (end < documentSize)
+        {
+            end = Math.min(start + maxWords, documentSize);
+            chunks.add(new int[]{start, end});
+            start = end - overlap;
+        }
+        return chunks;
+    }
+
+    private Configuration mergeConfigurations(List<int[]> chunks, List<Configuration> configurations, Document document)
+    {
+        int[] senses = new int[document.size()];
+        for (int c = 0 ; c < chunks.size() ; c++)
+        {
+            int chunkStart = chunks.get(c)[0];
+            int from = c == 0 ? chunkStart : cut(chunks.get(c - 1), configurations.get(c - 1), chunks.get(c), configurations.get(c), document);
+            Configuration configuration = configurations.get(c);
+            for (int i = from ; i < chunks.get(c)[1] ; i++)
+            {
+                senses[i] = configuration.getAssignment(i - chunkStart);
+            }
+        }
+        return new ContinuousConfiguration(document, senses);
+    }
+
+    /**
+     * @return The first word of the overlap of the two chunks that takes the assignment of the right chunk
+     */
+    private int cut(int[] left, Configuration leftConfiguration, int[] right, Configuration rightConfiguration, Document document)
+    {
+        int overlapStart = right[0];
+        int overlapEnd = left[1];
+        int bestCut = (overlapStart + overlapEnd + 1) / 2;
+        if (scorer == null || overlapStart == overlapEnd)
+        {
+            return bestCut;
+        }
+        int seamStart = Math.max(left[0], overlapStart - overlap);
+        int seamEnd = Math.min(right[1], overlapEnd + overlap);
+        Document seam = LargeDocumentDisambiguator.createSubDocument(document, seamStart, seamEnd);
+        int[] seamSenses = new int[seamEnd - seamStart];
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int cut = overlapStart ; cut <= overlapEnd ; cut++)
+        {
+            for (int i = seamStart ; i < seamEnd ; i++)
+            {
+                seamSenses[i - seamStart] = i < cut ? leftConfiguration.getAssignment(i - left[0])
+                                                    : rightConfiguration.getAssignment(i - right[0]);
+            }
+            double score = scorer.computeScore(seam, new ContinuousConfiguration(seam, seamSenses));
+            // Ties are broken towards the middle of the overlap
+            if (score > bestScore || score == bestScore && Math.abs(2 * cut - overlapStart - overlapEnd) < Math.abs(2 * bestCut - overlapStart - overlapEnd))
+            {
+                bestScore = score;
+                bestCut = cut;
+            }
+        }
+        return bestCut;
+    }
+
+    @Override
+    public Configuration disambiguate(Document document, Configuration c)
+    {
+        return disambiguate(document);
+    }
+
+    @Override
+    public void release()
+    {
+        synchronized (disambiguators)
+        {
+            for (Disambiguator disambiguator : disambiguators)
+            {
+                disambiguator.release();
+            }
+            disambiguators.clear();
+            idleDisambiguators.clear();
+        }
+        if (ownsThreadPool)
+        {
+            threadPool.shutdown();
+        }
+    }
+}
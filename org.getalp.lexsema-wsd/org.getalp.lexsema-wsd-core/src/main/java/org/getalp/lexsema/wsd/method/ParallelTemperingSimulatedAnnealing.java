@@ -0,0 +1,352 @@
+package org.getalp.lexsema.wsd.method;
+
+import org.getalp.lexsema.similarity.Document;
+import org.getalp.lexsema.wsd.configuration.Configuration;
+import org.getalp.lexsema.wsd.configuration.ContinuousConfiguration;
+import org.getalp.lexsema.wsd.score.ConfigurationScorer;
+import org.getalp.lexsema.wsd.score.IncrementalConfigurationScorer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Simulated annealing with replica exchange (parallel tempering): several chains, each started from a random
+ * configuration, are annealed concurrently at the temperatures of a geometric ladder, from T0 down to
+ * T0 * minimumTemperatureRatio. After every exchangeInterval moves of each chain, the chains of neighbouring
+ * temperatures swap their states with the Metropolis probability min(1, exp((s_hot - s_cold) * (1/T_cold - 1/T_hot))),
+ * so that good configurations found by the hot chains sink to the cold ones, which refine them. The whole ladder can
+ * also be cooled by coolingRate after each exchange.
+ * <p>
+ * Each chain has its own scorer, built by the given supplier, and its own random generator derived from the seed.
+ * When T0 is not given, it is estimated as in {@link SimulatedAnnealing}, from the average score difference of random
+ * changes to a random configuration, with the samples scored in parallel by the chains' scorers.
+ * <p>
+ * An iteration of the stop condition is an exchange round; scorer calls are those of all the chains.
+ */
+public class ParallelTemperingSimulatedAnnealing implements AnytimeDisambiguator {
+
+    public static final int NUMBER_OF_CHANGES = 10;
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelTemperingSimulatedAnnealing.class);
+
+    private final StopCondition stopCondition;
+
+    private final double p0;
+
+    private final double T0;
+
+    private final double minimumTemperatureRatio;
+
+    private final double coolingRate;
+
+    private final int numberOfReplicas;
+
+    private final int exchangeInterval;
+
+    private final Supplier<ConfigurationScorer> scorerSupplier;
+
+    private final ExecutorService threadPool;
+
+    private final long seed;
+
+    private final boolean verbose;
+
+    private double bestScore;
+
+    private volatile ContinuousConfiguration bestConfiguration;
+
+    private long acceptedExchanges;
+
+    private long proposedExchanges;
+
+    /**
+     * @param stopCondition           The stop condition, whose iterations are exchange rounds
+     * @param p0                      The initial acceptance probability used to estimate T0
+     * @param T0                      The temperature of the hottest chain, or a negative value to estimate it from p0;
+     *                                an estimate is never below {@link AnnealingTemperatures#MINIMUM_T0}
+     * @param minimumTemperatureRatio The temperature of the coldest chain relative to the hottest, in (0, 1]
+     * @param coolingRate             The factor applied to all the temperatures after each exchange round, 1 to keep them
+     * @param numberOfReplicas        The number of chains
+     * @param exchangeInterval        The number of moves of each chain between two exchange rounds
+     * @param scorerSupplier          Builds the scorer of each chain, e.g. {@code () -> new ConfigurationScorerWithCache(cache, false)}
+     *                                over a shared {@link org.getalp.lexsema.wsd.score.SensePairSimilarityCache}
+     * @param numberThreads           The number of threads on which the chains run
+     * @param seed                    The seed from which the random generators of the chains are derived
+     */
+    public ParallelTemperingSimulatedAnnealing(StopCondition stopCondition, double p0, double T0, double minimumTemperatureRatio,
+                                               double coolingRate, int numberOfReplicas, int exchangeInterval,
+                                               Supplier<ConfigurationScorer> scorerSupplier, int numberThreads, long seed,
+                                               boolean verbose) {
+        if (numberOfReplicas < 1 || exchangeInterval < 1 || minimumTemperatureRatio <= 0 || minimumTemperatureRatio > 1) {
+            throw new IllegalArgumentException(String.format("Invalid ladder: %d replicas down to %.4f T0, exchanging every %d moves",
+                    numberOfReplicas, minimumTemperatureRatio, exchangeInterval));
+        }
+        if (T0 < 0 ? !(p0 > 0 && p0 < 1) : !(T0 > 0) || Double.isInfinite(T0)) {
+            throw new IllegalArgumentException(String.format("Invalid initial temperature: T0=%s, p0=%s", T0, p0));
+        }
+        this.stopCondition = stopCondition;
+        this.p0 = p0;
+        this.T0 = T0;
+        this.minimumTemperatureRatio = minimumTemperatureRatio;
+        this.coolingRate = coolingRate;
+        this.numberOfReplicas = numberOfReplicas;
+        this.exchangeInterval = exchangeInterval;
+        this.scorerSupplier = scorerSupplier;
+        this.seed = seed;
+        this.verbose = verbose;
+        threadPool = Executors.newFixedThreadPool(Math.max(1, Math.min(numberThreads, numberOfReplicas)));
+    }
+
+    /**
+     * One chain per processor, with T0 estimated from p0 and a ladder without cooling
+     */
+    public ParallelTemperingSimulatedAnnealing(StopCondition stopCondition, double p0, double minimumTemperatureRatio,
+                                               int exchangeInterval, Supplier<ConfigurationScorer> scorerSupplier,
+                                               boolean verbose) {
+        this(stopCondition, p0, -1, minimumTemperatureRatio, 1, Runtime.getRuntime().availableProcessors(),
+                exchangeInterval, scorerSupplier, Runtime.getRuntime().availableProcessors(), System.nanoTime(), verbose);
+    }
+
+    @Override
+    public Configuration disambiguate(Document document) {
+        stopCondition.reset();
+        acceptedExchanges = 0;
+        proposedExchanges = 0;
+        bestConfiguration = null;
+        Random seeds = new Random(seed);
+        Replica[] ladder = new Replica[numberOfReplicas];
+        for (int k = 0; k < numberOfReplicas; k++) {
+            ladder[k] = new Replica(document, seeds.nextLong());
+        }
+        try {
+            // The starting configurations are scored first, so that there is a best configuration as soon as possible
+            bestScore = Double.NEGATIVE_INFINITY;
+            for (Replica replica : ladder) {
+                replica.start();
+            }
+            updateBest(ladder);
+            double hottest = T0 < 0 ? AnnealingTemperatures.atLeastMinimumT0(AnnealingTemperatures.findT0(sampleAverageDelta(document, ladder, seeds.nextLong()), p0)) : T0;
+            if (verbose) {
+                logger.info(String.format("[T0=%.4f] [%d replicas]", hottest, numberOfReplicas));
+            }
+            double[] temperatures = AnnealingTemperatures.geometricLadder(hottest, hottest * minimumTemperatureRatio, numberOfReplicas);
+            List<Callable<Void>> rounds = new ArrayList<>(numberOfReplicas);
+            for (int k = 0; k < numberOfReplicas; k++) {
+                ladder[k].temperature = temperatures[k];
+                rounds.add(ladder[k]);
+            }
+            int round = 0;
+            while (!stopCondition.stop()) {
+                invokeAll(rounds);
+                for (int i = 0; i < numberOfReplicas * exchangeInterval; i++) {
+                    stopCondition.incrementScorerCalls();
+                }
+                updateBest(ladder);
+                stopCondition.updateBestScore(bestScore);
+                exchange(ladder, round++ % 2, seeds);
+                for (Replica replica : ladder) {
+                    replica.temperature *= coolingRate;
+                }
+                if (verbose) {
+                    logger.info(String.format("[Round %d] [T=%.4f..%.4f] [Exchanges: %d/%d] [Best: %.2f]", round,
+                            ladder[0].temperature, ladder[numberOfReplicas - 1].temperature, acceptedExchanges,
+                            proposedExchanges, bestScore));
+                }
+                stopCondition.incrementIterations();
+                stopCondition.updateMilliseconds();
+            }
+        } finally {
+            for (Replica replica : ladder) {
+                replica.scorer.release();
+            }
+        }
+        return getBestConfiguration();
+    }
+
+    /**
+     * Scores random changes to a random configuration in parallel, one slice of the samples per chain, as
+     * {@link SimulatedAnnealing} does sequentially to estimate T0
+     *
+     * @return The average absolute difference between the scores of the samples and the score of the first one
+     */
+    private double sampleAverageDelta(Document document, Replica[] replicas, long samplingSeed) {
+        int samples = 10 * exchangeInterval;
+        ContinuousConfiguration origin = new ContinuousConfiguration(document, 0);
+        origin.setRandomSenses(new Random(~samplingSeed));
+        double originScore = replicas[0].scorer.computeScore(document, origin);
+        stopCondition.incrementScorerCalls();
+
+        List<Callable<double[]>> slices = new ArrayList<>(replicas.length);
+        for (int k = 0; k < replicas.length; k++) {
+            final int from = samples * k / replicas.length;
+            final int to = samples * (k + 1) / replicas.length;
+            final ConfigurationScorer scorer = replicas[k].scorer;
+            slices.add(() -> {
+                double[] scores = new double[to - from];
+                for (int i = from; i < to; i++) {
+                    // Each sample has a generator of its own so that the estimate does not depend on the slicing
+                    ContinuousConfiguration sample = origin.clone();
+                    int[] changedIndices = sample.makeRandomChanges(NUMBER_OF_CHANGES, new Random(samplingSeed + i));
+                    if (scorer instanceof IncrementalConfigurationScorer) {
+                        scores[i - from] = ((IncrementalConfigurationScorer) scorer).scoreDelta(document, originScore, origin, sample, changedIndices);
+                    } else {
+                        scores[i - from] = scorer.computeScore(document, sample);
+                    }
+                }
+                return scores;
+            });
+        }
+        double[] scores = new double[samples];
+        int i = 0;
+        for (double[] slice : invokeAll(slices)) {
+            for (double score : slice) {
+                scores[i++] = score;
+                stopCondition.incrementScorerCalls();
+            }
+        }
+        double sumDelta = 0;
+        for (double score : scores) {
+            sumDelta += Math.abs(score - scores[0]);
+        }
+        return samples > 1 ? sumDelta / (samples - 1) : 0;
+    }
+
+    /**
+     * Proposes to swap the states of the chains at the rungs (parity, parity + 1), (parity + 2, parity + 3), ...
+     */
+    private void exchange(Replica[] ladder, int parity, Random random) {
+        for (int k = parity; k + 1 < ladder.length; k += 2) {
+            Replica hot = ladder[k];
+            Replica cold = ladder[k + 1];
+            double exponent = (hot.score - cold.score) * (1 / cold.temperature - 1 / hot.temperature);
+            proposedExchanges++;
+            if (exponent >= 0 || random.nextDouble() < Math.exp(exponent)) {
+                // The chains swap their temperatures and their places on the ladder rather than their configurations
+                double temperature = hot.temperature;
+                hot.temperature = cold.temperature;
+                cold.temperature = temperature;
+                ladder[k] = cold;
+                ladder[k + 1] = hot;
+                acceptedExchanges++;
+            }
+        }
+    }
+
+    private void updateBest(Replica[] ladder) {
+        for (Replica replica : ladder) {
+            if (replica.bestScore > bestScore) {
+                bestScore = replica.bestScore;
+                bestConfiguration = replica.bestConfiguration.clone();
+            }
+        }
+    }
+
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : threadPool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while annealing", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to anneal a chain", e.getCause());
+        }
+        return results;
+    }
+
+    @Override
+    public Configuration getBestConfiguration() {
+        ContinuousConfiguration best = bestConfiguration;
+        return best == null ? null : best.clone();
+    }
+
+    public double getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * @return The fraction of the proposed exchanges that were accepted during the last run
+     */
+    public double getExchangeAcceptanceRate() {
+        return proposedExchanges == 0 ? 0 : (double) acceptedExchanges / proposedExchanges;
+    }
+
+    @Override
+    public Configuration disambiguate(Document document, Configuration c) {
+        return disambiguate(document);
+    }
+
+    @Override
+    public void release() {
+        threadPool.shutdown();
+    }
+
+    /**
+     * A chain, which makes exchangeInterval moves at its current temperature each time it is called
+     */
+    private final class Replica implements Callable<Void> {
+
+        private final Document document;
+        private final Random random;
+        private final ConfigurationScorer scorer;
+        private final ContinuousConfiguration configuration;
+        /**
+         * Always equal to the configuration outside of a move, so that moves need no copy
+         */
+        private final ContinuousConfiguration candidate;
+        private final int[] changedIndex = new int[1];
+        private double score;
+        private double temperature;
+        private double bestScore;
+        private ContinuousConfiguration bestConfiguration;
+
+        private Replica(Document document, long replicaSeed) {
+            this.document = document;
+            random = new Random(replicaSeed);
+            scorer = scorerSupplier.get();
+            configuration = new ContinuousConfiguration(document, 0);
+            configuration.setRandomSenses(random);
+            candidate = configuration.clone();
+        }
+
+        private void start() {
+            score = scorer.computeScore(document, configuration);
+            stopCondition.incrementScorerCalls();
+            bestScore = score;
+            bestConfiguration = configuration.clone();
+        }
+
+        @Override
+        public Void call() {
+            for (int i = 0; i < exchangeInterval; i++) {
+                int index = candidate.makeRandomChange(random);
+                changedIndex[0] = index;
+                double candidateScore;
+                if (scorer instanceof IncrementalConfigurationScorer) {
+                    candidateScore = ((IncrementalConfigurationScorer) scorer).scoreDelta(document, score, configuration, candidate, changedIndex);
+                } else {
+                    candidateScore = scorer.computeScore(document, candidate);
+                }
+                double delta = score - candidateScore;
+                if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                    configuration.setSense(index, candidate.getAssignment(index));
+                    score = candidateScore;
+                    if (score > bestScore) {
+                        bestScore = score;
+                        bestConfiguration = configuration.clone();
+                    }
+                } else {
+                    candidate.setSense(index, configuration.getAssignment(index));
+                }
+            }
+            return null;
+        }
+    }
+}
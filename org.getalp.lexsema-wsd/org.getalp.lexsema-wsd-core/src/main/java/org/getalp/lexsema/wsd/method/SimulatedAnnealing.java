@@ -11,6 +11,7 @@ import org.getalp.lexsema.wsd.evaluation.GoldStandard;
 import org.getalp.lexsema.wsd.evaluation.Semeval2007GoldStandard;
 import org.getalp.lexsema.wsd.evaluation.StandardEvaluation;
 import org.getalp.lexsema.wsd.score.ConfigurationScorer;
+import org.getalp.lexsema.wsd.score.IncrementalConfigurationScorer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,11 +20,16 @@ import java.util.List;
 import java.util.Random;
 
 
-public class SimulatedAnnealing implements Disambiguator {
+/**
+ * Simulated annealing that runs until the configuration has not changed for a number of cycles, or until its
+ * {@link StopCondition} is met. Each cycle of annealing steps is an iteration of the stop condition, and each step a
+ * scorer call.
+ */
+public class SimulatedAnnealing implements AnytimeDisambiguator {
     /**
      * Constant parameters
      */
-    public static final double T0_THRESHOLD = 0.01;
+    public static final double T0_THRESHOLD = AnnealingTemperatures.T0_THRESHOLD;
     public static final int NUMBER_OF_CHANGES = 10;
     private static Logger logger = LoggerFactory.getLogger(SimulatedAnnealing.class);
     public double iterations = 1000;
@@ -45,7 +51,7 @@ public class SimulatedAnnealing implements Disambiguator {
      * Configuration state
      */
     private Configuration configuration;
-    private Configuration bestConfiguration;
+    private volatile Configuration bestConfiguration;
     private Configuration previousConfiguration;
     private ConfigurationScorer configurationScorer;
     /**
@@ -55,15 +61,25 @@ public class SimulatedAnnealing implements Disambiguator {
     private double maxDelta;
     private double bestScore;
     private double prevScore;
+    private double configurationScore;
     private double currentCycle;
     private int convergenceCycles;
     private int numberOfAcceptanceEvents = 0;
     private Evaluation evaluation;
     private GoldStandard goldStandard;
     private double bestF1Score;
+    private final StopCondition stopCondition;
 
 
     public SimulatedAnnealing(double p0, double coolingRate, int convergenceThreshold, int iterations, ConfigurationScorer configurationScorer) {
+        this(new StopCondition(StopCondition.Condition.ITERATIONS, Long.MAX_VALUE), p0, coolingRate, convergenceThreshold, iterations, configurationScorer);
+    }
+
+    /**
+     * @param stopCondition Bounds a run besides the convergence, e.g. with a deadline or a plateau
+     */
+    public SimulatedAnnealing(StopCondition stopCondition, double p0, double coolingRate, int convergenceThreshold, int iterations, ConfigurationScorer configurationScorer) {
+        this.stopCondition = stopCondition;
         this.convergenceThreshold = convergenceThreshold;
         this.p0 = p0;
         this.configurationScorer = configurationScorer;
@@ -74,6 +90,14 @@ public class SimulatedAnnealing implements Disambiguator {
     }
 
     public SimulatedAnnealing(double p0, double coolingRate, int convergenceThreshold, int iterations, ConfigurationScorer configurationScorer, double T0) {
+        this(new StopCondition(StopCondition.Condition.ITERATIONS, Long.MAX_VALUE), p0, coolingRate, convergenceThreshold, iterations, configurationScorer, T0);
+    }
+
+    /**
+     * @param stopCondition Bounds a run besides the convergence, e.g. with a deadline or a plateau
+     */
+    public SimulatedAnnealing(StopCondition stopCondition, double p0, double coolingRate, int convergenceThreshold, int iterations, ConfigurationScorer configurationScorer, double T0) {
+        this.stopCondition = stopCondition;
         this.convergenceThreshold = convergenceThreshold;
         this.p0 = p0;
         this.T0 = T0;
@@ -93,22 +117,7 @@ public class SimulatedAnnealing implements Disambiguator {
      * @return Initial temperature
      */
     private double findT0(double avgDelta, double targetProbability) {
-        logger.info("Searching for T0...");
-        int i = 2;
-        double formula;
-        double probability;
-        double currentThreshold = T0_THRESHOLD;
-        do {
-            formula = avgDelta / Math.exp(1 - 1.0 / (i + (double) 2)) * Math.log(i + 2);
-            probability = Math.exp(-avgDelta / formula);
-            if (probability > currentThreshold) {
-                //logger.debug("[" + i + "][Avg Delta=" + avgDelta + "][T=" + formula + "][P0=" + Math.exp(-avgDelta / formula) + "]");
-                currentThreshold += T0_THRESHOLD;
-            }
-            i++;
-        } while (probability <= targetProbability);
-        logger.info(String.format("[Avg Delta=%.4f][T=%.4f][P0=%.2f]", avgDelta, formula, Math.exp(-avgDelta / formula)));
-        return formula;
+        return AnnealingTemperatures.findT0(avgDelta, targetProbability);
     }
 
     private void initialize(Document document) {
@@ -121,10 +130,10 @@ public class SimulatedAnnealing implements Disambiguator {
         T = T0;
         currentCycle = 0;
         convergenceCycles = 0;
-        bestConfiguration = configuration;
         bestScore = 0;
 
         firstSenseBaseline(document);
+        bestConfiguration = configuration;
     }
 
     /**
@@ -143,6 +152,7 @@ public class SimulatedAnnealing implements Disambiguator {
         configuration = new ConfidenceConfiguration(document, ConfidenceConfiguration.InitializationType.FIRST);
         double score =
                 configurationScorer.computeScore(document, configuration);
+        configurationScore = score;
         if (goldStandard != null) {
             double gold_Score = evaluation.evaluate(goldStandard, configuration).getPrecision();
             logger.info(String.format("MFSBl = %f, %2.4f", score, gold_Score));
@@ -159,11 +169,12 @@ public class SimulatedAnnealing implements Disambiguator {
         sum = 0;
 
         //Execution of the algorithm nbEvaluation times
-        for (int i = 0; i < iterations*10; i++) {
+        for (int i = 0; i < iterations*10 && (i < 2 || !stopCondition.stop()); i++) {
             //First set of scores for the initial execution is also the set of best scores
             double score =
                     configurationScorer.computeScore(document, makeRandomChange(configuration, document, NUMBER_OF_CHANGES, uniformGenerator));
             //double score = evaluation.evaluate(goldStandard, makeRandomChange(configuration, document, NUMBER_OF_CHANGES, uniformGenerator)).getF1Score();
+            stopCondition.incrementScorerCalls();
             scores.add(score);
         }
 
@@ -207,17 +218,32 @@ public class SimulatedAnnealing implements Disambiguator {
     }
 
     private Configuration makeRandomChange(Configuration source, Document document, int numberOfChanges, DoubleRandomEngine gu) {
+        return makeRandomChange(source, document, new int[numberOfChanges], gu);
+    }
+
+    /**
+     * Makes changedIndices.length random changes and records the index of each changed word in changedIndices
+     */
+    private Configuration makeRandomChange(Configuration source, Document document, int[] changedIndices, DoubleRandomEngine gu) {
         Configuration newConfiguration = new ConfidenceConfiguration((ConfidenceConfiguration) source);
 
-        for (int i = 0; i < numberOfChanges; i++) {
+        for (int i = 0; i < changedIndices.length; i++) {
             int changeIndex = nextRandomNatural(gu, source.size());
             int numberOfSenses = document.getSenses(changeIndex).size();
             int newIndex = nextRandomNatural(gu, numberOfSenses);
             newConfiguration.setSense(changeIndex, newIndex);
+            changedIndices[i] = changeIndex;
         }
         return newConfiguration;
     }
 
+    private double scoreChange(Document document, Configuration cp, int[] changedIndices) {
+        if (configurationScorer instanceof IncrementalConfigurationScorer) {
+            return ((IncrementalConfigurationScorer) configurationScorer).scoreDelta(document, configurationScore, configuration, cp, changedIndices);
+        }
+        return configurationScorer.computeScore(document, cp);
+    }
+
     private Configuration makeRandomChange(Configuration source, Document document, Random gu) {
         return makeRandomChange(source, document, 1, gu);
     }
@@ -230,13 +256,15 @@ public class SimulatedAnnealing implements Disambiguator {
     @Override
     public Configuration disambiguate(Document document, Configuration c) {
 
-
+        stopCondition.reset();
+        // Until the baseline is scored, the best configuration must not be the previous document's
+        bestConfiguration = null;
         initialize(document);
 
         while (evaluate()) {
             logger.info(String.format("[Cycle %.2f] [T=%.2f] [Convergence: %d/%d] [Best: %f (%2.4f%%)]", currentCycle, T, convergenceCycles, convergenceThreshold, bestScore, bestF1Score));
             changedSinceLast = false;
-            for (int j = 0; j < iterations; j++) {
+            for (int j = 0; j < iterations && !stopCondition.stop(); j++) {
                 anneal(document, j);
             }
         }
@@ -244,6 +272,12 @@ public class SimulatedAnnealing implements Disambiguator {
         return configuration;
     }
 
+    @Override
+    public Configuration getBestConfiguration() {
+        Configuration best = bestConfiguration;
+        return best == null ? null : new ConfidenceConfiguration((ConfidenceConfiguration) best);
+    }
+
     protected void anneal(Document document, int cycleNumber) {
 
         double score;
@@ -252,8 +286,10 @@ public class SimulatedAnnealing implements Disambiguator {
         //Following the formula from Adaptive SA (http://www.ingber.com/#ASA)
         //Configuration cp = makeRandomChange(configuration, document, (int) (.02d * configuration.size()), uniformGenerator);
 
-        Configuration cp = makeRandomChange(configuration, document, 1, uniformGenerator);
-        score = configurationScorer.computeScore(document, cp);
+        int[] changedIndices = new int[1];
+        Configuration cp = makeRandomChange(configuration, document, changedIndices, uniformGenerator);
+        score = scoreChange(document, cp, changedIndices);
+        stopCondition.incrementScorerCalls();
         if (goldStandard != null) {
             f1score = evaluation.evaluate(goldStandard, cp).getPrecision();
         }
@@ -267,6 +303,7 @@ public class SimulatedAnnealing implements Disambiguator {
         if (delta < 0) {
             logger.info(String.format("\r\t[Cycle=%f | %2.2f%%][Better Score = %.2f (F1=%2.4f)][Best = %.2f (F1=%2.4f)][P(a)=%1.2f][Ld=%.2f]", currentCycle, (double) cycleNumber / iterations * 100d, score, f1score, bestScore, bestF1Score, Math.exp(-delta / T), delta));
             configuration = cp;
+            configurationScore = score;
             prevScore = score;
             if (score >= bestScore) {
                 bestScore = score;
@@ -285,6 +322,7 @@ public class SimulatedAnnealing implements Disambiguator {
             if (prob > choice) {
                 logger.info(String.format("\r\t[Cycle=%f | %.2f%%][Accepted Lower Score = %.2f][Best = %.2f][P(a)=%.2f][Ld=%.2f]", currentCycle, (double) cycleNumber / iterations * 100d, score, bestScore, Math.exp(-delta / T), delta));
                 configuration = cp;
+                configurationScore = score;
                 prevScore = score;
                 changedSinceLast = true;
                 numberOfAcceptanceEvents++;
@@ -300,6 +338,12 @@ public class SimulatedAnnealing implements Disambiguator {
         {
             numberOfAcceptanceEvents = 0;
         }
+        stopCondition.updateBestScore(bestScore);
+        stopCondition.incrementIterations();
+        stopCondition.updateMilliseconds();
+        if (stopCondition.stop()) {
+            return false;
+        }
         if (convergenceCycles >= convergenceThreshold
                 && configuration.equals(previousConfiguration)) {
             return false;
@@ -4,11 +4,12 @@ import org.getalp.lexsema.similarity.Document;
 import org.getalp.lexsema.wsd.configuration.Configuration;
 import org.getalp.lexsema.wsd.configuration.ContinuousConfiguration;
 import org.getalp.lexsema.wsd.score.ConfigurationScorer;
+import org.getalp.lexsema.wsd.score.IncrementalConfigurationScorer;
 
 import java.io.PrintWriter;
 import java.util.Random;
 
-public class SimulatedAnnealing2 implements Disambiguator
+public class SimulatedAnnealing2 implements AnytimeDisambiguator
 {
     public PrintWriter plotWriter = null;
 
@@ -25,11 +26,15 @@ public class SimulatedAnnealing2 implements Disambiguator
     private double T;
     
     private ContinuousConfiguration configuration;
+
+    private volatile ContinuousConfiguration bestConfiguration;
         
     private double bestScore;
     
     private double prevScore;
     
+    private double configurationScore;
+    
     private int currentCycle;
     
     private StopCondition stopCondition;
@@ -49,9 +54,14 @@ public class SimulatedAnnealing2 implements Disambiguator
     private void initialize(Document document) 
     {
         configuration = new ContinuousConfiguration(document);
+        // A run starts from the score of its own random configuration, not from where the previous run ended
+        configurationScore = configurationScorer.computeScore(document, configuration);
+        stopCondition.incrementScorerCalls();
+        prevScore = configurationScore;
         T = T0;
         currentCycle = 0;
-        bestScore = 0;
+        bestScore = configurationScore;
+        bestConfiguration = configuration.clone();
     }
 
     private double calculateT(double T0, double cycle) 
@@ -62,6 +72,8 @@ public class SimulatedAnnealing2 implements Disambiguator
     public Configuration disambiguate(Document document) 
     {
         stopCondition.reset();
+        // Until the first configuration is scored, the best one must not be the previous document's
+        bestConfiguration = null;
         initialize(document);
         while (evaluate()) 
         {
@@ -86,8 +98,16 @@ public class SimulatedAnnealing2 implements Disambiguator
     private void anneal(Document document, int cycleNumber)
     {
         ContinuousConfiguration cp = configuration.clone();
-        cp.makeRandomChange();
-        double score = configurationScorer.computeScore(document, cp);
+        int[] changedIndices = {cp.makeRandomChange()};
+        double score;
+        if (configurationScorer instanceof IncrementalConfigurationScorer)
+        {
+            score = ((IncrementalConfigurationScorer) configurationScorer).scoreDelta(document, configurationScore, configuration, cp, changedIndices);
+        }
+        else
+        {
+            score = configurationScorer.computeScore(document, cp);
+        }
         stopCondition.incrementScorerCalls();
         if (plotWriter != null) plotWriter.println(stopCondition.getCurrent() + " " + bestScore);
 
@@ -95,10 +115,12 @@ public class SimulatedAnnealing2 implements Disambiguator
         if (delta < 0)
         {
             configuration = cp;
+            configurationScore = score;
             prevScore = score;
             if (score >= bestScore)
             {
                 bestScore = score;
+                bestConfiguration = cp.clone();
             }
         }
         else 
@@ -108,6 +130,7 @@ public class SimulatedAnnealing2 implements Disambiguator
             if (prob > choice) 
             {
                 configuration = cp;
+                configurationScore = score;
                 prevScore = score;
             }
         }
@@ -117,11 +140,18 @@ public class SimulatedAnnealing2 implements Disambiguator
     {
         T = calculateT(T0, currentCycle);
         currentCycle++;
+        stopCondition.updateBestScore(bestScore);
         stopCondition.incrementIterations();
         stopCondition.updateMilliseconds();
         return !stopCondition.stop();
     }
 
+    public Configuration getBestConfiguration()
+    {
+        ContinuousConfiguration best = bestConfiguration;
+        return best == null ? null : best.clone();
+    }
+
     public void release() 
     {
         configurationScorer.release();
@@ -1,5 +1,11 @@
 package org.getalp.lexsema.wsd.method;
 
+/**
+ * The budget of a metaheuristic for a document: a number of iterations, of milliseconds or of scorer calls, optionally
+ * bounded by a wall-clock deadline and by a plateau, a number of consecutive iterations without improvement of the best
+ * score reported with {@link #updateBestScore(double)}. The condition is also met when the thread that checks it has
+ * been interrupted, so that a disambiguation can be cancelled.
+ */
 public class StopCondition
 {
     public enum Condition
@@ -40,17 +46,60 @@ public class StopCondition
         }
     }
     
+    /**
+     * Bounds each run by a wall-clock deadline, counted from {@link #reset()}, whatever the condition
+     * @param milliseconds The duration of a run, or 0 for no deadline
+     */
+    public void setDeadline(long milliseconds)
+    {
+        deadline = milliseconds;
+        reset();
+    }
+
+    /**
+     * Stops a run once the best score has not improved for the given number of reports
+     * @param iterations The number of consecutive calls to {@link #updateBestScore(double)} without improvement, or 0
+     *                   to never stop on a plateau
+     */
+    public void setPlateau(long iterations)
+    {
+        plateau = iterations;
+        reset();
+    }
+
+    /**
+     * Reports the best score after an iteration, for the plateau detection
+     */
+    public void updateBestScore(double score)
+    {
+        if (score > plateauScore)
+        {
+            plateauScore = score;
+            iterationsWithoutImprovement = 0;
+        }
+        else
+        {
+            iterationsWithoutImprovement++;
+        }
+    }
+
     public void reset()
     {
         if (condition == Condition.MILLISECONDS) begin = System.currentTimeMillis();
         else begin = 0;
         current = begin;
         end = begin + value;
+        deadlineEnd = deadline > 0 ? System.currentTimeMillis() + deadline : Long.MAX_VALUE;
+        plateauScore = Double.NEGATIVE_INFINITY;
+        iterationsWithoutImprovement = 0;
     }
     
     public boolean stop()
     {
-        return current >= end;
+        return current >= end
+               || (plateau > 0 && iterationsWithoutImprovement >= plateau)
+               || (deadline > 0 && System.currentTimeMillis() >= deadlineEnd)
+               || Thread.currentThread().isInterrupted();
     }
     
     public double getProgressPercentage()
@@ -72,6 +121,16 @@ public class StopCondition
     {
         return value;
     }
+
+    public long getDeadline()
+    {
+        return deadline;
+    }
+
+    public long getPlateau()
+    {
+        return plateau;
+    }
     
     private Condition condition;
     
@@ -82,4 +141,14 @@ public class StopCondition
     private long end;
 
     private long current;
+
+    private long deadline;
+
+    private long deadlineEnd = Long.MAX_VALUE;
+
+    private long plateau;
+
+    private double plateauScore;
+
+    private long iterationsWithoutImprovement;
 }
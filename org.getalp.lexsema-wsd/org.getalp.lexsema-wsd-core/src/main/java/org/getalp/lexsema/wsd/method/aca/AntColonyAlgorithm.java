@@ -1,15 +1,12 @@
 package org.getalp.lexsema.wsd.method.aca;
 
-import cern.jet.random.engine.MersenneTwister;
 import org.getalp.lexsema.similarity.Document;
 import org.getalp.lexsema.similarity.Text;
 import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
+import org.getalp.lexsema.wsd.configuration.ConfidenceConfiguration;
 import org.getalp.lexsema.wsd.configuration.Configuration;
-import org.getalp.lexsema.wsd.evaluation.Evaluation;
-import org.getalp.lexsema.wsd.evaluation.GoldStandard;
-import org.getalp.lexsema.wsd.evaluation.Semeval2007GoldStandard;
-import org.getalp.lexsema.wsd.evaluation.StandardEvaluation;
-import org.getalp.lexsema.wsd.method.Disambiguator;
+import org.getalp.lexsema.wsd.method.AnytimeDisambiguator;
+import org.getalp.lexsema.wsd.method.StopCondition;
 import org.getalp.lexsema.wsd.method.aca.agents.factories.AntFactory;
 import org.getalp.lexsema.wsd.method.aca.agents.factories.SchwabEtAl2012AntFactory;
 import org.getalp.lexsema.wsd.method.aca.agents.updates.AntUpdater;
@@ -28,13 +25,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.text.MessageFormat;
+import java.util.concurrent.ForkJoinPool;
 
 
-public class AntColonyAlgorithm implements Disambiguator {
+/**
+ * The ant colony algorithm of Schwab et al. (2012). Each iteration of the {@link StopCondition} is an update of the
+ * environment, after which the current solution is read from it. When the stop condition has a plateau, the solutions
+ * are scored and the best one is kept; otherwise the solution is the last one.
+ */
+public class AntColonyAlgorithm implements AnytimeDisambiguator {
 
     private static final Logger logger = LoggerFactory.getLogger(AntColonyAlgorithm.class);
 
-    private final int maxIterations;
+    /**
+     * The seed of the default {@code MersenneTwister} that the colony used to share
+     */
+    public static final long DEFAULT_SEED = 4357;
+
+    private final StopCondition stopCondition;
     private final double initialEnergy;
     private final double initialPheromone;
     private final int vectorSize;
@@ -43,30 +51,56 @@ public class AntColonyAlgorithm implements Disambiguator {
 
     private final SolutionGenerator solutionGenerator;
 
-    private final GoldStandard goldStandard = new Semeval2007GoldStandard();
-    private final Evaluation evaluation = new StandardEvaluation();
+    private final ForkJoinPool pool;
 
     ConfigurationScorer configurationScorer;
 
+    private volatile Configuration bestConfiguration;
+
 
+    /**
+     * A sequential colony, seeded with {@link #DEFAULT_SEED}: the ants are moved on the calling thread, as they always
+     * were with this constructor. Parallel moves are requested by giving a parallelism to the other constructors.
+     */
     public AntColonyAlgorithm(SimilarityMeasure similarityMeasure, int maxIterations, double initialEnergy, double initialPheromone, int vectorSize, double pheromoneEvaporation, double maximumEnergy, double antLife, double depositPheromone, double takeEnergy, double componentsDeposited) {
-        this.maxIterations = maxIterations;
+        this(similarityMeasure, maxIterations, initialEnergy, initialPheromone, vectorSize, pheromoneEvaporation, maximumEnergy, antLife, depositPheromone, takeEnergy, componentsDeposited, DEFAULT_SEED, 1);
+    }
+
+    /**
+     * @param seed        The seed from which the random streams of the nests and of the ants are derived
+     * @param parallelism The number of threads moving the ants concurrently, 1 for a sequential and fully
+     *                    reproducible run
+     */
+    public AntColonyAlgorithm(SimilarityMeasure similarityMeasure, int maxIterations, double initialEnergy, double initialPheromone, int vectorSize, double pheromoneEvaporation, double maximumEnergy, double antLife, double depositPheromone, double takeEnergy, double componentsDeposited, long seed, int parallelism) {
+        this(similarityMeasure, new StopCondition(StopCondition.Condition.ITERATIONS, maxIterations), initialEnergy, initialPheromone, vectorSize, pheromoneEvaporation, maximumEnergy, antLife, depositPheromone, takeEnergy, componentsDeposited, seed, parallelism);
+    }
+
+    /**
+     * @param stopCondition The budget of a document, whose iterations are updates of the environment; scorer calls
+     *                      are only made when it has a plateau
+     */
+    public AntColonyAlgorithm(SimilarityMeasure similarityMeasure, StopCondition stopCondition, double initialEnergy, double initialPheromone, int vectorSize, double pheromoneEvaporation, double maximumEnergy, double antLife, double depositPheromone, double takeEnergy, double componentsDeposited, long seed, int parallelism) {
+        this.stopCondition = stopCondition;
         this.initialEnergy = initialEnergy;
         this.initialPheromone = initialPheromone;
         this.vectorSize = vectorSize;
-        MersenneTwister mersenneTwister = new MersenneTwister();
-        AntUpdater antUpdater = new SchwabEtAl2012AntUpdater(mersenneTwister, similarityMeasure, depositPheromone, takeEnergy, componentsDeposited);
+        pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        AntUpdater antUpdater = new SchwabEtAl2012AntUpdater(similarityMeasure, depositPheromone, takeEnergy, componentsDeposited);
         AntFactory antFactory = new SchwabEtAl2012AntFactory();
-        environmentUpdater = new SchwabEtAl2012EnvironmentUpdater(maximumEnergy,antLife, pheromoneEvaporation, antFactory, antUpdater, mersenneTwister);
+        environmentUpdater = new SchwabEtAl2012EnvironmentUpdater(maximumEnergy,antLife, pheromoneEvaporation, antFactory, antUpdater, seed, pool);
         solutionGenerator = new MaxNumberOfPathsSolutionGenerator() ;
         configurationScorer = new MultiThreadConfigurationScorerWithCache(similarityMeasure);
     }
 
     @Override
     public Configuration disambiguate(Document document) {
+        bestConfiguration = null;
         Environment environment = buildEnvironment(document);
         mainLoop(environment,document);
-        return  solutionGenerator.generateSolution(environment,document);
+        if (bestConfiguration == null) {
+            bestConfiguration = solutionGenerator.generateSolution(environment, document);
+        }
+        return getBestConfiguration();
     }
 
     private Environment buildEnvironment(Document document){
@@ -80,29 +114,48 @@ public class AntColonyAlgorithm implements Disambiguator {
     }
 
     private void mainLoop(Environment environment, Document document){
-        int iteration = 0;
-        while (iteration < maxIterations) {
+        stopCondition.reset();
+        boolean scoring = stopCondition.getPlateau() > 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        while (!stopCondition.stop()) {
             environmentUpdater.update(environment);
             Configuration configuration = solutionGenerator.generateSolution(environment, document);
-            double p = evaluation.evaluate(goldStandard, configuration).getPrecision();
-            //double leskScore = configurationScorer.computeScore(document,configuration);
-            double leskScore = 0;
-            logger.info(MessageFormat.format("ACA Progress [{0}% | i={1} | bridges = {2} | ants = {3}| P={4} | L={5}]", getPercentage(iteration, maxIterations),iteration,environment.numberOfBridges(),environment.ants().size(),p,leskScore));
-            iteration++;
+            if (scoring) {
+                double score = configurationScorer.computeScore(document, configuration);
+                stopCondition.incrementScorerCalls();
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestConfiguration = configuration;
+                }
+                stopCondition.updateBestScore(bestScore);
+            } else {
+                bestConfiguration = configuration;
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug(MessageFormat.format("ACA Progress [{0}% | i={1} | bridges = {2} | ants = {3} | L={4}]", stopCondition.getProgressPercentage(), stopCondition.getCurrent(), environment.numberOfBridges(), environment.ants().size(), bestScore));
+            }
+            stopCondition.incrementIterations();
+            stopCondition.updateMilliseconds();
         }
     }
 
-    private double getPercentage(int iteration, int maxIterations){
-        return ((double)iteration/(double)maxIterations)*100d;
+    @Override
+    public Configuration getBestConfiguration() {
+        Configuration best = bestConfiguration;
+        // The solution generators build confidence configurations, which are copied so that the caller may change them
+        return best instanceof ConfidenceConfiguration ? new ConfidenceConfiguration((ConfidenceConfiguration) best) : best;
     }
 
     @Override
     public Configuration disambiguate(Document document, Configuration c) {
-        return null;
+        return disambiguate(document);
     }
 
     @Override
     public void release() {
-
+        configurationScorer.release();
+        if (pool != null) {
+            pool.shutdown();
+        }
     }
 }
@@ -1,5 +1,6 @@
 package org.getalp.lexsema.wsd.method.aca.agents;
 
+import cern.jet.random.engine.MersenneTwister;
 import org.getalp.lexsema.similarity.signatures.SemanticSignature;
 
 
@@ -29,4 +30,9 @@ public interface Ant extends Comparable<Double>{
 
     boolean isNewborn();
 
+    /**
+     * @return The random stream owned by the ant, from which all its decisions are drawn
+     */
+    MersenneTwister getRandomEngine();
+
 }
@@ -1,6 +1,7 @@
 package org.getalp.lexsema.wsd.method.aca.agents;
 
 
+import cern.jet.random.engine.MersenneTwister;
 import org.getalp.lexsema.similarity.signatures.SemanticSignature;
 
 import java.lang.ref.WeakReference;
@@ -16,14 +17,16 @@ public class AntImpl implements Ant {
     private boolean newBorn = true;
 
     private final WeakReference<SemanticSignature> semanticSignature;
+    private final MersenneTwister randomEngine;
 
-    public AntImpl(double life, double maximumEnergy, double energyCarried, int position, SemanticSignature signature) {
+    public AntImpl(double life, double maximumEnergy, double energyCarried, int position, SemanticSignature signature, MersenneTwister randomEngine) {
         this.life = life;
         this.maximumEnergy = maximumEnergy;
         this.energyCarried = energyCarried;
         home = this.position = position;
         semanticSignature = new WeakReference<>(signature);
         returning = false;
+        this.randomEngine = randomEngine;
     }
 
     @Override
@@ -103,4 +106,9 @@ public class AntImpl implements Ant {
     public int getHome() {
         return home;
     }
+
+    @Override
+    public MersenneTwister getRandomEngine() {
+        return randomEngine;
+    }
 }
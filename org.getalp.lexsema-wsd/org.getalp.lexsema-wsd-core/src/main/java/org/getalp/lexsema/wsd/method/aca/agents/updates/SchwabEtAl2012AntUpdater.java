@@ -7,24 +7,28 @@ import org.getalp.lexsema.similarity.signatures.symbols.SemanticSymbol;
 import org.getalp.lexsema.wsd.method.aca.agents.Ant;
 import org.getalp.lexsema.wsd.method.aca.environment.Environment;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 public class SchwabEtAl2012AntUpdater implements AntUpdater {
 
-    private final MersenneTwister mersenneTwister;
+    private static final int SIMILARITY_CACHE_BITS = 12;
+    private static final int SIMILARITY_CACHE_SIZE = 1 << SIMILARITY_CACHE_BITS;
+
     private final SimilarityMeasure similarityMeasure;
 
     private final double depositPheromone;
     private final double takeEnergy;
     private final double depositedComponentsRatio;
 
-    public SchwabEtAl2012AntUpdater(MersenneTwister mersenneTwister, SimilarityMeasure similarityMeasure, double depositPheromone, double takeEnergy, double depositedComponentsRatio) {
-        this.mersenneTwister = mersenneTwister;
+    private final ThreadLocal<StepBuffers> stepBuffers = ThreadLocal.withInitial(StepBuffers::new);
+
+    /**
+     * The random decisions of an ant are drawn from its own stream, so that ants can be updated concurrently.
+     */
+    public SchwabEtAl2012AntUpdater(SimilarityMeasure similarityMeasure, double depositPheromone, double takeEnergy, double depositedComponentsRatio) {
         this.similarityMeasure = similarityMeasure;
         this.depositPheromone = depositPheromone;
         this.takeEnergy = takeEnergy;
@@ -36,10 +40,11 @@ public class SchwabEtAl2012AntUpdater implements AntUpdater {
     public void update(Ant ant, Environment environment) {
         int position = ant.getPosition();
         int selectedTarget;
+        MersenneTwister mersenneTwister = ant.getRandomEngine();
 
         if (position == ant.getHome() && !ant.isNewborn()) {
-            double currentEnergy = environment.getEnergy(position);
-            environment.setEnergy(position,currentEnergy + ant.getEnergyCarried());
+            double energyCarried = ant.getEnergyCarried();
+            environment.updateEnergy(position, currentEnergy -> currentEnergy + energyCarried);
         }
         if (environment.isNest(position) && position != ant.getHome()) {
             selectedTarget = ant.getHome();
@@ -47,41 +52,41 @@ public class SchwabEtAl2012AntUpdater implements AntUpdater {
                 createBridge(ant, position, environment);
             }
         } else {
-            List<Integer> neighbours = environment.getOutgoingNodes(position);
-            int neighbourhoodSize = neighbours.size();
-
-            List<Double> nodeScores;
-            List<Double> edgeScores;
-
-            if (ant.isReturning()) {
-                nodeScores = returnNodeScore(ant, neighbours, environment);
-                edgeScores = returnEdgeScore(position, neighbours, environment);
+            StepBuffers buffers = stepBuffers.get();
+            buffers.prepare(environment);
+            int neighbourhoodSize = buffers.loadNeighbours(environment, position);
+            int[] neighbours = buffers.neighbours;
+            double[] scores = buffers.scores;
+            boolean returning = ant.isReturning();
+
+            //Evalf(N)
+            if (returning) {
+                for (int i = 0; i < neighbourhoodSize; i++) {
+                    scores[i] = buffers.similarity(ant, environment, neighbours[i]);
+                }
             } else {
-                nodeScores = roamingNodeScores(neighbours, environment);
-                edgeScores = roamingEdgeScores(position, neighbours, environment);
+                double totalEnergy = 0;
+                for (int i = 0; i < neighbourhoodSize; i++) {
+                    scores[i] = environment.getEnergy(neighbours[i]);
+                    totalEnergy += scores[i];
+                }
+                for (int i = 0; i < neighbourhoodSize; i++) {
+                    scores[i] /= totalEnergy;
+                }
             }
 
-            boolean nestInNeighbourhood = isThereANestInTheNeighborhood(neighbours, environment, ant);
-
-            List<Double> scores = new ArrayList<>();
-            if (nestInNeighbourhood) {
-                //If there is a friendNestNode in the neighbourhood, we ignore pheromone in the selection of the destination
-                //Evalf(N) only
-                scores.addAll(nodeScores);
-            } else {
+            //If there is a friendNestNode in the neighbourhood, we ignore pheromone in the selection of the destination
+            if (!isThereANestInTheNeighborhood(neighbours, neighbourhoodSize, environment, ant)) {
                 //Evalf(N) + Evalf(A)
-                //noinspection resource
-                IntStream.range(0, neighbourhoodSize).forEach(i -> scores.add(nodeScores.get(i) + edgeScores.get(i)));
+                for (int i = 0; i < neighbourhoodSize; i++) {
+                    double pheromone = environment.getPheromone(position, neighbours[i]);
+                    scores[i] += returning ? pheromone : 1d - pheromone;
+                }
             }
 
-            //Σ Evalf(N,A)
-            double totalScore = getSum(scores);
-
             //P(Ni,Aj) = Evalf(Ni,Aj)/ΣEvalf(Nk,Al) //Page 9 in the paper
-            List<Double> probabilities = scores.stream().map(score -> score / totalScore).collect(Collectors.toList());
-
-            int targetIndex = selectDestination(probabilities);
-            selectedTarget = neighbours.get(targetIndex);
+            int targetIndex = selectDestination(scores, neighbourhoodSize, mersenneTwister);
+            selectedTarget = neighbours[targetIndex];
         }
 
         moveAnt(ant, selectedTarget);
@@ -89,16 +94,16 @@ public class SchwabEtAl2012AntUpdater implements AntUpdater {
         takeEnergy(ant, environment, selectedTarget);
 
         if (!environment.isNest(selectedTarget)) {
-            depositSignatureComponents(ant.getSemanticSignature(), environment, selectedTarget);
+            depositSignatureComponents(ant.getSemanticSignature(), environment, selectedTarget, mersenneTwister);
         }
         ant.decrementLives();
-        decideWhetherToReturn(ant);
+        decideWhetherToReturn(ant, mersenneTwister);
 
     }
 
-    private boolean isThereANestInTheNeighborhood(Iterable<Integer> neighbours, Environment environment, Ant ant) {
-        for (int neighbour : neighbours) {
-            if (environment.isFriendNest(neighbour, ant.getHome())) {
+    private boolean isThereANestInTheNeighborhood(int[] neighbours, int neighbourhoodSize, Environment environment, Ant ant) {
+        for (int i = 0; i < neighbourhoodSize; i++) {
+            if (environment.isFriendNest(neighbours[i], ant.getHome())) {
                 return true;
             }
         }
@@ -110,35 +115,26 @@ public class SchwabEtAl2012AntUpdater implements AntUpdater {
         environment.createBridge(position, ant.getHome());
     }
 
-    private void depositSignatureComponents(SemanticSignature semanticSignature, Environment environment, int target) {
-        List<SemanticSymbol> symbols = new ArrayList<>();
-        Collection<Integer> selectedComponents = new ArrayList<>();
-        int max = (int) (semanticSignature.size() * depositedComponentsRatio);
-        List<SemanticSymbol> signatureSymbols = semanticSignature.getSymbols();
+    /**
+     * Deposits a random subset of the components of the signature of the ant on the target node. The components are
+     * drawn without replacement by a partial Fisher-Yates shuffle over the reusable index buffer of the thread.
+     */
+    private void depositSignatureComponents(SemanticSignature semanticSignature, Environment environment, int target, MersenneTwister mersenneTwister) {
+        StepBuffers buffers = stepBuffers.get();
+        int size = semanticSignature.size();
+        int max = Math.min((int) (size * depositedComponentsRatio), size);
+        int[] indexes = buffers.indexes(size);
+        List<SemanticSymbol> symbols = buffers.symbols;
+        symbols.clear();
         for (int i = 0; i < max; i++) {
-            int draw = drawNext(selectedComponents, signatureSymbols.size());
-            if(draw>0) {
-                symbols.add(signatureSymbols.get(draw));
-            }
+            int draw = i + (int) (mersenneTwister.raw() * (size - i));
+            int index = indexes[draw];
+            indexes[draw] = indexes[i];
+            indexes[i] = index;
+            symbols.add(semanticSignature.getSymbol(index));
         }
         environment.depositSignature(symbols, target, mersenneTwister);
-    }
-
-    private int drawNext(Collection<Integer> selectedComponents, int signatureSize) {
-        int draw;
-        do {
-            try {
-                draw = Math.abs(mersenneTwister.nextInt()) % signatureSize - 1;
-                if (!selectedComponents.contains(draw) && draw > 0) {
-                    selectedComponents.add(draw);
-                    //noinspection BreakStatement
-                    break;
-                }
-            } catch (ArrayIndexOutOfBoundsException ignored){
-            }
-            draw = 0;
-        } while (selectedComponents.contains(draw));
-        return draw;
+        symbols.clear();
     }
 
     private void moveAnt(Ant ant, int targetPosition) {
@@ -146,42 +142,42 @@ public class SchwabEtAl2012AntUpdater implements AntUpdater {
     }
 
     private void depositPheromone(Environment environment, int position, int target) {
-        double currentPheromone = environment.getPheromone(position, target);
-        environment.setPheromone(position, target, currentPheromone + depositPheromone);
+        environment.updatePheromone(position, target, currentPheromone -> currentPheromone + depositPheromone);
     }
 
     private void takeEnergy(Ant ant, Environment environment, int targetPosition) {
-        double targetEnergy = environment.getEnergy(targetPosition);
-        double energyTaken = ant.takeEnergy(takeEnergy, targetEnergy);
-        environment.setEnergy(targetPosition, targetEnergy - energyTaken);
-    }
-
-    private int selectDestination(List<Double> probabilities) {
+        environment.updateEnergy(targetPosition, targetEnergy -> targetEnergy - ant.takeEnergy(takeEnergy, targetEnergy));
+    }
+
+    /**
+     * Roulette wheel selection: draws a neighbour with a probability proportional to its score, negative or undefined
+     * scores counting as zero. When no neighbour has a positive score, the neighbour is drawn uniformly.
+     */
+    private static int selectDestination(double[] scores, int size, MersenneTwister mersenneTwister) {
+        double totalScore = 0;
+        for (int i = 0; i < size; i++) {
+            if (!(scores[i] > 0)) {
+                scores[i] = 0;
+            }
+            totalScore += scores[i];
+        }
         double rand = mersenneTwister.raw();
-        Double cumulativeDistribution = 0d;
-        int i;
-        Collections.sort(probabilities, (o1, o2) -> {
-            int compare = o1.compareTo(o2);
-            if(compare==1){
-                return -1;
-            } else if(compare==-1){
-                return 1;
-            } else {
-                return 0;
+        if (!(totalScore > 0) || Double.isInfinite(totalScore)) {
+            return Math.min((int) (rand * size), size - 1);
+        }
+        double threshold = rand * totalScore;
+        double cumulativeDistribution = 0;
+        for (int i = 0; i < size - 1; i++) {
+            cumulativeDistribution += scores[i];
+            if (cumulativeDistribution >= threshold) {
+                return i;
             }
-        });
-        for (i = 0; i < probabilities.size() && cumulativeDistribution < rand; i++) {
-            cumulativeDistribution += probabilities.get(i);
         }
-        return i - 1;
-    }
-
-    private double getSum(Collection<Double> energies) {
-        return energies.stream().mapToDouble(e -> e).sum();
+        return size - 1;
     }
 
     @SuppressWarnings("FeatureEnvy")
-    private void decideWhetherToReturn(Ant ant){
+    private void decideWhetherToReturn(Ant ant, MersenneTwister mersenneTwister){
         double maxEnergy = ant.getMaximumEnergy();
         double energy = ant.getEnergyCarried();
         double rand = mersenneTwister.raw();
@@ -190,35 +186,66 @@ public class SchwabEtAl2012AntUpdater implements AntUpdater {
         }
     }
 
-    private List<Double> roamingNodeScores(Collection<Integer> neighbours, Environment environment) {
-        List<Double> energy = getNeighboursEnergy(neighbours, environment);
-        double sum = getSum(energy);
-        return energy
-                .stream()
-                .map(e -> e / sum)
-                .collect(Collectors.toList());
-    }
-
-    private List<Double> getNeighboursEnergy(Collection<Integer> neighbours, final Environment environment) {
-        return neighbours.stream().map(environment::getEnergy).collect(Collectors.<Double>toList());
-    }
+    /**
+     * Buffers reused by all the steps made on the same thread, and a direct-mapped cache of the similarity between the
+     * signature of the home of an ant and the signature of a node, keyed by the home, the node and the version of the
+     * signature of the node. The cache is cleared when the thread starts working on another environment.
+     */
+    private final class StepBuffers {
+        private int[] neighbours = new int[16];
+        private double[] scores = new double[16];
+        private int[] indexes = new int[0];
+        private final List<SemanticSymbol> symbols = new ArrayList<>();
+        private final long[] cachedPairs = new long[SIMILARITY_CACHE_SIZE];
+        private final long[] cachedVersions = new long[SIMILARITY_CACHE_SIZE];
+        private final double[] cachedSimilarities = new double[SIMILARITY_CACHE_SIZE];
+        private WeakReference<Environment> environment = new WeakReference<>(null);
+
+        private void prepare(Environment currentEnvironment) {
+            if (environment.get() != currentEnvironment) {
+                environment = new WeakReference<>(currentEnvironment);
+                Arrays.fill(cachedPairs, -1L);
+            }
+        }
 
-    private List<Double> roamingEdgeScores(int position, Collection<Integer> targets, Environment environment) {
-        return targets.stream()
-                .map(target -> 1d - environment.getPheromone(position, target))
-                .collect(Collectors.toList());
-    }
+        private int loadNeighbours(Environment environment, int position) {
+            int size = environment.getOutgoingNodes(position, neighbours);
+            while (size > neighbours.length) {
+                neighbours = new int[Integer.highestOneBit(size) << 1];
+                size = environment.getOutgoingNodes(position, neighbours);
+            }
+            if (scores.length < neighbours.length) {
+                scores = new double[neighbours.length];
+            }
+            return size;
+        }
 
-    private List<Double> returnNodeScore(Ant ant, Collection<Integer> neighbours, Environment environment) {
-        return neighbours.stream()
-                .map(position -> similarityMeasure.compute(environment.getNodeSignature(position), ant.getSemanticSignature()))
-                .collect(Collectors.<Double>toList());
-    }
+        /**
+         * @return A buffer whose first {@code size} cells hold a permutation of 0 .. size-1
+         */
+        private int[] indexes(int size) {
+            if (indexes.length < size) {
+                indexes = new int[size];
+            }
+            for (int i = 0; i < size; i++) {
+                indexes[i] = i;
+            }
+            return indexes;
+        }
 
-    private List<Double> returnEdgeScore(int position, Collection<Integer> targets, Environment environment) {
-        return targets
-                .stream()
-                .map(target -> environment.getPheromone(position, target))
-                .collect(Collectors.toList());
+        private double similarity(Ant ant, Environment environment, int position) {
+            long pair = ((long) ant.getHome() << 32) | position;
+            long version = environment.getNode(position).getSignatureVersion();
+            long hash = pair * 0x9E3779B97F4A7C15L;
+            int slot = (int) (hash >>> (64 - SIMILARITY_CACHE_BITS));
+            if (cachedPairs[slot] == pair && cachedVersions[slot] == version) {
+                return cachedSimilarities[slot];
+            }
+            double similarity = similarityMeasure.compute(environment.getNodeSignature(position), ant.getSemanticSignature());
+            cachedPairs[slot] = pair;
+            cachedVersions[slot] = version;
+            cachedSimilarities[slot] = similarity;
+            return similarity;
+        }
     }
 }
@@ -6,16 +6,25 @@ import org.getalp.lexsema.similarity.signatures.SemanticSignature;
 import org.getalp.lexsema.similarity.signatures.symbols.SemanticSymbol;
 import org.getalp.lexsema.wsd.method.aca.agents.Ant;
 import org.getalp.lexsema.wsd.method.aca.environment.graph.Node;
-import org.nd4j.linalg.api.ndarray.INDArray;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.DoubleUnaryOperator;
 
 public interface Environment {
-    INDArray getOutgoingVector(int position);
-
     List<Integer> getOutgoingNodes(int position);
 
+    /**
+     * @return The positions of the targets of the outgoing edges of the node, in increasing order
+     */
+    int[] getOutgoingNodeArray(int position);
+
+    /**
+     * Copies the positions of the targets of the outgoing edges of the node, in increasing order, into the buffer
+     * @return The number of outgoing edges; when it exceeds the length of the buffer, only the first targets are copied
+     */
+    int getOutgoingNodes(int position, int[] buffer);
+
     boolean isNest(int position);
 
     boolean areSiblings(int position1, int position2);
@@ -26,10 +35,22 @@ public interface Environment {
 
     void setPheromone(int startPosition, int targetPosition, double pheromone);
 
+    /**
+     * Atomically replaces the pheromone on an edge by the result of the update applied to it
+     * @return The new pheromone
+     */
+    double updatePheromone(int startPosition, int targetPosition, DoubleUnaryOperator update);
+
     double getEnergy(int position);
 
     void setEnergy(int position, double energy);
 
+    /**
+     * Atomically replaces the energy of a node by the result of the update applied to it
+     * @return The new energy
+     */
+    double updateEnergy(int position, DoubleUnaryOperator update);
+
     List<Node> nodes();
 
     Collection<Ant> ants();
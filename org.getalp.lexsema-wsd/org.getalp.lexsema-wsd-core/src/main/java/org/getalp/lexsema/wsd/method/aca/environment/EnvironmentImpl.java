@@ -8,12 +8,23 @@ import org.getalp.lexsema.util.dataitems.Pair;
 import org.getalp.lexsema.util.dataitems.PairImpl;
 import org.getalp.lexsema.wsd.method.aca.agents.Ant;
 import org.getalp.lexsema.wsd.method.aca.environment.graph.Node;
-import org.nd4j.linalg.api.ndarray.INDArray;
+import org.getalp.lexsema.wsd.method.aca.environment.graph.SparseEnvironmentGraph;
 
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Environment of the ant colony algorithm.
+ * <p>
+ * The pheromone on the outgoing edges of a node and the energy of the node are guarded by one of a fixed set of
+ * striped locks, chosen from the position of the node, so that ants on different nodes update the environment
+ * concurrently. The read-modify-write operations ({@link #updatePheromone}, {@link #updateEnergy}) are atomic.
+ */
 public class EnvironmentImpl implements Environment {
-    private final INDArray adjacency;
+    private static final int MAXIMUM_STRIPES = 1024;
+
+    private final SparseEnvironmentGraph graph;
     private final List<Node> nodes;
     private final Map<Integer, Node> nestIndex;
     private final List<Node> words;
@@ -21,42 +32,59 @@ public class EnvironmentImpl implements Environment {
     private final Set<Pair<Integer, Integer>> bridgeIndex;
     private final Map<Integer, List<Node>> wordSenseIndex;
     private final double initialPheromone;
+    private final Object[] stripes;
+    private final int stripeMask;
 
     /**
      * Used to check if the value of the double is infinitesimally close to zero
      */
     public static final double ZERO_EPSILON = 0.00000001d;
 
-    public EnvironmentImpl(List<Node> nodes, Map<Integer, Node> nestIndex, List<Node> words, Map<Integer, List<Node>> wordSenseIndex, INDArray adjacency, double initialPheromone) {
-        this.adjacency = adjacency;
+    public EnvironmentImpl(List<Node> nodes, Map<Integer, Node> nestIndex, List<Node> words, Map<Integer, List<Node>> wordSenseIndex, SparseEnvironmentGraph graph, double initialPheromone) {
+        this.graph = graph;
         this.nodes = Collections.unmodifiableList(nodes);
         this.nestIndex = Collections.unmodifiableMap(nestIndex);
         this.words = Collections.unmodifiableList(words);
         this.wordSenseIndex = Collections.unmodifiableMap(wordSenseIndex);
-        ants = new LinkedList<>();
-        bridgeIndex = new HashSet<>();
+        ants = new ArrayList<>();
+        bridgeIndex = ConcurrentHashMap.newKeySet();
         this.initialPheromone = initialPheromone;
+        int numberOfStripes = Integer.highestOneBit(Math.max(1, Math.min(nodes.size(), MAXIMUM_STRIPES)));
+        stripes = new Object[numberOfStripes];
+        for (int i = 0; i < numberOfStripes; i++) {
+            stripes[i] = new Object();
+        }
+        stripeMask = numberOfStripes - 1;
     }
 
-    @Override
-    public INDArray getOutgoingVector(int position) {
-        return adjacency.getRow(position);
+    private Object stripe(int position) {
+        return stripes[position & stripeMask];
     }
 
     @Override
     public List<Integer> getOutgoingNodes(int position) {
-        INDArray outgoingVector = getOutgoingVector(position);
-        List<Integer> neighbouringNodes = new ArrayList<>();
-
-        for (int i = 0; i < outgoingVector.columns(); i++) {
-            double value = outgoingVector.getDouble(i);
-            if (value > -1) {
-                neighbouringNodes.add(i);
-            }
+        int[] outgoing = getOutgoingNodeArray(position);
+        List<Integer> neighbouringNodes = new ArrayList<>(outgoing.length);
+        for (int target : outgoing) {
+            neighbouringNodes.add(target);
         }
         return neighbouringNodes;
     }
 
+    @Override
+    public int[] getOutgoingNodeArray(int position) {
+        synchronized (stripe(position)) {
+            return graph.outgoing(position);
+        }
+    }
+
+    @Override
+    public int getOutgoingNodes(int position, int[] buffer) {
+        synchronized (stripe(position)) {
+            return graph.outgoing(position, buffer);
+        }
+    }
+
 
     @Override
     public boolean isNest(int position) {
@@ -65,12 +93,14 @@ public class EnvironmentImpl implements Environment {
 
     @Override
     public boolean areSiblings(int position1, int position2) {
-        List<Integer> neighbours1 = getOutgoingNodes(position1);
-        List<Integer> neighbours2 = getOutgoingNodes(position2);
-        int sizeBefore = neighbours1.size();
-        neighbours1.removeAll(neighbours2);
-        int sizeAfter = neighbours1.size();
-        return sizeAfter != sizeBefore;
+        // Both rows are locked, the stripe with the lowest index first so that two threads cannot deadlock
+        Object first = stripe(Math.min(position1 & stripeMask, position2 & stripeMask));
+        Object second = stripe(Math.max(position1 & stripeMask, position2 & stripeMask));
+        synchronized (first) {
+            synchronized (second) {
+                return graph.shareNeighbour(position1, position2);
+            }
+        }
     }
 
     @Override
@@ -79,26 +109,52 @@ public class EnvironmentImpl implements Environment {
     }
 
     @Override
-    public synchronized double getPheromone(int startPosition, int targetPosition) {
-        return adjacency.getDouble(startPosition, targetPosition);
+    public double getPheromone(int startPosition, int targetPosition) {
+        synchronized (stripe(startPosition)) {
+            return graph.getPheromone(startPosition, targetPosition);
+        }
+    }
+
+    @Override
+    public void setPheromone(int startPosition, int targetPosition, double pheromone) {
+        synchronized (stripe(startPosition)) {
+            graph.setPheromone(startPosition, targetPosition, pheromone);
+        }
+    }
+
+    @Override
+    public double updatePheromone(int startPosition, int targetPosition, DoubleUnaryOperator update) {
+        synchronized (stripe(startPosition)) {
+            double pheromone = update.applyAsDouble(graph.getPheromone(startPosition, targetPosition));
+            graph.setPheromone(startPosition, targetPosition, pheromone);
+            return pheromone;
+        }
     }
 
     @Override
-    public synchronized void setPheromone(int startPosition, int targetPosition, double pheromone) {
-        adjacency.put(startPosition, targetPosition, pheromone);
-        //adjacency.put(targetPosition, startPosition, pheromone);
+    public double getEnergy(int position) {
+        final Node node = nodes.get(position);
+        synchronized (stripe(position)) {
+            return node.getEnergy();
+        }
     }
 
     @Override
-    public synchronized double getEnergy(int position) {
+    public void setEnergy(int position, double energy) {
         final Node node = nodes.get(position);
-        return node.getEnergy();
+        synchronized (stripe(position)) {
+            node.setEnergy(energy);
+        }
     }
 
     @Override
-    public synchronized void setEnergy(int position, double energy) {
+    public double updateEnergy(int position, DoubleUnaryOperator update) {
         final Node node = nodes.get(position);
-        node.setEnergy(energy);
+        synchronized (stripe(position)) {
+            double energy = update.applyAsDouble(node.getEnergy());
+            node.setEnergy(energy);
+            return energy;
+        }
     }
 
     @Override
@@ -117,8 +173,10 @@ public class EnvironmentImpl implements Environment {
     }
 
     @Override
-    public synchronized void addAnt(Ant ant) {
-        ants.add(ant);
+    public void addAnt(Ant ant) {
+        synchronized (ants) {
+            ants.add(ant);
+        }
     }
 
     @Override
@@ -128,8 +186,10 @@ public class EnvironmentImpl implements Environment {
     }
 
     @Override
-    public synchronized void removeDeadAnts() {
-        ants.removeIf(a -> Math.abs(0 - a.getLife()) < ZERO_EPSILON);
+    public void removeDeadAnts() {
+        synchronized (ants) {
+            ants.removeIf(a -> Math.abs(0 - a.getLife()) < ZERO_EPSILON);
+        }
     }
 
     @Override
@@ -139,7 +199,7 @@ public class EnvironmentImpl implements Environment {
     }
 
     @Override
-    public synchronized void createBridge(int start, int end) {
+    public void createBridge(int start, int end) {
         if (isNest(start) && isNest(end) && isFriendNest(start, end)) {
             bridgeIndex.add(new PairImpl<>(start, end));
             setPheromone(start, end, initialPheromone);
@@ -147,12 +207,20 @@ public class EnvironmentImpl implements Environment {
     }
 
     @Override
-    public synchronized void cleanupBridges() {
-        bridgeIndex.removeIf(pair -> getPheromone(pair.first(), pair.second()) < 0);
+    public void cleanupBridges() {
+        bridgeIndex.removeIf(pair -> {
+            if (getPheromone(pair.first(), pair.second()) < 0) {
+                synchronized (stripe(pair.first())) {
+                    graph.removeDeadDynamicEdges(pair.first());
+                }
+                return true;
+            }
+            return false;
+        });
     }
 
     @Override
-    public synchronized boolean isBridge(int start, int end) {
+    public boolean isBridge(int start, int end) {
         return bridgeIndex.contains(new PairImpl<>(start, end));
     }
 
@@ -9,8 +9,7 @@ import org.getalp.lexsema.wsd.method.aca.environment.EnvironmentImpl;
 import org.getalp.lexsema.wsd.method.aca.environment.graph.EnvironmentNode;
 import org.getalp.lexsema.wsd.method.aca.environment.graph.NestNode;
 import org.getalp.lexsema.wsd.method.aca.environment.graph.Node;
-import org.nd4j.linalg.api.ndarray.INDArray;
-import org.nd4j.linalg.factory.Nd4j;
+import org.getalp.lexsema.wsd.method.aca.environment.graph.SparseEnvironmentGraph;
 
 import java.util.*;
 
@@ -38,11 +37,11 @@ public class DocumentEnvironmentFactory implements EnvironmentFactory {
         //Creating nodes
         createNodes(nodes, nestIndex,words, wordSenseIndex);
 
-        //Creating adjacency matrix
-        INDArray adjacency = Nd4j.create(nodes.size(), nodes.size());
-        populateAdjacency(adjacency);
+        //Creating the sparse graph
+        SparseEnvironmentGraph.Builder graph = SparseEnvironmentGraph.builder(nodes.size());
+        populateGraph(graph);
 
-        return new EnvironmentImpl(nodes, nestIndex,words,wordSenseIndex, adjacency,initialPheromone);
+        return new EnvironmentImpl(nodes, nestIndex,words,wordSenseIndex, graph.build(),initialPheromone);
     }
 
     /**
@@ -81,9 +80,9 @@ public class DocumentEnvironmentFactory implements EnvironmentFactory {
     /**
      * Creating nodes
      *
-     * @param adjacency The adjacency matrix
+     * @param graph The builder of the environment graph
      */
-    private void populateAdjacency(INDArray adjacency) {
+    private void populateGraph(SparseEnvironmentGraph.Builder graph) {
         int currentPosition = 0;
         int currentWordIndex = 0;
 
@@ -92,17 +91,17 @@ public class DocumentEnvironmentFactory implements EnvironmentFactory {
         ++currentPosition;
         for (Word ignored : text) {
             //Word to sentence links
-            adjacency.put(currentPosition, textPosition, initialPheromone);
+            graph.addEdge(currentPosition, textPosition, initialPheromone);
             //Sentence to words links
-            adjacency.put(textPosition, currentPosition, initialPheromone);
+            graph.addEdge(textPosition, currentPosition, initialPheromone);
 
             int wordPosition = currentPosition;
             currentPosition++;
             for (Sense sense : text.getSenses(currentWordIndex)) {
                 //Sense to word links
-                adjacency.put(currentPosition, wordPosition, initialPheromone);
+                graph.addEdge(currentPosition, wordPosition, initialPheromone);
                 //Word to sense links
-                adjacency.put(wordPosition, currentPosition, initialPheromone);
+                graph.addEdge(wordPosition, currentPosition, initialPheromone);
                 currentPosition++;
             }
             currentWordIndex++;
@@ -10,8 +10,7 @@ import org.getalp.lexsema.wsd.method.aca.environment.EnvironmentImpl;
 import org.getalp.lexsema.wsd.method.aca.environment.graph.EnvironmentNode;
 import org.getalp.lexsema.wsd.method.aca.environment.graph.NestNode;
 import org.getalp.lexsema.wsd.method.aca.environment.graph.Node;
-import org.nd4j.linalg.api.ndarray.INDArray;
-import org.nd4j.linalg.factory.Nd4j;
+import org.getalp.lexsema.wsd.method.aca.environment.graph.SparseEnvironmentGraph;
 
 import java.util.*;
 
@@ -39,11 +38,10 @@ public class TextEnvironmentFactory implements EnvironmentFactory{
         //Creating nodes
         createNodes(nodes,nests,words,wordSenseIndex);
 
-        //Creating adjacency matrix
-        INDArray adjacency = Nd4j.create(nodes.size(),nodes.size());
-        adjacency.assign(-1);
-        populateAdjacency(adjacency);
-        return new EnvironmentImpl(nodes,nests,words,wordSenseIndex,adjacency,initialPheromone);
+        //Creating the sparse graph
+        SparseEnvironmentGraph.Builder graph = SparseEnvironmentGraph.builder(nodes.size());
+        populateGraph(graph);
+        return new EnvironmentImpl(nodes,nests,words,wordSenseIndex,graph.build(),initialPheromone);
     }
 
     /**
@@ -88,9 +86,9 @@ public class TextEnvironmentFactory implements EnvironmentFactory{
 
     /**
      * Creating nodes
-     * @param adjacency The adjacency matrix
+     * @param graph The builder of the environment graph
      */
-    private void populateAdjacency(INDArray adjacency){
+    private void populateGraph(SparseEnvironmentGraph.Builder graph){
         int currentPosition = 0;
         int currentWordIndex = 0;
 
@@ -102,23 +100,23 @@ public class TextEnvironmentFactory implements EnvironmentFactory{
         for(Sentence sentence: text.sentences()){
 
             //Sentence to text links
-            adjacency.put(currentPosition,currentPosition-1,initialPheromone);
+            graph.addEdge(currentPosition,textPosition,initialPheromone);
             //Text to sentence links
-            adjacency.put(currentPosition-1,currentPosition,initialPheromone);
+            graph.addEdge(textPosition,currentPosition,initialPheromone);
             int sentencePosition = currentPosition;
             currentPosition++;
             for(Word w: sentence){
                 //Word to sentence links
-                adjacency.put(currentPosition,sentencePosition,initialPheromone);
+                graph.addEdge(currentPosition,sentencePosition,initialPheromone);
                 //Sentence to words links
-                adjacency.put(sentencePosition,currentPosition,initialPheromone);
+                graph.addEdge(sentencePosition,currentPosition,initialPheromone);
                 int wordPosition = currentPosition;
                 currentPosition++;
                 for(Sense sense: text.getSenses(currentWordIndex)){
                     //Sense to word links
-                    adjacency.put(currentPosition,wordPosition,initialPheromone);
+                    graph.addEdge(currentPosition,wordPosition,initialPheromone);
                     //Word to sense links
-                    adjacency.put(wordPosition,currentPosition,initialPheromone);
+                    graph.addEdge(wordPosition,currentPosition,initialPheromone);
                     currentPosition++;
                 }
                 currentWordIndex++;
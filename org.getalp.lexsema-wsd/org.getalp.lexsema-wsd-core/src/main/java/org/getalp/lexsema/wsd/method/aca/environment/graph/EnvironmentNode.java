@@ -7,13 +7,15 @@ import org.getalp.lexsema.similarity.signatures.SemanticSignature;
 import org.getalp.lexsema.similarity.signatures.symbols.SemanticSymbol;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class EnvironmentNode extends AbstractNode {
 
     final List<SemanticSymbol> signatureVector;
+    private final int[] slots;
+    private volatile long signatureVersion;
+    private SemanticSignature semanticSignature;
 
     public EnvironmentNode(int position, String id, double energy, int signatureSize) {
         super(position, id, energy);
@@ -21,48 +23,48 @@ public class EnvironmentNode extends AbstractNode {
         for(int i=0;i<signatureSize;i++){
             signatureVector.add(null);
         }
+        slots = new int[signatureSize];
     }
 
+    /**
+     * @return The signature made of the deposited symbols, built again only after new deposits
+     */
     @Override
     public synchronized SemanticSignature getSemanticSignature(){
-        SemanticSignature semanticSignature = DefaultSemanticSignatureFactory.DEFAULT.createSemanticSignature();
-        semanticSignature.addSymbols(signatureVector.stream().filter(symbol -> symbol != null).collect(Collectors.toList()));
+        if (semanticSignature == null) {
+            semanticSignature = DefaultSemanticSignatureFactory.DEFAULT.createSemanticSignature();
+            semanticSignature.addSymbols(signatureVector.stream().filter(symbol -> symbol != null).collect(Collectors.toList()));
+        }
         return semanticSignature;
     }
 
+    /**
+     * Each deposited symbol replaces the symbol of a distinct slot of the signature, the slots being drawn without
+     * replacement by a partial Fisher-Yates shuffle; the symbols in excess of the signature size are dropped.
+     */
     @Override
     public synchronized void depositSignature(List<SemanticSymbol> semanticSymbols, MersenneTwister mersenneTwister) {
-        int length = signatureVector.size();
+        int length = slots.length;
         if(length>0) {
-            Collection<Integer> selectedIndexes = new ArrayList<>();
-            for (SemanticSymbol semanticSymbol : semanticSymbols) {
-                int draw = drawNext(selectedIndexes, length, mersenneTwister);
-                if(draw>=0) {
-                    signatureVector.set(draw, semanticSymbol);
-                }
+            for (int i = 0; i < length; i++) {
+                slots[i] = i;
+            }
+            int count = Math.min(semanticSymbols.size(), length);
+            for (int i = 0; i < count; i++) {
+                int draw = i + (int) (mersenneTwister.raw() * (length - i));
+                int slot = slots[draw];
+                slots[draw] = slots[i];
+                slots[i] = slot;
+                signatureVector.set(slot, semanticSymbols.get(i));
             }
+            signatureVersion++;
+            semanticSignature = null;
         }
     }
 
-    private int drawNext(Collection<Integer> selectedComponents, int signatureSize, MersenneTwister mersenneTwister){
-        int draw;
-        do {
-            if(signatureSize>0) {
-                try {
-                    draw = Math.abs(mersenneTwister.nextInt()) % signatureSize;
-                    if (!selectedComponents.contains(draw) && draw > 0) {
-                        selectedComponents.add(draw);
-                        //noinspection BreakStatement
-                        break;
-                    }
-                } catch (ArrayIndexOutOfBoundsException ignored){
-                }
-                draw =0;
-            } else {
-                draw = 0;
-            }
-        } while(selectedComponents.contains(draw));
-        return draw;
+    @Override
+    public long getSignatureVersion() {
+        return signatureVersion;
     }
 
 
@@ -24,6 +24,11 @@ public class NestNode extends AbstractNode {
     public void depositSignature(List<SemanticSymbol> semanticSymbols, MersenneTwister mersenneTwister) {
     }
 
+    @Override
+    public long getSignatureVersion() {
+        return 0;
+    }
+
     @Override
     public boolean isNest() {
         return true;
@@ -21,6 +21,11 @@ public interface Node {
 
     void depositSignature(List<SemanticSymbol> semanticSymbols, MersenneTwister mersenneTwister);
 
+    /**
+     * @return A number that changes whenever the semantic signature of the node changes
+     */
+    long getSignatureVersion();
+
     boolean isNest();
 
 }
@@ -0,0 +1,274 @@
+package org.getalp.lexsema.wsd.method.aca.environment.graph;
+
+import java.util.Arrays;
+
+/**
+ * Sparse directed graph of the ant colony environment, with a pheromone level on each edge.
+ * <p>
+ * The edges built with the environment are stored in compressed sparse rows: the targets of the node i are
+ * {@code targets[rowOffsets[i]..rowOffsets[i+1])}, sorted in increasing order, and their pheromone levels are held in
+ * the parallel {@code pheromones} array. Edges created while the colony runs (bridges between nests) are kept in
+ * small sorted per-node arrays next to the static rows. As in the dense adjacency matrix it replaces, an edge whose
+ * pheromone is {@value #NO_EDGE} or less does not exist.
+ * <p>
+ * The graph is not thread-safe: the environment guards the outgoing edges of each node, which are only ever read and
+ * modified through their start node, with a lock of its own.
+ */
+public final class SparseEnvironmentGraph {
+
+    public static final double NO_EDGE = -1;
+
+    private final int[] rowOffsets;
+    private final int[] targets;
+    private final double[] pheromones;
+
+    private final int[][] dynamicTargets;
+    private final double[][] dynamicPheromones;
+    private final int[] dynamicCounts;
+
+    private SparseEnvironmentGraph(int[] rowOffsets, int[] targets, double[] pheromones) {
+        this.rowOffsets = rowOffsets;
+        this.targets = targets;
+        this.pheromones = pheromones;
+        int numberOfNodes = rowOffsets.length - 1;
+        dynamicTargets = new int[numberOfNodes][];
+        dynamicPheromones = new double[numberOfNodes][];
+        dynamicCounts = new int[numberOfNodes];
+    }
+
+    public static Builder builder(int numberOfNodes) {
+        return new Builder(numberOfNodes);
+    }
+
+    public int numberOfNodes() {
+        return rowOffsets.length - 1;
+    }
+
+    /**
+     * @return The targets of the existing outgoing edges of the node, in increasing order
+     */
+    public int[] outgoing(int node) {
+        int[] outgoing = new int[outDegree(node)];
+        outgoing(node, outgoing);
+        return outgoing;
+    }
+
+    /**
+     * Copies the targets of the existing outgoing edges of the node, in increasing order, into the buffer
+     * @return The number of outgoing edges, which may exceed the length of the buffer, in which case the buffer only
+     * holds the first targets
+     */
+    public int outgoing(int node, int[] buffer) {
+        int end = rowOffsets[node + 1];
+        int dynamicCount = dynamicCounts[node];
+        int[] dynamicRow = dynamicTargets[node];
+        double[] dynamicPheromoneRow = dynamicPheromones[node];
+        int size = 0;
+        int i = rowOffsets[node];
+        int j = 0;
+        while (i < end || j < dynamicCount) {
+            int target;
+            double pheromone;
+            if (j >= dynamicCount || (i < end && targets[i] < dynamicRow[j])) {
+                target = targets[i];
+                pheromone = pheromones[i];
+                i++;
+            } else {
+                target = dynamicRow[j];
+                pheromone = dynamicPheromoneRow[j];
+                j++;
+            }
+            if (pheromone > NO_EDGE) {
+                if (size < buffer.length) {
+                    buffer[size] = target;
+                }
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return The number of existing outgoing edges of the node
+     */
+    public int outDegree(int node) {
+        int degree = 0;
+        for (int i = rowOffsets[node]; i < rowOffsets[node + 1]; i++) {
+            if (pheromones[i] > NO_EDGE) {
+                degree++;
+            }
+        }
+        for (int j = 0; j < dynamicCounts[node]; j++) {
+            if (dynamicPheromones[node][j] > NO_EDGE) {
+                degree++;
+            }
+        }
+        return degree;
+    }
+
+    /**
+     * @return Whether the two nodes have at least one common outgoing neighbour
+     */
+    public boolean shareNeighbour(int node1, int node2) {
+        for (int i = rowOffsets[node1]; i < rowOffsets[node1 + 1]; i++) {
+            if (pheromones[i] > NO_EDGE && getPheromone(node2, targets[i]) > NO_EDGE) {
+                return true;
+            }
+        }
+        for (int j = 0; j < dynamicCounts[node1]; j++) {
+            if (dynamicPheromones[node1][j] > NO_EDGE && getPheromone(node2, dynamicTargets[node1][j]) > NO_EDGE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The pheromone on the edge, or {@value #NO_EDGE} if there is no such edge
+     */
+    public double getPheromone(int start, int target) {
+        int index = Arrays.binarySearch(targets, rowOffsets[start], rowOffsets[start + 1], target);
+        if (index >= 0) {
+            return pheromones[index];
+        }
+        if (dynamicCounts[start] > 0) {
+            index = Arrays.binarySearch(dynamicTargets[start], 0, dynamicCounts[start], target);
+            if (index >= 0) {
+                return dynamicPheromones[start][index];
+            }
+        }
+        return NO_EDGE;
+    }
+
+    /**
+     * Sets the pheromone on the edge, creating the edge if it does not exist yet
+     */
+    public void setPheromone(int start, int target, double pheromone) {
+        int index = Arrays.binarySearch(targets, rowOffsets[start], rowOffsets[start + 1], target);
+        if (index >= 0) {
+            pheromones[index] = pheromone;
+            return;
+        }
+        int count = dynamicCounts[start];
+        index = count > 0 ? Arrays.binarySearch(dynamicTargets[start], 0, count, target) : -1;
+        if (index >= 0) {
+            dynamicPheromones[start][index] = pheromone;
+        } else if (pheromone > NO_EDGE) {
+            insertDynamicEdge(start, -index - 1, target, pheromone);
+        }
+    }
+
+    private void insertDynamicEdge(int start, int insertionPoint, int target, double pheromone) {
+        int count = dynamicCounts[start];
+        if (dynamicTargets[start] == null) {
+            dynamicTargets[start] = new int[4];
+            dynamicPheromones[start] = new double[4];
+        } else if (count == dynamicTargets[start].length) {
+            dynamicTargets[start] = Arrays.copyOf(dynamicTargets[start], count * 2);
+            dynamicPheromones[start] = Arrays.copyOf(dynamicPheromones[start], count * 2);
+        }
+        int[] row = dynamicTargets[start];
+        double[] pheromoneRow = dynamicPheromones[start];
+        System.arraycopy(row, insertionPoint, row, insertionPoint + 1, count - insertionPoint);
+        System.arraycopy(pheromoneRow, insertionPoint, pheromoneRow, insertionPoint + 1, count - insertionPoint);
+        row[insertionPoint] = target;
+        pheromoneRow[insertionPoint] = pheromone;
+        dynamicCounts[start] = count + 1;
+    }
+
+    /**
+     * Frees the storage of the edges created while the colony runs that no longer exist
+     */
+    public void removeDeadDynamicEdges(int start) {
+        int count = dynamicCounts[start];
+        int kept = 0;
+        for (int j = 0; j < count; j++) {
+            if (dynamicPheromones[start][j] > NO_EDGE) {
+                dynamicTargets[start][kept] = dynamicTargets[start][j];
+                dynamicPheromones[start][kept] = dynamicPheromones[start][j];
+                kept++;
+            }
+        }
+        dynamicCounts[start] = kept;
+    }
+
+    /**
+     * Collects the edges of the environment and compresses them into a {@link SparseEnvironmentGraph}. When the same
+     * edge is added several times, the last pheromone level wins.
+     */
+    public static final class Builder {
+        private final int numberOfNodes;
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private double[] edgePheromones = new double[16];
+        private int numberOfEdges;
+
+        private Builder(int numberOfNodes) {
+            this.numberOfNodes = numberOfNodes;
+        }
+
+        public Builder addEdge(int start, int target, double pheromone) {
+            if (start < 0 || start >= numberOfNodes || target < 0 || target >= numberOfNodes) {
+                throw new IndexOutOfBoundsException(String.format("Edge (%d, %d) outside of a graph of %d nodes", start, target, numberOfNodes));
+            }
+            if (numberOfEdges == starts.length) {
+                starts = Arrays.copyOf(starts, numberOfEdges * 2);
+                ends = Arrays.copyOf(ends, numberOfEdges * 2);
+                edgePheromones = Arrays.copyOf(edgePheromones, numberOfEdges * 2);
+            }
+            starts[numberOfEdges] = start;
+            ends[numberOfEdges] = target;
+            edgePheromones[numberOfEdges] = pheromone;
+            numberOfEdges++;
+            return this;
+        }
+
+        public SparseEnvironmentGraph build() {
+            int[] rowOffsets = new int[numberOfNodes + 1];
+            for (int e = 0; e < numberOfEdges; e++) {
+                rowOffsets[starts[e] + 1]++;
+            }
+            for (int i = 0; i < numberOfNodes; i++) {
+                rowOffsets[i + 1] += rowOffsets[i];
+            }
+            // Stable counting sort by start node, then a stable insertion sort of each row by target
+            int[] rowTargets = new int[numberOfEdges];
+            double[] rowPheromones = new double[numberOfEdges];
+            int[] fill = Arrays.copyOf(rowOffsets, numberOfNodes);
+            for (int e = 0; e < numberOfEdges; e++) {
+                int position = fill[starts[e]]++;
+                rowTargets[position] = ends[e];
+                rowPheromones[position] = edgePheromones[e];
+            }
+            int[] compactOffsets = new int[numberOfNodes + 1];
+            int size = 0;
+            for (int i = 0; i < numberOfNodes; i++) {
+                int start = rowOffsets[i];
+                int end = rowOffsets[i + 1];
+                for (int a = start + 1; a < end; a++) {
+                    int target = rowTargets[a];
+                    double pheromone = rowPheromones[a];
+                    int b = a - 1;
+                    while (b >= start && rowTargets[b] > target) {
+                        rowTargets[b + 1] = rowTargets[b];
+                        rowPheromones[b + 1] = rowPheromones[b];
+                        b--;
+                    }
+                    rowTargets[b + 1] = target;
+                    rowPheromones[b + 1] = pheromone;
+                }
+                compactOffsets[i] = size;
+                for (int a = start; a < end; a++) {
+                    if (a + 1 < end && rowTargets[a + 1] == rowTargets[a]) {
+                        continue;
+                    }
+                    rowTargets[size] = rowTargets[a];
+                    rowPheromones[size] = rowPheromones[a];
+                    size++;
+                }
+            }
+            compactOffsets[numberOfNodes] = size;
+            return new SparseEnvironmentGraph(compactOffsets, Arrays.copyOf(rowTargets, size), Arrays.copyOf(rowPheromones, size));
+        }
+    }
+}
@@ -9,8 +9,22 @@ import org.getalp.lexsema.wsd.method.aca.environment.graph.Node;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
+/**
+ * Environment update of Schwab et al. (2012): every ant moves one step, then every node evaporates the pheromone on
+ * its outgoing edges and nests may release new ants.
+ * <p>
+ * Both phases run on a fork/join pool when one is given, and sequentially otherwise. The randomness does not depend on
+ * the scheduling: whether a nest releases an ant at some iteration is drawn from a stream derived from the seed, the
+ * iteration and the nest, and each new ant receives its own stream derived in the same way. A sequential run is
+ * therefore reproducible from its seed; a parallel run only differs by the interleaving of the concurrent pheromone
+ * and energy updates.
+ */
 public class SchwabEtAl2012EnvironmentUpdater implements EnvironmentUpdater {
 
     private static final Logger logger = LoggerFactory.getLogger(SchwabEtAl2012EnvironmentUpdater.class);
@@ -18,79 +32,136 @@ public class SchwabEtAl2012EnvironmentUpdater implements EnvironmentUpdater {
     private static final double CENTERING_CONSTANT = .5d;
     private static final double ZERO_EPSILON = 0.000001d;
     private static final double STEEPNESS = 1d;
+    private static final int ITEMS_PER_TASK = 64;
     private static NodeScoreFunction antCreationProbabilityCalculator;
-    private final MersenneTwister mersenneTwister;
+    private final long seed;
+    private final ForkJoinPool pool;
     private final AntFactory antFactory;
     private final AntUpdater antUpdater;
 
     private final double initialAntLife;
     private final double maximumEnergy;
     private final double pheromoneEvaporationRate;
+    private int iteration;
 
 
     private static final NodeScoreFunction ATAN =
             node -> Math.atan(STEEPNESS * node.getEnergy()) / Math.PI + CENTERING_CONSTANT;
 
 
-    public SchwabEtAl2012EnvironmentUpdater(double maximumEnergy, double initialAntLife, double pheromoneEvaporationRate, AntFactory antFactory, AntUpdater antUpdater, MersenneTwister mersenneTwister) {
+    /**
+     * @param seed The seed from which all the random streams of the colony are derived
+     * @param pool The pool on which ants and nodes are updated, or null to update them sequentially
+     */
+    public SchwabEtAl2012EnvironmentUpdater(double maximumEnergy, double initialAntLife, double pheromoneEvaporationRate, AntFactory antFactory, AntUpdater antUpdater, long seed, ForkJoinPool pool) {
         this.maximumEnergy = maximumEnergy;
         this.initialAntLife = initialAntLife;
         this.antFactory = antFactory;
-        this.mersenneTwister = mersenneTwister;
+        this.seed = seed;
+        this.pool = pool;
         this.antUpdater = antUpdater;
         this.pheromoneEvaporationRate = pheromoneEvaporationRate;
         antCreationProbabilityCalculator = ATAN;
     }
 
     @SuppressWarnings("FeatureEnvy")
-    private void nodeUpdate(Node node, Environment environment) {
+    private void nodeUpdate(Node node, Environment environment, int currentIteration) {
         int position = node.getPosition();
         double energy = node.getEnergy();
         if (node.isNest() && energy > 0) {
-            randomlyCreateAnt(environment, node, antCreationProbabilityCalculator);
+            randomlyCreateAnt(environment, node, antCreationProbabilityCalculator, currentIteration);
             node.setEnergy(energy - 1);
         }
-        List<Integer> outgoingPaths = environment.getOutgoingNodes(position);
-        outgoingPaths.parallelStream().forEach(target -> pathUpdate(environment, position, target));
-        //outgoingPaths.stream().forEach(target -> pathUpdate(environment, position, target));
+        int[] outgoingPaths = environment.getOutgoingNodeArray(position);
+        for (int target : outgoingPaths) {
+            pathUpdate(environment, position, target);
+        }
     }
 
     @SuppressWarnings("FeatureEnvy")
     private void pathUpdate(Environment environment, int start, int end) {
-        double pheromone = environment.getPheromone(start, end);
-        pheromone = pheromone * (1 - pheromoneEvaporationRate);
-//        if(environment.isBridge(start,end)){
-//            logger.info("Evaporated a bridge's pheromone!");
-//        }
-        if (Math.abs(0 - pheromone) < ZERO_EPSILON) {
-            pheromone = 0;
-            if (environment.isBridge(start, end)) {
-                pheromone = -1;
+        environment.updatePheromone(start, end, pheromone -> {
+            double evaporated = pheromone * (1 - pheromoneEvaporationRate);
+            if (Math.abs(0 - evaporated) < ZERO_EPSILON) {
+                evaporated = 0;
+                if (environment.isBridge(start, end)) {
+                    evaporated = -1;
+                }
             }
-        }
-        environment.setPheromone(start, end, pheromone);
+            return evaporated;
+        });
     }
 
-    private void randomlyCreateAnt(Environment environment, Node node, NodeScoreFunction scoreFunction) {
+    private void randomlyCreateAnt(Environment environment, Node node, NodeScoreFunction scoreFunction, int currentIteration) {
         /**
          * Pseudo randomly deciding whether to create an ant
          */
-        double rand = mersenneTwister.raw();
+        long stream = mix(mix(seed, currentIteration), node.getPosition());
+        double rand = (mix(stream, 0) >>> 11) * 0x1.0p-53;
         double score = scoreFunction.score(node);
         if (rand > score) {
             Ant ant = antFactory.buildAnt(initialAntLife, maximumEnergy, 1,
-                    node.getPosition(), node.getSemanticSignature());
+                    node.getPosition(), node.getSemanticSignature(), new MersenneTwister((int) mix(stream, 1)));
             environment.addAnt(ant);
         }
     }
 
+    /**
+     * SplitMix64 finalizer over the combination of a stream and a value, used to derive independent streams
+     */
+    private static long mix(long stream, long value) {
+        long z = stream + (value + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
     @SuppressWarnings("FeatureEnvy")
     @Override
     public void update(Environment environment) {
-        environment.ants().parallelStream().forEach(ant -> antUpdater.update(ant, environment));
-        environment.nodes().parallelStream().forEach(node -> nodeUpdate(node, environment));
+        int currentIteration = iteration++;
+        forEach(new ArrayList<>(environment.ants()), ant -> antUpdater.update(ant, environment));
+        forEach(environment.nodes(), node -> nodeUpdate(node, environment, currentIteration));
         environment.removeDeadAnts();
         environment.cleanupBridges();
     }
 
+    private <T> void forEach(List<T> items, Consumer<T> action) {
+        if (pool == null || items.size() <= ITEMS_PER_TASK) {
+            items.forEach(action);
+        } else {
+            pool.invoke(new RangeUpdate<>(items, 0, items.size(), action));
+        }
+    }
+
+    /**
+     * Applies the update to the items [start, end), splitting the range until it is small enough
+     */
+    private static final class RangeUpdate<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final List<T> items;
+        private final int start;
+        private final int end;
+        private final Consumer<T> action;
+
+        private RangeUpdate(List<T> items, int start, int end, Consumer<T> action) {
+            this.items = items;
+            this.start = start;
+            this.end = end;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= ITEMS_PER_TASK) {
+                for (int i = start; i < end; i++) {
+                    action.accept(items.get(i));
+                }
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new RangeUpdate<>(items, start, middle, action), new RangeUpdate<>(items, middle, end, action));
+            }
+        }
+    }
+
 }
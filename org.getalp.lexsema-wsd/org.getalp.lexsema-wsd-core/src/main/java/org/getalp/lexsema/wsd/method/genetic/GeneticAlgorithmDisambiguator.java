@@ -3,13 +3,14 @@ package org.getalp.lexsema.wsd.method.genetic;
 import org.apache.commons.math3.genetics.*;
 import org.getalp.lexsema.similarity.Document;
 import org.getalp.lexsema.wsd.configuration.Configuration;
-import org.getalp.lexsema.wsd.method.Disambiguator;
+import org.getalp.lexsema.wsd.configuration.ContinuousConfiguration;
+import org.getalp.lexsema.wsd.method.AnytimeDisambiguator;
 import org.getalp.lexsema.wsd.method.StopCondition;
 import org.getalp.lexsema.wsd.score.ConfigurationScorer;
 
 import java.io.PrintWriter;
 
-public class GeneticAlgorithmDisambiguator implements Disambiguator
+public class GeneticAlgorithmDisambiguator implements AnytimeDisambiguator
 {
     public PrintWriter plotWriter = null;
 
@@ -23,7 +24,9 @@ public class GeneticAlgorithmDisambiguator implements Disambiguator
 
     private ConfigurationScorer scorer;
     
-    public static double bestScore = 0;
+    private double bestScore = 0;
+
+    private volatile ContinuousConfiguration bestConfiguration;
     
     public GeneticAlgorithmDisambiguator(StopCondition stopCondition, int population, double crossoverRate, double mutationRate, ConfigurationScorer scorer)
     {
@@ -37,13 +40,21 @@ public class GeneticAlgorithmDisambiguator implements Disambiguator
     public Configuration disambiguate(Document document)
     {
         stopCondition.reset();
+        bestConfiguration = null;
         StoppingCondition stoppingCondition = new StoppingCondition()
         {
             public boolean isSatisfied(Population population)
             {
                 stopCondition.incrementIterations();
                 stopCondition.updateMilliseconds();
-                bestScore = population.getFittestChromosome().getFitness();
+                GeneticConfigurationChromosome fittest = (GeneticConfigurationChromosome) population.getFittestChromosome();
+                if (bestConfiguration == null || fittest.getFitness() > bestScore)
+                {
+                    bestConfiguration = fittest.configuration.clone();
+                }
+                bestScore = fittest.getFitness();
+                stopCondition.updateBestScore(bestScore);
+                if (plotWriter != null) plotWriter.println(stopCondition.getCurrent() + " " + bestScore);
                 return stopCondition.stop();
             }
         };
@@ -51,7 +62,7 @@ public class GeneticAlgorithmDisambiguator implements Disambiguator
         Population population = new ElitisticListPopulation(this.population, 0.2);
         for (int i = 0 ; i < this.population ; i++)
         {
-            population.addChromosome(new GeneticConfigurationChromosome(document, scorer, stopCondition, plotWriter));
+            population.addChromosome(new GeneticConfigurationChromosome(document, scorer, stopCondition));
         }
         
         GeneticConfigurationCrossoverPolicy crossoverPolicy = new GeneticConfigurationCrossoverPolicy(stopCondition);
@@ -70,6 +81,17 @@ public class GeneticAlgorithmDisambiguator implements Disambiguator
         return disambiguate(document);
     }
 
+    public Configuration getBestConfiguration()
+    {
+        ContinuousConfiguration best = bestConfiguration;
+        return best == null ? null : best.clone();
+    }
+
+    public double getBestScore()
+    {
+        return bestScore;
+    }
+
     public void release()
     {
         scorer.release();
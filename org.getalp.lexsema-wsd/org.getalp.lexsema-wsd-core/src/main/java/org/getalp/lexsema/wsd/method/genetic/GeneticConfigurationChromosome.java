@@ -6,8 +6,6 @@ import org.getalp.lexsema.wsd.configuration.ContinuousConfiguration;
 import org.getalp.lexsema.wsd.method.StopCondition;
 import org.getalp.lexsema.wsd.score.ConfigurationScorer;
 
-import java.io.PrintWriter;
-
 public class GeneticConfigurationChromosome extends Chromosome
 {
     public ContinuousConfiguration configuration;
@@ -15,35 +13,58 @@ public class GeneticConfigurationChromosome extends Chromosome
     public ConfigurationScorer scorer;
     
     public StopCondition stopCondition;
+
+    private double evaluatedFitness = Double.NaN;
     
-    public PrintWriter plotWriter = null;
-    
-    public GeneticConfigurationChromosome(Document doc, ConfigurationScorer scorer, StopCondition stopCondition, PrintWriter plotWriter)
+    public GeneticConfigurationChromosome(Document doc, ConfigurationScorer scorer, StopCondition stopCondition)
     {
         configuration = new ContinuousConfiguration(doc);
         this.scorer = scorer;
         this.stopCondition = stopCondition;
-        this.plotWriter = plotWriter;
     }
     
-    public GeneticConfigurationChromosome(Document doc, int[] senses, ConfigurationScorer scorer, StopCondition stopCondition, PrintWriter plotWriter)
+    public GeneticConfigurationChromosome(Document doc, int[] senses, ConfigurationScorer scorer, StopCondition stopCondition)
     {
         configuration = new ContinuousConfiguration(doc, senses);
         this.scorer = scorer;
         this.stopCondition = stopCondition;
-        this.plotWriter = plotWriter;
     }
     
     public double fitness()
     {
+        if (isEvaluated())
+        {
+            return evaluatedFitness;
+        }
 		double score = scorer.computeScore(configuration.getDocument(), configuration);
 		stopCondition.incrementScorerCalls();
-		if (plotWriter != null) plotWriter.println(stopCondition.getCurrent() + " " + GeneticAlgorithmDisambiguator.bestScore);
         return score;
     }
+
+    /**
+     * Scores the chromosome with the given scorer, e.g. one that belongs to the current thread, so that
+     * {@link #getFitness()} no longer needs to. The caller accounts for the scorer call.
+     */
+    public void evaluate(ConfigurationScorer threadScorer)
+    {
+        evaluatedFitness = threadScorer.computeScore(configuration.getDocument(), configuration);
+    }
+
+    /**
+     * Sets the fitness of a chromosome known to have the same senses as one already scored
+     */
+    public void setEvaluatedFitness(double fitness)
+    {
+        evaluatedFitness = fitness;
+    }
+
+    public boolean isEvaluated()
+    {
+        return !Double.isNaN(evaluatedFitness);
+    }
     
     public GeneticConfigurationChromosome clone()
     {
-        return new GeneticConfigurationChromosome(configuration.getDocument(), configuration.getAssignments(), scorer, stopCondition, plotWriter);
+        return new GeneticConfigurationChromosome(configuration.getDocument(), configuration.getAssignments(), scorer, stopCondition);
     }
 }
@@ -0,0 +1,241 @@
+package org.getalp.lexsema.wsd.method.genetic;
+
+import org.apache.commons.math3.genetics.*;
+import org.getalp.lexsema.similarity.Document;
+import org.getalp.lexsema.wsd.configuration.Configuration;
+import org.getalp.lexsema.wsd.configuration.ContinuousConfiguration;
+import org.getalp.lexsema.wsd.method.AnytimeDisambiguator;
+import org.getalp.lexsema.wsd.method.StopCondition;
+import org.getalp.lexsema.wsd.score.ConfigurationScorer;
+
+import java.io.PrintWriter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Supplier;
+
+/**
+ * The genetic algorithm of {@link GeneticAlgorithmDisambiguator} (elitist population, tournament selection, same
+ * crossover and mutation policies), with the fitness of each generation evaluated concurrently.
+ * <p>
+ * Before the selection of a generation, the chromosomes that have not been scored yet are scored in parallel on a
+ * fork/join pool, each worker with a scorer of its own built by the given supplier. The scorers are kept by pool index
+ * of the workers, which the pool reuses when it replaces a worker, so there are never more scorers than workers at
+ * once. A chromosome whose senses
+ * are those of a chromosome of the previous generation (an elite, or a child identical to its parents) reuses its
+ * fitness instead of being scored again. The best configuration and its score are kept by the instance.
+ */
+public class ParallelGeneticAlgorithmDisambiguator implements AnytimeDisambiguator
+{
+    private static final double ELITISM_RATE = 0.2;
+
+    private static final int TOURNAMENT_ARITY = 2;
+
+    public PrintWriter plotWriter = null;
+
+    private final StopCondition stopCondition;
+
+    private final int population;
+
+    private final double crossoverRate;
+
+    private final double mutationRate;
+
+    private final Supplier<ConfigurationScorer> scorerSupplier;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * The scorer of each worker of the pool by pool index, and the scorer of any other thread at -1
+     */
+    private final ConcurrentMap<Integer, ConfigurationScorer> workerScorers = new ConcurrentHashMap<>();
+
+    private double bestScore;
+
+    private volatile ContinuousConfiguration bestConfiguration;
+
+    /**
+     * @param scorerSupplier Builds the scorer of each thread, e.g. {@code () -> new ConfigurationScorerWithCache(cache, false)}
+     *                       over a shared {@link org.getalp.lexsema.wsd.score.SensePairSimilarityCache}
+     * @param numberThreads  The number of threads that score a generation
+     */
+    public ParallelGeneticAlgorithmDisambiguator(StopCondition stopCondition, int population, double crossoverRate, double mutationRate,
+                                                 Supplier<ConfigurationScorer> scorerSupplier, int numberThreads)
+    {
+        this.stopCondition = stopCondition;
+        this.population = population;
+        this.crossoverRate = crossoverRate;
+        this.mutationRate = mutationRate;
+        this.scorerSupplier = scorerSupplier;
+        pool = new ForkJoinPool(numberThreads);
+    }
+
+    public ParallelGeneticAlgorithmDisambiguator(StopCondition stopCondition, int population, double crossoverRate, double mutationRate,
+                                                 Supplier<ConfigurationScorer> scorerSupplier)
+    {
+        this(stopCondition, population, crossoverRate, mutationRate, scorerSupplier, Runtime.getRuntime().availableProcessors());
+    }
+
+    public Configuration disambiguate(Document document)
+    {
+        stopCondition.reset();
+        bestScore = Double.NEGATIVE_INFINITY;
+        bestConfiguration = null;
+
+        Population current = new ElitisticListPopulation(population, ELITISM_RATE);
+        for (int i = 0 ; i < population ; i++)
+        {
+            // The chromosomes are always evaluated before their fitness is needed, so they carry no scorer
+            current.addChromosome(new GeneticConfigurationChromosome(document, null, stopCondition));
+        }
+
+        GeneticConfigurationCrossoverPolicy crossoverPolicy = new GeneticConfigurationCrossoverPolicy(stopCondition);
+        GeneticConfigurationMutationPolicy mutationPolicy = new GeneticConfigurationMutationPolicy();
+        TournamentSelection selectionPolicy = new TournamentSelection(TOURNAMENT_ARITY);
+        GeneticAlgorithm ga = new GeneticAlgorithm(crossoverPolicy, crossoverRate, mutationPolicy, mutationRate, selectionPolicy);
+
+        Map<Genotype, Double> previousFitness = Collections.emptyMap();
+        while (true)
+        {
+            previousFitness = evaluate(current, previousFitness);
+            GeneticConfigurationChromosome fittest = (GeneticConfigurationChromosome) current.getFittestChromosome();
+            if (fittest.getFitness() > bestScore)
+            {
+                bestScore = fittest.getFitness();
+                bestConfiguration = fittest.configuration.clone();
+            }
+            stopCondition.updateBestScore(bestScore);
+            if (plotWriter != null) plotWriter.println(stopCondition.getCurrent() + " " + bestScore);
+            stopCondition.incrementIterations();
+            stopCondition.updateMilliseconds();
+            if (stopCondition.stop())
+            {
+                break;
+            }
+            current = ga.nextGeneration(current);
+        }
+        if (plotWriter != null) plotWriter.flush();
+        return getBestConfiguration();
+    }
+
+    /**
+     * Scores the chromosomes of the generation that are not evaluated yet, in parallel
+     * @return The fitness of the chromosomes of the generation, by senses
+     */
+    private Map<Genotype, Double> evaluate(Population generation, Map<Genotype, Double> previousFitness)
+    {
+        List<GeneticConfigurationChromosome> pending = new ArrayList<>();
+        for (Chromosome chromosome : generation)
+        {
+            GeneticConfigurationChromosome configurationChromosome = (GeneticConfigurationChromosome) chromosome;
+            if (!configurationChromosome.isEvaluated())
+            {
+                Double fitness = previousFitness.get(new Genotype(configurationChromosome.configuration.getAssignments()));
+                if (fitness != null)
+                {
+                    configurationChromosome.setEvaluatedFitness(fitness);
+                }
+                else
+                {
+                    pending.add(configurationChromosome);
+                }
+            }
+        }
+        try
+        {
+            pool.submit(() -> pending.parallelStream().forEach(c -> c.evaluate(workerScorer()))).get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scoring a generation", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("Failed to score a generation", e.getCause());
+        }
+        for (int i = 0 ; i < pending.size() ; i++)
+        {
+            stopCondition.incrementScorerCalls();
+        }
+
+        Map<Genotype, Double> fitness = new HashMap<>();
+        for (Chromosome chromosome : generation)
+        {
+            GeneticConfigurationChromosome configurationChromosome = (GeneticConfigurationChromosome) chromosome;
+            fitness.put(new Genotype(configurationChromosome.configuration.getAssignments()), configurationChromosome.getFitness());
+        }
+        return fitness;
+    }
+
+    /**
+     * @return The scorer of the worker of the pool that runs the current task
+     */
+    private ConfigurationScorer workerScorer()
+    {
+        Thread thread = Thread.currentThread();
+        int index = -1;
+        if (thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) thread).getPool() == pool)
+        {
+            index = ((ForkJoinWorkerThread) thread).getPoolIndex();
+        }
+        return workerScorers.computeIfAbsent(index, i -> scorerSupplier.get());
+    }
+
+    public Configuration getBestConfiguration()
+    {
+        ContinuousConfiguration best = bestConfiguration;
+        return best == null ? null : best.clone();
+    }
+
+    public double getBestScore()
+    {
+        return bestScore;
+    }
+
+    public Configuration disambiguate(Document document, Configuration c)
+    {
+        return disambiguate(document);
+    }
+
+    public void release()
+    {
+        pool.shutdown();
+        for (ConfigurationScorer scorer : workerScorers.values())
+        {
+            scorer.release();
+        }
+        workerScorers.clear();
+    }
+
+    /**
+     * The senses of a chromosome, as a key of the fitness cache
+     */
+    private static final class Genotype
+    {
+        private final int[] senses;
+
+        private final int hash;
+
+        private Genotype(int[] senses)
+        {
+            this.senses = senses.clone();
+            hash = Arrays.hashCode(senses);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return o instanceof Genotype && Arrays.equals(senses, ((Genotype) o).senses);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+    }
+}
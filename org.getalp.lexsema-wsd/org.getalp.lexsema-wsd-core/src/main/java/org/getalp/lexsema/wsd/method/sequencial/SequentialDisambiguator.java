@@ -8,31 +8,69 @@ import org.getalp.lexsema.wsd.method.sequencial.entrydisambiguators.SequentialLe
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-
-
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * Disambiguates the words of a document one at a time, each word being assigned by a
+ * {@link SequentialLexicalEntryDisambiguator} over a window around it. The entry disambiguators run on a bounded
+ * fork/join pool, so that their own scoring can fork subtasks on the same pool instead of creating threads, and the
+ * completion of the document is awaited through a {@link CompletionService}.
+ * <p>
+ * The pool is either owned by the disambiguator (and shut down by {@link #release()}), given by the caller, or the
+ * pool shared by all the sequential disambiguators of the process, sized to the number of processors.
+ */
 public abstract class SequentialDisambiguator implements Disambiguator {
 
-    ExecutorService threadPool;
-    List<Future> runningTasks;
-    private int window;
-    private static Logger logger = LoggerFactory.getLogger(SequentialDisambiguator.class);
-
+    private static final Logger logger = LoggerFactory.getLogger(SequentialDisambiguator.class);
+    private static volatile ForkJoinPool sharedPool;
 
+    private final ExecutorService threadPool;
+    private final boolean ownsThreadPool;
+    private final int window;
 
     protected SequentialDisambiguator(int window, int numThreads) {
         this.window = window;
-        threadPool = Executors.newFixedThreadPool(numThreads);
+        threadPool = new ForkJoinPool(numThreads);
+        ownsThreadPool = true;
     }
 
+    /**
+     * @param threadPool A pool that remains the caller's: {@link #release()} does not shut it down
+     */
     protected SequentialDisambiguator(int window, ExecutorService threadPool) {
         this.window = window;
         this.threadPool = threadPool;
+        ownsThreadPool = false;
+    }
+
+    /**
+     * Runs on the pool shared by the sequential disambiguators, see {@link #sharedPool()}
+     */
+    protected SequentialDisambiguator(int window) {
+        this(window, sharedPool());
+    }
+
+    /**
+     * @return The pool shared by the sequential disambiguators, created on first use with one thread per processor.
+     * Its threads are daemons, so that it never needs to be shut down.
+     */
+    public static ForkJoinPool sharedPool() {
+        ForkJoinPool pool = sharedPool;
+        if (pool == null) {
+            synchronized (SequentialDisambiguator.class) {
+                pool = sharedPool;
+                if (pool == null) {
+                    pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+                            ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, false);
+                    sharedPool = pool;
+                }
+            }
+        }
+        return pool;
     }
 
     @Override
@@ -42,15 +80,14 @@ public abstract class SequentialDisambiguator implements Disambiguator {
 
     @Override
     public Configuration disambiguate(Document document, Configuration c) {
-
-
-
-        boolean progressChecked = false;
         if (c == null) {
             c = new ConfidenceConfiguration(document);
         }
-        runningTasks = new LinkedList<>();
+        CompletionService<Void> completionService = new ExecutorCompletionService<>(threadPool);
+        List<Future<Void>> futures = new ArrayList<>();
+        AtomicBoolean abandoned = new AtomicBoolean();
         int totalWords = 0;
+        int submittedTasks = 0;
         for (int i = 0; i < document.size(); i++) {
             int start = i <= window ? 0 : i - window;
             int end = i + window < document.size() ? i + window : document.size();
@@ -58,39 +95,68 @@ public abstract class SequentialDisambiguator implements Disambiguator {
                 if (document.getSenses(i).size() == 1) {
                     c.setSense(i, 0);
                 } else {
-                    runningTasks.add(threadPool.submit(getEntryDisambiguator(start, end, i, c, document)));
+                    SequentialLexicalEntryDisambiguator entryDisambiguator = getEntryDisambiguator(start, end, i, c, document);
+                    futures.add(completionService.submit(() -> {
+                        if (!abandoned.get()) {
+                            entryDisambiguator.run();
+                        }
+                    }, null));
+                    submittedTasks++;
                 }
                 totalWords++;
             }
         }
-        int completedEntries = 0;
-        while (!progressChecked || !runningTasks.isEmpty()) {
-            for (int i = 0; i < runningTasks.size(); ) {
-                Future current = runningTasks.get(i);
-                if (current.isDone()) {
-                    runningTasks.remove(i);
-                    completedEntries++;
-                    String progress = String.format("\tDisambiguating: %.2f%%", (double) completedEntries / (double) totalWords * 100d);
-                    System.err.print(progress + "\r");
+        int completedEntries = totalWords - submittedTasks;
+        try {
+            for (int i = 0; i < submittedTasks; i++) {
+                completionService.take().get();
+                completedEntries++;
+                String progress = String.format("\tDisambiguating: %.2f%%", (double) completedEntries / (double) totalWords * 100d);
+                System.err.print(progress + "\r");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while disambiguating " + document.getId());
+            abandon(abandoned, futures);
+        } catch (ExecutionException e) {
+            logger.error(e.getLocalizedMessage());
+            abandon(abandoned, futures);
+        }
+        return c;
+    }
 
-                } else {
-                    i++;
+    /**
+     * Skips the entries that have not started yet and waits for the running ones, so that none of them assigns a sense
+     * in the configuration once it is returned. The interrupt status of the caller is kept.
+     */
+    private static void abandon(AtomicBoolean abandoned, List<Future<Void>> futures) {
+        abandoned.set(true);
+        boolean interrupted = Thread.interrupted();
+        for (Future<Void> future : futures) {
+            boolean done = false;
+            while (!done) {
+                try {
+                    future.get();
+                    done = true;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    done = true;
                 }
             }
-            progressChecked = true;
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
         }
-        return c;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     protected abstract SequentialLexicalEntryDisambiguator getEntryDisambiguator(int start, int end, int currentIndex, Configuration c, Document d);
 
     @Override
     public void release() {
+        if (!ownsThreadPool) {
+            return;
+        }
         threadPool.shutdown();
         try {
             threadPool.awaitTermination(1000, TimeUnit.MILLISECONDS);
@@ -7,6 +7,8 @@ import org.getalp.lexsema.wsd.method.sequencial.entrydisambiguators.SequentialLe
 import org.getalp.lexsema.wsd.method.sequencial.entrydisambiguators.SimplifiedLeskLexicalEntryDisambiguator;
 import org.getalp.lexsema.wsd.method.sequencial.parameters.SimplifiedLeskParameters;
 
+import java.util.concurrent.ExecutorService;
+
 public class SimplifiedLesk extends SequentialDisambiguator {
 
     SimplifiedLeskParameters params;
@@ -18,6 +20,21 @@ public class SimplifiedLesk extends SequentialDisambiguator {
         similarityMeasure = sim;
     }
 
+    /**
+     * Disambiguates on the pool shared by the sequential disambiguators
+     */
+    public SimplifiedLesk(int window, SimilarityMeasure sim, SimplifiedLeskParameters params) {
+        super(window);
+        this.params = params;
+        similarityMeasure = sim;
+    }
+
+    public SimplifiedLesk(int window, SimilarityMeasure sim, SimplifiedLeskParameters params, ExecutorService threadPool) {
+        super(window, threadPool);
+        this.params = params;
+        similarityMeasure = sim;
+    }
+
     @Override
     protected SequentialLexicalEntryDisambiguator getEntryDisambiguator(int start, int end, int currentIndex, Configuration c, Document d) {
         return new SimplifiedLeskLexicalEntryDisambiguator(c, d, similarityMeasure, params, start, end, currentIndex);
@@ -7,6 +7,8 @@ import org.getalp.lexsema.wsd.method.sequencial.entrydisambiguators.SequentialLe
 import org.getalp.lexsema.wsd.method.sequencial.entrydisambiguators.WindowedLeskLexicalEntryDisambiguator;
 import org.getalp.lexsema.wsd.method.sequencial.parameters.WindowedLeskParameters;
 
+import java.util.concurrent.ExecutorService;
+
 public class WindowedLesk extends SequentialDisambiguator {
 
     WindowedLeskParameters params;
@@ -18,6 +20,21 @@ public class WindowedLesk extends SequentialDisambiguator {
         this.similarityMeasure = sim;
     }
 
+    /**
+     * Disambiguates on the pool shared by the sequential disambiguators
+     */
+    public WindowedLesk(int window, SimilarityMeasure sim, WindowedLeskParameters params) {
+        super(window);
+        this.params = params;
+        this.similarityMeasure = sim;
+    }
+
+    public WindowedLesk(int window, SimilarityMeasure sim, WindowedLeskParameters params, ExecutorService threadPool) {
+        super(window, threadPool);
+        this.params = params;
+        this.similarityMeasure = sim;
+    }
+
     @Override
     protected SequentialLexicalEntryDisambiguator getEntryDisambiguator(int start, int end, int currentIndex, Configuration c, Document d) {
         return new WindowedLeskLexicalEntryDisambiguator(c, d, similarityMeasure, params, start, end, currentIndex);
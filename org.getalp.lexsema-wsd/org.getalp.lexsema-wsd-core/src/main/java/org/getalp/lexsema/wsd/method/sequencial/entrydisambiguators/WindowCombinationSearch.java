@@ -0,0 +1,326 @@
+package org.getalp.lexsema.wsd.method.sequencial.entrydisambiguators;
+
+import org.getalp.lexsema.similarity.Document;
+import org.getalp.lexsema.similarity.Sense;
+import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Exact search over the sense combinations of a window of words, scored as the
+ * {@link org.getalp.lexsema.wsd.score.TverskyConfigurationScorer} scores them: the sum, over every pair of words i &lt; j
+ * of the window, of the similarity of the sense of i with the sense of j.
+ * <p>
+ * The similarities of all the pairs of senses are computed once, then the combinations are explored depth first with
+ * branch and bound instead of being enumerated: the score of the pairs among the words already assigned is known, and
+ * the pairs involving the other words are bounded by their best and worst possible values. Subtrees that cannot reach
+ * what is searched for are pruned, and subtrees whose combinations all qualify are counted without being visited.
+ * <p>
+ * The complete combinations are scored by summing the pairs in the same order as the scorer, so that the extrema and
+ * the comparisons to them are those an enumeration would give; the bounds are only used with a small tolerance for
+ * their own rounding errors when counting.
+ */
+final class WindowCombinationSearch {
+
+    private static final double RELATIVE_TOLERANCE = 1e-9;
+
+    private final int size;
+    private final int[] senseCounts;
+    /**
+     * pairScores[i][j][k * senseCounts[j] + l] is the similarity of the sense k of i with the sense l of j, for i &lt; j
+     */
+    private final double[][][] pairScores;
+    private final double[][] maximumPairScores;
+    private final double[][] minimumPairScores;
+    private final double tolerance;
+
+    private int[] order;
+    private double[] remainingMaximum;
+    private double[] remainingMinimum;
+    private double[][][] partialScores;
+    private final int[] assignment;
+
+    private double best;
+    private double target;
+    private double maximum;
+    private double threshold;
+    private int countedWord;
+    private long[] counts;
+
+    WindowCombinationSearch(Document document, SimilarityMeasure similarityMeasure, int start, int end) {
+        size = Math.max(0, Math.min(end, document.size()) - start);
+        senseCounts = new int[size];
+        List<List<Sense>> senses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            senses.add(document.getSenses(start, i));
+            senseCounts[i] = senses.get(i).size();
+        }
+        pairScores = new double[size][size][];
+        maximumPairScores = new double[size][size];
+        minimumPairScores = new double[size][size];
+        if (ForkJoinTask.inForkJoinPool()) {
+            // Running as a task of the disambiguator's pool: the rows are forked on the same pool
+            List<ForkJoinTask<?>> rows = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                final int row = i;
+                rows.add(ForkJoinTask.adapt(() -> scoreRow(row, senses, similarityMeasure)));
+            }
+            ForkJoinTask.invokeAll(rows);
+        } else {
+            for (int i = 0; i < size; i++) {
+                scoreRow(i, senses, similarityMeasure);
+            }
+        }
+        double magnitude = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                if (pairScores[i][j].length > 0) {
+                    magnitude += Math.max(Math.abs(maximumPairScores[i][j]), Math.abs(minimumPairScores[i][j]));
+                }
+            }
+        }
+        tolerance = RELATIVE_TOLERANCE * (1 + magnitude);
+        assignment = new int[size];
+    }
+
+    /**
+     * Computes the similarities of the senses of the word i with the senses of the following words
+     */
+    private void scoreRow(int i, List<List<Sense>> senses, SimilarityMeasure similarityMeasure) {
+        for (int j = i + 1; j < size; j++) {
+            double[] scores = new double[senseCounts[i] * senseCounts[j]];
+            double pairMaximum = Double.NEGATIVE_INFINITY;
+            double pairMinimum = Double.POSITIVE_INFINITY;
+            for (int k = 0; k < senseCounts[i]; k++) {
+                for (int l = 0; l < senseCounts[j]; l++) {
+                    double value = senses.get(i).get(k).computeSimilarityWith(similarityMeasure, senses.get(j).get(l));
+                    value = Double.isNaN(value) ? 0 : value;
+                    scores[k * senseCounts[j] + l] = value;
+                    pairMaximum = Math.max(pairMaximum, value);
+                    pairMinimum = Math.min(pairMinimum, value);
+                }
+            }
+            pairScores[i][j] = scores;
+            maximumPairScores[i][j] = maximumPairScores[j][i] = pairMaximum;
+            minimumPairScores[i][j] = minimumPairScores[j][i] = pairMinimum;
+        }
+    }
+
+    /**
+     * @return Whether the window has no combination at all, which is the case when one of its words has no sense
+     */
+    boolean isEmpty() {
+        for (int count : senseCounts) {
+            if (count == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The best score of the combinations of a window that is not empty
+     */
+    double maximum() {
+        prepare(-1);
+        best = Double.NEGATIVE_INFINITY;
+        maximize(0, 0);
+        return best;
+    }
+
+    /**
+     * @return The worst score of the combinations of a window that is not empty
+     */
+    double minimum() {
+        prepare(-1);
+        best = Double.POSITIVE_INFINITY;
+        minimize(0, 0);
+        return best;
+    }
+
+    /**
+     * Counts, for each sense of a word, the combinations that give it to the word and whose score is within the
+     * threshold of the maximum, i.e. {@code Math.abs(score - maximum) < threshold}
+     *
+     * @param word      The index of the word in the window
+     * @param maximum   The best score of the combinations, as returned by {@link #maximum()}
+     * @param threshold The largest distance to the maximum, exclusive
+     * @return The number of near-optimal combinations by sense of the word
+     */
+    long[] countNearMaximum(int word, double maximum, double threshold) {
+        prepare(word);
+        this.maximum = maximum;
+        this.threshold = threshold;
+        target = maximum - threshold;
+        countedWord = word;
+        counts = new long[senseCounts[word]];
+        if (threshold > 0) {
+            count(0, 0);
+        }
+        return counts;
+    }
+
+    /**
+     * Orders the words for the search, the given word first if any and then the words with the most senses, whose
+     * bounds are the loosest, and precomputes the bounds of the pairs among the words left at each depth
+     */
+    private void prepare(int first) {
+        order = new int[size];
+        boolean[] placed = new boolean[size];
+        int depth = 0;
+        if (first >= 0) {
+            order[depth++] = first;
+            placed[first] = true;
+        }
+        while (depth < size) {
+            int next = -1;
+            for (int i = 0; i < size; i++) {
+                if (!placed[i] && (next == -1 || senseCounts[i] > senseCounts[next])) {
+                    next = i;
+                }
+            }
+            order[depth++] = next;
+            placed[next] = true;
+        }
+        remainingMaximum = new double[size + 1];
+        remainingMinimum = new double[size + 1];
+        for (int d = size - 1; d >= 0; d--) {
+            double pairMaximum = 0;
+            double pairMinimum = 0;
+            for (int e = d + 1; e < size; e++) {
+                pairMaximum += maximumPairScores[order[d]][order[e]];
+                pairMinimum += minimumPairScores[order[d]][order[e]];
+            }
+            remainingMaximum[d] = remainingMaximum[d + 1] + pairMaximum;
+            remainingMinimum[d] = remainingMinimum[d + 1] + pairMinimum;
+        }
+        // partialScores[d][w][l]: score of the pairs between the words assigned before depth d and the sense l of w
+        partialScores = new double[size + 1][size][];
+        for (int d = 0; d <= size; d++) {
+            for (int w = 0; w < size; w++) {
+                partialScores[d][w] = new double[senseCounts[w]];
+            }
+        }
+    }
+
+    private void maximize(int depth, double fixed) {
+        if (depth == size) {
+            best = Math.max(best, exactScore());
+            return;
+        }
+        if (upperBound(depth, fixed) <= best) {
+            return;
+        }
+        int word = order[depth];
+        for (int k = 0; k < senseCounts[word]; k++) {
+            assign(depth, word, k);
+            maximize(depth + 1, fixed + partialScores[depth][word][k]);
+        }
+    }
+
+    private void minimize(int depth, double fixed) {
+        if (depth == size) {
+            best = Math.min(best, exactScore());
+            return;
+        }
+        if (lowerBound(depth, fixed) >= best) {
+            return;
+        }
+        int word = order[depth];
+        for (int k = 0; k < senseCounts[word]; k++) {
+            assign(depth, word, k);
+            minimize(depth + 1, fixed + partialScores[depth][word][k]);
+        }
+    }
+
+    private void count(int depth, double fixed) {
+        if (depth == size) {
+            if (Math.abs(exactScore() - maximum) < threshold) {
+                counts[assignment[countedWord]]++;
+            }
+            return;
+        }
+        if (upperBound(depth, fixed) < target - tolerance) {
+            return;
+        }
+        // The counted word is assigned first, so its sense is known for every subtree below the root
+        if (depth > 0 && lowerBound(depth, fixed) > target + tolerance) {
+            counts[assignment[countedWord]] += combinationsFrom(depth);
+            return;
+        }
+        int word = order[depth];
+        for (int k = 0; k < senseCounts[word]; k++) {
+            assign(depth, word, k);
+            count(depth + 1, fixed + partialScores[depth][word][k]);
+        }
+    }
+
+    /**
+     * Assigns the sense k to the word at the given depth and accumulates its pairs with the words left
+     */
+    private void assign(int depth, int word, int k) {
+        assignment[word] = k;
+        for (int e = depth + 1; e < size; e++) {
+            int other = order[e];
+            double[] previous = partialScores[depth][other];
+            double[] next = partialScores[depth + 1][other];
+            for (int l = 0; l < next.length; l++) {
+                next[l] = previous[l] + pairScore(word, k, other, l);
+            }
+        }
+    }
+
+    private double upperBound(int depth, double fixed) {
+        double bound = fixed + remainingMaximum[depth];
+        for (int e = depth; e < size; e++) {
+            double wordMaximum = Double.NEGATIVE_INFINITY;
+            for (double value : partialScores[depth][order[e]]) {
+                wordMaximum = Math.max(wordMaximum, value);
+            }
+            bound += wordMaximum;
+        }
+        return bound;
+    }
+
+    private double lowerBound(int depth, double fixed) {
+        double bound = fixed + remainingMinimum[depth];
+        for (int e = depth; e < size; e++) {
+            double wordMinimum = Double.POSITIVE_INFINITY;
+            for (double value : partialScores[depth][order[e]]) {
+                wordMinimum = Math.min(wordMinimum, value);
+            }
+            bound += wordMinimum;
+        }
+        return bound;
+    }
+
+    private long combinationsFrom(int depth) {
+        long combinations = 1;
+        for (int e = depth; e < size; e++) {
+            combinations *= senseCounts[order[e]];
+        }
+        return combinations;
+    }
+
+    private double pairScore(int i, int k, int j, int l) {
+        return i < j ? pairScores[i][j][k * senseCounts[j] + l] : pairScores[j][i][l * senseCounts[i] + k];
+    }
+
+    /**
+     * Scores the current combination by summing the pairs of each word with the following ones, then the sums of the
+     * words, in the order of the configuration scorer
+     */
+    private double exactScore() {
+        double score = 0;
+        for (int i = 0; i < size; i++) {
+            double entryScore = 0;
+            for (int j = i + 1; j < size; j++) {
+                entryScore += pairScores[i][j][assignment[i] * senseCounts[j] + assignment[j]];
+            }
+            score += entryScore;
+        }
+        return score;
+    }
+}
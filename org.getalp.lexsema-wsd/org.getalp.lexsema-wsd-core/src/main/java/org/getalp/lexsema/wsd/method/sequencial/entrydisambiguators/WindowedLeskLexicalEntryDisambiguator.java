@@ -3,15 +3,10 @@ package org.getalp.lexsema.wsd.method.sequencial.entrydisambiguators;
 import org.getalp.lexsema.similarity.Document;
 import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
 import org.getalp.lexsema.wsd.configuration.Configuration;
-import org.getalp.lexsema.wsd.configuration.SubConfiguration;
 import org.getalp.lexsema.wsd.method.sequencial.parameters.WindowedLeskParameters;
-import org.getalp.lexsema.wsd.score.ConfigurationScorer;
-import org.getalp.lexsema.wsd.score.TverskyConfigurationScorer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
-
 
 public class WindowedLeskLexicalEntryDisambiguator extends SequentialLexicalEntryDisambiguator {
 
@@ -19,7 +14,6 @@ public class WindowedLeskLexicalEntryDisambiguator extends SequentialLexicalEntr
 
     private WindowedLeskParameters params;
     private SimilarityMeasure similarityMeasure;
-    private ConfigurationScorer configurationScorer;
 
     public WindowedLeskLexicalEntryDisambiguator(Configuration c, Document d, SimilarityMeasure sim,
                                                  WindowedLeskParameters params,
@@ -27,93 +21,39 @@ public class WindowedLeskLexicalEntryDisambiguator extends SequentialLexicalEntr
         super(c, d, start, end, currentIndex);
         this.params = params;
         similarityMeasure = sim;
-        configurationScorer = new TverskyConfigurationScorer(sim, Runtime.getRuntime().availableProcessors());
     }
 
+    /**
+     * Selects the sense of the current word that appears the most often in the combinations of the window whose score
+     * is within 5% of the score range from the best score, ties going to the lowest sense index. The combinations are
+     * not enumerated: a {@link WindowCombinationSearch} finds the extrema and counts the near-optimal combinations by
+     * branch and bound, which keeps windows of 5 to 7 words tractable.
+     */
     @Override
     public void run() {
         try {
-            SubConfiguration nsc = new SubConfiguration(getDocument(), getStart(), getEnd());
-            List<SubConfiguration> combinations = getCombinations(0, nsc, getDocument());
             int selected = -1;
             if (numberOfSenses(getCurrentIndex()) == 1) {
                 selected = 0;
             } else {
-                int minIndex = -1;
-                int maxIndex = -1;
-                double minValue;
-                double prevMinValue;
-                double maxValue;
-                double prevMaxValue;
-
-                minValue = Double.MAX_VALUE;
-                prevMinValue = 0;
-
-                maxValue = -Double.MAX_VALUE;
-                prevMaxValue = 0;
-
-                List<Double> results = new ArrayList<>();
-                Collection<Integer> candidates = new ArrayList<>();
-                List<Configuration> configurations = new ArrayList<>();
-                for (int cmb = 0; cmb < combinations.size(); cmb++) {
-                    //String wordProgress = String.format("%.2f%%", (100d * ((double) cmb / (double) combinations.size())));
-                    //System.err.print( progress + " ==> "+currentEntry.getLemma()+"#"+ currentEntry.getPos() + " ["+cmb+"/"+combinations.size()+" | "+wordProgress +"]\r");
-                    Configuration sc = combinations.get(cmb);
-
-                    /*FunctionInput sci = new ConfigurationEntryPairwiseScoreInput(sc, getDocument(),
-                            getCurrentIndex() - sc.getStart(), similarityMeasure);
-                    Function f = new Sum(1);
-                    double score = f.F(sci) / sc.size();*/
-                    double score = configurationScorer.computeScore(getDocument(), sc);
-                    //System.err.println(score);
-                    if (score <= minValue) {
-                        prevMinValue = minValue;
-                        minValue = score;
-                        minIndex = cmb;
-                    }
-                    if (score >= maxValue) {
-                        prevMaxValue = maxValue;
-                        maxValue = score;
-                        maxIndex = cmb;
-                    }
-                    results.add(score);
-                    configurations.add(sc);
-                }
-
-
-                double range = maxValue - minValue;
-                double threshold = .05 * range;
-                Map<Integer, Integer> candidateHistogram = new HashMap<>();
-                for (int i = 0; i < results.size(); i++) {
-                    if (Math.abs(results.get(i) - maxValue) < threshold) {
-                        int assignment = configurations.get(i).getAssignment(getCurrentIndex() - combinations.get(minIndex).getStart());
-                        if (!candidateHistogram.containsKey(assignment)) {
-                            candidateHistogram.put(assignment, 0);
-                        } else {
-                            candidateHistogram.put(assignment, candidateHistogram.get(assignment) + 1);
-                        }
-
-                    }
-                }
+                WindowCombinationSearch search = new WindowCombinationSearch(getDocument(), similarityMeasure,
+                        getStart(), getEnd());
                 int maxSensIndex = 0;
-                int senseCount = -1;
-                for (int sense : candidateHistogram.keySet()) {
-                    if (candidateHistogram.get(sense) > senseCount) {
-                        senseCount = candidateHistogram.get(sense);
-                        maxSensIndex = sense;
-
+                if (!search.isEmpty()) {
+                    double maxValue = search.maximum();
+                    double minValue = search.minimum();
+                    double range = maxValue - minValue;
+                    double threshold = .05 * range;
+                    long[] candidateHistogram = search.countNearMaximum(getCurrentIndex() - getStart(), maxValue, threshold);
+                    long senseCount = 0;
+                    for (int sense = 0; sense < candidateHistogram.length; sense++) {
+                        if (candidateHistogram[sense] > senseCount) {
+                            senseCount = candidateHistogram[sense];
+                            maxSensIndex = sense;
+                        }
                     }
                 }
 
-
-                /*if (params.isMinimize() && minIndex == -1 || !params.isMinimize() && maxIndex == -1) {
-                    selected = -1;
-                } else if (params.isMinimize()) {
-                    selected = combinations.get(minIndex).getAssignment(getCurrentIndex() - combinations.get(minIndex).getStart());
-                } else {
-                    selected = combinations.get(maxIndex).getAssignment(getCurrentIndex() - combinations.get(maxIndex).getStart());
-                }*/
-
                 selected = maxSensIndex;
 
                 if (params.isFallbackFS() && selected == -1) {
@@ -128,19 +68,4 @@ public class WindowedLeskLexicalEntryDisambiguator extends SequentialLexicalEntr
             System.exit(1);
         }
     }
-
-    private List<SubConfiguration> getCombinations(int currentIndex, SubConfiguration s, Document d) {
-        List<SubConfiguration> combinations = new ArrayList<>();
-        if (currentIndex < s.size()) {
-            for (int i = 0; i < d.getSenses(s.getStart(), currentIndex).size(); i++) {
-                SubConfiguration newSub = new SubConfiguration(s);
-                newSub.setSense(currentIndex, i);
-                combinations.addAll(getCombinations(currentIndex + 1, newSub, d));
-            }
-
-        } else {
-            combinations.add(s);
-        }
-        return combinations;
-    }
 }
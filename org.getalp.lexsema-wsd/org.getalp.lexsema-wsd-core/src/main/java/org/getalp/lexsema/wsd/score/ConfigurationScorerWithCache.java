@@ -1,20 +1,17 @@
 package org.getalp.lexsema.wsd.score;
 
 import org.getalp.lexsema.similarity.Document;
-import org.getalp.lexsema.similarity.Sense;
 import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
 import org.getalp.lexsema.wsd.configuration.Configuration;
 
-public class ConfigurationScorerWithCache implements ConfigurationScorer
+public class ConfigurationScorerWithCache implements IncrementalConfigurationScorer
 {
     private SimilarityMeasure similarityMeasure;
-    
-    private double[][][][] cache;
-    
-    private Document currentDocument;
+
+    private SensePairSimilarityCache cache;
 
     private boolean verbose;
-    
+
     public ConfigurationScorerWithCache(SimilarityMeasure similarityMeasure)
     {
         this(similarityMeasure, false);
@@ -25,43 +22,22 @@ public class ConfigurationScorerWithCache implements ConfigurationScorer
         this.similarityMeasure = similarityMeasure;
         this.verbose = verbose;
         cache = null;
-        currentDocument = null;
+    }
+
+    /**
+     * Creates a scorer that starts from an existing cache, e.g. one filled by a previous run on the same document
+     */
+    public ConfigurationScorerWithCache(SensePairSimilarityCache cache, boolean verbose)
+    {
+        this.similarityMeasure = cache.getSimilarityMeasure();
+        this.verbose = verbose;
+        this.cache = cache;
     }
 
     public double computeScore(Document d, Configuration c)
     {
-        if (currentDocument != d)
-        {
-            cache = new double[d.size()][d.size()][][];
-            for (int i = 0 ; i < d.size() ; i++)
-            {
-                for (int j = i + 1 ; j < d.size() ; j++)
-                {
-                    cache[i][j] = new double[d.getSenses(i).size()][d.getSenses(j).size()];
-                    for (int k = 0 ; k < d.getSenses(i).size() ; k++)
-                    {
-                        for (int l = 0 ; l < d.getSenses(j).size() ; l++)
-                        {
-                            cache[i][j][k][l] = -1;
-                        }
-                    }
-                }
-            }
-            if (verbose)
-            {
-                long size = 0;
-                for (int i = 0 ; i < cache.length ; i++) {
-                    for (int j = 0 ; j < cache[i].length ; j++) {
-                        for (int k = 0 ; k < cache[i][j].length ; k++) {
-                            size += cache[i][j][k].length;
-                        }
-                    }
-                }
-                System.out.println("Initialized cache of size " + size);
-            }
-            currentDocument = d;
-        }
-        
+        initializeCache(d);
+
         double totalScore = 0;
         for (int i = 0 ; i < c.size() ; i++)
         {
@@ -71,29 +47,56 @@ public class ConfigurationScorerWithCache implements ConfigurationScorer
             double score = 0;
             int k = c.getAssignment(i);
             if (k < 0 || d.getSenses(i).isEmpty()) continue;
-            Sense senseA = d.getSenses(i).get(k);
             for (int j = i + 1 ; j < c.size() ; j++)
             {
                 int l = c.getAssignment(j);
                 if (l < 0 || d.getSenses(j).isEmpty()) continue;
-                double cacheCell = cache[i][j][k][l];
-                if (cacheCell != -1)
-                {
-                    score += cacheCell;
-                }
-                else
-                {
-                    Sense senseB = d.getSenses(j).get(l);
-                    double similarity = senseA.computeSimilarityWith(similarityMeasure, senseB);
-                    score += similarity;
-                    cache[i][j][k][l] = similarity;
-                }
+                score += cache.similarity(i, k, j, l);
             }
             totalScore += score;
         }
         return totalScore;
     }
 
+    public double scoreDelta(Document d, double previousScore, Configuration previous, Configuration c, int[] changedIndices)
+    {
+        if (cache == null || cache.getDocument() != d)
+        {
+            return computeScore(d, c);
+        }
+        boolean[] changed = new boolean[c.size()];
+        int[] distinctChanges = DeltaScoring.distinctChanges(c.size(), changedIndices, changed);
+        if (distinctChanges == null)
+        {
+            return computeScore(d, c);
+        }
+        return DeltaScoring.scoreDelta(previousScore, previous, c, distinctChanges, changed,
+                                       (i, k, j, l) -> pairScore(d, i, k, j, l));
+    }
+
+    private double pairScore(Document d, int i, int k, int j, int l)
+    {
+        if (k < 0 || l < 0 || d.getSenses(i).isEmpty() || d.getSenses(j).isEmpty()) return 0;
+        return cache.similarity(i, k, j, l);
+    }
+
+    private void initializeCache(Document d)
+    {
+        if (cache == null || cache.getDocument() != d)
+        {
+            cache = new SensePairSimilarityCache(d, similarityMeasure);
+            if (verbose)
+            {
+                System.out.println("Initialized cache of size " + cache.size());
+            }
+        }
+    }
+
+    public SensePairSimilarityCache getCache()
+    {
+        return cache;
+    }
+
     public void release()
     {
 
@@ -0,0 +1,78 @@
+package org.getalp.lexsema.wsd.score;
+
+import org.getalp.lexsema.wsd.configuration.Configuration;
+
+/**
+ * Shared implementation of {@link IncrementalConfigurationScorer#scoreDelta} for the scorers that sum a
+ * symmetric pairwise score over all the word pairs of a configuration.
+ */
+final class DeltaScoring {
+
+    /**
+     * Above this fraction of changed words, rescoring the whole configuration is cheaper than the delta.
+     */
+    private static final double MAX_CHANGED_RATIO = 0.5;
+
+    /**
+     * Score of the pair (i, j), with i &lt; j, when word i is assigned sense k and word j is assigned sense l.
+     * Negative assignments must yield 0.
+     */
+    interface PairScore {
+        double score(int i, int k, int j, int l);
+    }
+
+    private DeltaScoring() {
+    }
+
+    /**
+     * Returns the distinct changed indices, or null when there are too many of them for the delta to pay off.
+     */
+    static int[] distinctChanges(int size, int[] changedIndices, boolean[] changed) {
+        int[] distinct = new int[Math.min(size, changedIndices.length)];
+        int count = 0;
+        for (int index : changedIndices) {
+            if (!changed[index]) {
+                changed[index] = true;
+                distinct[count++] = index;
+            }
+        }
+        if (count > size * MAX_CHANGED_RATIO) {
+            return null;
+        }
+        if (count == distinct.length) {
+            return distinct;
+        }
+        int[] trimmed = new int[count];
+        System.arraycopy(distinct, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    /**
+     * Removes the contribution of the pairs touched by the move and adds their new contribution back. Pairs
+     * where both words changed are visited once.
+     */
+    static double scoreDelta(double previousScore, Configuration previousConfiguration, Configuration configuration,
+                             int[] distinctChanges, boolean[] changed, PairScore pairScore) {
+        double score = previousScore;
+        for (int i : distinctChanges) {
+            int oldK = previousConfiguration.getAssignment(i);
+            int newK = configuration.getAssignment(i);
+            for (int j = 0; j < configuration.size(); j++) {
+                if (j == i || (changed[j] && j < i)) {
+                    continue;
+                }
+                int oldL = previousConfiguration.getAssignment(j);
+                int newL = configuration.getAssignment(j);
+                if (oldK == newK && oldL == newL) {
+                    continue;
+                }
+                if (i < j) {
+                    score += pairScore.score(i, newK, j, newL) - pairScore.score(i, oldK, j, oldL);
+                } else {
+                    score += pairScore.score(j, newL, i, newK) - pairScore.score(j, oldL, i, oldK);
+                }
+            }
+        }
+        return score;
+    }
+}
@@ -2,7 +2,6 @@ package org.getalp.lexsema.wsd.score;
 
 import org.apache.spark.api.java.JavaRDD;
 import org.getalp.lexsema.similarity.Document;
-import org.getalp.lexsema.similarity.Sense;
 import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
 import org.getalp.lexsema.wsd.configuration.Configuration;
 
@@ -17,9 +16,7 @@ public class DistributedConfigurationScorerWithCache implements ConfigurationSco
     private final SimilarityMeasure similarityMeasure;
     @SuppressWarnings("InstanceVariableOfConcreteClass")
 
-    private double[][][][] cache;
-
-    private Document currentDocument;
+    private SensePairSimilarityCache cache;
 
     @SuppressWarnings("LawOfDemeter")
     private static double computeDistributedScore(Document document, Configuration configuration, List<IntermediateScorer> scorers) {
@@ -36,29 +33,19 @@ public class DistributedConfigurationScorerWithCache implements ConfigurationSco
         this.similarityMeasure = similarityMeasure;
     }
 
-    private void initializeCache(Document document) {
-        int documentSize = document.size();
-        cache = new double[documentSize][documentSize][][];
-        for (int i = 0; i < documentSize; i++) {
-            for (int j = i + 1; j < documentSize; j++) {
-                int sizeFirst = document.numberOfSensesForWord(i);
-                int sizeSecond = document.numberOfSensesForWord(j);
-                cache[i][j] = new double[sizeFirst][sizeSecond];
-                for (int k = 0; k < sizeFirst; k++) {
-                    for (int senseIndex = 0; senseIndex < sizeSecond; senseIndex++) {
-                        cache[i][j][k][senseIndex] = -1;
-                    }
-                }
-            }
-        }
+    /**
+     * Creates a scorer that starts from an existing cache, e.g. one filled by a previous run on the same document
+     */
+    public DistributedConfigurationScorerWithCache(SensePairSimilarityCache cache) {
+        similarityMeasure = cache.getSimilarityMeasure();
+        this.cache = cache;
     }
 
 
     @Override
     public double computeScore(Document document, Configuration configuration) {
-        if (currentDocument != document) {
-            initializeCache(document);
-            currentDocument = document;
+        if (cache == null || cache.getDocument() != document) {
+            cache = new SensePairSimilarityCache(document, similarityMeasure);
         }
 
         List<IntermediateScorer> scorers = new ArrayList<>();
@@ -87,19 +74,10 @@ public class DistributedConfigurationScorerWithCache implements ConfigurationSco
             double score = 0;
             int k = configuration.getAssignment(i);
             if (k >= 0 && !document.getSenses(i).isEmpty()) {
-                Sense senseA = document.getSenses(i).get(k);
                 for (int j = i + 1; j < configuration.size(); j++) {
                     int assignment = configuration.getAssignment(j);
                     if (assignment >= 0 && !document.getSenses(j).isEmpty()) {
-                        double cacheCell = cache[i][j][k][assignment];
-                        if (cacheCell > -1) {
-                            score += cacheCell;
-                        } else {
-                            Sense senseB = document.getSenses(j).get(assignment);
-                            double similarity = senseA.computeSimilarityWith(similarityMeasure, senseB);
-                            score += similarity;
-                            cache[i][j][k][assignment] = similarity;
-                        }
+                        score += cache.similarity(i, k, j, assignment);
                     } else {
                         return 0d;
                     }
@@ -0,0 +1,215 @@
+package org.getalp.lexsema.wsd.score;
+
+import org.getalp.lexsema.similarity.Document;
+import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
+import org.getalp.lexsema.wsd.configuration.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel pairwise configuration scorer backed by a {@link SensePairSimilarityCache}.
+ * <p>
+ * The upper triangle of the word pairs is recursively split into tiles holding roughly the same number of pairs,
+ * which are scored on a fork/join pool. By default the tiles are sized from the number of pairs and the parallelism
+ * of the pool, about four tiles per worker but never fewer than {@value #MIN_PAIRS_PER_TILE} pairs, so that short
+ * documents are split too as long as each tile is worth a task. Configurations that fit in a single tile are scored
+ * on the calling thread. Cache cells are published by the cache
+ * itself, so concurrent tiles never observe a partially written value.
+ */
+public class ForkJoinConfigurationScorer implements IncrementalConfigurationScorer {
+
+    /**
+     * Tile size that tells the scorer to size the tiles from the number of pairs and the parallelism of the pool
+     */
+    public static final int ADAPTIVE_PAIRS_PER_TILE = 0;
+    public static final int MIN_PAIRS_PER_TILE = 128;
+    private static final int TILES_PER_WORKER = 4;
+
+    private final SimilarityMeasure similarityMeasure;
+    private final ForkJoinPool pool;
+    private final int pairsPerTile;
+    private volatile SensePairSimilarityCache cache;
+
+    public ForkJoinConfigurationScorer(SimilarityMeasure similarityMeasure) {
+        this(similarityMeasure, ForkJoinPool.commonPool(), ADAPTIVE_PAIRS_PER_TILE);
+    }
+
+    public ForkJoinConfigurationScorer(SimilarityMeasure similarityMeasure, ForkJoinPool pool) {
+        this(similarityMeasure, pool, ADAPTIVE_PAIRS_PER_TILE);
+    }
+
+    /**
+     * @param pairsPerTile The number of pairs under which a tile is not split further, or
+     *                     {@link #ADAPTIVE_PAIRS_PER_TILE}
+     */
+    public ForkJoinConfigurationScorer(SimilarityMeasure similarityMeasure, ForkJoinPool pool, int pairsPerTile) {
+        this.similarityMeasure = similarityMeasure;
+        this.pool = pool;
+        this.pairsPerTile = pairsPerTile;
+    }
+
+    /**
+     * Creates a scorer that starts from an existing cache, e.g. one filled by a previous run on the same document
+     */
+    public ForkJoinConfigurationScorer(SensePairSimilarityCache cache, ForkJoinPool pool, int pairsPerTile) {
+        this(cache.getSimilarityMeasure(), pool, pairsPerTile);
+        this.cache = cache;
+    }
+
+    @Override
+    public double computeScore(Document document, Configuration configuration) {
+        SensePairSimilarityCache currentCache = getCache(document);
+
+        int[] assignments = new int[configuration.size()];
+        int[] assignedWords = new int[configuration.size()];
+        int numberOfAssignedWords = 0;
+        for (int i = 0; i < configuration.size(); i++) {
+            assignments[i] = configuration.getAssignment(i);
+            if (assignments[i] >= 0 && !document.getSenses(i).isEmpty()) {
+                assignedWords[numberOfAssignedWords++] = i;
+            }
+        }
+
+        long pairs = (long) numberOfAssignedWords * (numberOfAssignedWords - 1) / 2;
+        long tileSize = tileSize(pairs);
+        TileScorer root = new TileScorer(currentCache, assignments, assignedWords, numberOfAssignedWords,
+                0, numberOfAssignedWords, tileSize);
+        if (pairs <= tileSize) {
+            return root.scoreTile();
+        }
+        return pool.invoke(root);
+    }
+
+    @Override
+    public double scoreDelta(Document document, double previousScore, Configuration previousConfiguration,
+                             Configuration configuration, int[] changedIndices) {
+        SensePairSimilarityCache currentCache = cache;
+        if (currentCache == null || currentCache.getDocument() != document) {
+            return computeScore(document, configuration);
+        }
+        boolean[] changed = new boolean[configuration.size()];
+        int[] distinctChanges = DeltaScoring.distinctChanges(configuration.size(), changedIndices, changed);
+        if (distinctChanges == null) {
+            return computeScore(document, configuration);
+        }
+        return DeltaScoring.scoreDelta(previousScore, previousConfiguration, configuration, distinctChanges, changed,
+                (i, k, j, l) -> {
+                    if (k < 0 || l < 0 || document.getSenses(i).isEmpty() || document.getSenses(j).isEmpty()) {
+                        return 0;
+                    }
+                    return currentCache.similarity(i, k, j, l);
+                });
+    }
+
+    private long tileSize(long pairs) {
+        if (pairsPerTile != ADAPTIVE_PAIRS_PER_TILE) {
+            return pairsPerTile;
+        }
+        int parallelism = pool.getParallelism();
+        if (parallelism <= 1) {
+            return pairs;
+        }
+        return Math.max(MIN_PAIRS_PER_TILE, pairs / (TILES_PER_WORKER * parallelism));
+    }
+
+    public SensePairSimilarityCache getCache() {
+        return cache;
+    }
+
+    private SensePairSimilarityCache getCache(Document document) {
+        SensePairSimilarityCache currentCache = cache;
+        if (currentCache == null || currentCache.getDocument() != document) {
+            currentCache = new SensePairSimilarityCache(document, similarityMeasure);
+            cache = currentCache;
+        }
+        return currentCache;
+    }
+
+    @Override
+    public void release() {
+        if (pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Scores the pairs whose first word is one of the rows [start, end) of the assigned words.
+     */
+    private final class TileScorer extends RecursiveTask<Double> {
+
+        private final SensePairSimilarityCache similarityCache;
+        private final int[] assignments;
+        private final int[] assignedWords;
+        private final int numberOfAssignedWords;
+        private final int start;
+        private final int end;
+        private final long tileSize;
+
+        private TileScorer(SensePairSimilarityCache similarityCache, int[] assignments, int[] assignedWords,
+                           int numberOfAssignedWords, int start, int end, long tileSize) {
+            this.similarityCache = similarityCache;
+            this.assignments = assignments;
+            this.assignedWords = assignedWords;
+            this.numberOfAssignedWords = numberOfAssignedWords;
+            this.start = start;
+            this.end = end;
+            this.tileSize = tileSize;
+        }
+
+        @Override
+        protected Double compute() {
+            if (end - start <= 1 || numberOfPairs() <= tileSize) {
+                return scoreTile();
+            }
+            int split = balancedSplit();
+            TileScorer left = new TileScorer(similarityCache, assignments, assignedWords, numberOfAssignedWords, start, split, tileSize);
+            TileScorer right = new TileScorer(similarityCache, assignments, assignedWords, numberOfAssignedWords, split, end, tileSize);
+            left.fork();
+            double rightScore = right.compute();
+            return left.join() + rightScore;
+        }
+
+        private double scoreTile() {
+            double score = 0;
+            for (int a = start; a < end; a++) {
+                int i = assignedWords[a];
+                int k = assignments[i];
+                for (int b = a + 1; b < numberOfAssignedWords; b++) {
+                    int j = assignedWords[b];
+                    score += similarityCache.similarity(i, k, j, assignments[j]);
+                }
+            }
+            return score;
+        }
+
+        private long numberOfPairs() {
+            return pairsBefore(end) - pairsBefore(start);
+        }
+
+        /**
+         * @return The number of pairs in the rows [0, row) of the triangle
+         */
+        private long pairsBefore(long row) {
+            return row * (numberOfAssignedWords - 1) - row * (row - 1) / 2;
+        }
+
+        /**
+         * @return The row that splits [start, end) into two tiles with about the same number of pairs
+         */
+        private int balancedSplit() {
+            long half = pairsBefore(start) + numberOfPairs() / 2;
+            int low = start + 1;
+            int high = end - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (pairsBefore(middle) < half) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
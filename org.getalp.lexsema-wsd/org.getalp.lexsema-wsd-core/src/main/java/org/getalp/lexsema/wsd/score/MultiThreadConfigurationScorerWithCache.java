@@ -1,7 +1,6 @@
 package org.getalp.lexsema.wsd.score;
 
 import org.getalp.lexsema.similarity.Document;
-import org.getalp.lexsema.similarity.Sense;
 import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
 import org.getalp.lexsema.wsd.configuration.Configuration;
 
@@ -12,51 +11,42 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
-public class MultiThreadConfigurationScorerWithCache implements ConfigurationScorer
+public class MultiThreadConfigurationScorerWithCache implements IncrementalConfigurationScorer
 {
     private final SimilarityMeasure similarityMeasure;
-    
-    private double[][][][] cache;
-    
-    private Document currentDocument;
-    
+
+    private volatile SensePairSimilarityCache cache;
+
     private final ExecutorService threadPool;
 
     public MultiThreadConfigurationScorerWithCache(SimilarityMeasure similarityMeasure)
     {
         this.similarityMeasure = similarityMeasure;
         cache = null;
-        currentDocument = null;
         int nbThreads = Runtime.getRuntime().availableProcessors();
         threadPool = Executors.newFixedThreadPool(nbThreads);
     }
 
+    /**
+     * Creates a scorer that starts from an existing cache, e.g. one filled by a previous run on the same document
+     */
+    public MultiThreadConfigurationScorerWithCache(SensePairSimilarityCache cache)
+    {
+        this(cache.getSimilarityMeasure());
+        this.cache = cache;
+    }
+
     public double computeScore(Document d, Configuration c)
     {
-        if (currentDocument != d)
+        if (cache == null || cache.getDocument() != d)
         {
-            cache = new double[d.size()][d.size()][][];
-            for (int i = 0 ; i < d.size() ; i++)
-            {
-                for (int j = i + 1 ; j < d.size() ; j++)
-                {
-                    cache[i][j] = new double[d.getSenses(i).size()][d.getSenses(j).size()];
-                    for (int k = 0 ; k < d.getSenses(i).size() ; k++)
-                    {
-                        for (int l = 0 ; l < d.getSenses(j).size() ; l++)
-                        {
-                            cache[i][j][k][l] = -1;
-                        }
-                    }
-                }
-            }
-            currentDocument = d;
+            cache = new SensePairSimilarityCache(d, similarityMeasure);
         }
-        
+
         ArrayList<IntermediateScorer> scorers = new ArrayList<IntermediateScorer>();
         for (int i = 0 ; i < c.size() ; i++)
         {
-            scorers.add(new IntermediateScorer(i, d, c));
+            scorers.add(new IntermediateScorer(i, d, c, cache));
         }
 
         double totalScore = 0;
@@ -74,47 +64,66 @@ public class MultiThreadConfigurationScorerWithCache implements ConfigurationSco
         }
         return totalScore;
     }
-    
-    private class IntermediateScorer implements Callable<Double>
+
+    public double scoreDelta(Document d, double previousScore, Configuration previous, Configuration c, int[] changedIndices)
+    {
+        SensePairSimilarityCache currentCache = cache;
+        if (currentCache == null || currentCache.getDocument() != d)
+        {
+            return computeScore(d, c);
+        }
+        boolean[] changed = new boolean[c.size()];
+        int[] distinctChanges = DeltaScoring.distinctChanges(c.size(), changedIndices, changed);
+        if (distinctChanges == null)
+        {
+            return computeScore(d, c);
+        }
+        return DeltaScoring.scoreDelta(previousScore, previous, c, distinctChanges, changed,
+                                       (i, k, j, l) -> pairScore(currentCache, d, i, k, j, l));
+    }
+
+    private static double pairScore(SensePairSimilarityCache cache, Document d, int i, int k, int j, int l)
+    {
+        if (k < 0 || l < 0 || d.getSenses(i).isEmpty() || d.getSenses(j).isEmpty()) return 0;
+        return cache.similarity(i, k, j, l);
+    }
+
+    public SensePairSimilarityCache getCache()
+    {
+        return cache;
+    }
+
+    private static class IntermediateScorer implements Callable<Double>
     {
         private final int i;
-        
+
         private final Document d;
-        
+
         private final Configuration c;
-        
-        public IntermediateScorer(int i, Document d, Configuration c)
+
+        private final SensePairSimilarityCache cache;
+
+        public IntermediateScorer(int i, Document d, Configuration c, SensePairSimilarityCache cache)
         {
             this.i = i;
             this.d = d;
             this.c = c;
+            this.cache = cache;
         }
-        
+
         public Double call()
         {
             double score = 0;
             int k = c.getAssignment(i);
             if (k < 0 || d.getSenses(i).isEmpty()) return 0.0;
-            Sense senseA = d.getSenses(i).get(k);
             for (int j = i + 1 ; j < c.size() ; j++)
             {
                 int l = c.getAssignment(j);
                 if (l < 0 || d.getSenses(j).isEmpty()) continue;
-                double cacheCell = cache[i][j][k][l];
-                if (cacheCell > -1)
-                {
-                    score += cacheCell;
-                }
-                else
-                {
-                    Sense senseB = d.getSenses(j).get(l);
-                    double similarity = senseA.computeSimilarityWith(similarityMeasure, senseB);
-                    score += similarity;
-                    cache[i][j][k][l] = similarity;
-                }
+                score += cache.similarity(i, k, j, l);
             }
             return score;
-        }  
+        }
     }
 
     public void release()
@@ -0,0 +1,211 @@
+package org.getalp.lexsema.wsd.score;
+
+import org.getalp.lexsema.similarity.Document;
+import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
+import org.getalp.lexsema.wsd.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Thread-safe pairwise configuration scorer over whole-document similarity matrices.
+ * <p>
+ * The first time a document is scored, its {@link SensePairSimilarityCache} is memory-mapped from
+ * {@code <directory>/<document id>.sim} if that file exists, or {@code <directory>/document-<key>.sim} for a document
+ * without id, or else every cross-word sense pair is computed in
+ * parallel on the pool and the result is written to that file before being mapped. Later runs on the same corpus
+ * and measure, e.g. parameter sweeps that instantiate many disambiguators concurrently, share the mapped matrices
+ * instead of recomputing the similarities. The files record an identifier of the measure, the name of its class
+ * by default, and a key of the senses of the document: a file written for another measure, or for another document
+ * with the same id, is recomputed rather than reused.
+ * <p>
+ * Looking up the matrix of a document takes no lock; the first thread to ask for a document loads or precomputes
+ * it while the threads that ask for the same document wait for it, and the other documents are not held up. The
+ * matrices are kept until they are evicted with {@link #evict(Document)}, {@link #clear()} or {@link #release()}.
+ */
+public class PrecomputedConfigurationScorer implements IncrementalConfigurationScorer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrecomputedConfigurationScorer.class);
+
+    private final SimilarityMeasure similarityMeasure;
+    private final File directory;
+    private final String measureIdentifier;
+    private final ForkJoinPool pool;
+    private final ConcurrentMap<DocumentKey, CompletableFuture<SensePairSimilarityCache>> caches;
+    /**
+     * The last matrix looked up, which spares the map lookup while a disambiguator works on one document
+     */
+    private volatile SensePairSimilarityCache lastCache;
+
+    public PrecomputedConfigurationScorer(SimilarityMeasure similarityMeasure, File directory) {
+        this(similarityMeasure, directory, ForkJoinPool.commonPool());
+    }
+
+    public PrecomputedConfigurationScorer(SimilarityMeasure similarityMeasure, File directory, ForkJoinPool pool) {
+        this(similarityMeasure, SensePairSimilarityCache.defaultMeasureIdentifier(similarityMeasure), directory, pool);
+    }
+
+    /**
+     * @param measureIdentifier Identifies the measure and its parameters in the files, e.g. to tell apart the files of
+     *                          a same measure class with different parameters
+     */
+    public PrecomputedConfigurationScorer(SimilarityMeasure similarityMeasure, String measureIdentifier, File directory, ForkJoinPool pool) {
+        this.similarityMeasure = similarityMeasure;
+        this.measureIdentifier = measureIdentifier;
+        this.directory = directory;
+        this.pool = pool;
+        caches = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Loads or precomputes the similarity matrices of all the documents, before any disambiguation starts.
+     */
+    public void prepare(Iterable<? extends Document> documents) {
+        for (Document document : documents) {
+            getCache(document);
+        }
+    }
+
+    public SensePairSimilarityCache getCache(Document document) {
+        SensePairSimilarityCache cache = lastCache;
+        if (cache != null && cache.getDocument() == document) {
+            return cache;
+        }
+        DocumentKey key = new DocumentKey(document);
+        CompletableFuture<SensePairSimilarityCache> future = caches.get(key);
+        if (future == null) {
+            CompletableFuture<SensePairSimilarityCache> loading = new CompletableFuture<>();
+            future = caches.putIfAbsent(key, loading);
+            if (future == null) {
+                future = loading;
+                try {
+                    loading.complete(loadCache(document));
+                } catch (RuntimeException e) {
+                    caches.remove(key, loading);
+                    loading.completeExceptionally(e);
+                }
+            }
+        }
+        cache = future.join();
+        lastCache = cache;
+        return cache;
+    }
+
+    private SensePairSimilarityCache loadCache(Document document) {
+        File file = new File(directory, fileName(document));
+        if (file.exists()) {
+            try {
+                return SensePairSimilarityCache.map(document, similarityMeasure, file, measureIdentifier);
+            } catch (IOException e) {
+                logger.warn("Recomputing the similarity matrix of {}: {}", document.getId(), e.getLocalizedMessage());
+            }
+        }
+        SensePairSimilarityCache cache = new SensePairSimilarityCache(document, similarityMeasure);
+        logger.info("Precomputing {} sense pair similarities for {}", cache.size(), document.getId());
+        cache.precompute(pool);
+        try {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("Cannot create " + directory);
+            }
+            cache.write(file, measureIdentifier);
+            return SensePairSimilarityCache.map(document, similarityMeasure, file, measureIdentifier);
+        } catch (IOException e) {
+            logger.warn("Keeping the similarity matrix of {} in memory: {}", document.getId(), e.getLocalizedMessage());
+            return cache;
+        }
+    }
+
+    private static String fileName(Document document) {
+        String id = document.getId();
+        if (id == null || id.isEmpty()) {
+            return "document-" + Long.toHexString(SensePairSimilarityCache.documentKey(document)) + ".sim";
+        }
+        return id.replaceAll("[^\\w.-]", "_") + ".sim";
+    }
+
+    /**
+     * Drops the matrix of a document, e.g. once all the runs on it are over; a later lookup maps it again.
+     */
+    public void evict(Document document) {
+        caches.remove(new DocumentKey(document));
+        SensePairSimilarityCache cache = lastCache;
+        if (cache != null && cache.getDocument() == document) {
+            lastCache = null;
+        }
+    }
+
+    /**
+     * Drops the matrices of all the documents.
+     */
+    public void clear() {
+        caches.clear();
+        lastCache = null;
+    }
+
+    @Override
+    public double computeScore(Document document, Configuration configuration) {
+        SensePairSimilarityCache cache = getCache(document);
+        double totalScore = 0;
+        for (int i = 0; i < configuration.size(); i++) {
+            int k = configuration.getAssignment(i);
+            if (k < 0 || document.getSenses(i).isEmpty()) continue;
+            for (int j = i + 1; j < configuration.size(); j++) {
+                int l = configuration.getAssignment(j);
+                if (l < 0 || document.getSenses(j).isEmpty()) continue;
+                totalScore += cache.similarity(i, k, j, l);
+            }
+        }
+        return totalScore;
+    }
+
+    @Override
+    public double scoreDelta(Document document, double previousScore, Configuration previousConfiguration,
+                             Configuration configuration, int[] changedIndices) {
+        boolean[] changed = new boolean[configuration.size()];
+        int[] distinctChanges = DeltaScoring.distinctChanges(configuration.size(), changedIndices, changed);
+        if (distinctChanges == null) {
+            return computeScore(document, configuration);
+        }
+        SensePairSimilarityCache cache = getCache(document);
+        return DeltaScoring.scoreDelta(previousScore, previousConfiguration, configuration, distinctChanges, changed,
+                (i, k, j, l) -> {
+                    if (k < 0 || l < 0 || document.getSenses(i).isEmpty() || document.getSenses(j).isEmpty()) {
+                        return 0;
+                    }
+                    return cache.similarity(i, k, j, l);
+                });
+    }
+
+    @Override
+    public void release() {
+        clear();
+    }
+
+    /**
+     * Identity key of a document, as documents do not define equality
+     */
+    private static final class DocumentKey {
+
+        private final Document document;
+
+        private DocumentKey(Document document) {
+            this.document = document;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof DocumentKey && ((DocumentKey) o).document == document;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(document);
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package org.getalp.lexsema.wsd.score;
+
+import org.getalp.lexsema.similarity.Document;
+import org.getalp.lexsema.similarity.Sense;
+import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Lazily filled cache of the similarities between the senses of the words of a document.
+ * <p>
+ * The similarities are stored as float32, indexed by (word, sense): for each word i, a block holds one row per sense
+ * of i with the similarities to the senses of all the words j &gt; i. Only the pairs of senses of distinct words are
+ * allocated, as the senses of a same word are never compared. The cells are split into pages of at most
+ * {@code PAGE_SIZE} cells to support documents whose number of pairs exceeds the capacity of a single array.
+ * <p>
+ * Concurrent fills are lock-free: a cell is computed by whichever thread reaches it first and published with an
+ * ordered write; two threads racing on the same cell write the same value. A single instance can therefore be
+ * shared between scorers, threads and successive disambiguator runs on the same document.
+ * <p>
+ * A cache can also be precomputed for the whole document, written to a file with {@link #write(File)} and
+ * memory-mapped read-only by later runs with {@link #map(Document, SimilarityMeasure, File)}. The file holds a
+ * header (magic number, version, number of words, key of the document, identifier of the similarity measure, sense
+ * offsets) followed by the cells as little-endian int32 bits. The key of the document is a hash of the ids of the
+ * senses of each word, so that a file written for another document with the same number of senses is not reused.
+ * A mapped cache is serialized as an in-memory copy of its cells.
+ */
+public class SensePairSimilarityCache implements Serializable {
+
+    private static final int PAGE_BITS = 24;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final long PAGE_MASK = PAGE_SIZE - 1;
+    /**
+     * A NaN bit pattern that Float.floatToIntBits never produces, so that a NaN similarity can still be cached
+     */
+    private static final int EMPTY = 0xFFFFFFFF;
+    private static final int MAGIC = 0x4C585350;
+    private static final int VERSION = 4;
+    private static final int WRITE_BUFFER_CELLS = 1 << 16;
+
+    private final Document document;
+    private final SimilarityMeasure similarityMeasure;
+    private final int[] senseOffsets;
+    /**
+     * The first cell of the block of each word, plus the number of cells
+     */
+    private final long[] blockOffsets;
+    private final transient AtomicIntegerArray[] pages;
+    private final transient IntBuffer[] mappedPages;
+
+    public SensePairSimilarityCache(Document document, SimilarityMeasure similarityMeasure) {
+        this.document = document;
+        this.similarityMeasure = similarityMeasure;
+        senseOffsets = computeSenseOffsets(document);
+        blockOffsets = computeBlockOffsets(senseOffsets);
+        long size = size();
+        int numberOfPages = numberOfPages(size);
+        pages = new AtomicIntegerArray[numberOfPages];
+        for (int p = 0; p < numberOfPages; p++) {
+            AtomicIntegerArray page = new AtomicIntegerArray(pageSize(size, p));
+            for (int c = 0; c < page.length(); c++) {
+                page.lazySet(c, EMPTY);
+            }
+            pages[p] = page;
+        }
+        mappedPages = null;
+    }
+
+    private SensePairSimilarityCache(Document document, SimilarityMeasure similarityMeasure, int[] senseOffsets,
+                                     IntBuffer[] mappedPages) {
+        this.document = document;
+        this.similarityMeasure = similarityMeasure;
+        this.senseOffsets = senseOffsets;
+        blockOffsets = computeBlockOffsets(senseOffsets);
+        pages = null;
+        this.mappedPages = mappedPages;
+    }
+
+    private SensePairSimilarityCache(Document document, SimilarityMeasure similarityMeasure, int[][] cells) {
+        this.document = document;
+        this.similarityMeasure = similarityMeasure;
+        senseOffsets = computeSenseOffsets(document);
+        blockOffsets = computeBlockOffsets(senseOffsets);
+        pages = new AtomicIntegerArray[cells.length];
+        for (int p = 0; p < cells.length; p++) {
+            pages[p] = new AtomicIntegerArray(cells[p]);
+        }
+        mappedPages = null;
+    }
+
+    /**
+     * Memory-maps a cache previously written with {@link #write(File)} for the same document and measure, identified
+     * by the name of its class.
+     *
+     * @throws IOException When the file cannot be read or was not computed for a document with the same senses
+     */
+    public static SensePairSimilarityCache map(Document document, SimilarityMeasure similarityMeasure, File file) throws IOException {
+        return map(document, similarityMeasure, file, defaultMeasureIdentifier(similarityMeasure));
+    }
+
+    /**
+     * Memory-maps a cache previously written with {@link #write(File, String)} for the same document and measure.
+     *
+     * @param measureIdentifier Identifies the measure and its parameters, as given when the cache was written
+     * @throws IOException When the file cannot be read or was not computed for a document with the same senses and
+     *                     the same measure
+     */
+    public static SensePairSimilarityCache map(Document document, SimilarityMeasure similarityMeasure, File file,
+                                               String measureIdentifier) throws IOException {
+        int[] senseOffsets = computeSenseOffsets(document);
+        long documentKey = documentKey(document);
+        byte[] identifier = measureIdentifier.getBytes(StandardCharsets.UTF_8);
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            long headerSize = headerSize(document.size(), identifier.length);
+            ByteBuffer header = ByteBuffer.allocate((int) headerSize).order(ByteOrder.LITTLE_ENDIAN);
+            int read = 0;
+            while (header.hasRemaining() && read >= 0) {
+                read = channel.read(header);
+            }
+            header.flip();
+            if (header.remaining() < 24 || header.getInt() != MAGIC || header.getInt() != VERSION
+                    || header.getInt() != document.size()) {
+                throw new IOException("Not a similarity cache for document " + document.getId() + ": " + file);
+            }
+            int identifierLength = header.getInt();
+            if (header.getLong() != documentKey) {
+                throw new IOException("Similarity cache computed for another document than " + document.getId() + ": " + file);
+            }
+            if (identifierLength != identifier.length || header.remaining() < padded(identifier.length) + 4 * senseOffsets.length) {
+                throw new IOException("Similarity cache computed with another measure than " + measureIdentifier + ": " + file);
+            }
+            for (byte b : identifier) {
+                if (header.get() != b) {
+                    throw new IOException("Similarity cache computed with another measure than " + measureIdentifier + ": " + file);
+                }
+            }
+            header.position(header.position() + padded(identifier.length) - identifier.length);
+            for (int senseOffset : senseOffsets) {
+                if (header.getInt() != senseOffset) {
+                    throw new IOException("Sense inventory mismatch for document " + document.getId() + ": " + file);
+                }
+            }
+            long size = computeBlockOffsets(senseOffsets)[document.size()];
+            if (channel.size() < headerSize + 4 * size) {
+                throw new IOException("Truncated similarity cache: " + file);
+            }
+            IntBuffer[] mappedPages = new IntBuffer[numberOfPages(size)];
+            for (int p = 0; p < mappedPages.length; p++) {
+                long position = headerSize + 4L * ((long) p << PAGE_BITS);
+                mappedPages[p] = channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * pageSize(size, p))
+                        .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            }
+            return new SensePairSimilarityCache(document, similarityMeasure, senseOffsets, mappedPages);
+        }
+    }
+
+    private static int[] computeSenseOffsets(Document document) {
+        int[] senseOffsets = new int[document.size() + 1];
+        for (int i = 0; i < document.size(); i++) {
+            senseOffsets[i + 1] = senseOffsets[i] + document.getSenses(i).size();
+        }
+        return senseOffsets;
+    }
+
+    private static long[] computeBlockOffsets(int[] senseOffsets) {
+        int numberOfWords = senseOffsets.length - 1;
+        long numberOfSenses = senseOffsets[numberOfWords];
+        long[] blockOffsets = new long[numberOfWords + 1];
+        for (int i = 0; i < numberOfWords; i++) {
+            long senses = senseOffsets[i + 1] - senseOffsets[i];
+            blockOffsets[i + 1] = blockOffsets[i] + senses * (numberOfSenses - senseOffsets[i + 1]);
+        }
+        return blockOffsets;
+    }
+
+    private static int numberOfPages(long size) {
+        return (int) ((size + PAGE_SIZE - 1) >>> PAGE_BITS);
+    }
+
+    private static int pageSize(long size, int page) {
+        return (int) Math.min(PAGE_SIZE, size - ((long) page << PAGE_BITS));
+    }
+
+    private static long headerSize(int numberOfWords, int identifierLength) {
+        return 4L * (4 + numberOfWords + 1) + 8 + padded(identifierLength);
+    }
+
+    /**
+     * @return A 64-bit FNV-1a hash of the ids of the senses of each word of the document, which tells apart documents
+     * that share an id or a number of senses
+     */
+    public static long documentKey(Document document) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < document.size(); i++) {
+            List<Sense> senses = document.getSenses(i);
+            hash = fnv(hash, senses.size());
+            for (Sense sense : senses) {
+                String id = sense.getId();
+                if (id == null) {
+                    hash = fnv(hash, -1);
+                } else {
+                    hash = fnv(hash, id.length());
+                    for (int c = 0; c < id.length(); c++) {
+                        hash = fnv(hash, id.charAt(c));
+                    }
+                }
+            }
+        }
+        return hash;
+    }
+
+    private static long fnv(long hash, int value) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            hash ^= (value >>> shift) & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    /**
+     * @return The length rounded up to a multiple of 4, so that the cells are aligned
+     */
+    private static int padded(int length) {
+        return (length + 3) & ~3;
+    }
+
+    /**
+     * @return The name of the class of the measure, which identifies it when the files are written and mapped without
+     * an explicit identifier
+     */
+    public static String defaultMeasureIdentifier(SimilarityMeasure similarityMeasure) {
+        return similarityMeasure.getClass().getName();
+    }
+
+    public Document getDocument() {
+        return document;
+    }
+
+    public SimilarityMeasure getSimilarityMeasure() {
+        return similarityMeasure;
+    }
+
+    /**
+     * @return The number of cells of the cache
+     */
+    public long size() {
+        return blockOffsets[blockOffsets.length - 1];
+    }
+
+    /**
+     * Returns the similarity between the sense k of the word i and the sense l of the word j, computing it if
+     * needed. The words must be distinct; unassigned words (k or l negative) have a similarity of 0.
+     */
+    public double similarity(int i, int k, int j, int l) {
+        if (k < 0 || l < 0) {
+            return 0;
+        }
+        if (j < i) {
+            return similarity(j, l, i, k);
+        }
+        long cell = cellIndex(i, k, j, l);
+        int page = (int) (cell >>> PAGE_BITS);
+        int offset = (int) (cell & PAGE_MASK);
+        int bits = mappedPages != null ? mappedPages[page].get(offset) : pages[page].get(offset);
+        if (bits != EMPTY) {
+            return Float.intBitsToFloat(bits);
+        }
+        List<Sense> sensesA = document.getSenses(i);
+        List<Sense> sensesB = document.getSenses(j);
+        float similarity = (float) sensesA.get(k).computeSimilarityWith(similarityMeasure, sensesB.get(l));
+        if (pages != null) {
+            pages[page].lazySet(offset, Float.floatToIntBits(similarity));
+        }
+        return similarity;
+    }
+
+    /**
+     * @return Whether the similarity between the two senses is already in the cache
+     */
+    public boolean contains(int i, int k, int j, int l) {
+        if (j < i) {
+            return contains(j, l, i, k);
+        }
+        return readCell(cellIndex(i, k, j, l)) != EMPTY;
+    }
+
+    /**
+     * @return Whether the cache is a read-only view of a memory-mapped file
+     */
+    public boolean isMapped() {
+        return mappedPages != null;
+    }
+
+    /**
+     * Eagerly computes the similarities of every pair of senses of distinct words, one task per word on the pool.
+     */
+    public void precompute(ForkJoinPool pool) {
+        if (isMapped()) {
+            return;
+        }
+        pool.submit(() -> IntStream.range(0, document.size()).parallel().forEach(this::precomputeWord)).join();
+    }
+
+    private void precomputeWord(int i) {
+        int sensesA = document.getSenses(i).size();
+        for (int j = i + 1; j < document.size(); j++) {
+            int sensesB = document.getSenses(j).size();
+            for (int k = 0; k < sensesA; k++) {
+                for (int l = 0; l < sensesB; l++) {
+                    similarity(i, k, j, l);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the cache to a file that can later be memory-mapped with {@link #map(Document, SimilarityMeasure, File)}.
+     * Cells that were not computed are written as such and will be computed (but not stored) when mapped.
+     */
+    public void write(File file) throws IOException {
+        write(file, defaultMeasureIdentifier(similarityMeasure));
+    }
+
+    /**
+     * Writes the cache to a file that can later be memory-mapped with
+     * {@link #map(Document, SimilarityMeasure, File, String)} given the same measure identifier.
+     */
+    public void write(File file, String measureIdentifier) throws IOException {
+        byte[] identifier = measureIdentifier.getBytes(StandardCharsets.UTF_8);
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            channel.truncate(0);
+            ByteBuffer buffer = ByteBuffer.allocate(4 * WRITE_BUFFER_CELLS).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(document.size()).putInt(identifier.length);
+            buffer.putLong(documentKey(document));
+            buffer.put(identifier);
+            buffer.position(buffer.position() + padded(identifier.length) - identifier.length);
+            for (int senseOffset : senseOffsets) {
+                if (!buffer.hasRemaining()) {
+                    drain(buffer, channel);
+                }
+                buffer.putInt(senseOffset);
+            }
+            long size = size();
+            for (long cell = 0; cell < size; cell++) {
+                if (!buffer.hasRemaining()) {
+                    drain(buffer, channel);
+                }
+                buffer.putInt(readCell(cell));
+            }
+            drain(buffer, channel);
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private int readCell(long cell) {
+        int page = (int) (cell >>> PAGE_BITS);
+        int offset = (int) (cell & PAGE_MASK);
+        return mappedPages != null ? mappedPages[page].get(offset) : pages[page].get(offset);
+    }
+
+    /**
+     * Index of the pair of the sense k of the word i and the sense l of the word j, i &lt; j: row k of the block of i,
+     * whose columns are the senses of the words after i
+     */
+    private long cellIndex(int i, int k, int j, int l) {
+        long rowLength = senseOffsets[senseOffsets.length - 1] - senseOffsets[i + 1];
+        return blockOffsets[i] + k * rowLength + (senseOffsets[j] + l - senseOffsets[i + 1]);
+    }
+
+    private Object writeReplace() {
+        return new SerializedForm(this);
+    }
+
+    private void readObject(ObjectInputStream stream) throws InvalidObjectException {
+        throw new InvalidObjectException("Serialized through SerializedForm");
+    }
+
+    /**
+     * Serialized form of a cache, mapped or not: the document, the measure and a copy of the cells, read back as an
+     * in-memory cache
+     */
+    private static final class SerializedForm implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Document document;
+        private final SimilarityMeasure similarityMeasure;
+        private final int[][] cells;
+
+        private SerializedForm(SensePairSimilarityCache cache) {
+            document = cache.document;
+            similarityMeasure = cache.similarityMeasure;
+            long size = cache.size();
+            cells = new int[numberOfPages(size)][];
+            for (int p = 0; p < cells.length; p++) {
+                cells[p] = new int[pageSize(size, p)];
+                for (int c = 0; c < cells[p].length; c++) {
+                    cells[p][c] = cache.readCell(((long) p << PAGE_BITS) + c);
+                }
+            }
+        }
+
+        private Object readResolve() {
+            return new SensePairSimilarityCache(document, similarityMeasure, cells);
+        }
+    }
+}
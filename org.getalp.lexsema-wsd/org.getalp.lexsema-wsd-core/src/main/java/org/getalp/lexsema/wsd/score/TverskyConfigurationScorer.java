@@ -6,6 +6,7 @@ import org.getalp.lexsema.ml.optimization.functions.input.FunctionInput;
 import org.getalp.lexsema.ml.optimization.functions.setfunctions.input.ValueListInput;
 import org.getalp.lexsema.ml.optimization.functions.setfunctions.submodular.Sum;
 import org.getalp.lexsema.similarity.Document;
+import org.getalp.lexsema.similarity.Sense;
 import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
 import org.getalp.lexsema.util.dataitems.Pair;
 import org.getalp.lexsema.util.dataitems.PairImpl;
@@ -18,67 +19,47 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.*;
 
-public class TverskyConfigurationScorer implements ConfigurationScorer {
+public class TverskyConfigurationScorer implements IncrementalConfigurationScorer {
 
     private static Logger logger = LoggerFactory.getLogger(TverskyConfigurationScorer.class);
     private SimilarityMeasure similarityMeasure;
     private ExecutorService threadPool;
-    private List<Future<Pair<Integer, Double>>> completeTasks;
-    private List<EntryScoreCallable> tasks;
 
     public TverskyConfigurationScorer(SimilarityMeasure similarityMeasure, int numberThreads) {
         this.similarityMeasure = similarityMeasure;
-        tasks = new ArrayList<>();
         threadPool = Executors.newFixedThreadPool(numberThreads);
     }
 
     @Override
     public double computeScore(Document d, Configuration c) {
         Double[] scores = new Double[c.size()];
+        List<EntryScoreCallable> tasks = new ArrayList<>(c.size());
         for (int i = 0; i < c.size(); i++) {
-            try {
-                tasks.add(new EntryScoreCallable(i, d, c));
-                //threadPool.submit();
-                //completeTasks.add(threadPool.submit(new EntryScoreCallable(i, d, c)));
-            } catch (RejectedExecutionException e) {
-                logger.debug("Threadpool rejected task " + i);
-            }
+            tasks.add(new EntryScoreCallable(i, d, c));
         }
 
+        // invokeAll returns once every entry is scored, there is no need to poll the futures
+        List<Future<Pair<Integer, Double>>> completeTasks;
         try {
             completeTasks = threadPool.invokeAll(tasks);
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            Thread.currentThread().interrupt();
+            logger.debug("Interrupted in configuration score entry calculation" + e.getLocalizedMessage());
+            completeTasks = new ArrayList<>();
+        } catch (RejectedExecutionException e) {
+            logger.debug("Threadpool rejected the entry score tasks");
+            completeTasks = new ArrayList<>();
         }
-        tasks.clear();
-        boolean progressChecked = false;
-        while (!progressChecked || !completeTasks.isEmpty()) {
-            for (int i = 0; i < completeTasks.size(); ) {
-                Future<Pair<Integer, Double>> current = completeTasks.get(i);
-                if (current.isDone()) {
-                    try {
-                        //noinspection LocalVariableOfConcreteClass
-                        Pair<Integer, Double> pair = current.get();
-                        int index = pair.first();
-                        double value = pair.second();
-                        scores[index] = value;
-                        //System.err.println(value);
-                    } catch (InterruptedException e) {
-                        logger.debug("Interrupted in configuration score entry calculation" + e.getLocalizedMessage());
-                    } catch (ExecutionException e) {
-                        logger.debug("ExecutionException in configuration score entry calculation " + e.getLocalizedMessage());
-                    }
-                    completeTasks.remove(i);
-                } else {
-                    //noinspection AssignmentToForLoopParameter
-                    i++;
-                }
-            }
-            progressChecked = true;
+        for (Future<Pair<Integer, Double>> current : completeTasks) {
             try {
-                Thread.sleep(10);
+                //noinspection LocalVariableOfConcreteClass
+                Pair<Integer, Double> pair = current.get();
+                scores[pair.first()] = pair.second();
             } catch (InterruptedException e) {
-                e.printStackTrace();
+                Thread.currentThread().interrupt();
+                logger.debug("Interrupted in configuration score entry calculation" + e.getLocalizedMessage());
+            } catch (ExecutionException e) {
+                logger.debug("ExecutionException in configuration score entry calculation " + e.getLocalizedMessage());
             }
         }
         Function sum = new Sum(1);
@@ -86,6 +67,30 @@ public class TverskyConfigurationScorer implements ConfigurationScorer {
         return sum.F(valueListInput);
     }
 
+    @Override
+    public double scoreDelta(Document d, double previousScore, Configuration previous, Configuration c, int[] changedIndices) {
+        boolean[] changed = new boolean[c.size()];
+        int[] distinctChanges = DeltaScoring.distinctChanges(c.size(), changedIndices, changed);
+        if (distinctChanges == null) {
+            return computeScore(d, c);
+        }
+        return DeltaScoring.scoreDelta(previousScore, previous, c, distinctChanges, changed,
+                (i, k, j, l) -> pairScore(d, c.getStart(), i, k, j, l));
+    }
+
+    private double pairScore(Document d, int start, int i, int k, int j, int l) {
+        if (k < 0 || l < 0) {
+            return 0;
+        }
+        List<Sense> sensesA = d.getSenses(start, i);
+        List<Sense> sensesB = d.getSenses(start, j);
+        if (sensesA.isEmpty() || sensesB.isEmpty()) {
+            return 0;
+        }
+        double value = sensesA.get(k).computeSimilarityWith(similarityMeasure, sensesB.get(l));
+        return Double.isNaN(value) ? 0 : value;
+    }
+
     @Override
     public void release() {
         threadPool.shutdown();
@@ -0,0 +1,155 @@
+package org.getalp.lexsema.wsd.method;
+
+import org.getalp.lexsema.similarity.DefaultDocumentFactory;
+import org.getalp.lexsema.similarity.Document;
+import org.getalp.lexsema.similarity.DocumentFactory;
+import org.getalp.lexsema.similarity.Sense;
+import org.getalp.lexsema.wsd.configuration.Configuration;
+import org.getalp.lexsema.wsd.configuration.ContinuousConfiguration;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests the chunks of the parallel large document disambiguator and the merge of their assignments against the
+ * sequential one, with a disambiguator whose assignments depend on the words of its chunk and on their positions in it
+ */
+public class ParallelLargeDocumentDisambiguatorTest {
+
+    private static final int DOCUMENT_SIZE = 47;
+    private static final int MAX_WORDS = 10;
+
+    @Test
+    public void testCreateSubDocument() {
+        Document document = generateDocument(new Random(1));
+        Document subDocument = LargeDocumentDisambiguator.createSubDocument(document, 12, 19);
+        assertEquals(7, subDocument.size());
+        for (int i = 0; i < subDocument.size(); i++) {
+            assertSame(document.getWord(12 + i), subDocument.getWord(i));
+            assertEquals(document.getSenses(12 + i), subDocument.getSenses(i));
+        }
+    }
+
+    @Test
+    public void testSameAsSequential() {
+        Document document = generateDocument(new Random(2));
+        RecordingDisambiguator sequentialDisambiguator = new RecordingDisambiguator();
+        Configuration expected = new LargeDocumentDisambiguator(sequentialDisambiguator, MAX_WORDS).disambiguate(document);
+
+        List<int[]> chunks = Collections.synchronizedList(new ArrayList<>());
+        Disambiguator disambiguator = new ParallelLargeDocumentDisambiguator(() -> new RecordingDisambiguator(chunks), MAX_WORDS, 0, null, 3);
+        try {
+            Configuration actual = disambiguator.disambiguate(document);
+            assertEquals(sequentialDisambiguator.chunks.size(), chunks.size());
+            chunks.sort(Comparator.comparingInt(chunk -> chunk[0]));
+            for (int c = 0; c < chunks.size(); c++) {
+                assertArrayEquals(new int[]{c * MAX_WORDS, Math.min((c + 1) * MAX_WORDS, DOCUMENT_SIZE)}, chunks.get(c));
+                assertArrayEquals(sequentialDisambiguator.chunks.get(c), chunks.get(c));
+            }
+            assertArrayEquals(expected.getAssignments(), actual.getAssignments());
+        } finally {
+            disambiguator.release();
+        }
+    }
+
+    @Test
+    public void testOverlappingChunks() {
+        Document document = generateDocument(new Random(3));
+        int overlap = 4;
+        List<int[]> chunks = Collections.synchronizedList(new ArrayList<>());
+        Disambiguator disambiguator = new ParallelLargeDocumentDisambiguator(() -> new RecordingDisambiguator(chunks), MAX_WORDS, overlap, null, 3);
+        try {
+            Configuration actual = disambiguator.disambiguate(document);
+            chunks.sort(Comparator.comparingInt(chunk -> chunk[0]));
+            int[] expected = new int[DOCUMENT_SIZE];
+            int start = 0;
+            for (int c = 0; c < chunks.size(); c++) {
+                int end = Math.min(start + MAX_WORDS, DOCUMENT_SIZE);
+                assertArrayEquals(new int[]{start, end}, chunks.get(c));
+                // Without a scorer the words of an overlap take the senses of the right chunk from its middle on
+                int from = c == 0 ? start : (start + chunks.get(c - 1)[1] + 1) / 2;
+                for (int i = from; i < end; i++) {
+                    expected[i] = RecordingDisambiguator.sense(document, i, i - start);
+                }
+                start = end - overlap;
+            }
+            assertEquals(DOCUMENT_SIZE, chunks.get(chunks.size() - 1)[1]);
+            assertArrayEquals(expected, actual.getAssignments());
+        } finally {
+            disambiguator.release();
+        }
+    }
+
+    /**
+     * Records the words of the documents it disambiguates and assigns senses that depend on the words and their
+     * positions in the document
+     */
+    private static final class RecordingDisambiguator implements Disambiguator {
+
+        private final List<int[]> chunks;
+
+        RecordingDisambiguator() {
+            this(new ArrayList<>());
+        }
+
+        RecordingDisambiguator(List<int[]> chunks) {
+            this.chunks = chunks;
+        }
+
+        static int sense(Document document, int index, int position) {
+            int senses = document.getSenses(index).size();
+            return senses == 0 ? -1 : (7 * wordIndex(document, index) + position) % senses;
+        }
+
+        private static int wordIndex(Document document, int index) {
+            return Integer.parseInt(document.getWord(index).getId().substring(1));
+        }
+
+        @Override
+        public Configuration disambiguate(Document document) {
+            chunks.add(new int[]{wordIndex(document, 0), wordIndex(document, document.size() - 1) + 1});
+            int[] senses = new int[document.size()];
+            for (int i = 0; i < senses.length; i++) {
+                senses[i] = sense(document, i, i);
+            }
+            return new ContinuousConfiguration(document, senses);
+        }
+
+        @Override
+        public Configuration disambiguate(Document document, Configuration c) {
+            return disambiguate(document);
+        }
+
+        @Override
+        public void release() {
+        }
+    }
+
+    /**
+     * Generates a document whose words have one to five senses, except a few that have none
+     */
+    private static Document generateDocument(Random random) {
+        DocumentFactory factory = DefaultDocumentFactory.DEFAULT;
+        Document document = factory.createDocument();
+        for (int i = 0; i < DOCUMENT_SIZE; i++) {
+            document.addWord(factory.createWord("w" + i, "l" + i, "l" + i, "n"));
+        }
+        for (int i = 0; i < DOCUMENT_SIZE; i++) {
+            List<Sense> senses = new ArrayList<>();
+            int count = random.nextInt(8) == 0 ? 0 : 1 + random.nextInt(5);
+            for (int k = 0; k < count; k++) {
+                senses.add(factory.createSense("w" + i + "%" + k));
+            }
+            document.addWordSenses(senses);
+        }
+        return document;
+    }
+}
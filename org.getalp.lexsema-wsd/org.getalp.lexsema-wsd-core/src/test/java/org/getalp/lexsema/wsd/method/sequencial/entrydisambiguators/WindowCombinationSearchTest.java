@@ -0,0 +1,138 @@
+package org.getalp.lexsema.wsd.method.sequencial.entrydisambiguators;
+
+import org.getalp.lexsema.similarity.DefaultDocumentFactory;
+import org.getalp.lexsema.similarity.Document;
+import org.getalp.lexsema.similarity.DocumentFactory;
+import org.getalp.lexsema.similarity.Sense;
+import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
+import org.getalp.lexsema.similarity.measures.lesk.SimpleLeskSimilarity;
+import org.getalp.lexsema.similarity.signatures.DefaultSemanticSignatureFactory;
+import org.getalp.lexsema.similarity.signatures.SemanticSignature;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the branch and bound search of the windows against the enumeration of all their combinations
+ */
+public class WindowCombinationSearchTest {
+
+    private static final int DOCUMENTS = 40;
+    private static final int DOCUMENT_SIZE = 14;
+
+    private final SimilarityMeasure similarityMeasure = new SimpleLeskSimilarity();
+
+    @Test
+    public void testSameAsEnumeration() {
+        Random random = new Random(1);
+        for (int d = 0; d < DOCUMENTS; d++) {
+            Document document = generateDocument(random, 2 + random.nextInt(5), 20 + random.nextInt(200), 5 + random.nextInt(10));
+            int window = 1 + random.nextInt(3);
+            for (int i = 0; i < document.size(); i++) {
+                int start = i <= window ? 0 : i - window;
+                int end = i + window < document.size() ? i + window : document.size();
+                String name = "document " + d + " word " + i;
+
+                double[] scores = enumerate(document, start, end);
+                double maximum = Double.NEGATIVE_INFINITY;
+                double minimum = Double.POSITIVE_INFINITY;
+                for (double score : scores) {
+                    maximum = Math.max(maximum, score);
+                    minimum = Math.min(minimum, score);
+                }
+                double threshold = .05 * (maximum - minimum);
+                long[] expectedCounts = new long[document.getSenses(i).size()];
+                int[] senseCounts = senseCounts(document, start, end);
+                for (int c = 0; c < scores.length; c++) {
+                    if (Math.abs(scores[c] - maximum) < threshold) {
+                        expectedCounts[senseOf(c, i - start, senseCounts)]++;
+                    }
+                }
+
+                WindowCombinationSearch search = new WindowCombinationSearch(document, similarityMeasure, start, end);
+                double searchMaximum = search.maximum();
+                double searchMinimum = search.minimum();
+                assertEquals(name, maximum, searchMaximum, 0);
+                assertEquals(name, minimum, searchMinimum, 0);
+                long[] counts = search.countNearMaximum(i - start, searchMaximum, .05 * (searchMaximum - searchMinimum));
+                assertArrayEquals(name, expectedCounts, counts);
+            }
+        }
+    }
+
+    /**
+     * @return The score of every combination of the window, the last word varying the fastest, summed as the
+     * configuration scorer sums them
+     */
+    private double[] enumerate(Document document, int start, int end) {
+        int[] senseCounts = senseCounts(document, start, end);
+        int combinations = 1;
+        for (int count : senseCounts) {
+            combinations *= count;
+        }
+        double[] scores = new double[combinations];
+        int[] assignment = new int[senseCounts.length];
+        for (int c = 0; c < combinations; c++) {
+            int rest = c;
+            for (int w = senseCounts.length - 1; w >= 0; w--) {
+                assignment[w] = rest % senseCounts[w];
+                rest /= senseCounts[w];
+            }
+            double score = 0;
+            for (int i = 0; i < senseCounts.length; i++) {
+                double entryScore = 0;
+                for (int j = i + 1; j < senseCounts.length; j++) {
+                    double value = document.getSenses(start, i).get(assignment[i]).computeSimilarityWith(similarityMeasure, document.getSenses(start, j).get(assignment[j]));
+                    entryScore += Double.isNaN(value) ? 0 : value;
+                }
+                score += entryScore;
+            }
+            scores[c] = score;
+        }
+        return scores;
+    }
+
+    private static int senseOf(int combination, int word, int[] senseCounts) {
+        int rest = combination;
+        for (int w = senseCounts.length - 1; w > word; w--) {
+            rest /= senseCounts[w];
+        }
+        return rest % senseCounts[word];
+    }
+
+    private static int[] senseCounts(Document document, int start, int end) {
+        int[] senseCounts = new int[end - start];
+        for (int i = 0; i < senseCounts.length; i++) {
+            senseCounts[i] = document.getSenses(start, i).size();
+        }
+        return senseCounts;
+    }
+
+    private static Document generateDocument(Random random, int maximumSenses, int vocabulary, int signatureLength) {
+        DocumentFactory factory = DefaultDocumentFactory.DEFAULT;
+        Document document = factory.createDocument();
+        for (int i = 0; i < DOCUMENT_SIZE; i++) {
+            document.addWord(factory.createWord("w" + i, "l" + i, "l" + i, "n"));
+        }
+        for (int i = 0; i < DOCUMENT_SIZE; i++) {
+            List<Sense> senses = new ArrayList<>();
+            int count = 1 + random.nextInt(maximumSenses);
+            for (int k = 0; k < count; k++) {
+                Sense sense = factory.createSense("w" + i + "%" + k);
+                SemanticSignature signature = DefaultSemanticSignatureFactory.DEFAULT.createSemanticSignature();
+                for (int t = 0; t < signatureLength; t++) {
+                    signature.addSymbol("s" + random.nextInt(vocabulary));
+                }
+                sense.setSemanticSignature(signature);
+                senses.add(sense);
+            }
+            document.addWordSenses(senses);
+        }
+        return document;
+    }
+}
@@ -0,0 +1,205 @@
+package org.getalp.lexsema.wsd.score;
+
+import org.getalp.lexsema.similarity.DefaultDocumentFactory;
+import org.getalp.lexsema.similarity.Document;
+import org.getalp.lexsema.similarity.DocumentFactory;
+import org.getalp.lexsema.similarity.Sense;
+import org.getalp.lexsema.similarity.measures.SimilarityMeasure;
+import org.getalp.lexsema.similarity.measures.lesk.SimpleLeskSimilarity;
+import org.getalp.lexsema.similarity.signatures.DefaultSemanticSignatureFactory;
+import org.getalp.lexsema.similarity.signatures.SemanticSignature;
+import org.getalp.lexsema.wsd.configuration.Configuration;
+import org.getalp.lexsema.wsd.configuration.ContinuousConfiguration;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that the score of a configuration updated from the words that changed is the score computed from scratch,
+ * after random moves that change one or several words, sometimes the same word twice
+ */
+public class ScoreDeltaTest {
+
+    private static final int DOCUMENT_SIZE = 16;
+    private static final int MOVES = 300;
+    private static final double DELTA = 1e-9;
+
+    private final SimilarityMeasure similarityMeasure = new SimpleLeskSimilarity();
+
+    @Test
+    public void testDeltaScoring() {
+        Random random = new Random(1);
+        Document document = generateDocument(random);
+        double[][][][] pairScores = new double[DOCUMENT_SIZE][][][];
+        for (int i = 0; i < DOCUMENT_SIZE; i++) {
+            pairScores[i] = new double[document.getSenses(i).size()][DOCUMENT_SIZE][];
+            for (int k = 0; k < pairScores[i].length; k++) {
+                for (int j = i + 1; j < DOCUMENT_SIZE; j++) {
+                    pairScores[i][k][j] = new double[document.getSenses(j).size()];
+                    for (int l = 0; l < pairScores[i][k][j].length; l++) {
+                        pairScores[i][k][j][l] = random.nextInt(10) / 4.;
+                    }
+                }
+            }
+        }
+        DeltaScoring.PairScore pairScore = (i, k, j, l) -> k < 0 || l < 0 ? 0 : pairScores[i][k][j][l];
+
+        ContinuousConfiguration configuration = new ContinuousConfiguration(document, randomSenses(random, document));
+        double score = fullScore(configuration, pairScore);
+        for (int m = 0; m < MOVES; m++) {
+            ContinuousConfiguration next = configuration.clone();
+            int[] changedIndices = move(random, next);
+            boolean[] changed = new boolean[next.size()];
+            int[] distinctChanges = DeltaScoring.distinctChanges(next.size(), changedIndices, changed);
+            if (distinctChanges != null) {
+                score = DeltaScoring.scoreDelta(score, configuration, next, distinctChanges, changed, pairScore);
+            } else {
+                score = fullScore(next, pairScore);
+            }
+            assertEquals("move " + m, fullScore(next, pairScore), score, DELTA);
+            configuration = next;
+        }
+    }
+
+    @Test
+    public void testConfigurationScorerWithCache() {
+        testSameAsComputeScore(new ConfigurationScorerWithCache(similarityMeasure));
+    }
+
+    @Test
+    public void testMultiThreadConfigurationScorerWithCache() {
+        IncrementalConfigurationScorer scorer = new MultiThreadConfigurationScorerWithCache(similarityMeasure);
+        try {
+            testSameAsComputeScore(scorer);
+        } finally {
+            scorer.release();
+        }
+    }
+
+    @Test
+    public void testForkJoinConfigurationScorer() {
+        testSameAsComputeScore(new ForkJoinConfigurationScorer(similarityMeasure, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    public void testTverskyConfigurationScorer() {
+        IncrementalConfigurationScorer scorer = new TverskyConfigurationScorer(similarityMeasure, 2);
+        try {
+            testSameAsComputeScore(scorer);
+        } finally {
+            scorer.release();
+        }
+    }
+
+    @Test
+    public void testPrecomputedConfigurationScorer() throws IOException {
+        File directory = Files.createTempDirectory("similarities").toFile();
+        IncrementalConfigurationScorer scorer = new PrecomputedConfigurationScorer(similarityMeasure, directory);
+        try {
+            testSameAsComputeScore(scorer);
+        } finally {
+            scorer.release();
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            directory.delete();
+        }
+    }
+
+    private void testSameAsComputeScore(IncrementalConfigurationScorer scorer) {
+        Random random = new Random(2);
+        Document document = generateDocument(random);
+        Configuration configuration = new ContinuousConfiguration(document, randomSenses(random, document));
+        double score = scorer.computeScore(document, configuration);
+        for (int m = 0; m < MOVES; m++) {
+            ContinuousConfiguration next = new ContinuousConfiguration(document, configuration.getAssignments());
+            int[] changedIndices = move(random, next);
+            score = scorer.scoreDelta(document, score, configuration, next, changedIndices);
+            assertEquals(scorer.getClass().getSimpleName() + " move " + m, scorer.computeScore(document, next), score, DELTA);
+            configuration = next;
+        }
+    }
+
+    /**
+     * Changes one to three words, the last one sometimes twice, or more than half of the words so that the scorers
+     * fall back to a full computation
+     *
+     * @return The changed indices, with the repeated ones
+     */
+    private static int[] move(Random random, ContinuousConfiguration configuration) {
+        int changes = random.nextInt(20) == 0 ? DOCUMENT_SIZE : 1 + random.nextInt(3);
+        List<Integer> changedIndices = new ArrayList<>();
+        for (int c = 0; c < changes; c++) {
+            int index = random.nextInt(configuration.size());
+            configuration.setSenseRandom(index, random);
+            changedIndices.add(index);
+        }
+        if (random.nextBoolean()) {
+            int index = changedIndices.get(changedIndices.size() - 1);
+            configuration.setSenseRandom(index, random);
+            changedIndices.add(index);
+        }
+        Collections.shuffle(changedIndices, random);
+        int[] indices = new int[changedIndices.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = changedIndices.get(i);
+        }
+        return indices;
+    }
+
+    private static double fullScore(Configuration configuration, DeltaScoring.PairScore pairScore) {
+        double score = 0;
+        for (int i = 0; i < configuration.size(); i++) {
+            for (int j = i + 1; j < configuration.size(); j++) {
+                score += pairScore.score(i, configuration.getAssignment(i), j, configuration.getAssignment(j));
+            }
+        }
+        return score;
+    }
+
+    private static int[] randomSenses(Random random, Document document) {
+        int[] senses = new int[document.size()];
+        for (int i = 0; i < senses.length; i++) {
+            senses[i] = random.nextInt(Math.max(1, document.getSenses(i).size()));
+        }
+        return senses;
+    }
+
+    /**
+     * Generates a document whose words have one to four senses, except one word that has none
+     */
+    private static Document generateDocument(Random random) {
+        DocumentFactory factory = DefaultDocumentFactory.DEFAULT;
+        Document document = factory.createDocument();
+        for (int i = 0; i < DOCUMENT_SIZE; i++) {
+            document.addWord(factory.createWord("w" + i, "l" + i, "l" + i, "n"));
+        }
+        for (int i = 0; i < DOCUMENT_SIZE; i++) {
+            List<Sense> senses = new ArrayList<>();
+            int count = i == DOCUMENT_SIZE / 2 ? 0 : 1 + random.nextInt(4);
+            for (int k = 0; k < count; k++) {
+                Sense sense = factory.createSense("w" + i + "%" + k);
+                SemanticSignature signature = DefaultSemanticSignatureFactory.DEFAULT.createSemanticSignature();
+                for (int t = 0; t < 8; t++) {
+                    signature.addSymbol("s" + random.nextInt(40));
+                }
+                sense.setSemanticSignature(signature);
+                senses.add(sense);
+            }
+            document.addWordSenses(senses);
+        }
+        return document;
+    }
+}